@@ -29,6 +29,8 @@ import org.eclipse.debug.core.model.IStreamsProxy;
 import org.eclipse.debug.ui.IDebugUIConstants;
 import org.eclipse.dltk.compiler.util.Util;
 import org.eclipse.dltk.console.IScriptConsoleInterpreter;
+import org.eclipse.dltk.console.IScriptConsoleInterpreter2;
+import org.eclipse.dltk.console.IScriptConsoleOutputListener;
 import org.eclipse.dltk.console.IScriptExecResult;
 import org.eclipse.dltk.console.IScriptInterpreter;
 import org.eclipse.dltk.console.ScriptConsoleHistory;
@@ -312,7 +314,18 @@ public class ScriptConsole extends TextConsole implements ICommandHandler,
 			((IScriptConsoleListener) listeners[i]).userRequest(userInput);
 		}
 
-		IScriptExecResult output = interpreter.exec(userInput);
+		IScriptExecResult output;
+		if (interpreter instanceof IScriptConsoleInterpreter2) {
+			output = ((IScriptConsoleInterpreter2) interpreter).exec(userInput,
+					new IScriptConsoleOutputListener() {
+						public void outputReceived(String chunk,
+								boolean isError) {
+							getDocumentListener().write(chunk, isError);
+						}
+					});
+		} else {
+			output = interpreter.exec(userInput);
+		}
 
 		if (interpreter.getState() == IScriptConsoleInterpreter.WAIT_NEW_COMMAND) {
 			prompt.setMode(true);
@@ -336,6 +349,26 @@ public class ScriptConsole extends TextConsole implements ICommandHandler,
 		getDocumentListener().executeCommand(command);
 	}
 
+	/**
+	 * Returns <code>true</code> if the running command could be interrupted.
+	 * 
+	 * @since 5.2
+	 */
+	public boolean canInterrupt() {
+		return interpreter instanceof IScriptConsoleInterpreter2;
+	}
+
+	/**
+	 * Interrupts the running command if the interpreter supports it.
+	 * 
+	 * @since 5.2
+	 */
+	public void interrupt() {
+		if (interpreter instanceof IScriptConsoleInterpreter2) {
+			((IScriptConsoleInterpreter2) interpreter).interrupt();
+		}
+	}
+
 	public void terminate() {
 		terminated = true;
 		try {
@@ -16,4 +16,8 @@ public class ScriptConsoleUIConstants {
 	
 	public static final String TERMINATE_ICON = "icon.terminate"; //$NON-NLS-1$
 	public static final String SAVE_SESSION_ICON = "icon.save_session"; //$NON-NLS-1$
+	/**
+	 * @since 5.2
+	 */
+	public static final String INTERRUPT_ICON = "icon.interrupt"; //$NON-NLS-1$
 }
@@ -83,7 +83,9 @@ public class ScriptConsoleUIPlugin extends AbstractUIPlugin {
 			{ "icons/elcl16/save.gif", //$NON-NLS-1$
 					ScriptConsoleUIConstants.SAVE_SESSION_ICON },
 			{ "icons/elcl16/terminate-red-square.gif", //$NON-NLS-1$
-					ScriptConsoleUIConstants.TERMINATE_ICON } };
+					ScriptConsoleUIConstants.TERMINATE_ICON },
+			{ "icons/elcl16/terminate.gif", //$NON-NLS-1$
+					ScriptConsoleUIConstants.INTERRUPT_ICON } };
 
 	protected void initializeImageRegistry(ImageRegistry registry) {
 		for (int i = 0; i < IMAGES.length; ++i) {
@@ -13,6 +13,7 @@ import org.eclipse.core.commands.IHandler;
 import org.eclipse.dltk.console.ScriptConsoleConstants;
 import org.eclipse.dltk.console.ui.ScriptConsole;
 import org.eclipse.dltk.console.ui.internal.actions.CloseScriptConsoleAction;
+import org.eclipse.dltk.console.ui.internal.actions.InterruptScriptConsoleAction;
 import org.eclipse.dltk.console.ui.internal.actions.SaveConsoleSessionAction;
 import org.eclipse.jface.action.GroupMarker;
 import org.eclipse.jface.action.IAction;
@@ -84,6 +85,14 @@ public class ScriptConsolePage extends TextConsolePage implements
 		toolbarManager.appendToGroup(ScriptConsoleConstants.SCRIPT_GROUP,
 				new Separator());
 
+		final ScriptConsole console = (ScriptConsole) getConsole();
+		if (console.canInterrupt()) {
+			toolbarManager.appendToGroup(ScriptConsoleConstants.SCRIPT_GROUP,
+					new InterruptScriptConsoleAction(console,
+							ScriptConsoleMessages.InterruptConsoleAction,
+							ScriptConsoleMessages.InterruptConsoleTooltip));
+		}
+
 		if (closeConsoleAction != null) {
 			toolbarManager.appendToGroup(ScriptConsoleConstants.SCRIPT_GROUP,
 					closeConsoleAction);
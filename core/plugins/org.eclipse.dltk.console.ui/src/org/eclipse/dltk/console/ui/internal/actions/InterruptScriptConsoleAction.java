@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console.ui.internal.actions;
+
+import org.eclipse.dltk.console.ui.ScriptConsole;
+import org.eclipse.dltk.console.ui.ScriptConsoleUIConstants;
+import org.eclipse.dltk.console.ui.ScriptConsoleUIPlugin;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.resource.ImageDescriptor;
+
+/**
+ * Interrupts the command running in the console.
+ */
+public class InterruptScriptConsoleAction extends Action {
+
+	private final ScriptConsole console;
+
+	public InterruptScriptConsoleAction(ScriptConsole console, String text,
+			String tooltip) {
+		this.console = console;
+
+		setText(text);
+		setToolTipText(tooltip);
+	}
+
+	public void run() {
+		console.interrupt();
+	}
+
+	public ImageDescriptor getImageDescriptor() {
+		return ScriptConsoleUIPlugin.getDefault().getImageDescriptor(
+				ScriptConsoleUIConstants.INTERRUPT_ICON);
+	}
+}
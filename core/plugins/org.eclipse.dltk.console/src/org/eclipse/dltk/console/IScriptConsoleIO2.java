@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console;
+
+import java.io.IOException;
+
+/**
+ * Extension of the {@link IScriptConsoleIO} delivering the interpreter output
+ * while the command is still running.
+ *
+ * @since 5.2
+ */
+public interface IScriptConsoleIO2 extends IScriptConsoleIO {
+
+	/**
+	 * Executes the command, the output is passed to the specified listener in
+	 * chunks as soon as it is received, so the content of the returned
+	 * response is empty.
+	 *
+	 * @param command
+	 * @param listener
+	 *            the listener to receive the output
+	 * @return the response or <code>null</code> if the command was cancelled
+	 *         or the connection is lost
+	 * @throws IOException
+	 */
+	InterpreterResponse execInterpreter(String command,
+			IScriptConsoleOutputListener listener) throws IOException;
+
+	/**
+	 * Cancels the currently executed command. Waiting for the response is
+	 * stopped and the <code>interrupt</code> shell command is sent to the
+	 * console server, so it could stop the command. The remaining part of the
+	 * response is skipped when it arrives, the same is done for the response
+	 * to the interrupt request, so the server should reply to it even if
+	 * interrupting is not supported. Could be called from any thread.
+	 */
+	void cancel();
+
+}
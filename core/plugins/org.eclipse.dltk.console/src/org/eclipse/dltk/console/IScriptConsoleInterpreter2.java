@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console;
+
+import java.io.IOException;
+
+/**
+ * Extension of the {@link IScriptConsoleInterpreter} delivering the output
+ * while the command is running and supporting the interruption of the
+ * command.
+ *
+ * @since 5.2
+ */
+public interface IScriptConsoleInterpreter2 extends IScriptConsoleInterpreter {
+
+	/**
+	 * Executes the command, passing its output to the specified listener as
+	 * soon as it is received, so the output of the returned result contains
+	 * only the remaining part of it (if any).
+	 *
+	 * @param command
+	 * @param listener
+	 * @return the result, could be <code>null</code> if the command was
+	 *         interrupted
+	 * @throws IOException
+	 */
+	IScriptExecResult exec(String command,
+			IScriptConsoleOutputListener listener) throws IOException;
+
+	/**
+	 * Interrupts the currently executed command. Could be called from any
+	 * thread.
+	 */
+	void interrupt();
+
+}
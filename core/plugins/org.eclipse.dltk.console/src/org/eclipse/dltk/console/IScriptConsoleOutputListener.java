@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console;
+
+/**
+ * Receives the interpreter output as it arrives.
+ *
+ * @see IScriptConsoleIO2#execInterpreter(String, IScriptConsoleOutputListener)
+ * @since 5.2
+ */
+public interface IScriptConsoleOutputListener {
+
+	/**
+	 * The next chunk of the output is received. Is called from the thread
+	 * executing the command.
+	 *
+	 * @param chunk
+	 * @param isError
+	 *            <code>true</code> if the output is produced to the error
+	 *            stream
+	 */
+	void outputReceived(String chunk, boolean isError);
+
+}
@@ -0,0 +1,485 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.console.ScriptConsoleResponseParser.Handler;
+import org.eclipse.dltk.core.DLTKCore;
+
+/**
+ * The {@link IScriptConsoleIO2} implementation working with the non-blocking
+ * {@link SocketChannel}. Responses are parsed incrementally as the bytes
+ * arrive, the interpreter output could be delivered to the
+ * {@link IScriptConsoleOutputListener} before the command is completed.
+ *
+ * @since 5.2
+ */
+public class NioScriptConsoleIO implements IScriptConsoleIO2 {
+
+	private static final String INTERPRETER = "interpreter"; //$NON-NLS-1$
+
+	private static final String SHELL = "shell"; //$NON-NLS-1$
+
+	private static final String INTERRUPT = "interrupt"; //$NON-NLS-1$
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	private static final int LENGTH_SIZE = 10;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final SocketChannel channel;
+	private final Selector selector;
+	private final SelectionKey key;
+	private final int timeout;
+	private final String id;
+
+	private final Object lock = new Object();
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private volatile boolean cancelled;
+	private boolean closed;
+
+	/*
+	 * The state of the response being read, preserved when waiting is
+	 * interrupted, so the rest of the cancelled response is skipped later.
+	 */
+	private final byte[] header = new byte[LENGTH_SIZE];
+	private int headerPos = 0;
+	private int bodyRemaining = -1;
+	private ScriptConsoleResponseParser parser;
+	/**
+	 * Number of responses to the cancelled commands, which were not started
+	 * yet
+	 */
+	private int pendingDiscards = 0;
+
+	/**
+	 * @param channel
+	 *            the connected channel
+	 * @param timeout
+	 *            the maximum time in milliseconds to wait for the data, 0
+	 *            means no limit
+	 * @throws IOException
+	 */
+	public NioScriptConsoleIO(SocketChannel channel, int timeout)
+			throws IOException {
+		if (channel == null) {
+			throw new IllegalArgumentException();
+		}
+		this.channel = channel;
+		this.timeout = timeout;
+		channel.configureBlocking(false);
+		this.selector = Selector.open();
+		this.key = channel.register(selector, SelectionKey.OP_READ);
+		buffer.flip();
+
+		final InfoHandler handler = new InfoHandler();
+		synchronized (lock) {
+			parser = new ScriptConsoleResponseParser(handler);
+			if (!readResponse()) {
+				parser = null;
+			}
+		}
+		this.id = handler.id;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public InputStream getInitialResponseStream() {
+		return new InputStream() {
+			boolean finished = false;
+
+			@Override
+			public int read() throws IOException {
+				final byte[] b = new byte[1];
+				return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				synchronized (lock) {
+					if (finished) {
+						return -1;
+					}
+					if (!buffer.hasRemaining()) {
+						cancelled = false;
+						if (!fill()) {
+							finished = true;
+							return -1;
+						}
+					}
+					int count = 0;
+					while (count < len && buffer.hasRemaining()) {
+						final byte value = buffer.get();
+						if (value == 0) {
+							finished = true;
+							break;
+						}
+						b[off + count++] = value;
+					}
+					return count == 0 ? -1 : count;
+				}
+			}
+		};
+	}
+
+	public InterpreterResponse execInterpreter(String command)
+			throws IOException {
+		return execInterpreter(command, null);
+	}
+
+	public InterpreterResponse execInterpreter(String command,
+			IScriptConsoleOutputListener listener) throws IOException {
+		final InterpreterHandler handler = new InterpreterHandler(listener);
+		if (!exec(INTERPRETER + "\n" + command + "\n", handler)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+		return handler.getResponse();
+	}
+
+	public ShellResponse execShell(String command, String[] args)
+			throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(SHELL).append('\n');
+		sb.append(command).append('\n');
+		for (int i = 0; i < args.length; ++i) {
+			sb.append(args[i]).append('\n');
+		}
+		final ShellHandler handler = new ShellHandler();
+		if (!exec(sb.toString(), handler)) {
+			return null;
+		}
+		return handler.getResponse();
+	}
+
+	public void cancel() {
+		cancelled = true;
+		selector.wakeup();
+	}
+
+	public void close() throws IOException {
+		cancel();
+		synchronized (lock) {
+			closed = true;
+			selector.close();
+			channel.close();
+		}
+	}
+
+	/**
+	 * Sends the request and reads the response
+	 *
+	 * @return <code>true</code> if the response was read completely
+	 */
+	private boolean exec(String request, Handler handler) throws IOException {
+		synchronized (lock) {
+			if (closed) {
+				return false;
+			}
+			cancelled = false;
+			write(request.getBytes(ENCODING));
+			if (!skipCancelled()) {
+				++pendingDiscards;
+				interrupt();
+				return false;
+			}
+			parser = new ScriptConsoleResponseParser(handler);
+			if (!readResponse()) {
+				parser = null;
+				if (!isResponseStarted()) {
+					++pendingDiscards;
+				}
+				interrupt();
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Asks the console server to interrupt the running command if waiting was
+	 * cancelled. The server replies to the interrupt request as to any other
+	 * shell command, that response is skipped too.
+	 */
+	private void interrupt() throws IOException {
+		if (!cancelled || closed) {
+			return;
+		}
+		cancelled = false;
+		write((SHELL + "\n" + INTERRUPT + "\n").getBytes(ENCODING)); //$NON-NLS-1$ //$NON-NLS-2$
+		++pendingDiscards;
+	}
+
+	private boolean isResponseStarted() {
+		return headerPos != 0 || bodyRemaining >= 0;
+	}
+
+	/**
+	 * Skips the responses of the cancelled commands
+	 */
+	private boolean skipCancelled() throws IOException {
+		while (isResponseStarted() || pendingDiscards > 0) {
+			final boolean fresh = !isResponseStarted();
+			parser = null;
+			final boolean completed = readResponse();
+			if (fresh && (completed || isResponseStarted())) {
+				--pendingDiscards;
+			}
+			if (!completed) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the response (or the remaining part of it) feeding the current
+	 * parser.
+	 *
+	 * @return <code>true</code> if the response was read completely,
+	 *         <code>false</code> if waiting was cancelled or timed out
+	 */
+	private boolean readResponse() throws IOException {
+		while (bodyRemaining < 0) {
+			if (!buffer.hasRemaining() && !fill()) {
+				return false;
+			}
+			header[headerPos++] = buffer.get();
+			if (headerPos == LENGTH_SIZE) {
+				headerPos = 0;
+				final String length = new String(header, ENCODING).trim();
+				try {
+					bodyRemaining = Integer.parseInt(length);
+				} catch (NumberFormatException e) {
+					bodyRemaining = -1;
+				}
+				if (bodyRemaining < 0) {
+					throw new IOException("Invalid response length: " + length); //$NON-NLS-1$
+				}
+			}
+		}
+		while (bodyRemaining > 0) {
+			if (!buffer.hasRemaining() && !fill()) {
+				return false;
+			}
+			final int count = Math.min(bodyRemaining, buffer.remaining());
+			if (parser != null) {
+				final ByteBuffer portion = buffer.slice();
+				portion.limit(count);
+				parser.feed(portion);
+			}
+			buffer.position(buffer.position() + count);
+			bodyRemaining -= count;
+		}
+		bodyRemaining = -1;
+		if (parser != null) {
+			parser.end();
+			parser = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the available data into the buffer, waiting for it if needed.
+	 *
+	 * @return <code>true</code> if some data were read, <code>false</code> if
+	 *         waiting was cancelled, timed out or the channel was closed
+	 */
+	private boolean fill() throws IOException {
+		buffer.clear();
+		try {
+			long deadline = timeout > 0 ? System.currentTimeMillis() + timeout
+					: 0;
+			for (;;) {
+				if (cancelled || closed) {
+					return false;
+				}
+				final int count = channel.read(buffer);
+				if (count < 0) {
+					closed = true;
+					return false;
+				}
+				if (count > 0) {
+					return true;
+				}
+				long wait = 0;
+				if (deadline != 0) {
+					wait = deadline - System.currentTimeMillis();
+					if (wait <= 0) {
+						if (DLTKCore.DEBUG) {
+							System.out.println("Console response timeout"); //$NON-NLS-1$
+						}
+						return false;
+					}
+				}
+				selector.select(wait);
+				selector.selectedKeys().clear();
+			}
+		} finally {
+			buffer.flip();
+		}
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		final ByteBuffer data = ByteBuffer.wrap(bytes);
+		while (data.hasRemaining()) {
+			if (channel.write(data) != 0) {
+				continue;
+			}
+			key.interestOps(SelectionKey.OP_WRITE);
+			try {
+				if (selector.select(timeout) == 0 && !cancelled) {
+					throw new SocketTimeoutException();
+				}
+				selector.selectedKeys().clear();
+			} finally {
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	private static class InfoHandler implements Handler {
+		String id;
+
+		public void startElement(String name, Map<String, String> attributes) {
+			if ("info".equals(name) && id == null) { //$NON-NLS-1$
+				id = attributes.get("id"); //$NON-NLS-1$
+			}
+		}
+
+		public void endElement(String name) {
+		}
+
+		public void text(String text) {
+		}
+	}
+
+	private static class InterpreterHandler implements Handler {
+		private final IScriptConsoleOutputListener listener;
+		private final StringBuilder content = new StringBuilder();
+		private boolean inside;
+		private boolean found;
+		private int state = -1;
+		private boolean isError;
+
+		public InterpreterHandler(IScriptConsoleOutputListener listener) {
+			this.listener = listener;
+		}
+
+		public void startElement(String name, Map<String, String> attributes) {
+			if (!found && "interpreter".equals(name)) { //$NON-NLS-1$
+				found = true;
+				inside = true;
+				final String value = attributes.get("state"); //$NON-NLS-1$
+				if (value != null) {
+					state = ScriptConsoleXmlHelper.convertState(value);
+				}
+				isError = "stderr".equals(attributes.get("stream")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		public void endElement(String name) {
+			if ("interpreter".equals(name)) { //$NON-NLS-1$
+				inside = false;
+			}
+		}
+
+		public void text(String text) {
+			if (inside) {
+				if (listener != null) {
+					listener.outputReceived(text, isError);
+				} else {
+					content.append(text);
+				}
+			}
+		}
+
+		InterpreterResponse getResponse() {
+			if (!found) {
+				return null;
+			}
+			return new InterpreterResponse(state, isError, content.toString());
+		}
+	}
+
+	private static class ShellHandler implements Handler {
+		private List<ScriptConsoleCompletionProposal> completions;
+		private StringBuilder description;
+		private boolean close;
+		private String current;
+
+		public void startElement(String name, Map<String, String> attributes) {
+			if ("completion".equals(name)) { //$NON-NLS-1$
+				if (completions == null) {
+					completions = new ArrayList<ScriptConsoleCompletionProposal>();
+				}
+			} else if ("case".equals(name)) { //$NON-NLS-1$
+				if (completions != null) {
+					completions.add(new ScriptConsoleCompletionProposal(
+							value(attributes, "insert"), //$NON-NLS-1$
+							value(attributes, "display"), //$NON-NLS-1$
+							value(attributes, "type"))); //$NON-NLS-1$
+				}
+			} else if ("description".equals(name)) { //$NON-NLS-1$
+				if (description == null) {
+					description = new StringBuilder();
+				}
+			} else if ("close".equals(name)) { //$NON-NLS-1$
+				close = true;
+			}
+			current = name;
+		}
+
+		public void endElement(String name) {
+			current = null;
+		}
+
+		public void text(String text) {
+			if ("description".equals(current)) { //$NON-NLS-1$
+				description.append(text);
+			}
+		}
+
+		private static String value(Map<String, String> attributes,
+				String name) {
+			final String value = attributes.get(name);
+			return value != null ? value : ""; //$NON-NLS-1$
+		}
+
+		ShellResponse getResponse() {
+			if (completions != null) {
+				return new ShellResponse(completions);
+			} else if (description != null) {
+				return new ShellResponse(description.toString());
+			} else if (close) {
+				return new ShellResponse();
+			}
+			return null;
+		}
+	}
+
+}
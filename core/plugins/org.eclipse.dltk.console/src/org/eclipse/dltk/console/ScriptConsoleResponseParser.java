@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incremental parser of the console responses. The bytes are fed as they
+ * arrive, the text content is reported to the {@link Handler} at the end of
+ * each fed portion, so the large content is never accumulated here.
+ *
+ * <p>
+ * Supports the subset of XML used by the console protocol: elements,
+ * attributes, character and predefined entities, CDATA sections. Processing
+ * instructions, comments and the doctype are skipped.
+ * </p>
+ *
+ * @since 5.2
+ */
+public class ScriptConsoleResponseParser {
+
+	public interface Handler {
+		void startElement(String name, Map<String, String> attributes);
+
+		void endElement(String name);
+
+		void text(String text);
+	}
+
+	private static final int TEXT = 0;
+	private static final int TAG = 1;
+	private static final int ENTITY = 2;
+	private static final int CDATA = 3;
+	private static final int SKIP = 4;
+
+	private static final String CDATA_START = "![CDATA["; //$NON-NLS-1$
+	private static final String CDATA_END = "]]>"; //$NON-NLS-1$
+	private static final String COMMENT_START = "!--"; //$NON-NLS-1$
+	private static final String COMMENT_END = "-->"; //$NON-NLS-1$
+
+	/**
+	 * Longest supported entity, longer sequences are treated as text
+	 */
+	private static final int MAX_ENTITY_LENGTH = 10;
+
+	private final Handler handler;
+	private final CharsetDecoder decoder = Charset.forName("UTF-8") //$NON-NLS-1$
+			.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final CharBuffer chars = CharBuffer.allocate(4096);
+	/**
+	 * Incomplete multi-byte character at the end of the previous portion
+	 */
+	private final ByteBuffer carry = ByteBuffer.allocate(8);
+
+	private int state = TEXT;
+	private final StringBuilder text = new StringBuilder();
+	private final StringBuilder markup = new StringBuilder();
+	private char quote;
+	private String skipEnd;
+
+	public ScriptConsoleResponseParser(Handler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Processes the next portion of the response
+	 */
+	public void feed(ByteBuffer bytes) {
+		// complete the character split between the portions
+		while (carry.position() != 0 && bytes.hasRemaining()) {
+			carry.put(bytes.get());
+			carry.flip();
+			decoder.decode(carry, chars, false);
+			carry.compact();
+			process();
+		}
+		for (;;) {
+			final CoderResult result = decoder.decode(bytes, chars, false);
+			process();
+			if (!result.isOverflow()) {
+				break;
+			}
+		}
+		if (bytes.hasRemaining()) {
+			carry.put(bytes);
+		}
+		flushText();
+	}
+
+	/**
+	 * Completes processing of the response
+	 */
+	public void end() {
+		carry.flip();
+		decoder.decode(carry, chars, true);
+		carry.clear();
+		decoder.flush(chars);
+		process();
+		if (state == ENTITY) {
+			text.append('&').append(markup);
+			state = TEXT;
+		}
+		flushText();
+	}
+
+	private void process() {
+		chars.flip();
+		while (chars.hasRemaining()) {
+			process(chars.get());
+		}
+		chars.clear();
+	}
+
+	private void process(char c) {
+		switch (state) {
+		case TEXT:
+			if (c == '<') {
+				flushText();
+				markup.setLength(0);
+				quote = 0;
+				state = TAG;
+			} else if (c == '&') {
+				markup.setLength(0);
+				state = ENTITY;
+			} else {
+				text.append(c);
+			}
+			break;
+		case ENTITY:
+			if (c == ';') {
+				text.append(resolveEntity(markup.toString()));
+				state = TEXT;
+			} else if (markup.length() >= MAX_ENTITY_LENGTH) {
+				text.append('&').append(markup);
+				state = TEXT;
+				process(c);
+			} else {
+				markup.append(c);
+			}
+			break;
+		case TAG:
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+				markup.append(c);
+			} else if (c == '>') {
+				handleTag(markup.toString());
+				state = TEXT;
+			} else {
+				if (c == '"' || c == '\'') {
+					quote = c;
+				}
+				markup.append(c);
+				if (markup.length() == CDATA_START.length()
+						&& CDATA_START.contentEquals(markup)) {
+					state = CDATA;
+				} else if (markup.length() == COMMENT_START.length()
+						&& COMMENT_START.contentEquals(markup)) {
+					markup.setLength(0);
+					skipEnd = COMMENT_END;
+					state = SKIP;
+				}
+			}
+			break;
+		case CDATA:
+			text.append(c);
+			if (endsWith(text, CDATA_END)) {
+				text.setLength(text.length() - CDATA_END.length());
+				state = TEXT;
+			}
+			break;
+		case SKIP:
+			markup.append(c);
+			if (endsWith(markup, skipEnd)) {
+				state = TEXT;
+			} else if (markup.length() > skipEnd.length()) {
+				markup.delete(0, markup.length() - skipEnd.length());
+			}
+			break;
+		}
+	}
+
+	private void flushText() {
+		int length = text.length();
+		if (state == CDATA) {
+			// the part of the end marker could be there
+			length = Math.max(0, length - (CDATA_END.length() - 1));
+		}
+		if (length != 0) {
+			handler.text(text.substring(0, length));
+			text.delete(0, length);
+		}
+	}
+
+	private void handleTag(String tag) {
+		if (tag.length() == 0 || tag.charAt(0) == '?' || tag.charAt(0) == '!') {
+			// processing instruction or doctype
+			return;
+		}
+		if (tag.charAt(0) == '/') {
+			handler.endElement(tag.substring(1).trim());
+			return;
+		}
+		boolean empty = false;
+		int end = tag.length();
+		if (tag.charAt(end - 1) == '/') {
+			empty = true;
+			--end;
+		}
+		int pos = 0;
+		while (pos < end && !Character.isWhitespace(tag.charAt(pos))) {
+			++pos;
+		}
+		final String name = tag.substring(0, pos);
+		final Map<String, String> attributes = new HashMap<String, String>();
+		while (pos < end) {
+			final int eq = tag.indexOf('=', pos);
+			if (eq < 0 || eq >= end) {
+				break;
+			}
+			final String attrName = tag.substring(pos, eq).trim();
+			int start = eq + 1;
+			while (start < end && Character.isWhitespace(tag.charAt(start))) {
+				++start;
+			}
+			if (start >= end) {
+				break;
+			}
+			final char q = tag.charAt(start);
+			final int valueEnd = tag.indexOf(q, start + 1);
+			if ((q != '"' && q != '\'') || valueEnd < 0 || valueEnd > end) {
+				break;
+			}
+			attributes.put(attrName, decode(tag.substring(start + 1,
+					valueEnd)));
+			pos = valueEnd + 1;
+		}
+		handler.startElement(name, attributes);
+		if (empty) {
+			handler.endElement(name);
+		}
+	}
+
+	private static boolean endsWith(StringBuilder sb, String suffix) {
+		final int offset = sb.length() - suffix.length();
+		if (offset < 0) {
+			return false;
+		}
+		for (int i = 0; i < suffix.length(); ++i) {
+			if (sb.charAt(offset + i) != suffix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String decode(String value) {
+		int amp = value.indexOf('&');
+		if (amp < 0) {
+			return value;
+		}
+		final StringBuilder sb = new StringBuilder(value.length());
+		int pos = 0;
+		while (amp >= 0) {
+			final int semicolon = value.indexOf(';', amp);
+			if (semicolon < 0) {
+				break;
+			}
+			sb.append(value, pos, amp);
+			sb.append(resolveEntity(value.substring(amp + 1, semicolon)));
+			pos = semicolon + 1;
+			amp = value.indexOf('&', pos);
+		}
+		sb.append(value, pos, value.length());
+		return sb.toString();
+	}
+
+	private static String resolveEntity(String entity) {
+		if ("lt".equals(entity)) { //$NON-NLS-1$
+			return "<"; //$NON-NLS-1$
+		} else if ("gt".equals(entity)) { //$NON-NLS-1$
+			return ">"; //$NON-NLS-1$
+		} else if ("amp".equals(entity)) { //$NON-NLS-1$
+			return "&"; //$NON-NLS-1$
+		} else if ("quot".equals(entity)) { //$NON-NLS-1$
+			return "\""; //$NON-NLS-1$
+		} else if ("apos".equals(entity)) { //$NON-NLS-1$
+			return "'"; //$NON-NLS-1$
+		} else if (entity.length() > 1 && entity.charAt(0) == '#') {
+			try {
+				final int code;
+				if (entity.charAt(1) == 'x' || entity.charAt(1) == 'X') {
+					code = Integer.parseInt(entity.substring(2), 16);
+				} else {
+					code = Integer.parseInt(entity.substring(1));
+				}
+				return new String(Character.toChars(code));
+			} catch (IllegalArgumentException e) {
+				// fall through
+			}
+		}
+		return '&' + entity + ';';
+	}
+
+}
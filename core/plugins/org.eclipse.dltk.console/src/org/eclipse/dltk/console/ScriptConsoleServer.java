@@ -10,8 +10,10 @@
 package org.eclipse.dltk.console;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,6 +23,11 @@ public class ScriptConsoleServer implements Runnable {
 
 	protected static final boolean DEBUG = false;
 
+	/**
+	 * Maximum time in milliseconds to wait for the data from the client
+	 */
+	private static final int CLIENT_TIMEOUT = 30000;
+
 	private static ScriptConsoleServer instance;
 
 	public static synchronized ScriptConsoleServer getInstance() {
@@ -78,17 +85,17 @@ public class ScriptConsoleServer implements Runnable {
 
 	public void run() {
 		try {
-			ServerSocket server = new ServerSocket(port);
+			ServerSocketChannel server = ServerSocketChannel.open();
+			server.socket().bind(new InetSocketAddress(port));
 
 			while (true) {
-				final Socket client = server.accept();
-				client.setSoTimeout(30000);
+				final SocketChannel client = server.accept();
 
 				Thread clientHandler = new Thread(new Runnable() {
 					public void run() {
 						try {
-							SocketScriptConsoleIO proxy = new SocketScriptConsoleIO(
-									client);
+							IScriptConsoleIO proxy = new NioScriptConsoleIO(
+									client, CLIENT_TIMEOUT);
 
 							String id = proxy.getId();
 
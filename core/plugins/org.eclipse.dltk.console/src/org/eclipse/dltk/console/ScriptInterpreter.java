@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The base {@link IScriptInterpreter} implementation executing the commands
+ * via the {@link IScriptConsoleIO} connected by the {@link ScriptConsoleServer}
+ * . If the connection is {@link IScriptConsoleIO2} the output is streamed to
+ * the console and the commands could be interrupted.
+ *
+ * The names of the language specific objects are provided by the subclasses.
+ *
+ * @since 5.2
+ */
+public abstract class ScriptInterpreter implements IScriptInterpreter,
+		IScriptConsoleInterpreter2 {
+
+	private static final String COMPLETE = "complete"; //$NON-NLS-1$
+
+	private static final String DESCRIBE = "describe"; //$NON-NLS-1$
+
+	private static final String CLOSE = "close"; //$NON-NLS-1$
+
+	private volatile IScriptConsoleIO protocol;
+
+	private volatile int state = WAIT_NEW_COMMAND;
+
+	private final List<Runnable> initialListeners = new ArrayList<Runnable>();
+
+	protected IScriptConsoleIO getProtocol() {
+		return protocol;
+	}
+
+	public void consoleConnected(IScriptConsoleIO protocol) {
+		final Runnable[] listeners;
+		synchronized (initialListeners) {
+			this.protocol = protocol;
+			listeners = initialListeners
+					.toArray(new Runnable[initialListeners.size()]);
+			initialListeners.clear();
+		}
+		for (int i = 0; i < listeners.length; ++i) {
+			final Thread thread = new Thread(listeners[i]);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	public void addInitialListenerOperation(Runnable runnable) {
+		synchronized (initialListeners) {
+			if (protocol == null) {
+				initialListeners.add(runnable);
+				return;
+			}
+		}
+		final Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public InputStream getInitialOutputStream() {
+		final IScriptConsoleIO protocol = this.protocol;
+		return protocol != null ? protocol.getInitialResponseStream() : null;
+	}
+
+	public boolean isValid() {
+		return protocol != null;
+	}
+
+	public int getState() {
+		return state;
+	}
+
+	public IScriptExecResult exec(String command) throws IOException {
+		return exec(command, null);
+	}
+
+	public IScriptExecResult exec(String command,
+			IScriptConsoleOutputListener listener) throws IOException {
+		final IScriptConsoleIO protocol = this.protocol;
+		if (protocol == null) {
+			return null;
+		}
+		final InterpreterResponse response;
+		if (listener != null && protocol instanceof IScriptConsoleIO2) {
+			response = ((IScriptConsoleIO2) protocol).execInterpreter(command,
+					listener);
+		} else {
+			response = protocol.execInterpreter(command);
+		}
+		if (response == null) {
+			state = WAIT_NEW_COMMAND;
+			return null;
+		}
+		state = response.getState();
+		return new ScriptExecResult(response.getContent(), response.isError());
+	}
+
+	public List getCompletions(String commandLine, int position)
+			throws IOException {
+		final ShellResponse response = execShell(COMPLETE, commandLine,
+				position);
+		if (response == null || response.getCompletions() == null) {
+			return Collections.EMPTY_LIST;
+		}
+		return response.getCompletions();
+	}
+
+	public String getDescription(String commandLine, int position)
+			throws IOException {
+		final ShellResponse response = execShell(DESCRIBE, commandLine,
+				position);
+		return response != null ? response.getDescription() : null;
+	}
+
+	private ShellResponse execShell(String command, String commandLine,
+			int position) throws IOException {
+		final IScriptConsoleIO protocol = this.protocol;
+		if (protocol == null) {
+			return null;
+		}
+		return protocol.execShell(command, new String[] { commandLine,
+				Integer.toString(position) });
+	}
+
+	public void interrupt() {
+		final IScriptConsoleIO protocol = this.protocol;
+		if (protocol instanceof IScriptConsoleIO2) {
+			((IScriptConsoleIO2) protocol).cancel();
+		}
+	}
+
+	public void close() throws IOException {
+		final IScriptConsoleIO protocol = this.protocol;
+		if (protocol != null) {
+			if (protocol instanceof IScriptConsoleIO2) {
+				((IScriptConsoleIO2) protocol).cancel();
+			}
+			try {
+				protocol.execShell(CLOSE, new String[0]);
+			} finally {
+				protocol.close();
+			}
+		}
+	}
+
+}
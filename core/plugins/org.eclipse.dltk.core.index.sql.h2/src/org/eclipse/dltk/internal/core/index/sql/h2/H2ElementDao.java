@@ -206,6 +206,9 @@ public class H2ElementDao implements IElementDao {
 				H2Index.warn("MatchRule.CAMEL_CASE is not supported by element references search."); //$NON-NLS-1$
 				matchRule = MatchRule.EXACT;
 			}
+			if (isReference && matchRule == MatchRule.CAMEL_CASE_OR_PREFIX) {
+				matchRule = MatchRule.PREFIX;
+			}
 
 			// Exact pattern
 			if (matchRule == MatchRule.EXACT) {
@@ -222,6 +225,12 @@ public class H2ElementDao implements IElementDao {
 				query.append(" AND CC_NAME LIKE ?");
 				parameters.add(escapeLikePattern(pattern) + "%");
 			}
+			// Camel-case or prefix, in one pass
+			else if (matchRule == MatchRule.CAMEL_CASE_OR_PREFIX) {
+				query.append(" AND (CC_NAME LIKE ? OR NAME LIKE ?)");
+				parameters.add(escapeLikePattern(pattern) + "%");
+				parameters.add(escapeLikePattern(pattern) + "%");
+			}
 			// Set of names
 			else if (matchRule == MatchRule.SET) {
 				String[] patternSet = SEPARATOR_PATTERN.split(pattern);
@@ -284,6 +293,13 @@ public class H2ElementDao implements IElementDao {
 			query = begin;
 		}
 
+		// Prefix matches go first, so the limited result keeps the best ones
+		if (pattern != null && pattern.length() > 0
+				&& matchRule == MatchRule.CAMEL_CASE_OR_PREFIX) {
+			query.append(" ORDER BY CASE WHEN NAME LIKE ? THEN 0 ELSE 1 END, NAME");
+			parameters.add(escapeLikePattern(pattern) + "%");
+		}
+
 		// Records limit
 		if (limit > 0) {
 			query.append(" LIMIT ").append(limit);
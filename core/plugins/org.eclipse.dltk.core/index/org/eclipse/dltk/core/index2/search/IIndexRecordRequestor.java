@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.index2.search;
+
+/**
+ * Receives the records found by
+ * {@link ModelAccess#findRecords(int, String, String, ISearchEngine.MatchRule, int, int, int, boolean, org.eclipse.dltk.core.search.IDLTKSearchScope, IIndexRecordRequestor, org.eclipse.core.runtime.IProgressMonitor)}
+ * as they are read from the index.
+ *
+ * @since 5.2
+ */
+public interface IIndexRecordRequestor {
+
+	/**
+	 * Accepts the record found in the index.
+	 *
+	 * @param record
+	 *            the found record
+	 * @return <code>true</code> to continue the search or <code>false</code>
+	 *         to stop it
+	 */
+	boolean accept(IndexRecord record);
+
+}
@@ -47,6 +47,15 @@ public interface ISearchEngine {
 		 * The name is a POSIX pattern ('*' - any string, '?' - any character)
 		 */
 		PATTERN,
+
+		/**
+		 * The pattern matches either as {@link #CAMEL_CASE} or as
+		 * {@link #PREFIX}. Both rules are evaluated in a single index pass and
+		 * the prefix matches are reported first.
+		 * 
+		 * @since 5.2
+		 */
+		CAMEL_CASE_OR_PREFIX,
 	}
 
 	public enum SearchFor {
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.index2.search;
+
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.index2.IElementResolver;
+
+/**
+ * The element found in the index. The model element is resolved only when it
+ * is requested with {@link #getElement()}, so the records could be filtered or
+ * displayed without creating the handles for all of them.
+ *
+ * @since 5.2
+ */
+public class IndexRecord {
+
+	private final IElementResolver resolver;
+	private final int elementType;
+	private final int flags;
+	private final int offset;
+	private final int length;
+	private final int nameOffset;
+	private final int nameLength;
+	private final String elementName;
+	private final String metadata;
+	private final String doc;
+	private final String qualifier;
+	private final String parent;
+	private final ISourceModule sourceModule;
+
+	private boolean resolved;
+	private IModelElement element;
+
+	public IndexRecord(IElementResolver resolver, int elementType, int flags,
+			int offset, int length, int nameOffset, int nameLength,
+			String elementName, String metadata, String doc, String qualifier,
+			String parent, ISourceModule sourceModule) {
+		this.resolver = resolver;
+		this.elementType = elementType;
+		this.flags = flags;
+		this.offset = offset;
+		this.length = length;
+		this.nameOffset = nameOffset;
+		this.nameLength = nameLength;
+		this.elementName = elementName;
+		this.metadata = metadata;
+		this.doc = doc;
+		this.qualifier = qualifier;
+		this.parent = parent;
+		this.sourceModule = sourceModule;
+	}
+
+	public int getElementType() {
+		return elementType;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getNameOffset() {
+		return nameOffset;
+	}
+
+	public int getNameLength() {
+		return nameLength;
+	}
+
+	public String getElementName() {
+		return elementName;
+	}
+
+	public String getMetadata() {
+		return metadata;
+	}
+
+	public String getDoc() {
+		return doc;
+	}
+
+	/**
+	 * Returns the element qualifier (package name, for example)
+	 */
+	public String getQualifier() {
+		return qualifier;
+	}
+
+	/**
+	 * Returns the element parent (declaring type, for example)
+	 */
+	public String getParent() {
+		return parent;
+	}
+
+	public ISourceModule getSourceModule() {
+		return sourceModule;
+	}
+
+	/**
+	 * Resolves the model element of this record. The element is resolved once
+	 * and cached.
+	 *
+	 * @return the model element or <code>null</code> if it could not be
+	 *         resolved
+	 */
+	public synchronized IModelElement getElement() {
+		if (!resolved) {
+			element = resolver.resolve(elementType, flags, offset, length,
+					nameOffset, nameLength, elementName, metadata, doc,
+					qualifier, parent, sourceModule);
+			resolved = true;
+		}
+		return element;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		if (qualifier != null && qualifier.length() != 0) {
+			sb.append(qualifier).append(':');
+		}
+		if (parent != null && parent.length() != 0) {
+			sb.append(parent).append('.');
+		}
+		sb.append(elementName);
+		if (sourceModule != null) {
+			sb.append(" - ").append(sourceModule.getPath()); //$NON-NLS-1$
+		}
+		return sb.toString();
+	}
+}
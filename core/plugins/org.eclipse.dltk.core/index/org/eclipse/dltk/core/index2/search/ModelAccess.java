@@ -11,11 +11,16 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.index2.search;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 import org.eclipse.dltk.core.DLTKLanguageManager;
 import org.eclipse.dltk.core.IDLTKLanguageToolkit;
 import org.eclipse.dltk.core.IField;
@@ -246,6 +251,16 @@ public class ModelAccess {
 			IDLTKSearchScope scope, final Collection<T> result,
 			IProgressMonitor monitor) {
 
+		final String[] qualifiedName = splitQualifier(name, scope);
+		return findElements(elementType, qualifiedName[0], qualifiedName[1],
+				matchRule, trueFlags, falseFlags, scope, result, monitor);
+	}
+
+	/**
+	 * Splits the name into the qualifier and the element name using the
+	 * delimiter of the language.
+	 */
+	private static String[] splitQualifier(String name, IDLTKSearchScope scope) {
 		String qualifier = null;
 		if (name != null) {
 			ISearchPatternProcessor processor = DLTKLanguageManager
@@ -259,10 +274,9 @@ public class ModelAccess {
 				}
 			}
 		}
-
-		return findElements(elementType, qualifier, name, matchRule, trueFlags,
-				falseFlags, scope, result, monitor);
+		return new String[] { qualifier, name };
 	}
+
 	protected <T extends IModelElement> boolean findElements(int elementType,
 			String qualifier, String name, MatchRule matchRule, int trueFlags,
 			int falseFlags, IDLTKSearchScope scope, final Collection<T> result,
@@ -320,6 +334,182 @@ public class ModelAccess {
 		return true;
 	}
 
+	/**
+	 * Finds the declarations in index without resolving them to model
+	 * elements. Element qualifier (package name) will be calculated from the
+	 * name.
+	 * 
+	 * @param elementType
+	 *            Element type ({@link IModelElement#TYPE},
+	 *            {@link IModelElement#METHOD}, {@link IModelElement#FIELD})
+	 * @param name
+	 *            Element name
+	 * @param matchRule
+	 *            Match rule
+	 * @param trueFlags
+	 *            Logical OR of flags that must exist in element flags bitset.
+	 *            Set to <code>0</code> to disable filtering by trueFlags.
+	 * @param falseFlags
+	 *            Logical OR of flags that must not exist in the element flags
+	 *            bitset. Set to <code>0</code> to disable filtering by
+	 *            falseFlags.
+	 * @param limit
+	 *            Maximal number of the returned records or <code>0</code> for
+	 *            no limit
+	 * @param scope
+	 *            Search scope
+	 * @param monitor
+	 *            Progress monitor
+	 * @return records array with the unique qualified names, or
+	 *         <code>null</code> in case error has occurred.
+	 * @since 5.2
+	 */
+	public IndexRecord[] findRecords(int elementType, String name,
+			MatchRule matchRule, int trueFlags, int falseFlags, int limit,
+			IDLTKSearchScope scope, IProgressMonitor monitor) {
+		final String[] qualifiedName = splitQualifier(name, scope);
+		final List<IndexRecord> result = new ArrayList<IndexRecord>();
+		if (!findRecords(elementType, qualifiedName[0], qualifiedName[1],
+				matchRule, trueFlags, falseFlags, limit, true, scope,
+				new IIndexRecordRequestor() {
+					public boolean accept(IndexRecord record) {
+						result.add(record);
+						return true;
+					}
+				}, monitor)) {
+			return null;
+		}
+		return result.toArray(new IndexRecord[result.size()]);
+	}
+
+	/**
+	 * Finds the declarations in index and reports them to the requestor as
+	 * they are read, without resolving them to model elements. The search
+	 * stops when the limit is reached, the requestor returns
+	 * <code>false</code> or the monitor is canceled.
+	 * 
+	 * @param elementType
+	 *            Element type ({@link IModelElement#TYPE},
+	 *            {@link IModelElement#METHOD}, {@link IModelElement#FIELD})
+	 * @param qualifier
+	 *            Element qualifier (package name)
+	 * @param name
+	 *            Element name
+	 * @param matchRule
+	 *            Match rule
+	 * @param trueFlags
+	 *            Logical OR of flags that must exist in element flags bitset.
+	 *            Set to <code>0</code> to disable filtering by trueFlags.
+	 * @param falseFlags
+	 *            Logical OR of flags that must not exist in the element flags
+	 *            bitset. Set to <code>0</code> to disable filtering by
+	 *            falseFlags.
+	 * @param limit
+	 *            Maximal number of the reported records or <code>0</code> for
+	 *            no limit
+	 * @param unique
+	 *            <code>true</code> to report only the first record for each
+	 *            qualifier, parent and name
+	 * @param scope
+	 *            Search scope
+	 * @param requestor
+	 *            Records requestor
+	 * @param monitor
+	 *            Progress monitor
+	 * @return <code>false</code> in case error has occurred.
+	 * @since 5.2
+	 */
+	public boolean findRecords(int elementType, String qualifier,
+			String name, MatchRule matchRule, int trueFlags, int falseFlags,
+			final int limit, final boolean unique, IDLTKSearchScope scope,
+			final IIndexRecordRequestor requestor, IProgressMonitor monitor) {
+
+		IDLTKLanguageToolkit toolkit = scope.getLanguageToolkit();
+		if (toolkit == null) {
+			return false;
+		}
+		final IElementResolver elementResolver = getElementResolver(toolkit);
+		if (elementResolver == null) {
+			return false;
+		}
+		ISearchEngine searchEngine = getSearchEngine(toolkit);
+		if (searchEngine == null) {
+			return false;
+		}
+		/*
+		 * The search engine checks the monitor for each row, so canceling the
+		 * wrapper stops reading the index once the requestor has got enough.
+		 */
+		final ProgressMonitorWrapper searchMonitor = new ProgressMonitorWrapper(
+				monitor != null ? monitor : new NullProgressMonitor()) {
+			private boolean stopped;
+
+			@Override
+			public boolean isCanceled() {
+				return stopped || super.isCanceled();
+			}
+
+			@Override
+			public void setCanceled(boolean value) {
+				stopped = value;
+			}
+		};
+		ISearchRequestor searchRequestor = new ISearchRequestor() {
+			private final Set<String> names = unique ? new HashSet<String>()
+					: null;
+			private int count;
+
+			public void match(int elementType, int flags, int offset,
+					int length, int nameOffset, int nameLength,
+					String elementName, String metadata, String doc,
+					String qualifier, String parent,
+					ISourceModule sourceModule, boolean isReference) {
+				if (searchMonitor.isCanceled()) {
+					return;
+				}
+				if (names != null
+						&& !names.add(uniqueKey(qualifier, parent, elementName))) {
+					return;
+				}
+				if (!requestor.accept(new IndexRecord(elementResolver,
+						elementType, flags, offset, length, nameOffset,
+						nameLength, elementName, metadata, doc, qualifier,
+						parent, sourceModule))
+						|| (limit > 0 && ++count >= limit)) {
+					searchMonitor.setCanceled(true);
+				}
+			}
+		};
+		// duplicates are skipped here, so the engine can't apply the limit
+		final int searchLimit = unique ? 0 : limit;
+		if (searchEngine instanceof ISearchEngineExtension) {
+			((ISearchEngineExtension) searchEngine).search(elementType,
+					qualifier, name, null, trueFlags, falseFlags, searchLimit,
+					SearchFor.DECLARATIONS, matchRule, scope, searchRequestor,
+					searchMonitor);
+		} else {
+			searchEngine.search(elementType, qualifier, name, trueFlags,
+					falseFlags, searchLimit, SearchFor.DECLARATIONS, matchRule,
+					scope, searchRequestor, searchMonitor);
+		}
+		return true;
+	}
+
+	private static String uniqueKey(String qualifier, String parent,
+			String elementName) {
+		final StringBuilder sb = new StringBuilder();
+		if (qualifier != null) {
+			sb.append(qualifier);
+		}
+		sb.append('\0');
+		if (parent != null) {
+			sb.append(parent);
+		}
+		sb.append('\0');
+		sb.append(elementName);
+		return sb.toString();
+	}
+
 	/**
 	 * Converts old-style search flags to MatchRule.
 	 * 
@@ -281,16 +281,13 @@ public class NewSearchEngine {
 					}
 				};
 
-				searchEngine.search(elementType, qualifier, elementName, 0, 0,
-						0, searchFor, matchRule, scope, requestor, monitor);
-
 				if (matchRule == MatchRule.CAMEL_CASE) {
-					// Search also for prefix (workaround to the way original
-					// search engine worked)
-					searchEngine.search(elementType, qualifier, elementName, 0,
-							0, 0, searchFor, MatchRule.PREFIX, scope,
-							requestor, monitor);
+					// Search also for prefix (the way original search engine
+					// worked)
+					matchRule = MatchRule.CAMEL_CASE_OR_PREFIX;
 				}
+				searchEngine.search(elementType, qualifier, elementName, 0, 0,
+						0, searchFor, matchRule, scope, requestor, monitor);
 			}
 		}
 	}
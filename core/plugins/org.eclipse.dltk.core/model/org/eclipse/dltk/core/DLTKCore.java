@@ -103,6 +103,12 @@ public class DLTKCore extends Plugin {
 	public static final boolean DEBUG_INDEX = Boolean
 			.valueOf(
 					Platform.getDebugOption("org.eclipse.dltk.core/debugIndex")).booleanValue(); //$NON-NLS-1$
+	/**
+	 * @since 5.2
+	 */
+	public static final boolean TRACE_CACHE_STATISTICS = Boolean
+			.valueOf(
+					Platform.getDebugOption("org.eclipse.dltk.core/traceCacheStatistics")).booleanValue(); //$NON-NLS-1$
 
 	// Log errors into log.
 	public static final boolean DEBUG_LOG = false;
@@ -357,6 +363,27 @@ public class DLTKCore extends Plugin {
 	 */
 	public static final String INDEXER_ENABLED = PLUGIN_ID + ".indexer"; //$NON-NLS-1$					
 
+	/**
+	 * Possible configurable option ID. Value is the interval in milliseconds
+	 * between the background checks of the local external libraries for
+	 * changes, <code>"0"</code> disables the checks.
+	 * 
+	 * @since 5.2
+	 */
+	public static final String EXTERNAL_LIBRARY_WATCHER_INTERVAL = PLUGIN_ID
+			+ ".externalLibraryWatcher.interval"; //$NON-NLS-1$
+
+	/**
+	 * Possible configurable option ID. Value is the maximal total number of
+	 * characters in the open buffers, the least recently used buffers without
+	 * unsaved changes are closed above it. The default value depends on the
+	 * heap size.
+	 * 
+	 * @since 5.2
+	 */
+	public static final String BUFFER_CACHE_LIMIT = PLUGIN_ID
+			+ ".bufferCache.limit"; //$NON-NLS-1$
+
 	/**
 	 * Possible project configurable option ID. Value is the identifier of
 	 * contributed {@link org.eclipse.dltk.ast.parser.ISourceParser}.
@@ -147,6 +147,10 @@ public interface ISourceModule extends IModule, ISourceReference,
 	 * substring from the source buffer containing this source element. This
 	 * corresponds to the source range that would be returned by
 	 * <code>getSourceRange</code>.
+	 * <p>
+	 * The returned array could be shared with the buffer of this element, so
+	 * clients should not modify it.
+	 * </p>
 	 * 
 	 * @return the source code, or <code>null</code> if this element has no
 	 *         associated source code
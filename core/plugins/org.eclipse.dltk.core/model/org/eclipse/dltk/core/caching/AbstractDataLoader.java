@@ -1,6 +1,7 @@
 package org.eclipse.dltk.core.caching;
 
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -13,6 +14,17 @@ public class AbstractDataLoader {
 	protected DataInputStream in;
 	private List<String> stringIndex = new ArrayList<String>();
 
+	/*
+	 * The compact format is decoded from the array, the strings are resolved
+	 * from the table without allocations.
+	 */
+	private boolean compact;
+	private String[] strings;
+	private byte[] buffer;
+	private int pos;
+	private int limit;
+	private int lastPosition;
+
 	public AbstractDataLoader(InputStream stream) {
 		this.stream = stream;
 		this.in = new DataInputStream(this.stream);
@@ -20,11 +32,69 @@ public class AbstractDataLoader {
 
 	protected void readStrings() throws IOException {
 		int stringCount = in.readInt();
+		if (CompactDataFormat.isHeader(stringCount)) {
+			readCompactHeader(CompactDataFormat.getVersion(stringCount));
+			return;
+		}
 		for (int i = 0; i < stringCount; ++i) {
 			stringIndex.add(new String(Util.readUTF(in)));
 		}
 	}
 
+	private void readCompactHeader(int version) throws IOException {
+		if (version > CompactDataFormat.VERSION) {
+			throw new IOException("Unsupported cache format version "
+					+ version);
+		}
+		final int tableLength = readStreamVarInt();
+		final int dataLength = readStreamVarInt();
+		buffer = new byte[tableLength + dataLength];
+		in.readFully(buffer);
+		compact = true;
+		limit = tableLength;
+		strings = new String[readVarInt()];
+		char[] chars = new char[64];
+		for (int i = 0; i < strings.length; ++i) {
+			final int length = readVarInt();
+			if (length > chars.length) {
+				chars = new char[Math.max(length, chars.length * 2)];
+			}
+			for (int j = 0; j < length; ++j) {
+				chars[j] = (char) readVarInt();
+			}
+			strings[i] = new String(chars, 0, length);
+		}
+		pos = tableLength;
+		limit = buffer.length;
+	}
+
+	private int readStreamVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			if (pos >= limit) {
+				throw new EOFException();
+			}
+			final byte b = buffer[pos++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
 	protected int readNum(int id1, int id2) throws IOException {
 		byte b = in.readByte();
 		if (b == id1) {
@@ -35,7 +105,87 @@ public class AbstractDataLoader {
 		return 0;
 	}
 
+	/**
+	 * @since 5.2
+	 */
+	protected boolean isCompact() {
+		return compact;
+	}
+
+	/**
+	 * Checks if there is more data in the compact format.
+	 *
+	 * @since 5.2
+	 */
+	protected boolean hasMoreData() {
+		return pos < limit;
+	}
+
+	/**
+	 * Reads the tag written as single byte in the compact format and as int in
+	 * the legacy one.
+	 *
+	 * @return the tag or -1 if there is no more data
+	 * @since 5.2
+	 */
+	protected int readTag() throws IOException {
+		if (compact) {
+			return pos < limit ? buffer[pos++] & 0xFF : -1;
+		}
+		try {
+			return in.readInt();
+		} catch (EOFException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @see AbstractDataSaver#writeNumber(int)
+	 * @since 5.2
+	 */
+	protected int readNumber() throws IOException {
+		if (compact) {
+			return readVarInt();
+		}
+		return in.readInt();
+	}
+
+	/**
+	 * @see AbstractDataSaver#writePosition(int)
+	 * @since 5.2
+	 */
+	protected int readPosition() throws IOException {
+		if (compact) {
+			lastPosition += CompactDataFormat.unZigZag(readVarInt());
+			return lastPosition;
+		}
+		return in.readInt();
+	}
+
+	/**
+	 * @since 5.2
+	 */
+	protected boolean readBoolean() throws IOException {
+		if (compact) {
+			if (pos >= limit) {
+				throw new EOFException();
+			}
+			return buffer[pos++] != 0;
+		}
+		return in.readBoolean();
+	}
+
 	protected String readString() throws IOException {
+		if (compact) {
+			final int id = readVarInt();
+			if (id == 0) {
+				return null;
+			}
+			if (id > strings.length) {
+				throw new IOException("Invalid string reference " + id);
+			}
+			return strings[id - 1];
+		}
 		byte b = in.readByte();
 		if (b == 0) {
 			return null;
@@ -5,7 +5,9 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.dltk.internal.core.util.Util;
 
@@ -14,15 +16,70 @@ public abstract class AbstractDataSaver {
 	protected DataOutputStream out;
 	private List<String> stringIndex = new ArrayList<String>();
 	private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+	private final boolean compact;
+	private Map<String, Integer> stringIds;
+	private int lastPosition;
 
 	/**
 	 * @since 2.0
 	 */
 	public AbstractDataSaver() {
+		this(false);
+	}
+
+	/**
+	 * @param compact
+	 *            <code>true</code> to produce the compact versioned format,
+	 *            which is understood by {@link AbstractDataLoader} as well
+	 * @since 5.2
+	 */
+	protected AbstractDataSaver(boolean compact) {
+		this.out = new DataOutputStream(data);
+		this.compact = compact;
+		if (compact) {
+			stringIds = new HashMap<String, Integer>();
+		}
+	}
+
+	/**
+	 * Produces the compact format if this instance is exactly of the specified
+	 * class. Subclasses could write directly to {@link #out} relying on the
+	 * legacy layout, so they get the legacy format unless they request the
+	 * compact one explicitly.
+	 * 
+	 * @param compactClass
+	 * @since 5.2
+	 */
+	protected AbstractDataSaver(Class<?> compactClass) {
 		this.out = new DataOutputStream(data);
+		this.compact = getClass() == compactClass;
+		if (compact) {
+			stringIds = new HashMap<String, Integer>();
+		}
+	}
+
+	/**
+	 * @since 5.2
+	 */
+	protected boolean isCompact() {
+		return compact;
 	}
 
 	protected void writeString(String value) throws IOException {
+		if (compact) {
+			if (value == null) {
+				out.writeByte(0);
+				return;
+			}
+			Integer id = stringIds.get(value);
+			if (id == null) {
+				id = Integer.valueOf(stringIndex.size());
+				stringIndex.add(value);
+				stringIds.put(value, id);
+			}
+			CompactDataFormat.writeVarInt(out, id.intValue() + 1);
+			return;
+		}
 		if (value == null) {
 			out.writeByte(0);
 			return;
@@ -76,6 +133,36 @@ public abstract class AbstractDataSaver {
 		}
 	}
 
+	/**
+	 * Writes the non-negative number (count, flags, etc), as varint in the
+	 * compact format.
+	 *
+	 * @since 5.2
+	 */
+	protected void writeNumber(int value) throws IOException {
+		if (compact) {
+			CompactDataFormat.writeVarInt(out, value);
+		} else {
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * Writes the source position, as delta from the previously written
+	 * position in the compact format.
+	 *
+	 * @since 5.2
+	 */
+	protected void writePosition(int value) throws IOException {
+		if (compact) {
+			CompactDataFormat.writeVarInt(out, CompactDataFormat
+					.zigZag(value - lastPosition));
+			lastPosition = value;
+		} else {
+			out.writeInt(value);
+		}
+	}
+
 	protected void outNum(int indexOf, int id1, int id2) throws IOException {
 		if (indexOf <= Byte.MAX_VALUE) {
 			out.writeByte(id1);
@@ -91,6 +178,24 @@ public abstract class AbstractDataSaver {
 	 */
 	protected void storeStringIndex(OutputStream stream) throws IOException {
 		final DataOutputStream indexOut = new DataOutputStream(stream);
+		if (compact) {
+			final ByteArrayOutputStream table = new ByteArrayOutputStream();
+			CompactDataFormat.writeVarInt(table, stringIndex.size());
+			for (String s : this.stringIndex) {
+				final int length = s.length();
+				CompactDataFormat.writeVarInt(table, length);
+				for (int i = 0; i < length; ++i) {
+					CompactDataFormat.writeVarInt(table, s.charAt(i));
+				}
+			}
+			indexOut.writeInt(CompactDataFormat.MAGIC
+					| CompactDataFormat.VERSION);
+			CompactDataFormat.writeVarInt(indexOut, table.size());
+			CompactDataFormat.writeVarInt(indexOut, data.size());
+			table.writeTo(indexOut);
+			indexOut.flush();
+			return;
+		}
 		// Store strings
 		indexOut.writeInt(stringIndex.size());
 		for (String s : this.stringIndex) {
@@ -6,7 +6,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -21,6 +24,7 @@ import org.eclipse.dltk.core.RuntimePerformanceMonitor.PerformanceNode;
 import org.eclipse.dltk.core.caching.cache.CacheEntry;
 import org.eclipse.dltk.core.caching.cache.CacheEntryAttribute;
 import org.eclipse.dltk.core.caching.cache.CacheIndex;
+import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
@@ -29,14 +33,45 @@ import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
 
 /**
- * This cache provider checks for folder .index files and load such files into
- * required cache.
+ * This cache provider checks for folder .index files and serves the required
+ * attributes directly from such files. The most recently used archives are
+ * kept open, the others are closed when evicted and on {@link #dispose()}.
  * 
  * @author Andrei Sobolev
  */
-public class ArchiveContentCacheProvider implements IContentCacheProvider {
+public class ArchiveContentCacheProvider implements
+		IContentCacheProviderExtension {
+	private static final String DLTK_INDEX_FILE = ".dltk.index";
 	private static final String CHECK_TIMEOUT = ".dltk.core.archive.cache.lastaccess";
+	/**
+	 * Names of the additional archives found in the folder
+	 */
+	private static final String ARCHIVES = ".dltk.core.archive.cache.files";
+	private static final String ARCHIVES_SEPARATOR = "/";
+	/**
+	 * Modification stamp of the archive copied to the cache
+	 */
+	private static final String HANDLE_TIMESTAMP = "handle.timestamp";
+	/**
+	 * Maximum number of the archives kept open
+	 */
+	private static final int MAX_OPEN_ARCHIVES = 16;
 	private IContentCache cache;
+	private final Map<String, ArchiveIndex> archives = new LinkedHashMap<String, ArchiveIndex>(
+			MAX_OPEN_ARCHIVES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ArchiveIndex> eldest) {
+			if (size() > MAX_OPEN_ARCHIVES) {
+				eldest.getValue().close();
+				return true;
+			}
+			return false;
+		}
+	};
+	private boolean disposed = false;
+	private final Map<String, String> folders = new HashMap<String, String>();
 	private static final long CACHE_UPDATE_TIMEOUT = 1000 * 60 * 60; // One hour
 
 	public ArchiveContentCacheProvider() {
@@ -51,39 +86,158 @@ public class ArchiveContentCacheProvider implements IContentCacheProvider {
 		if (parent == null) {
 			return null;
 		}
-		String DLTK_INDEX_FILE = ".dltk.index";
 		// Check for additional indexes
-		if (processIndexFile(handle, attribute, parent, parent
-				.getChild(DLTK_INDEX_FILE), cache)) {
-			return cache.getCacheEntryAttribute(handle, attribute, true);
+		InputStream stream = getAttribute(parent.getChild(DLTK_INDEX_FILE),
+				handle, attribute);
+		if (stream != null) {
+			return stream;
 		}
 		long lastAccess = cache.getCacheEntryAttributeLong(parent,
 				CHECK_TIMEOUT, true);
 		if (lastAccess + CACHE_UPDATE_TIMEOUT > System.currentTimeMillis()) {
-			return null; // no entry at all
+			String names = getArchiveNames(parent);
+			if (names.length() == 0) {
+				return null; // no entry at all
+			}
+			for (String name : names.split(ARCHIVES_SEPARATOR)) {
+				stream = getAttribute(parent.getChild(name), handle, attribute);
+				if (stream != null) {
+					return stream;
+				}
+			}
+			return null;
 		}
+		StringBuilder names = new StringBuilder();
 		IFileHandle[] children = parent.getChildren();
 		if (children != null) {
 			for (IFileHandle fileHandle : children) {
 				String fileName = fileHandle.getName();
 				if (fileName.startsWith(DLTK_INDEX_FILE)
 						&& !fileName.equals(DLTK_INDEX_FILE)) {
-					if (processIndexFile(handle, attribute, parent, fileHandle,
-							cache)) {
-						return cache.getCacheEntryAttribute(handle, attribute);
+					if (names.length() != 0) {
+						names.append(ARCHIVES_SEPARATOR);
+					}
+					names.append(fileName);
+					if (stream == null) {
+						stream = getAttribute(fileHandle, handle, attribute);
 					}
 				}
 			}
 		}
+		cache.setCacheEntryAttribute(parent, ARCHIVES, names.toString());
+		synchronized (folders) {
+			folders.put(makeKey(parent), names.toString());
+		}
 		cache.setCacheEntryAttribute(parent, CHECK_TIMEOUT, System
 				.currentTimeMillis());
+		return stream;
+	}
+
+	private String getArchiveNames(IFileHandle folder) {
+		final String key = makeKey(folder);
+		synchronized (folders) {
+			String names = folders.get(key);
+			if (names == null) {
+				names = cache.getCacheEntryAttributeString(folder, ARCHIVES,
+						true);
+				if (names == null) {
+					names = "";
+				}
+				folders.put(key, names);
+			}
+			return names;
+		}
+	}
+
+	private static String makeKey(IFileHandle handle) {
+		return handle.getEnvironmentId() + ":" + handle.getPath();
+	}
+
+	private InputStream getAttribute(IFileHandle indexFile,
+			IFileHandle handle, String attribute) {
+		ArchiveIndex archive = openArchive(indexFile);
+		if (archive != null) {
+			return archive.getAttribute(handle, attribute);
+		}
 		return null;
 	}
 
+	/**
+	 * Returns the opened archive, the archive is reopened if it was modified.
+	 */
+	private ArchiveIndex openArchive(IFileHandle indexFile) {
+		if (indexFile == null || !indexFile.exists()) {
+			return null;
+		}
+		final String key = makeKey(indexFile);
+		final String fStamp = Long.toString(indexFile.lastModified() / 1000);
+		synchronized (archives) {
+			if (disposed) {
+				return null;
+			}
+			ArchiveIndex archive = archives.get(key);
+			if (archive != null) {
+				if (fStamp.equals(archive.getStamp())) {
+					return archive;
+				}
+				archives.remove(key);
+				archive.close();
+			}
+			try {
+				archive = new ArchiveIndex(getLocalFile(indexFile, fStamp),
+						fStamp);
+			} catch (IOException e) {
+				if (DLTKCore.DEBUG) {
+					e.printStackTrace();
+				}
+				return null;
+			}
+			archives.put(key, archive);
+			return archive;
+		}
+	}
+
+	/**
+	 * Returns the local file of the archive. Remote archives are copied to
+	 * the cache once per modification.
+	 */
+	private File getLocalFile(IFileHandle indexFile, String fStamp)
+			throws IOException {
+		final IEnvironment environment = indexFile.getEnvironment();
+		if (environment != null && environment.isLocal()) {
+			final File file = new File(indexFile.toOSString());
+			if (file.isFile()) {
+				return file;
+			}
+		}
+		File zipFileHandle = cache.getEntryAsFile(indexFile, "handle");
+		String stamp = cache.getCacheEntryAttributeString(indexFile,
+				HANDLE_TIMESTAMP, true);
+		if (zipFileHandle.exists() && !fStamp.equals(stamp)) {
+			zipFileHandle.delete();
+		}
+		if (!zipFileHandle.exists()) {
+			BufferedInputStream inp = new BufferedInputStream(indexFile
+					.openInputStream(new NullProgressMonitor()), 4096);
+			PerformanceNode p = RuntimePerformanceMonitor.begin();
+			try {
+				Util.copy(zipFileHandle, inp);
+			} finally {
+				inp.close();
+			}
+			p.done("#", "Indexes read", zipFileHandle.length(), indexFile
+					.getEnvironment());
+			cache.setCacheEntryAttribute(indexFile, HANDLE_TIMESTAMP, fStamp);
+		}
+		return zipFileHandle;
+	}
+
+	/**
+	 * Copies the content of all the .dltk.index* archives of the folder to the
+	 * specified cache.
+	 */
 	public static void processFolderIndexes(IFileHandle folder,
 			IContentCache cache, IProgressMonitor monitor) {
-		// cache.get
-		String DLTK_INDEX_FILE = ".dltk.index";
 		// Check for additional indexes
 		IFileHandle[] children = folder.getChildren();
 		if (children != null) {
@@ -102,38 +256,26 @@ public class ArchiveContentCacheProvider implements IContentCacheProvider {
 			for (IFileHandle fileHandle : indexFiles) {
 				processingIndexes.subTask("Processing:"
 						+ fileHandle.toOSString());
-				processIndexFile(null, null, folder, fileHandle, cache);
+				String stamp = cache.getCacheEntryAttributeString(fileHandle,
+						"timestamp", true);
+				String fStamp = Long
+						.toString(fileHandle.lastModified() / 1000);
+				if (!fStamp.equals(stamp)) {
+					try {
+						processIndexFile(null, null, folder, fileHandle,
+								fStamp, cache);
+					} catch (IOException e) {
+						if (DLTKCore.DEBUG) {
+							e.printStackTrace();
+						}
+					}
+				}
 				processingIndexes.worked(1);
 			}
 			processingIndexes.done();
 		}
 	}
 
-	private static boolean processIndexFile(IFileHandle handle,
-			String attribute, IFileHandle parent, IFileHandle indexFile,
-			IContentCache cache) {
-		if (indexFile != null && indexFile.exists()) {
-			String stamp = cache.getCacheEntryAttributeString(indexFile,
-					"timestamp", true);
-			String fStamp = Long.toString(indexFile.lastModified() / 1000);
-			if (stamp != null) {
-				if (fStamp.equals(stamp)) {
-					return false;
-				}
-			}
-			try {
-				boolean found = processIndexFile(handle, attribute, parent,
-						indexFile, fStamp, cache);
-				return found;
-			} catch (IOException e) {
-				if (DLTKCore.DEBUG) {
-					e.printStackTrace();
-				}
-			}
-		}
-		return false;
-	}
-
 	public static boolean processIndexFile(IFileHandle handle,
 			String attribute, IFileHandle parent, IFileHandle indexFile,
 			String fStamp, IContentCache cache) throws IOException,
@@ -202,4 +344,14 @@ public class ArchiveContentCacheProvider implements IContentCacheProvider {
 	public void setCache(IContentCache cache) {
 		this.cache = cache;
 	}
+
+	public void dispose() {
+		synchronized (archives) {
+			disposed = true;
+			for (ArchiveIndex archive : archives.values()) {
+				archive.close();
+			}
+			archives.clear();
+		}
+	}
 }
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.caching;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.caching.cache.CacheEntry;
+import org.eclipse.dltk.core.caching.cache.CacheEntryAttribute;
+import org.eclipse.dltk.core.caching.cache.CacheIndex;
+import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+/**
+ * Opened .dltk.index archive with the in-memory directory of its entries. The
+ * attributes are streamed directly from the archive, so they are never copied
+ * to the metadata cache. The archive is closed when it is closed itself and
+ * all the returned streams are closed.
+ */
+class ArchiveIndex {
+
+	private static class Entry {
+		final long timestamp;
+		final Map<String, String> locations = new HashMap<String, String>();
+
+		Entry(long timestamp) {
+			this.timestamp = timestamp;
+		}
+	}
+
+	private final String stamp;
+	private final ZipFile zipFile;
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private boolean closed = false;
+	/**
+	 * Number of the returned attribute streams which are not closed yet
+	 */
+	private int openStreams = 0;
+
+	/**
+	 * @param file
+	 *            the local copy of the archive
+	 * @param stamp
+	 *            the modification stamp of the original archive
+	 * @throws IOException
+	 */
+	ArchiveIndex(File file, String stamp) throws IOException {
+		this.stamp = stamp;
+		this.zipFile = new ZipFile(file);
+		try {
+			loadDirectory();
+		} catch (IOException e) {
+			zipFile.close();
+			throw e;
+		} catch (RuntimeException e) {
+			zipFile.close();
+			throw e;
+		}
+	}
+
+	private void loadDirectory() throws IOException {
+		final ZipEntry entry = zipFile.getEntry(".index");
+		if (entry == null) {
+			throw new IOException("No .index entry in " + zipFile.getName());
+		}
+		final Resource indexResource = new XMIResourceImpl(URI
+				.createURI("dltk_cache://zipIndex"));
+		final InputStream stream = new BufferedInputStream(zipFile
+				.getInputStream(entry), 8096);
+		try {
+			indexResource.load(stream, null);
+		} finally {
+			stream.close();
+		}
+		for (EObject eObject : indexResource.getContents()) {
+			CacheIndex cacheIndex = (CacheIndex) eObject;
+			for (CacheEntry cacheEntry : cacheIndex.getEntries()) {
+				Entry e = entries.get(cacheEntry.getPath());
+				if (e == null) {
+					e = new Entry(cacheEntry.getTimestamp());
+					entries.put(cacheEntry.getPath(), e);
+				}
+				for (CacheEntryAttribute attribute : cacheEntry
+						.getAttributes()) {
+					e.locations.put(attribute.getName(), attribute
+							.getLocation());
+				}
+			}
+		}
+		// the model is not needed anymore
+		indexResource.unload();
+	}
+
+	String getStamp() {
+		return stamp;
+	}
+
+	/**
+	 * Returns the content of the attribute of the specified file or
+	 * <code>null</code> if there is no such attribute in the archive or the
+	 * file was modified since the archive was built or the archive is already
+	 * closed. The file timestamp is checked on every call, so the modified
+	 * files are detected even if the archive is not changed.
+	 */
+	synchronized InputStream getAttribute(IFileHandle handle, String attribute) {
+		if (closed) {
+			return null;
+		}
+		final Entry entry = entries.get(handle.getName());
+		if (entry == null) {
+			return null;
+		}
+		final String location = entry.locations.get(attribute);
+		if (location == null) {
+			return null;
+		}
+		if (entry.timestamp / 1000 != handle.lastModified() / 1000) {
+			return null;
+		}
+		final ZipEntry zipEntry = zipFile.getEntry(location);
+		if (zipEntry == null) {
+			return null;
+		}
+		try {
+			final InputStream stream = new AttributeStream(zipFile
+					.getInputStream(zipEntry));
+			++openStreams;
+			return stream;
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Closes the archive, if some attribute streams are still open it is
+	 * closed when the last of them is closed.
+	 */
+	synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (openStreams == 0) {
+			closeArchive();
+		}
+	}
+
+	private synchronized void streamClosed() {
+		if (--openStreams == 0 && closed) {
+			closeArchive();
+		}
+	}
+
+	private void closeArchive() {
+		try {
+			zipFile.close();
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private class AttributeStream extends FilterInputStream {
+		private boolean released = false;
+
+		AttributeStream(InputStream stream) {
+			super(new BufferedInputStream(stream, 8096));
+		}
+
+		@Override
+		public void close() throws IOException {
+			final boolean release;
+			synchronized (this) {
+				release = !released;
+				released = true;
+			}
+			try {
+				super.close();
+			} finally {
+				if (release) {
+					streamClosed();
+				}
+			}
+		}
+	}
+}
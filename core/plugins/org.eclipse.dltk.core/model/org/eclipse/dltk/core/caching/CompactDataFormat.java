@@ -0,0 +1,55 @@
+package org.eclipse.dltk.core.caching;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Constants and helpers of the compact versioned cache format.
+ *
+ * <p>
+ * The stream starts with the 4-byte header (the magic in the upper half and
+ * the version in the lower half), which could not be confused with the string
+ * count of the legacy format since it is negative. The header is followed by
+ * the varint lengths of the string table and of the data, the string table
+ * (varint count, then the strings as varint length and varint chars) and the
+ * data. In the data the numbers are varints, the positions are zig-zag
+ * encoded deltas from the previous position, the strings are varint indexes
+ * in the string table plus one (zero is <code>null</code>).
+ * </p>
+ */
+class CompactDataFormat {
+
+	static final int MAGIC = 0xDC5F0000;
+
+	static final int MAGIC_MASK = 0xFFFF0000;
+
+	static final int VERSION = 1;
+
+	private CompactDataFormat() {
+	}
+
+	static boolean isHeader(int value) {
+		return (value & MAGIC_MASK) == MAGIC;
+	}
+
+	static int getVersion(int header) {
+		return header & ~MAGIC_MASK;
+	}
+
+	static void writeVarInt(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
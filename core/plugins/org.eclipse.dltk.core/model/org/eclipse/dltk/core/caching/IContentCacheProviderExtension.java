@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.caching;
+
+/**
+ * Optional interface for the {@link IContentCacheProvider} holding resources
+ * which should be released when the cache is stopped.
+ *
+ * @since 5.2
+ */
+public interface IContentCacheProviderExtension extends IContentCacheProvider {
+
+	/**
+	 * Releases the resources held by this provider. Called once when the
+	 * cache is stopped.
+	 */
+	void dispose();
+
+}
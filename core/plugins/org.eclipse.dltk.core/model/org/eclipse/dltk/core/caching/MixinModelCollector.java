@@ -9,6 +9,24 @@ import org.eclipse.dltk.core.mixin.IMixinRequestor;
 public class MixinModelCollector extends AbstractDataSaver implements
 		IMixinRequestor {
 
+	/**
+	 * Produces the compact format, unless the collector is subclassed.
+	 */
+	public MixinModelCollector() {
+		super(MixinModelCollector.class);
+	}
+
+	/**
+	 * @param compact
+	 *            <code>true</code> to produce the compact format, subclasses
+	 *            writing directly to {@link #out} should use the legacy one
+	 *            (which is the default for them)
+	 * @since 5.2
+	 */
+	public MixinModelCollector(boolean compact) {
+		super(compact);
+	}
+
 	public void reportElement(ElementInfo info) {
 		try {
 			if (info != null && info.key != null) {
@@ -18,6 +18,17 @@ public class MixinModelProcessor extends AbstractDataLoader {
 
 	public void process() throws IOException {
 		readStrings();
+		if (isCompact()) {
+			while (hasMoreData()) {
+				String key = readString();
+				if (key != null) {
+					ElementInfo elementInfo = new ElementInfo();
+					elementInfo.key = key;
+					requestor.reportElement(elementInfo);
+				}
+			}
+			return;
+		}
 		while (true) {
 			try {
 				String key = readString();
@@ -11,7 +11,25 @@ public class StructureModelCollector extends AbstractDataSaver implements
 
 	private ISourceElementRequestor baseRequestor;
 
+	/**
+	 * Produces the compact format, unless the collector is subclassed.
+	 */
 	public StructureModelCollector(ISourceElementRequestor requestor) {
+		super(StructureModelCollector.class);
+		this.baseRequestor = requestor;
+	}
+
+	/**
+	 * @param requestor
+	 * @param compact
+	 *            <code>true</code> to produce the compact format, subclasses
+	 *            writing directly to {@link #out} should use the legacy one
+	 *            (which is the default for them)
+	 * @since 5.2
+	 */
+	public StructureModelCollector(ISourceElementRequestor requestor,
+			boolean compact) {
+		super(compact);
 		this.baseRequestor = requestor;
 	}
 
@@ -19,14 +37,18 @@ public class StructureModelCollector extends AbstractDataSaver implements
 	 * @since 2.0
 	 */
 	protected void writeTag(int tag) throws IOException {
-		out.writeInt(tag);
+		if (isCompact()) {
+			out.writeByte(tag);
+		} else {
+			out.writeInt(tag);
+		}
 	}
 
 	private void writeString(String[] strs) throws IOException {
 		if (strs == null) {
-			out.writeInt(0);
+			writeNumber(0);
 		} else {
-			out.writeInt(strs.length);
+			writeNumber(strs.length);
 			for (int i = 0; i < strs.length; i++) {
 				writeString(strs[i]);
 			}
@@ -41,7 +63,7 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		try {
 			writeTag(TAG_FIELD_REFERENCE);
 			writeString(fieldName);
-			out.writeInt(sourcePosition);
+			writePosition(sourcePosition);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -57,9 +79,9 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		try {
 			writeTag(TAG_METHOD_REF1);
 			writeString(methodName);
-			out.writeInt(argCount);
-			out.writeInt(sourcePosition);
-			out.writeInt(sourceEndPosition);
+			writeNumber(argCount);
+			writePosition(sourcePosition);
+			writePosition(sourceEndPosition);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -75,8 +97,8 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		try {
 			writeTag(TAG_PACKAGE);
 			writeString(name);
-			out.writeInt(declarationStart);
-			out.writeInt(declarationEnd);
+			writePosition(declarationStart);
+			writePosition(declarationEnd);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -87,7 +109,7 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		try {
 			writeTag(TAG_TYPE_REFERENCE2);
 			writeString(typeName);
-			out.writeInt(sourcePosition);
+			writePosition(sourcePosition);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -125,10 +147,10 @@ public class StructureModelCollector extends AbstractDataSaver implements
 
 	private void writeElementInfo(ElementInfo info) throws IOException {
 		writeString(info.name);
-		out.writeInt(info.modifiers);
-		out.writeInt(info.nameSourceStart);
-		out.writeInt(info.nameSourceEnd);
-		out.writeInt(info.declarationStart);
+		writeNumber(info.modifiers);
+		writePosition(info.nameSourceStart);
+		writePosition(info.nameSourceEnd);
+		writePosition(info.declarationStart);
 	}
 
 	/**
@@ -220,7 +242,7 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		this.baseRequestor.exitField(declarationEnd);
 		try {
 			writeTag(TAG_EXIT_FIELD);
-			out.writeInt(declarationEnd);
+			writePosition(declarationEnd);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -230,7 +252,7 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		this.baseRequestor.exitMethod(declarationEnd);
 		try {
 			writeTag(TAG_EXIT_METHOD);
-			out.writeInt(declarationEnd);
+			writePosition(declarationEnd);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -240,7 +262,7 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		this.baseRequestor.exitModule(declarationEnd);
 		try {
 			writeTag(TAG_EXIT_MODULE);
-			out.writeInt(declarationEnd);
+			writePosition(declarationEnd);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -259,7 +281,7 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		this.baseRequestor.exitType(declarationEnd);
 		try {
 			writeTag(TAG_EXIT_TYPE);
-			out.writeInt(declarationEnd);
+			writePosition(declarationEnd);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -272,8 +294,8 @@ public class StructureModelCollector extends AbstractDataSaver implements
 		this.baseRequestor.acceptImport(importInfo);
 		try {
 			writeTag(TAG_ACCEPT_IMPORT);
-			out.writeInt(importInfo.sourceStart);
-			out.writeInt(importInfo.sourceEnd);
+			writePosition(importInfo.sourceStart);
+			writePosition(importInfo.sourceEnd);
 			writeString(importInfo.containerName);
 			writeString(importInfo.name);
 			writeString(importInfo.version);
@@ -30,7 +30,10 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	private void readData() {
 		while (true) {
 			try {
-				int tag = in.readInt();
+				int tag = readTag();
+				if (tag < 0) {
+					break;
+				}
 				switch (tag) {
 				case TAG_FIELD_REFERENCE:
 					acceptFieldReference();
@@ -95,6 +98,12 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 				case TAG_ACCEPT_IMPORT:
 					acceptImport();
 					break;
+				case TAG_ENTER_NAMESPACE:
+					enterNamespace();
+					break;
+				case TAG_EXIT_NAMESPACE:
+					exitNamespace();
+					break;
 				}
 			} catch (EOFException e) {
 				break;
@@ -115,7 +124,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	}
 
 	private char[][] readDataStrings() throws IOException {
-		int size = in.readInt();
+		int size = readNumber();
 		if (size == 0) {
 			return null;
 		}
@@ -128,7 +137,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	}
 
 	private String[] readDataStringsStr() throws IOException {
-		int size = in.readInt();
+		int size = readNumber();
 		if (size == 0) {
 			return null;
 		}
@@ -143,7 +152,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	public void acceptFieldReference() {
 		try {
 			String fieldName = readString();
-			int sourcePosition = in.readInt();
+			int sourcePosition = readPosition();
 			this.requestor.acceptFieldReference(fieldName, sourcePosition);
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -153,9 +162,9 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	public void acceptMethodReference() {
 		try {
 			String methodName = readString();
-			int argCount = in.readInt();
-			int sourcePosition = in.readInt();
-			int sourceEndPosition = in.readInt();
+			int argCount = readNumber();
+			int sourcePosition = readPosition();
+			int sourceEndPosition = readPosition();
 			this.requestor.acceptMethodReference(methodName, argCount,
 					sourcePosition, sourceEndPosition);
 		} catch (IOException e) {
@@ -166,8 +175,8 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	public void acceptPackage() {
 		try {
 			String name = readString();
-			int declarationStart = in.readInt();
-			int declarationEnd = in.readInt();
+			int declarationStart = readPosition();
+			int declarationEnd = readPosition();
 			this.requestor
 					.acceptPackage(declarationStart, declarationEnd, name);
 
@@ -179,8 +188,8 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	private void acceptTypeReference1() {
 		try {
 			/* char[][] typeName = */readDataStrings();
-			/* int sourceStart = */in.readInt();
-			/* int sourceEnd = */in.readInt();
+			/* int sourceStart = */readPosition();
+			/* int sourceEnd = */readPosition();
 			// this.requestor.acceptTypeReference(typeName, sourceStart,
 			// sourceEnd);
 		} catch (IOException e) {
@@ -191,7 +200,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 	public void acceptTypeReference2() {
 		try {
 			String typeName = readString();
-			int sourcePosition = in.readInt();
+			int sourcePosition = readPosition();
 			this.requestor.acceptTypeReference(typeName, sourcePosition);
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -217,7 +226,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 		info.parameterNames = readDataStringsStr();
 		info.parameterInitializers = readDataStringsStr();
 		info.exceptionTypes = readDataStringsStr();
-		info.isConstructor = in.readBoolean();
+		info.isConstructor = readBoolean();
 	}
 
 	private void readTypeInfo(TypeInfo info) throws IOException {
@@ -227,17 +236,17 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 
 	private void readElementInfo(ElementInfo info) throws IOException {
 		info.name = readString();
-		info.modifiers = in.readInt();
-		info.nameSourceStart = in.readInt();
-		info.nameSourceEnd = in.readInt();
-		info.declarationStart = in.readInt();
+		info.modifiers = readNumber();
+		info.nameSourceStart = readPosition();
+		info.nameSourceEnd = readPosition();
+		info.declarationStart = readPosition();
 	}
 
 	public boolean enterFieldCheckDuplicates() {
 		try {
 			FieldInfo info = new FieldInfo();
 			readFieldInfo(info);
-			boolean result = in.readBoolean();
+			boolean result = readBoolean();
 			this.requestor.enterFieldCheckDuplicates(info);
 			return result;
 		} catch (IOException e) {
@@ -253,7 +262,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 			readFieldInfo(info);
 			/* String parentName = */readString();
 			/* String delimiter = */readString();
-			in.readBoolean();
+			readBoolean();
 			// requestor.enterFieldWithParentType(info, parentName, delimiter);
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -328,7 +337,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 
 	public void exitField() {
 		try {
-			this.requestor.exitField(in.readInt());
+			this.requestor.exitField(readPosition());
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -336,7 +345,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 
 	public void exitMethod() {
 		try {
-			this.requestor.exitMethod(in.readInt());
+			this.requestor.exitMethod(readPosition());
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -344,7 +353,7 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 
 	public void exitModule() {
 		try {
-			this.requestor.exitModule(in.readInt());
+			this.requestor.exitModule(readPosition());
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -356,17 +365,29 @@ public class StructureModelProcessor extends AbstractDataLoader implements
 
 	public void exitType() {
 		try {
-			this.requestor.exitType(in.readInt());
+			this.requestor.exitType(readPosition());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void enterNamespace() {
+		try {
+			this.requestor.enterNamespace(readDataStringsStr());
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	private void exitNamespace() {
+		this.requestor.exitNamespace();
+	}
+
 	private void acceptImport() {
 		try {
 			ImportInfo importInfo = new ImportInfo();
-			importInfo.sourceStart = in.readInt();
-			importInfo.sourceEnd = in.readInt();
+			importInfo.sourceStart = readPosition();
+			importInfo.sourceEnd = readPosition();
 			importInfo.containerName = readString();
 			importInfo.name = readString();
 			importInfo.version = readString();
@@ -312,8 +312,8 @@ public abstract class AbstractSourceModule extends Openable implements
 		IBuffer buffer = getBufferNotOpen();
 		if (buffer == null)
 			return getBufferContent();
-		return buffer.getContents().toCharArray();
-		// return getSource().toCharArray();
+		// the buffer returns the array which is not modified later
+		return buffer.getCharacters();
 	}
 
 	public String getSourceContents() {
@@ -38,6 +38,13 @@ public class Buffer implements IBuffer {
 	protected int gapStart = -1;
 	protected int gapEnd = -1;
 
+	/**
+	 * <code>true</code> if {@link #contents} was returned from
+	 * {@link #getCharacters()} or adopted by {@link #setContents(char[])}, so it
+	 * should not be modified in place any more
+	 */
+	private boolean contentsShared;
+
 	protected Object lock = new Object();
 
 	protected static final int F_HAS_UNSAVED_CHANGES = 1;
@@ -128,19 +135,29 @@ public class Buffer implements IBuffer {
 		}
 	}
 
+	/**
+	 * Returns the characters of this buffer. The gap is removed, so the
+	 * following calls return the same array without copying until the buffer
+	 * is modified. The returned array is never changed by the buffer, the
+	 * modifications are applied to the copy.
+	 */
 	public char[] getCharacters() {
 		synchronized (this.lock) {
 			if (this.contents == null)
 				return null;
-			if (this.gapStart < 0) {
-				return this.contents;
+			if (this.gapStart >= 0) {
+				int length = this.contents.length;
+				char[] newContents = new char[length - this.gapEnd
+						+ this.gapStart];
+				System.arraycopy(this.contents, 0, newContents, 0,
+						this.gapStart);
+				System.arraycopy(this.contents, this.gapEnd, newContents,
+						this.gapStart, length - this.gapEnd);
+				this.contents = newContents;
+				this.gapStart = this.gapEnd = -1;
 			}
-			int length = this.contents.length;
-			char[] newContents = new char[length - this.gapEnd + this.gapStart];
-			System.arraycopy(this.contents, 0, newContents, 0, this.gapStart);
-			System.arraycopy(this.contents, this.gapEnd, newContents,
-					this.gapStart, length - this.gapEnd);
-			return newContents;
+			this.contentsShared = true;
+			return this.contents;
 		}
 	}
 
@@ -214,6 +231,11 @@ public class Buffer implements IBuffer {
 				System.arraycopy(this.contents, this.gapEnd, content,
 						this.gapStart, content.length - this.gapStart);
 				this.contents = content;
+				this.contentsShared = false;
+			} else if (this.contentsShared) {
+				// copy on write, the array is used by the readers
+				this.contents = this.contents.clone();
+				this.contentsShared = false;
 			}
 			this.gapStart = this.gapEnd = position;
 			return;
@@ -241,6 +263,7 @@ public class Buffer implements IBuffer {
 					newGapEnd, content.length - newGapEnd);
 		}
 		this.contents = content;
+		this.contentsShared = false;
 		this.gapStart = newGapStart;
 		this.gapEnd = newGapEnd;
 	}
@@ -407,6 +430,8 @@ public class Buffer implements IBuffer {
 		if (this.contents == null) {
 			synchronized (this.lock) {
 				this.contents = newContents;
+				// the caller keeps the array
+				this.contentsShared = true;
 				this.flags &= ~(F_HAS_UNSAVED_CHANGES);
 			}
 			return;
@@ -421,6 +446,7 @@ public class Buffer implements IBuffer {
 				if (this.contents == null)
 					return; // ignore if buffer is closed (as per spec)
 				this.contents = newContents;
+				this.contentsShared = true;
 				this.flags |= F_HAS_UNSAVED_CHANGES;
 				this.gapStart = -1;
 				this.gapEnd = -1;
@@ -11,29 +11,59 @@ package org.eclipse.dltk.internal.core;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.dltk.core.IBuffer;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 import org.eclipse.dltk.internal.core.util.LRUCache;
 
 /**
- * An LRU cache of <code>IBuffers</code>.
+ * An LRU cache of <code>IBuffers</code>. The space of the buffer is the number
+ * of its characters, so the size of the cache is the total number of the
+ * characters in the cached buffers.
+ * 
+ * <p>
+ * The space is computed when the buffer is added and is not updated when the
+ * buffer is modified later, so the limit is approximate.
+ * 
+ * <p>
+ * The cache is updated under its own lock, the buffers are read without
+ * locking as described in {@link ConcurrentLRUCache}.
  */
-public class BufferCache extends OverflowingLRUCache {
+public class BufferCache extends ConcurrentLRUCache {
+
+	/**
+	 * The maximal number of the queued accesses
+	 */
+	private static final int MAX_PENDING_ACCESSES = 256;
 
 	private ThreadLocal<List<IBuffer>> buffersToClose = new ThreadLocal<List<IBuffer>>();
 
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong failedEvictions = new AtomicLong();
+
 	/**
 	 * Constructs a new buffer cache of the given size.
 	 */
 	public BufferCache(int size) {
-		super(size);
+		this(size, 0);
 	}
 
 	/**
 	 * Constructs a new buffer cache of the given size.
 	 */
 	public BufferCache(int size, int overflow) {
-		super(size, overflow);
+		super(size, overflow, MAX_PENDING_ACCESSES);
+	}
+
+	/**
+	 * Returns the number of the characters in the buffer when it is added, at
+	 * least 1 so every buffer takes some space.
+	 */
+	@Override
+	protected int spaceFor(Object value) {
+		final int length = ((IBuffer) value).getLength();
+		return length > 0 ? length : 1;
 	}
 
 	/**
@@ -50,8 +80,10 @@ public class BufferCache extends OverflowingLRUCache {
 		// prevent buffer that have unsaved changes or working copy buffer to be
 		// removed see https://bugs.eclipse.org/bugs/show_bug.cgi?id=39311
 		if (!((Openable) buffer.getOwner()).canBufferBeRemovedFromCache(buffer)) {
+			failedEvictions.incrementAndGet();
 			return false;
 		} else {
+			evictions.incrementAndGet();
 			List<IBuffer> buffers = this.buffersToClose.get();
 			if (buffers == null) {
 				buffers = new ArrayList<IBuffer>();
@@ -72,6 +104,18 @@ public class BufferCache extends OverflowingLRUCache {
 		}
 	}
 
+	/**
+	 * Returns the statistics of the cache, should be called under the lock
+	 * which guards the updates.
+	 */
+	public CacheStatistics getStatistics() {
+		// the buffer characters are 2 bytes each, the buffers keep no other
+		// copies of their contents
+		return new CacheStatistics("Buffer cache", getHits(), getMisses(), //$NON-NLS-1$
+				evictions.get(), failedEvictions.get(), size(), fSpaceLimit,
+				2L * fCurrentSpace);
+	}
+
 	/**
 	 * Returns a new instance of the receiver.
 	 */
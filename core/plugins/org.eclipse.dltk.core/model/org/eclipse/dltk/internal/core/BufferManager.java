@@ -14,13 +14,16 @@ import java.util.Enumeration;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.IBuffer;
 import org.eclipse.dltk.core.IModelElement;
 import org.eclipse.dltk.core.IOpenable;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 
 /**
  * The buffer manager manages the set of open buffers. It implements an LRU
- * cache of buffers.
+ * cache of buffers, limited by the total number of their characters. The
+ * buffers are returned without locking.
  */
 public class BufferManager {
 
@@ -28,10 +31,48 @@ public class BufferManager {
 	protected static boolean VERBOSE;
 
 	/**
-	 * LRU cache of buffers. The key and value for an entry in the table is the
-	 * identical buffer.
+	 * The minimal number of characters in the open buffers before they are
+	 * closed
 	 */
-	private BufferCache openBuffers = new BufferCache(60);
+	private static final int MIN_CACHE_LIMIT = 1 << 20;
+
+	/**
+	 * LRU cache of buffers. The key for an entry in the table is the owner of
+	 * the buffer, the space of the entry is the length of the buffer.
+	 */
+	private BufferCache openBuffers = new BufferCache(getCacheLimitOption());
+
+	/**
+	 * Returns the default number of characters in the open buffers: 1/64 of
+	 * the heap, since each character takes 2 bytes.
+	 */
+	static int defaultCacheLimit() {
+		final long maxMemory = Runtime.getRuntime().maxMemory();
+		// 256MB if max memory is infinite, as in ModelCache
+		final long limit = (maxMemory == Long.MAX_VALUE ? 256L << 20
+				: maxMemory) >> 7;
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CACHE_LIMIT,
+				limit));
+	}
+
+	/**
+	 * Returns the number of characters in the open buffers specified by the
+	 * {@link DLTKCore#BUFFER_CACHE_LIMIT} option.
+	 */
+	static int getCacheLimitOption() {
+		final String value = DLTKCore.getOption(DLTKCore.BUFFER_CACHE_LIMIT);
+		if (value != null) {
+			try {
+				final int limit = Integer.parseInt(value);
+				if (limit > 0) {
+					return limit;
+				}
+			} catch (NumberFormatException e) {
+				// use default
+			}
+		}
+		return defaultCacheLimit();
+	}
 
 	/**
 	 * Adds a buffer to the table of open buffers.
@@ -73,8 +114,30 @@ public class BufferManager {
 	 * with it.
 	 */
 	public IBuffer getBuffer(IOpenable owner) {
+		return (IBuffer) this.openBuffers.get(owner);
+	}
+
+	/**
+	 * Changes the maximal total number of characters in the open buffers. The
+	 * buffers which could not be closed (e.g. having unsaved changes) are kept
+	 * over this limit. Called when the {@link DLTKCore#BUFFER_CACHE_LIMIT}
+	 * option is changed.
+	 */
+	public void setCacheLimit(int characters) {
+		synchronized (this.openBuffers) {
+			this.openBuffers.setSpaceLimit(Math.max(1, characters));
+		}
+		// close buffers that were removed from the cache if space was needed
+		this.openBuffers.closeBuffers();
+	}
+
+	/**
+	 * Returns the statistics of the open buffers cache, including the number
+	 * of times the buffer could not be closed to make space.
+	 */
+	public CacheStatistics getStatistics() {
 		synchronized (this.openBuffers) {
-			return (IBuffer) this.openBuffers.get(owner);
+			return this.openBuffers.getStatistics();
 		}
 	}
 
@@ -97,11 +160,10 @@ public class BufferManager {
 	 * @return Enumeration of IBuffer
 	 */
 	public Enumeration getOpenBuffers() {
-		Enumeration result;
 		synchronized (this.openBuffers) {
 			this.openBuffers.shrink();
-			result = this.openBuffers.elements();
 		}
+		final Enumeration result = this.openBuffers.values();
 		// close buffers that were removed from the cache if space was needed
 		this.openBuffers.closeBuffers();
 		return result;
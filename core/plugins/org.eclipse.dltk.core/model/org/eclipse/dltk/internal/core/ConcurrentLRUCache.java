@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link OverflowingLRUCache} which is updated under some external lock,
+ * but {@link #get(Object)} and {@link #peek(Object)} don't need any lock: the
+ * values are mirrored in the concurrent map and the accessed keys are queued
+ * and moved to the head of the LRU queue by the next update, before any entry
+ * is closed to make space.
+ */
+public abstract class ConcurrentLRUCache extends OverflowingLRUCache {
+
+	/**
+	 * The maximal number of the queued accesses, the accesses over this number
+	 * are not reflected in the LRU order until the next update.
+	 */
+	private final int maxPendingAccesses;
+
+	private final Map<Object, Object> values = new ConcurrentHashMap<Object, Object>();
+	private final Queue<Object> accesses = new ConcurrentLinkedQueue<Object>();
+	private final AtomicInteger accessCount = new AtomicInteger();
+
+	/*
+	 * The statistics counters, updated by the readers without locking.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Constructs a new cache of the given size.
+	 */
+	public ConcurrentLRUCache(int size, int overflow, int maxPendingAccesses) {
+		super(size, overflow);
+		this.maxPendingAccesses = maxPendingAccesses;
+	}
+
+	/**
+	 * Returns the value for the key without locking, the access is reflected in
+	 * the LRU order by the next update of the cache.
+	 */
+	@Override
+	public Object get(Object key) {
+		final Object value = values.get(key);
+		if (value == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+			if (accessCount.get() < maxPendingAccesses) {
+				accessCount.incrementAndGet();
+				accesses.add(key);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the value for the key without locking and without changing the
+	 * LRU order.
+	 */
+	@Override
+	public Object peek(Object key) {
+		return values.get(key);
+	}
+
+	/**
+	 * Moves the recently accessed entries to the head of the LRU queue. Called
+	 * under the lock which guards the updates.
+	 */
+	private void drainAccesses() {
+		Object key;
+		while ((key = accesses.poll()) != null) {
+			accessCount.decrementAndGet();
+			final LRUCacheEntry entry = (LRUCacheEntry) fEntryTable.get(key);
+			if (entry != null) {
+				updateTimestamp(entry);
+			}
+		}
+	}
+
+	@Override
+	public Object put(Object key, Object value) {
+		drainAccesses();
+		final Object result = super.put(key, value);
+		// the value of the existing entry could be replaced
+		final LRUCacheEntry entry = (LRUCacheEntry) fEntryTable.get(key);
+		if (entry != null) {
+			values.put(key, entry._fValue);
+		}
+		return result;
+	}
+
+	@Override
+	protected boolean makeSpace(int space) {
+		drainAccesses();
+		return super.makeSpace(space);
+	}
+
+	@Override
+	protected void privateAddEntry(LRUCacheEntry entry, boolean shuffle) {
+		super.privateAddEntry(entry, shuffle);
+		if (!shuffle) {
+			values.put(entry._fKey, entry._fValue);
+		}
+	}
+
+	@Override
+	protected void privateNotifyDeletionFromCache(LRUCacheEntry entry) {
+		values.remove(entry._fKey);
+		super.privateNotifyDeletionFromCache(entry);
+	}
+
+	@Override
+	public void flush() {
+		super.flush();
+		values.clear();
+		accesses.clear();
+		accessCount.set(0);
+	}
+
+	/**
+	 * Returns the snapshot of the cached values, doesn't need any lock.
+	 */
+	public Enumeration<Object> values() {
+		return Collections.enumeration(new ArrayList<Object>(values.values()));
+	}
+
+	/**
+	 * Returns the number of the cached values, doesn't need any lock.
+	 */
+	public int size() {
+		return values.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+}
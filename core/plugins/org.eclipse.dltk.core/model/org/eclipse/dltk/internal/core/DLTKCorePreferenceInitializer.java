@@ -48,6 +48,10 @@ public class DLTKCorePreferenceInitializer extends
 		defaultOptionsMap.put(DLTKCore.BUILDER_ENABLED, DLTKCore.ENABLED);
 		defaultOptionsMap.put(DLTKCore.CODEASSIST_CAMEL_CASE_MATCH,
 				DLTKCore.ENABLED);
+		defaultOptionsMap.put(DLTKCore.EXTERNAL_LIBRARY_WATCHER_INTERVAL,
+				Long.toString(ExternalLibraryWatcher.DEFAULT_INTERVAL));
+		defaultOptionsMap.put(DLTKCore.BUFFER_CACHE_LIMIT, Integer
+				.toString(BufferManager.defaultCacheLimit()));
 
 		// encoding setting comes from resource plug-in
 		optionNames.add(DLTKCore.CORE_ENCODING);
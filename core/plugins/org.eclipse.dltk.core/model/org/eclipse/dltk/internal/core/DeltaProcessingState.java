@@ -519,7 +519,7 @@ public class DeltaProcessingState implements IResourceChangeListener {
 
 	}
 
-	public Map<IPath, Long> getExternalLibTimeStamps() {
+	public synchronized Map<IPath, Long> getExternalLibTimeStamps() {
 		if (this.externalTimeStamps == null) {
 			this.externalTimeStamps = new PersistentTimeStampMap(
 					getTimeStampsFile());
@@ -527,6 +527,15 @@ public class DeltaProcessingState implements IResourceChangeListener {
 		return this.externalTimeStamps.getTimestamps();
 	}
 
+	/**
+	 * Returns the copy of the external library time stamps, which could be
+	 * iterated while the time stamps are updated by another thread.
+	 */
+	Map<IPath, Long> getExternalLibTimeStampsSnapshot() {
+		getExternalLibTimeStamps();
+		return this.externalTimeStamps.getSnapshot();
+	}
+
 	public Map<IPath, Long> getCustomTimeStamps() {
 		if (this.customTimeStamps == null) {
 			this.customTimeStamps = new PersistentTimeStampMap(
@@ -769,6 +769,25 @@ public class DeltaProcessor {
 		EXTERNAL_ZIP_ADDED, EXTERNAL_ZIP_CHANGED, EXTERNAL_ZIP_REMOVED, EXTERNAL_ZIP_UNCHANGED, INTERNAL_ZIP_IGNORE
 	}
 
+	/*
+	 * Returns the time stamps of the external libraries with the specified
+	 * paths, 0 if the library doesn't exist. The libraries are checked
+	 * concurrently, the libraries not included into the result should be
+	 * checked by the caller.
+	 */
+	private static Map<IPath, Long> checkExternalLibraries(
+			IWorkspaceRoot wksRoot, Set<IPath> paths, IProgressMonitor monitor) {
+		final Map<IPath, IFileHandle> libraries = new HashMap<IPath, IFileHandle>();
+		for (IPath path : paths) {
+			// doesn't access the file yet
+			final Object target = Model.getTarget(wksRoot, path, false);
+			if (target instanceof IFileHandle) {
+				libraries.put(path, (IFileHandle) target);
+			}
+		}
+		return ExternalLibraryChecker.check(libraries, monitor);
+	}
+
 	/*
 	 * Check if external archives have changed and create the corresponding
 	 * deltas. Returns whether at least on delta was created.
@@ -842,6 +861,9 @@ public class DeltaProcessor {
 		}
 		// perform refresh
 		IWorkspaceRoot wksRoot = ResourcesPlugin.getWorkspace().getRoot();
+		// the unique external libraries are checked at once
+		final Map<IPath, Long> checkedTimeStamps = checkExternalLibraries(
+				wksRoot, archivePathsToRefresh, monitor);
 		for (String projectName : this.state.getOldScriptProjectNames()) {
 			if (monitor != null && monitor.isCanceled()) {
 				break;
@@ -870,8 +892,17 @@ public class DeltaProcessor {
 					ZipStatus status = externalArchivesStatus.get(entryPath);
 					if (status == null) {
 						// compute shared status
-						Object targetLibrary = Model.getTarget(wksRoot,
-								entryPath, true);
+						final Long checkedTimeStamp = checkedTimeStamps
+								.get(entryPath);
+						Object targetLibrary;
+						if (checkedTimeStamp != null) {
+							targetLibrary = checkedTimeStamp.longValue() != 0 ? Model
+									.getTarget(wksRoot, entryPath, false)
+									: null;
+						} else {
+							targetLibrary = Model.getTarget(wksRoot, entryPath,
+									true);
+						}
 						if (targetLibrary == null) { // missing JAR
 							if (this.state.getExternalLibTimeStamps().remove(
 									entryPath) != null) {
@@ -891,7 +922,9 @@ public class DeltaProcessor {
 							// some way
 							Long oldTimestamp = this.state
 									.getExternalLibTimeStamps().get(entryPath);
-							long newTimeStamp = getTimeStamp(externalFile);
+							long newTimeStamp = checkedTimeStamp != null ? checkedTimeStamp
+									.longValue()
+									: getTimeStamp(externalFile);
 							if (oldTimestamp != null) {
 								if (newTimeStamp == 0) { // file doesn't
 									// exist
@@ -9,6 +9,8 @@
  *******************************************************************************/
 package org.eclipse.dltk.internal.core;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.eclipse.dltk.core.IModelElement;
 import org.eclipse.dltk.core.IProjectFragment;
 import org.eclipse.dltk.core.IScriptFolder;
@@ -17,22 +19,34 @@ import org.eclipse.dltk.internal.core.util.LRUCache;
 
 /**
  * An LRU cache of <code>ModelElements</code>.
+ * 
+ * <p>
+ * The cache is updated under the lock of the {@link ModelManager}, the
+ * elements are read without locking as described in
+ * {@link ConcurrentLRUCache}.
  */
-public class ElementCache extends OverflowingLRUCache {
+public class ElementCache extends ConcurrentLRUCache {
+	/**
+	 * The maximal number of the queued accesses
+	 */
+	private static final int MAX_PENDING_ACCESSES = 1024;
+
 	private IModelElement spaceLimitParent = null;
 
+	private final AtomicLong evictions = new AtomicLong();
+
 	/**
 	 * Constructs a new element cache of the given size.
 	 */
 	public ElementCache(int size) {
-		super(size);
+		this(size, 0);
 	}
 
 	/**
 	 * Constructs a new element cache of the given size.
 	 */
 	public ElementCache(int size, int overflow) {
-		super(size, overflow);
+		super(size, overflow, MAX_PENDING_ACCESSES);
 	}
 
 	/**
@@ -60,6 +74,7 @@ public class ElementCache extends OverflowingLRUCache {
 				} else {
 					element.close();
 				}
+				evictions.incrementAndGet();
 				return true;
 			}
 		} catch (ModelException npe) {
@@ -83,6 +98,20 @@ public class ElementCache extends OverflowingLRUCache {
 		}
 	}
 
+	/*
+	 * Changes the space limit, unless it is currently increased for some
+	 * parent, then the new limit is applied when that parent is removed.
+	 */
+	public void setDefaultSpaceLimit(int limit) {
+		if (this.spaceLimitParent == null) {
+			setSpaceLimit(limit);
+		}
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
 	/*
 	 * Returns a new instance of the receiver.
 	 */
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.environment.IEnvironment;
+import org.eclipse.dltk.core.environment.IFileHandle;
+
+/**
+ * Computes the time stamps of the external libraries concurrently. The
+ * libraries are grouped by environment and each environment is checked by its
+ * own bounded number of threads, so every library costs one round trip for
+ * the remote environments and the slow connection doesn't delay the other
+ * environments.
+ */
+class ExternalLibraryChecker {
+
+	private static final int MAX_LOCAL_THREADS = 4;
+	private static final int MAX_REMOTE_THREADS = 4;
+
+	/**
+	 * Returns the time stamps (as returned by
+	 * {@link DeltaProcessor#getTimeStamp(IFileHandle)}) of the specified
+	 * libraries, <code>0</code> if the library doesn't exist. The libraries
+	 * which were not checked because of cancellation or error are not
+	 * included.
+	 */
+	static Map<IPath, Long> check(Map<IPath, IFileHandle> libraries,
+			final IProgressMonitor monitor) {
+		final Map<IPath, Long> result = new HashMap<IPath, Long>();
+		if (libraries.size() <= 1) {
+			// not worth the threads
+			return result;
+		}
+		final Map<IEnvironment, List<IPath>> groups = new HashMap<IEnvironment, List<IPath>>();
+		for (Map.Entry<IPath, IFileHandle> entry : libraries.entrySet()) {
+			final IEnvironment environment = entry.getValue().getEnvironment();
+			List<IPath> paths = groups.get(environment);
+			if (paths == null) {
+				paths = new ArrayList<IPath>();
+				groups.put(environment, paths);
+			}
+			paths.add(entry.getKey());
+		}
+		final List<ExecutorService> executors = new ArrayList<ExecutorService>();
+		final Map<IPath, Future<Long>> futures = new HashMap<IPath, Future<Long>>();
+		try {
+			for (Map.Entry<IEnvironment, List<IPath>> group : groups
+					.entrySet()) {
+				final List<IPath> paths = group.getValue();
+				final ExecutorService executor = Executors.newFixedThreadPool(
+						Math.min(paths.size(), getThreadCount(group.getKey())),
+						new CheckerThreadFactory());
+				executors.add(executor);
+				for (IPath path : paths) {
+					final IFileHandle file = libraries.get(path);
+					futures.put(path, executor.submit(new Callable<Long>() {
+						public Long call() {
+							if (monitor != null && monitor.isCanceled()) {
+								return null;
+							}
+							return Long.valueOf(file.exists() ? DeltaProcessor
+									.getTimeStamp(file) : 0);
+						}
+					}));
+				}
+			}
+			for (Map.Entry<IPath, Future<Long>> entry : futures.entrySet()) {
+				try {
+					final Long timeStamp = entry.getValue().get();
+					if (timeStamp != null) {
+						result.put(entry.getKey(), timeStamp);
+					}
+				} catch (ExecutionException e) {
+					// will be checked again by the caller
+					if (DLTKCore.DEBUG) {
+						e.printStackTrace();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			for (ExecutorService executor : executors) {
+				executor.shutdownNow();
+			}
+		}
+		return result;
+	}
+
+	private static int getThreadCount(IEnvironment environment) {
+		if (environment == null || environment.isLocal()) {
+			return Math.max(2, Math.min(MAX_LOCAL_THREADS, Runtime
+					.getRuntime().availableProcessors()));
+		}
+		return MAX_REMOTE_THREADS;
+	}
+
+	private static class CheckerThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "External library check #" //$NON-NLS-1$
+					+ counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
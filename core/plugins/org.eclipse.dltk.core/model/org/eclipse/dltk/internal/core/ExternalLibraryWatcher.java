@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.IBuildpathEntry;
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.IProjectFragment;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.ModelException;
+import org.eclipse.dltk.core.environment.EnvironmentPathUtils;
+import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.internal.core.util.Util;
+
+/**
+ * Watches the external libraries of the local environment for changes in the
+ * background. Only the time stamps of the libraries already known to the
+ * {@link DeltaProcessingState} are checked, the folders are checked
+ * recursively, so the changes of the nested files and folders are detected
+ * too. Only the changed libraries are passed to
+ * {@link DeltaProcessor#checkExternalChanges(IModelElement[], IProgressMonitor)},
+ * so the deltas and the index updates are produced for them without
+ * refreshing all the projects. The refresh holds the workspace root rule, so
+ * it doesn't run concurrently with the resource change notifications, which
+ * update the same time stamps.
+ * 
+ * <p>
+ * The libraries of the remote environments are not watched, they are still
+ * checked when the projects referencing them are refreshed. The interval
+ * between the checks is configured by the
+ * {@link DLTKCore#EXTERNAL_LIBRARY_WATCHER_INTERVAL} option, <code>0</code>
+ * disables the watcher.
+ */
+public class ExternalLibraryWatcher extends Job {
+
+	/**
+	 * The default delay between the checks in milliseconds
+	 */
+	static final long DEFAULT_INTERVAL = 5000;
+
+	private final ModelManager manager;
+	private volatile boolean stopped = true;
+
+	/**
+	 * The recursive time stamps of the folder libraries, accessed by the job
+	 * only
+	 */
+	private final Map<IPath, Long> treeStamps = new HashMap<IPath, Long>();
+
+	public ExternalLibraryWatcher(ModelManager manager) {
+		super(Messages.ExternalLibraryWatcher_name);
+		this.manager = manager;
+		setSystem(true);
+		setPriority(DECORATE);
+	}
+
+	public void start() {
+		stopped = false;
+		scheduleNext();
+	}
+
+	/**
+	 * Applies the changed interval
+	 */
+	public void reschedule() {
+		if (!stopped) {
+			cancel();
+			scheduleNext();
+		}
+	}
+
+	private void scheduleNext() {
+		final long interval = getInterval();
+		if (interval > 0) {
+			schedule(interval);
+		}
+	}
+
+	private static long getInterval() {
+		final String value = DLTKCore
+				.getOption(DLTKCore.EXTERNAL_LIBRARY_WATCHER_INTERVAL);
+		if (value != null) {
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				// use default
+			}
+		}
+		return DEFAULT_INTERVAL;
+	}
+
+	public void stop() {
+		stopped = true;
+		cancel();
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try {
+			final Set<IPath> nested = new HashSet<IPath>();
+			final IModelElement[] changed = findChangedLibraries(nested,
+					monitor);
+			if (changed.length != 0 && !monitor.isCanceled()) {
+				refresh(changed, nested, monitor);
+			}
+		} catch (CoreException e) {
+			Util.log(e, "Exception while checking external libraries"); //$NON-NLS-1$
+		} finally {
+			if (!stopped) {
+				scheduleNext();
+			}
+		}
+		return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+
+	private void refresh(final IModelElement[] changed,
+			final Set<IPath> nested, IProgressMonitor monitor)
+			throws CoreException {
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.run(new IWorkspaceRunnable() {
+			public void run(IProgressMonitor monitor) throws CoreException {
+				if (!nested.isEmpty()) {
+					// the time stamps of the folders themselves are not
+					// changed, so the delta processor is forced to see them as
+					// changed
+					final Map<IPath, Long> timestamps = manager.deltaState
+							.getExternalLibTimeStamps();
+					for (IPath path : nested) {
+						if (timestamps.containsKey(path)) {
+							timestamps.put(path, Long.valueOf(CHANGED_STAMP));
+						}
+					}
+				}
+				manager.getDeltaProcessor().checkExternalChanges(changed,
+						monitor);
+			}
+		}, workspace.getRoot(), IWorkspace.AVOID_UPDATE, monitor);
+	}
+
+	/**
+	 * Returns the copy of the known time stamps of the local external
+	 * libraries.
+	 */
+	private Map<IPath, Long> getLocalTimeStamps() {
+		final Map<IPath, Long> result = new HashMap<IPath, Long>();
+		for (Map.Entry<IPath, Long> entry : manager.deltaState
+				.getExternalLibTimeStampsSnapshot().entrySet()) {
+			if (EnvironmentPathUtils.isLocalEnvironment(entry.getKey())) {
+				result.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The time stamp which never matches the real one
+	 */
+	private static final long CHANGED_STAMP = -1;
+
+	/**
+	 * Returns the hash of the names, time stamps and sizes of all the files
+	 * and folders in the specified folder, which doesn't depend on the order
+	 * of the children.
+	 */
+	static long getTreeStamp(IFileHandle folder, IProgressMonitor monitor) {
+		long stamp = 0;
+		final IFileHandle[] children = folder.getChildren();
+		if (children != null) {
+			for (IFileHandle child : children) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				long hash = child.getName().hashCode();
+				hash = hash * 31 + child.lastModified();
+				if (child.isDirectory()) {
+					hash = hash * 31 + getTreeStamp(child, monitor);
+				} else {
+					hash = hash * 31 + child.length();
+				}
+				// mix the bits, so the sum doesn't cancel the changes out
+				hash ^= hash >>> 33;
+				hash *= 0xff51afd7ed558ccdL;
+				hash ^= hash >>> 33;
+				stamp += hash;
+			}
+		}
+		return stamp;
+	}
+
+	/**
+	 * Returns the project fragments (or the projects, if the fragment could not
+	 * be found) of the local external libraries with the changed time stamps.
+	 * 
+	 * @param nested
+	 *            receives the paths of the folder libraries with the changes
+	 *            below their top level
+	 */
+	IModelElement[] findChangedLibraries(Set<IPath> nested,
+			IProgressMonitor monitor) throws ModelException {
+		final Map<IPath, Long> timestamps = getLocalTimeStamps();
+		treeStamps.keySet().retainAll(timestamps.keySet());
+		if (timestamps.isEmpty()) {
+			return ModelElement.NO_ELEMENTS;
+		}
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		final Set<IPath> changed = new HashSet<IPath>();
+		for (Map.Entry<IPath, Long> entry : timestamps.entrySet()) {
+			if (monitor.isCanceled()) {
+				return ModelElement.NO_ELEMENTS;
+			}
+			final Object target = Model.getTarget(root, entry.getKey(), true);
+			final long timestamp = target instanceof IFileHandle ? DeltaProcessor
+					.getTimeStamp((IFileHandle) target)
+					: 0;
+			if (timestamp != entry.getValue().longValue()) {
+				changed.add(entry.getKey());
+			}
+			if (target instanceof IFileHandle
+					&& ((IFileHandle) target).isDirectory()) {
+				final long treeStamp = getTreeStamp((IFileHandle) target,
+						monitor);
+				if (monitor.isCanceled()) {
+					return ModelElement.NO_ELEMENTS;
+				}
+				final Long previous = treeStamps.put(entry.getKey(), Long
+						.valueOf(treeStamp));
+				if (previous != null && previous.longValue() != treeStamp
+						&& !changed.contains(entry.getKey())) {
+					changed.add(entry.getKey());
+					nested.add(entry.getKey());
+				}
+			} else {
+				treeStamps.remove(entry.getKey());
+			}
+		}
+		if (changed.isEmpty()) {
+			return ModelElement.NO_ELEMENTS;
+		}
+		final List<IModelElement> result = new ArrayList<IModelElement>();
+		for (IScriptProject project : manager.getModel().getScriptProjects()) {
+			if (changed.isEmpty()) {
+				break;
+			}
+			final IBuildpathEntry[] buildpath;
+			try {
+				buildpath = ((ScriptProject) project).getResolvedBuildpath();
+			} catch (ModelException e) {
+				// project doesn't exist -> ignore
+				continue;
+			}
+			for (IBuildpathEntry entry : buildpath) {
+				if (entry.getEntryKind() == IBuildpathEntry.BPE_LIBRARY
+						&& changed.remove(entry.getPath())) {
+					// single element is enough, the delta processor updates
+					// all the projects referencing the library
+					final IProjectFragment[] fragments = project
+							.findProjectFragments(entry);
+					result.add(fragments.length != 0 ? fragments[0] : project);
+				}
+			}
+		}
+		return result.toArray(new IModelElement[result.size()]);
+	}
+
+}
@@ -4,6 +4,7 @@ import org.eclipse.osgi.util.NLS;
 
 public class Messages extends NLS {
 	private static final String BUNDLE_NAME = "org.eclipse.dltk.internal.core.messages"; //$NON-NLS-1$
+	public static String ExternalLibraryWatcher_name;
 	public static String Model_invalidResourceForTheProject;
 	public static String ModelOperation_operationCancelled;
 	public static String refreshing_external_folders;
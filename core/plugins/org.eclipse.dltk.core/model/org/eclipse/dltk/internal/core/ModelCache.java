@@ -10,14 +10,28 @@
 package org.eclipse.dltk.internal.core;
 
 import java.text.NumberFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.internal.core.util.AdaptiveCacheSize;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 
 /**
  * The cache ofscriptelements to their respective info.
+ * 
+ * <p>
+ * The infos are put and removed under the lock of the {@link ModelManager},
+ * while they are read without locking, so all the caches support the
+ * concurrent reads.
+ * 
+ * <p>
+ * The size limits are computed from the maximum heap size and adjusted at
+ * runtime by {@link #adaptSize()}, using the heap usage and the hit rates of
+ * the caches.
  */
 public class ModelCache {
 	public static final int DEFAULT_PROJECT_SIZE = 5; // average 25552 bytes
@@ -39,14 +53,32 @@ public class ModelCache {
 	public static final int DEFAULT_CHILDREN_SIZE = 500 * 20; // average 20
 	// children per
 	// openable
+
+	/*
+	 * The estimated memory used by the single entry of the cache (including
+	 * the children) in bytes.
+	 */
+	private static final int ROOT_WEIGHT = 2590;
+	private static final int PKG_WEIGHT = 1782;
+	private static final int OPENABLE_WEIGHT = 6629;
+
+	/**
+	 * The ratio of the maximum heap size to the base memory
+	 */
+	private final double memoryRatio;
+	/**
+	 * The runtime adjustment of the cache sizes
+	 */
+	private final AdaptiveCacheSize adaptiveSize = new AdaptiveCacheSize(
+			0.25, 2);
 	/**
 	 * Active script Model Info
 	 */
-	protected ModelInfo modelInfo;
+	protected volatile ModelInfo modelInfo;
 	/**
 	 * Cache of open projects.
 	 */
-	protected HashMap projectCache;
+	protected Map projectCache;
 	/**
 	 * Cache of open package fragment roots.
 	 */
@@ -79,7 +111,8 @@ public class ModelCache {
 		// for
 		// most
 		// JInterpreter
-		this.projectCache = new HashMap(DEFAULT_PROJECT_SIZE); // NB: Don't use
+		this.memoryRatio = ratio;
+		this.projectCache = new ConcurrentHashMap(DEFAULT_PROJECT_SIZE); // NB: Don't use
 		// a LRUCache
 		// for projects
 		// as they are
@@ -88,11 +121,64 @@ public class ModelCache {
 		// (e.g. during
 		// delta
 		// processing)
-		this.rootCache = new ElementCache((int) (DEFAULT_ROOT_SIZE * ratio));
-		this.pkgCache = new ElementCache((int) (DEFAULT_PKG_SIZE * ratio));
-		this.openableCache = new ElementCache(
-				(int) (DEFAULT_OPENABLE_SIZE * ratio));
-		this.childrenCache = new HashMap((int) (DEFAULT_CHILDREN_SIZE * ratio));
+		this.rootCache = new ElementCache(limit(DEFAULT_ROOT_SIZE));
+		this.pkgCache = new ElementCache(limit(DEFAULT_PKG_SIZE));
+		this.openableCache = new ElementCache(limit(DEFAULT_OPENABLE_SIZE));
+		this.childrenCache = new ConcurrentHashMap(
+				(int) (DEFAULT_CHILDREN_SIZE * ratio));
+	}
+
+	/**
+	 * Returns the current size limit of the cache with the specified default
+	 * size.
+	 */
+	private int limit(int defaultSize) {
+		final double scale = this.adaptiveSize.getScale();
+		return Math.max(1, (int) (defaultSize * this.memoryRatio * scale));
+	}
+
+	/**
+	 * Adjusts the size limits of the element caches to the heap usage and the
+	 * hit rates. Called under the lock of the {@link ModelManager} after the
+	 * infos are put, the adjustment itself is performed at most once a second.
+	 */
+	protected void adaptSize() {
+		final long hits = this.rootCache.getHits() + this.pkgCache.getHits()
+				+ this.openableCache.getHits();
+		final long misses = this.rootCache.getMisses()
+				+ this.pkgCache.getMisses() + this.openableCache.getMisses();
+		final long evictions = this.rootCache.getEvictions()
+				+ this.pkgCache.getEvictions()
+				+ this.openableCache.getEvictions();
+		if (this.adaptiveSize.update(hits, misses, evictions)) {
+			this.rootCache.setDefaultSpaceLimit(limit(DEFAULT_ROOT_SIZE));
+			this.pkgCache.setDefaultSpaceLimit(limit(DEFAULT_PKG_SIZE));
+			this.openableCache
+					.setDefaultSpaceLimit(limit(DEFAULT_OPENABLE_SIZE));
+			if (ModelManager.VERBOSE) {
+				System.out.println(toStringFillingRation("-> ")); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Returns the statistics of the element caches.
+	 */
+	public List<CacheStatistics> getStatistics() {
+		final List<CacheStatistics> result = new ArrayList<CacheStatistics>();
+		result.add(getStatistics("Root cache", this.rootCache, ROOT_WEIGHT)); //$NON-NLS-1$
+		result.add(getStatistics("Folder cache", this.pkgCache, PKG_WEIGHT)); //$NON-NLS-1$
+		result.add(getStatistics("Openable cache", this.openableCache, //$NON-NLS-1$
+				OPENABLE_WEIGHT));
+		return result;
+	}
+
+	private static CacheStatistics getStatistics(String name,
+			ElementCache cache, int weight) {
+		final int size = cache.getCurrentSpace();
+		return new CacheStatistics(name, cache.getHits(), cache.getMisses(),
+				cache.getEvictions(), size, cache.getSpaceLimit(), (long) size
+						* weight);
 	}
 
 	/**
@@ -179,15 +265,16 @@ public class ModelCache {
 			break;
 		case IModelElement.SCRIPT_PROJECT:
 			this.projectCache.remove(element);
-			this.rootCache.resetSpaceLimit(DEFAULT_ROOT_SIZE, element);
+			this.rootCache.resetSpaceLimit(limit(DEFAULT_ROOT_SIZE), element);
 			break;
 		case IModelElement.PROJECT_FRAGMENT:
 			this.rootCache.remove(element);
-			this.pkgCache.resetSpaceLimit(DEFAULT_PKG_SIZE, element);
+			this.pkgCache.resetSpaceLimit(limit(DEFAULT_PKG_SIZE), element);
 			break;
 		case IModelElement.SCRIPT_FOLDER:
 			this.pkgCache.remove(element);
-			this.openableCache.resetSpaceLimit(DEFAULT_OPENABLE_SIZE, element);
+			this.openableCache.resetSpaceLimit(
+					limit(DEFAULT_OPENABLE_SIZE), element);
 			break;
 		case IModelElement.SOURCE_MODULE:
 		case IModelElement.BINARY_MODULE:
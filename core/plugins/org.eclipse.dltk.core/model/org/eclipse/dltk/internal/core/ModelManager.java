@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -90,14 +91,16 @@ import org.eclipse.dltk.core.WorkingCopyOwner;
 import org.eclipse.dltk.core.caching.IContentCache;
 import org.eclipse.dltk.core.environment.EnvironmentPathUtils;
 import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.core.mixin.MixinModelRegistry;
 import org.eclipse.dltk.core.search.indexing.IndexManager;
 import org.eclipse.dltk.internal.core.builder.ScriptBuilder;
 import org.eclipse.dltk.internal.core.caching.DLTKCoreCache;
 import org.eclipse.dltk.internal.core.search.DLTKWorkspaceScope;
 import org.eclipse.dltk.internal.core.search.ProjectIndexerManager;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 import org.eclipse.dltk.internal.core.util.Messages;
 import org.eclipse.dltk.internal.core.util.Util;
-import org.eclipse.dltk.internal.core.util.WeakHashSet;
+import org.eclipse.dltk.internal.core.util.StringInterner;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.service.prefs.BackingStoreException;
 
@@ -522,7 +525,7 @@ public class ModelManager implements ISaveParticipant {
 	 * String#intern() that could prevent garbage collection of strings on some
 	 * VMs.
 	 */
-	private WeakHashSet stringSymbols = new WeakHashSet(5);
+	private final StringInterner stringSymbols = new StringInterner();
 	Map workspaceScope = null;
 	public static final String DELTA_LISTENER_PERF = DLTKCore.PLUGIN_ID
 			+ "/perf/deltalistener"; //$NON-NLS-1$
@@ -580,9 +583,10 @@ public class ModelManager implements ISaveParticipant {
 	}
 
 	/**
-	 * Returns the info for the element.
+	 * Returns the info for the element. The infos are read without locking,
+	 * they are only updated under the lock of this manager.
 	 */
-	public synchronized Object getInfo(IModelElement element) {
+	public Object getInfo(IModelElement element) {
 		HashMap tempCache = (HashMap) this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -596,7 +600,7 @@ public class ModelManager implements ISaveParticipant {
 	/**
 	 * Returns the info for this element without disturbing the cache ordering.
 	 */
-	protected synchronized Object peekAtInfo(IModelElement element) {
+	protected Object peekAtInfo(IModelElement element) {
 		HashMap tempCache = (HashMap) this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -719,6 +723,26 @@ public class ModelManager implements ISaveParticipant {
 			Object info = newElements.get(element);
 			this.cache.putInfo(element, info);
 		}
+		this.cache.adaptSize();
+	}
+
+	/**
+	 * Returns the statistics of the model element caches, of the source
+	 * module info cache, of the open buffers and of the mixin models.
+	 */
+	public List<CacheStatistics> getCacheStatistics() {
+		final List<CacheStatistics> result = new ArrayList<CacheStatistics>();
+		final ModelCache modelCache = this.cache;
+		if (modelCache != null) {
+			result.addAll(modelCache.getStatistics());
+		}
+		final SourceModuleInfoCache infoCache = this.sourceModuleInfoCache;
+		if (infoCache != null) {
+			result.add(infoCache.getStatistics());
+		}
+		result.add(BufferManager.getDefaultBufferManager().getStatistics());
+		result.addAll(MixinModelRegistry.getCacheStatistics());
+		return result;
 	}
 
 	/**
@@ -1253,10 +1277,10 @@ public class ModelManager implements ISaveParticipant {
 		return info.useCount;
 	}
 
-	public synchronized String intern(String s) {
+	public String intern(String s) {
 		// make sure to copy the string (so that it doesn't hold on the
 		// underlying char[] that might be much bigger than necessary)
-		return (String) this.stringSymbols.add(s);
+		return this.stringSymbols.intern(s);
 	}
 
 	public void startup() throws CoreException {
@@ -1271,6 +1295,15 @@ public class ModelManager implements ISaveParticipant {
 			this.propertyListener = new IEclipsePreferences.IPreferenceChangeListener() {
 				public void preferenceChange(PreferenceChangeEvent event) {
 					ModelManager.this.optionsCache = null;
+					if (DLTKCore.EXTERNAL_LIBRARY_WATCHER_INTERVAL.equals(event
+							.getKey())
+							&& externalLibraryWatcher != null) {
+						externalLibraryWatcher.reschedule();
+					} else if (DLTKCore.BUFFER_CACHE_LIMIT.equals(event
+							.getKey())) {
+						BufferManager.getDefaultBufferManager().setCacheLimit(
+								BufferManager.getCacheLimitOption());
+					}
 				}
 			};
 			installPreferenceChangeListener(DLTKCore.PLUGIN_ID,
@@ -1303,6 +1336,8 @@ public class ModelManager implements ISaveParticipant {
 			DLTKContentTypeManager.installListener();
 			sourceModuleInfoCache = new SourceModuleInfoCache();
 			sourceModuleInfoCache.start();
+			externalLibraryWatcher = new ExternalLibraryWatcher(this);
+			externalLibraryWatcher.start();
 			startIndexing();
 			// process deltas since last activated in indexer thread so that
 			// indexes are up-to-date.
@@ -1588,9 +1623,17 @@ public class ModelManager implements ISaveParticipant {
 		DLTKContentTypeManager.uninstallListener();
 		workspace.removeSaveParticipant(DLTKCore.getDefault());
 
+		if (DLTKCore.TRACE_CACHE_STATISTICS) {
+			for (CacheStatistics statistics : getCacheStatistics()) {
+				System.out.println(statistics);
+			}
+		}
 		if (sourceModuleInfoCache != null) {
 			sourceModuleInfoCache.stop();
 		}
+		if (externalLibraryWatcher != null) {
+			externalLibraryWatcher.stop();
+		}
 		if (this.indexManager != null) { // no more indexing
 			this.indexManager.shutdown();
 		}
@@ -3210,6 +3253,8 @@ public class ModelManager implements ISaveParticipant {
 
 	private SourceModuleInfoCache sourceModuleInfoCache = null;
 
+	private volatile ExternalLibraryWatcher externalLibraryWatcher = null;
+
 	public ISourceModuleInfoCache getSourceModuleInfoCache() {
 		return sourceModuleInfoCache;
 	}
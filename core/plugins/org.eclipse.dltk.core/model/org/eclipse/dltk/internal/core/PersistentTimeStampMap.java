@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 
@@ -27,13 +28,24 @@ public class PersistentTimeStampMap {
 		this.file = timestampsFile;
 	}
 
-	public void save() throws CoreException {
+	public synchronized void save() throws CoreException {
 		if (timestamps != null) {
-			saveTimeStamps(timestamps, file);
+			saveTimeStamps(getSnapshot(), file);
 		}
 	}
 
-	public Map<IPath, Long> getTimestamps() {
+	/**
+	 * Returns the copy of the time stamps. The returned map is synchronized for
+	 * the single operations only, so it is copied under its lock.
+	 */
+	public synchronized Map<IPath, Long> getSnapshot() {
+		getTimestamps();
+		synchronized (timestamps) {
+			return new HashMap<IPath, Long>(timestamps);
+		}
+	}
+
+	public synchronized Map<IPath, Long> getTimestamps() {
 		if (timestamps == null) {
 			timestamps = readTimeStamps(this.file);
 		}
@@ -68,7 +80,7 @@ public class PersistentTimeStampMap {
 		return timeStamps;
 	}
 
-	private void saveTimeStamps(Hashtable<IPath, Long> stamps, File timestamps)
+	private void saveTimeStamps(Map<IPath, Long> stamps, File timestamps)
 			throws CoreException {
 		if (stamps == null)
 			return;
@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -25,19 +26,61 @@ import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.dltk.annotations.Internal;
+import org.eclipse.dltk.ast.ASTNode;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.ISourceModule;
 import org.eclipse.dltk.core.ISourceModuleInfoCache;
+import org.eclipse.dltk.internal.core.util.AdaptiveCacheSize;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 
 /**
  * Used to cache some source module information. All information related to
  * source module are removed, then source module are changed.
+ * 
+ * <p>
+ * Besides the limit on the number of the entries, the cache has the limit on
+ * their estimated memory usage, which is adjusted at runtime using the heap
+ * usage and the hit rate.
  */
 public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 		IResourceChangeListener, IResourceDeltaVisitor {
 	@Internal
 	final int capacity = ModelCache.DEFAULT_ROOT_SIZE * 50;
 
+	/**
+	 * The estimated memory used by the AST per character of the source
+	 */
+	private static final int AST_BYTES_PER_CHAR = 32;
+
+	/**
+	 * The estimated memory used by the entry or by the non-AST value
+	 */
+	private static final int ENTRY_WEIGHT = 256;
+
+	/**
+	 * The number of misses between the checks of the estimated memory usage
+	 */
+	private static final int CHECK_INTERVAL = 64;
+
+	/**
+	 * The estimated memory usage of the cached infos, maintained as they are
+	 * added, changed and removed.
+	 */
+	private final AtomicLong weight = new AtomicLong();
+
+	/**
+	 * The initial limit of the estimated memory usage in bytes: 1/32 of the
+	 * maximum heap size.
+	 */
+	private final long maxWeight;
+
+	private final AdaptiveCacheSize adaptiveSize = new AdaptiveCacheSize(
+			0.25, 2);
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
 	private final ReferenceQueue<ISourceModuleInfo> queue = new ReferenceQueue<ISourceModuleInfo>();
 
 	@SuppressWarnings("serial")
@@ -45,20 +88,41 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 			16, 0.9f, true) {
 		protected boolean removeEldestEntry(
 				Map.Entry<ISourceModule, CacheReference> eldest) {
-			return size() > capacity;
+			if (size() > capacity) {
+				eldest.getValue().detach();
+				++evictions;
+				return true;
+			}
+			return false;
 		}
 	};
 
+	public SourceModuleInfoCache() {
+		final long maxMemory = Runtime.getRuntime().maxMemory();
+		// 256MB if max memory is infinite, as in ModelCache
+		maxWeight = (maxMemory == Long.MAX_VALUE ? 256L << 20 : maxMemory) >> 5;
+	}
+
 	private static class CacheReference extends
 			SoftReference<ISourceModuleInfo> {
 		final long modificationStamp;
 		final ISourceModule module;
+		/**
+		 * The weight of the info, kept here as the info could be already
+		 * collected when the entry is removed
+		 */
+		final Weight weight;
 
-		public CacheReference(ISourceModule module, ISourceModuleInfo referent,
+		public CacheReference(ISourceModule module, SourceModuleInfo referent,
 				ReferenceQueue<? super ISourceModuleInfo> q) {
 			super(referent, q);
 			this.module = module;
 			this.modificationStamp = getModificationStamp(module);
+			this.weight = referent.weight;
+		}
+
+		void detach() {
+			weight.detach();
 		}
 
 		private static long getModificationStamp(ISourceModule module) {
@@ -90,7 +154,10 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 				System.out.println("[Cache] expunge "
 						+ r.module.getElementName());
 			}
-			map.remove(r.module);
+			if (map.get(r.module) == r) {
+				map.remove(r.module);
+			}
+			r.detach();
 		}
 	}
 
@@ -100,14 +167,54 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 		if (ref != null) {
 			final ISourceModuleInfo info = ref.get();
 			if (info != null && ref.isValid(module)) {
+				++hits;
 				return info;
 			}
 		}
-		final ISourceModuleInfo info = new SourceModuleInfo();
-		map.put(module, new CacheReference(module, info, queue));
+		if (++misses % CHECK_INTERVAL == 0) {
+			adaptiveSize.update(hits, misses, evictions);
+			trimToWeight();
+		}
+		final SourceModuleInfo info = new SourceModuleInfo(weight);
+		final CacheReference previous = map.put(module, new CacheReference(
+				module, info, queue));
+		if (previous != null) {
+			previous.detach();
+		}
 		return info;
 	}
 
+	/**
+	 * Returns the current limit of the estimated memory usage in bytes.
+	 */
+	private long weightLimit() {
+		return (long) (maxWeight * adaptiveSize.getScale());
+	}
+
+	/**
+	 * Evicts the least recently used entries while the estimated memory usage
+	 * is over the limit. Called under the lock.
+	 */
+	private void trimToWeight() {
+		final long limit = weightLimit();
+		for (Iterator<CacheReference> i = map.values().iterator(); weight
+				.get() > limit
+				&& i.hasNext();) {
+			final CacheReference ref = i.next();
+			i.remove();
+			ref.detach();
+			++evictions;
+		}
+	}
+
+	/**
+	 * Returns the statistics of this cache.
+	 */
+	public synchronized CacheStatistics getStatistics() {
+		return new CacheStatistics("Source module info cache", hits, misses, //$NON-NLS-1$
+				evictions, map.size(), capacity, weight.get());
+	}
+
 	public synchronized void resourceChanged(IResourceChangeEvent event) {
 		expungeStaleEntries();
 		final IResourceDelta delta = event.getDelta();
@@ -160,10 +267,58 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 		return true;
 	}
 
+	/**
+	 * The estimated memory usage of the single info in bytes, which is added
+	 * to the total of the cache while the info is cached.
+	 */
+	private static class Weight {
+		private final AtomicLong total;
+		private long value = ENTRY_WEIGHT;
+		private boolean attached = true;
+
+		Weight(AtomicLong total) {
+			this.total = total;
+			total.addAndGet(value);
+		}
+
+		synchronized long get() {
+			return value;
+		}
+
+		synchronized void add(long delta) {
+			value += delta;
+			if (attached) {
+				total.addAndGet(delta);
+			}
+		}
+
+		synchronized void detach() {
+			if (attached) {
+				attached = false;
+				total.addAndGet(-value);
+			}
+		}
+	}
+
 	@Internal
 	static class SourceModuleInfo implements ISourceModuleInfo {
 		private Map<Object, Object> map;
 
+		final Weight weight;
+
+		SourceModuleInfo(AtomicLong total) {
+			this.weight = new Weight(total);
+		}
+
+		private static long weightOf(Object value) {
+			if (value instanceof ASTNode) {
+				final ASTNode node = (ASTNode) value;
+				return ENTRY_WEIGHT + (long) AST_BYTES_PER_CHAR
+						* Math.max(0, node.sourceEnd() - node.sourceStart());
+			}
+			return value != null ? ENTRY_WEIGHT : 0;
+		}
+
 		public synchronized Object get(String key) {
 			if (map == null) {
 				return null;
@@ -175,12 +330,12 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 			if (map == null) {
 				map = new HashMap<Object, Object>();
 			}
-			map.put(key, value);
+			weight.add(weightOf(value) - weightOf(map.put(key, value)));
 		}
 
 		public synchronized void remove(String key) {
 			if (map != null) {
-				map.remove(key);
+				weight.add(-weightOf(map.remove(key)));
 			}
 		}
 
@@ -198,6 +353,7 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 		for (Iterator<ISourceModule> i = map.keySet().iterator(); i.hasNext();) {
 			final ISourceModule module = i.next();
 			if (project.equals(module.getScriptProject().getProject())) {
+				map.get(module).detach();
 				i.remove();
 			}
 		}
@@ -211,7 +367,10 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 		if (DEBUG) {
 			System.out.println("[Cache] remove " + module.getElementName()); //$NON-NLS-1$
 		}
-		map.remove(module);
+		final CacheReference ref = map.remove(module);
+		if (ref != null) {
+			ref.detach();
+		}
 	}
 
 	private static final boolean DEBUG = false;
@@ -220,6 +379,9 @@ public class SourceModuleInfoCache implements ISourceModuleInfoCache,
 		// clear out reference queue.
 		while (queue.poll() != null)
 			;
+		for (CacheReference ref : map.values()) {
+			ref.detach();
+		}
 		map.clear();
 	}
 
@@ -17,6 +17,7 @@ import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.SimpleClassDLTKExtensionManager;
 import org.eclipse.dltk.core.caching.AbstractContentCache;
 import org.eclipse.dltk.core.caching.IContentCacheProvider;
+import org.eclipse.dltk.core.caching.IContentCacheProviderExtension;
 import org.eclipse.dltk.core.caching.MetadataContentCache;
 import org.eclipse.dltk.core.environment.EnvironmentPathUtils;
 import org.eclipse.dltk.core.environment.IFileHandle;
@@ -94,6 +95,12 @@ public class DLTKCoreCache extends AbstractContentCache {
 		metadataCache.save(false);
 		DLTKCore.removeElementChangedListener(listener);
 		ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+		Object[] objects = extensions.getObjects();
+		for (int i = 0; i < objects.length; i++) {
+			if (objects[i] instanceof IContentCacheProviderExtension) {
+				((IContentCacheProviderExtension) objects[i]).dispose();
+			}
+		}
 	}
 
 	public void clearCacheEntryAttributes(IFileHandle handle) {
@@ -15,6 +15,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
@@ -35,6 +36,7 @@ import org.eclipse.dltk.core.search.IDLTKSearchConstants;
 import org.eclipse.dltk.core.search.IDLTKSearchScope;
 import org.eclipse.dltk.core.search.SearchParticipant;
 import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.TypeGraph;
 import org.eclipse.dltk.core.search.indexing.IIndexConstants;
 import org.eclipse.dltk.core.search.indexing.IndexManager;
 import org.eclipse.dltk.core.search.matching.MatchLocator;
@@ -46,6 +48,7 @@ import org.eclipse.dltk.internal.core.Openable;
 import org.eclipse.dltk.internal.core.ScriptProject;
 import org.eclipse.dltk.internal.core.search.IndexQueryRequestor;
 import org.eclipse.dltk.internal.core.search.SubTypeSearchJob;
+import org.eclipse.dltk.internal.core.search.TypeGraphSearchJob;
 import org.eclipse.dltk.internal.core.search.matching.SuperTypeReferencePattern;
 import org.eclipse.dltk.internal.core.util.HandleFactory;
 
@@ -500,6 +503,11 @@ public class IndexBasedHierarchyBuilder extends HierarchyBuilder {
 																	// CancelIfNotReadyToSearch
 			IProgressMonitor progressMonitor) {
 
+		if (searchTypeGraphs(type, scope, pathRequestor, waitingPolicy,
+				progressMonitor)) {
+			return;
+		}
+
 		/*
 		 * embed constructs inside arrays so as to pass them to (inner)
 		 * collector
@@ -582,4 +590,67 @@ public class IndexBasedHierarchyBuilder extends HierarchyBuilder {
 			job.finished();
 		}
 	}
+
+	/**
+	 * Finds the candidate subtypes using the type graphs of the indexes, so
+	 * each index is visited once instead of once per subtype name.
+	 *
+	 * @return <code>false</code> if the type graphs are not available and the
+	 *         indexes should be queried instead
+	 */
+	private static boolean searchTypeGraphs(IType type, IDLTKSearchScope scope,
+			IPathRequestor pathRequestor, int waitingPolicy,
+			IProgressMonitor progressMonitor) {
+		final SuperTypeReferencePattern pattern = new SuperTypeReferencePattern(
+				null, null, SuperTypeReferencePattern.ALL_SUPER_TYPES,
+				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE,
+				scope.getLanguageToolkit());
+		MatchLocator.setFocus(pattern, type);
+		final TypeGraphSearchJob job = new TypeGraphSearchJob(pattern,
+				new DLTKSearchParticipant(), scope);
+		final IndexManager indexManager = ModelManager.getModelManager()
+				.getIndexManager();
+		if (!indexManager.performConcurrentJob(job, waitingPolicy, null)
+				|| job.isStale()) {
+			return false;
+		}
+		final List<TypeGraphSearchJob.IndexGraph> graphs = job.getGraphs();
+		final Queue queue = new Queue();
+		final HashSet<String> foundSuperNames = new HashSet<String>();
+		queue.add(type.getElementName().toCharArray());
+		int ticks = 0;
+		while (queue.start <= queue.end) {
+			if (progressMonitor != null && progressMonitor.isCanceled()) {
+				return true;
+			}
+			// all subclasses of OBJECT are actually all types
+			final char[] name = queue.retrieve();
+			final String currentTypeName = CharOperation.equals(name,
+					IIndexConstants.OBJECT) ? null : new String(name);
+			for (TypeGraphSearchJob.IndexGraph graph : graphs) {
+				for (TypeGraph.Edge edge : graph.graph
+						.getSubTypes(currentTypeName)) {
+					final String documentPath = job.getDocumentPath(graph,
+							edge.document);
+					if (documentPath == null) {
+						continue;
+					}
+					pathRequestor.acceptPath(documentPath, edge.local);
+					// local or anonymous types cannot have subtypes outside
+					// the cu that define them
+					if (!edge.local && foundSuperNames.add(edge.typeName)) {
+						queue.add(edge.typeName.toCharArray());
+					}
+				}
+			}
+			if (progressMonitor != null && ++ticks <= MAXTICKS) {
+				progressMonitor.worked(1);
+			}
+			// in case, we search all subtypes, no need to search further
+			if (currentTypeName == null) {
+				break;
+			}
+		}
+		return true;
+	}
 }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The scale of the cache size adjusted at runtime: the cache is shrunk when the
+ * heap is almost full and grown back when its entries are evicted while the hit
+ * rate is low.
+ */
+public class AdaptiveCacheSize {
+
+	/**
+	 * The heap usage above which the caches are shrunk
+	 */
+	static final double HIGH_HEAP_USAGE = 0.85;
+
+	/**
+	 * The heap usage below which the caches are allowed to grow
+	 */
+	static final double LOW_HEAP_USAGE = 0.6;
+
+	/**
+	 * The hit rate below which the cache evicting the entries is grown
+	 */
+	static final double LOW_HIT_RATE = 0.8;
+
+	private static final double SHRINK_FACTOR = 0.75;
+	private static final double GROW_FACTOR = 1.25;
+
+	/**
+	 * The minimal interval between the adjustments in milliseconds
+	 */
+	private static final long INTERVAL = 1000;
+
+	private final double minScale;
+	private final double maxScale;
+	private volatile double scale = 1;
+
+	private long lastUpdate;
+	private long lastHits;
+	private long lastMisses;
+	private long lastEvictions;
+
+	public AdaptiveCacheSize(double minScale, double maxScale) {
+		this.minScale = minScale;
+		this.maxScale = maxScale;
+	}
+
+	/**
+	 * Returns the current scale of the cache size, in the range specified in
+	 * the constructor.
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * Adjusts the scale using the current heap usage and the statistics of the
+	 * cache collected since the previous adjustment. Does nothing if called
+	 * more often than once a second.
+	 * 
+	 * @param hits
+	 *            the total number of cache hits
+	 * @param misses
+	 *            the total number of cache misses
+	 * @param evictions
+	 *            the total number of entries evicted from the cache
+	 * @return <code>true</code> if the scale was changed
+	 */
+	public synchronized boolean update(long hits, long misses, long evictions) {
+		final long now = System.currentTimeMillis();
+		if (now - lastUpdate < INTERVAL) {
+			return false;
+		}
+		lastUpdate = now;
+		final long deltaHits = hits - lastHits;
+		final long deltaMisses = misses - lastMisses;
+		final long deltaEvictions = evictions - lastEvictions;
+		lastHits = hits;
+		lastMisses = misses;
+		lastEvictions = evictions;
+		final double usage = heapUsage();
+		double newScale = scale;
+		if (usage > HIGH_HEAP_USAGE) {
+			newScale = Math.max(minScale, scale * SHRINK_FACTOR);
+		} else if (usage < LOW_HEAP_USAGE && deltaEvictions > 0
+				&& deltaHits < LOW_HIT_RATE * (deltaHits + deltaMisses)) {
+			newScale = Math.min(maxScale, scale * GROW_FACTOR);
+		}
+		if (newScale != scale) {
+			scale = newScale;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the fraction of the maximum heap size used after the last
+	 * garbage collection, so the garbage is not counted. Falls back to the
+	 * current usage if the JVM doesn't report the collection usage.
+	 */
+	public static double heapUsage() {
+		long used = 0;
+		long max = 0;
+		for (MemoryPoolMXBean pool : getHeapPools()) {
+			final MemoryUsage usage = pool.getCollectionUsage();
+			if (usage != null) {
+				used += usage.getUsed();
+				max += usage.getMax() >= 0 ? usage.getMax() : usage
+						.getCommitted();
+			}
+		}
+		if (max > 0) {
+			return (double) used / max;
+		}
+		final Runtime runtime = Runtime.getRuntime();
+		final long total = runtime.totalMemory();
+		long maxMemory = runtime.maxMemory();
+		if (maxMemory == Long.MAX_VALUE) {
+			maxMemory = total;
+		}
+		return (double) (total - runtime.freeMemory()) / maxMemory;
+	}
+
+	private static List<MemoryPoolMXBean> heapPools;
+
+	private static synchronized List<MemoryPoolMXBean> getHeapPools() {
+		if (heapPools == null) {
+			heapPools = new ArrayList<MemoryPoolMXBean>();
+			for (MemoryPoolMXBean pool : ManagementFactory
+					.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP) {
+					heapPools.add(pool);
+				}
+			}
+		}
+		return heapPools;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core.util;
+
+/**
+ * The snapshot of the cache statistics. The counters are atomic, but they are
+ * read one by one, so the snapshot of a cache in use could be slightly
+ * inconsistent.
+ */
+public class CacheStatistics {
+
+	private final String name;
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long failedEvictions;
+	private final int size;
+	private final int limit;
+	private final long estimatedWeight;
+
+	public CacheStatistics(String name, long hits, long misses,
+			long evictions, int size, int limit, long estimatedWeight) {
+		this(name, hits, misses, evictions, 0, size, limit, estimatedWeight);
+	}
+
+	public CacheStatistics(String name, long hits, long misses,
+			long evictions, long failedEvictions, int size, int limit,
+			long estimatedWeight) {
+		this.name = name;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.failedEvictions = failedEvictions;
+		this.size = size;
+		this.limit = limit;
+		this.estimatedWeight = estimatedWeight;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the ratio of hits to all the lookups or 0 if there were no
+	 * lookups.
+	 */
+	public double getHitRate() {
+		final long lookups = hits + misses;
+		return lookups != 0 ? (double) hits / lookups : 0;
+	}
+
+	/**
+	 * Returns the number of entries removed to make space for the new ones.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of times the entry selected for eviction could not be
+	 * removed, since it was still in use.
+	 */
+	public long getFailedEvictions() {
+		return failedEvictions;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the current size limit of the cache.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the estimated memory used by the cached entries in bytes.
+	 */
+	public long getEstimatedWeight() {
+		return estimatedWeight;
+	}
+
+	@Override
+	public String toString() {
+		return name + "[" + size + "/" + limit + "] hits=" + hits //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ " misses=" + misses + " evictions=" + evictions //$NON-NLS-1$ //$NON-NLS-2$
+				+ (failedEvictions != 0 ? " failedEvictions=" + failedEvictions : "") //$NON-NLS-1$ //$NON-NLS-2$
+				+ " weight=" + (estimatedWeight >> 10) + "K"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
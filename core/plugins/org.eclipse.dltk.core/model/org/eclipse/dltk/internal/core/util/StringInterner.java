@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core.util;
+
+/**
+ * The pool of strings which could be garbage collected, used as a replacement
+ * for String#intern(). The pool is split into the segments with own locks, so
+ * the threads interning different strings don't wait for each other.
+ */
+public class StringInterner {
+
+	private static final int SEGMENT_COUNT = 16;
+
+	private final WeakHashSet[] segments = new WeakHashSet[SEGMENT_COUNT];
+
+	public StringInterner() {
+		for (int i = 0; i < SEGMENT_COUNT; ++i) {
+			segments[i] = new WeakHashSet(64);
+		}
+	}
+
+	/**
+	 * Returns the pooled string equal to the specified one, adding it to the
+	 * pool if there is no such string yet.
+	 */
+	public String intern(String s) {
+		int hash = s.hashCode();
+		// spread the bits, since the low ones are used by the segments too
+		hash ^= (hash >>> 16);
+		final WeakHashSet segment = segments[hash & (SEGMENT_COUNT - 1)];
+		synchronized (segment) {
+			return (String) segment.add(s);
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (int i = 0; i < SEGMENT_COUNT; ++i) {
+			synchronized (segments[i]) {
+				size += segments[i].size();
+			}
+		}
+		return size;
+	}
+
+}
@@ -504,7 +504,9 @@ public class Util {
 		}
 		try {
 			char[] data = org.eclipse.dltk.compiler.util.Util
-					.getInputStreamAsCharArray(stream, -1, null);
+					.getInputStreamAsCharArray(stream, EnvironmentManager
+							.isLocal(file.getEnvironment()) ? lengthHint(file
+							.length()) : -1, null);
 			p.done("#", RuntimePerformanceMonitor.IOREAD, data.length);
 			return data;
 		} catch (IOException e) {
@@ -518,6 +520,15 @@ public class Util {
 		}
 	}
 
+	/**
+	 * Returns the file length to be used as the expected number of characters,
+	 * so the contents array is allocated once for the single byte encodings.
+	 */
+	private static int lengthHint(long fileLength) {
+		return fileLength > 0 && fileLength < Integer.MAX_VALUE ? (int) fileLength
+				: -1;
+	}
+
 	private static boolean isFatalException(CoreException e) {
 		return e.getCause() instanceof FileNotFoundException;
 	}
@@ -547,8 +558,11 @@ public class Util {
 					DLTKCore.getDefault().getLog().log(status);
 				}
 			}
+			final IPath location = file.getLocation();
 			char[] data = org.eclipse.dltk.compiler.util.Util
-					.getInputStreamAsCharArray(stream, -1, encoding);
+					.getInputStreamAsCharArray(stream,
+							location != null ? lengthHint(location.toFile()
+									.length()) : -1, encoding);
 			IEnvironment env = EnvironmentManager.getEnvironment(file);
 			p.done("#", RuntimePerformanceMonitor.IOREAD, data.length, env);
 			return data;
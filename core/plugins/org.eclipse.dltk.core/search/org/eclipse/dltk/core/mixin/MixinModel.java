@@ -17,6 +17,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -52,6 +55,7 @@ import org.eclipse.dltk.internal.core.OverflowingLRUCache;
 import org.eclipse.dltk.internal.core.mixin.IInternalMixinElement;
 import org.eclipse.dltk.internal.core.mixin.MixinCache;
 import org.eclipse.dltk.internal.core.mixin.MixinManager;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 import org.eclipse.dltk.internal.core.util.LRUCache;
 
 public class MixinModel {
@@ -76,8 +80,9 @@ public class MixinModel {
 	private final RequestCache requestCache = new RequestCache(
 			REQUEST_CACHE_LIMIT);
 
-	// true if exists, false if doesn't
-	private Map<String, Boolean> knownKeysCache = new HashMap<String, Boolean>();
+	// true if exists, false if doesn't. Updated under the lock, but read
+	// without it.
+	private Map<String, Boolean> knownKeysCache = new ConcurrentHashMap<String, Boolean>();
 	// boolean, for the atomicity of it
 	public boolean removes = true;
 
@@ -85,15 +90,36 @@ public class MixinModel {
 
 	private final IScriptProject project;
 
-	private MixinRequestor mixinRequestor = new MixinRequestor();
-
-	private ISourceModule currentModule;
-
 	/**
 	 * modules required to be reparsed
 	 */
 	private Set<ISourceModule> modulesToReparse = new HashSet<ISourceModule>();
 
+	/**
+	 * The modules being parsed, the other threads reporting the same module
+	 * wait until its elements are added.
+	 */
+	private final Map<ISourceModule, ModuleReport> reportsInProgress = new HashMap<ISourceModule, ModuleReport>();
+
+	private static class ModuleReport {
+		final Thread thread = Thread.currentThread();
+		final CountDownLatch done = new CountDownLatch(1);
+		/**
+		 * <code>true</code> if the elements of the module were added to the
+		 * model, <code>false</code> if the parsing failed or the module was
+		 * removed from the model while it was parsed.
+		 */
+		volatile boolean published;
+	}
+
+	/*
+	 * The lookup statistics, updated without locking.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong requestHits = new AtomicLong();
+	private final AtomicLong requestMisses = new AtomicLong();
+
 	/**
 	 * Creates workspace instance
 	 * 
@@ -135,21 +161,27 @@ public class MixinModel {
 		if (DLTKCore.VERBOSE) {
 			System.out.println("MixinModel.get(" + key + ')'); //$NON-NLS-1$
 		}
+		if (knownKeysCache.get(key) == Boolean.FALSE) {
+			hits.incrementAndGet();
+			return null;
+		}
 		MixinElement element = null;
 		synchronized (this) {
-			if (knownKeysCache.get(key) == Boolean.FALSE) {
-				return null;
-			}
 			element = (MixinElement) cache.get(key);
 			if (element == null) {
 				if (!removes) {
 					return null;
 				} else {
-					element = new MixinElement(key, currentModule);
+					element = new MixinElement(key, null);
 					cache.put(key, element);
 					cache.ensureSpaceLimit(1, element);
 				}
 			}
+			if (element.isFinal()) {
+				hits.incrementAndGet();
+			} else {
+				misses.incrementAndGet();
+			}
 			if (DLTKCore.VERBOSE) {
 				System.out
 						.println("Filling ratio:" + this.cache.fillingRatio()); //$NON-NLS-1$
@@ -233,7 +265,7 @@ public class MixinModel {
 
 		synchronized (this) {
 			for (String key : entry.keys) {
-				MixinElement element = getCreateEmpty(key);
+				MixinElement element = getCreateEmpty(key, null);
 				if (!monitor.isCanceled()) {
 					markElementAsFinal(element);
 				}
@@ -272,8 +304,11 @@ public class MixinModel {
 		RequestCacheEntry entry;
 		synchronized (this) {
 			entry = (RequestCacheEntry) requestCache.get(pattern);
-			if (entry != null && entry.expireTime >= System.currentTimeMillis())
+			if (entry != null && entry.expireTime >= System.currentTimeMillis()) {
+				requestHits.incrementAndGet();
 				return entry;
+			}
+			requestMisses.incrementAndGet();
 			entry = new RequestCacheEntry();
 			// TODO searches with clashing keys
 			// requestCache.put(pattern, entry);
@@ -328,6 +363,13 @@ public class MixinModel {
 
 	// long-running operation
 	public boolean keyExists(String key) {
+		if (removes) {
+			final Boolean cached = knownKeysCache.get(key);
+			if (cached != null) {
+				hits.incrementAndGet();
+				return cached;
+			}
+		}
 		synchronized (this) {
 			// TODO: For this version we cache all information, so should be
 			// false.
@@ -360,7 +402,7 @@ public class MixinModel {
 		}
 		ISourceModule[] containedModules = findModules(element.getKey());
 		if (containedModules.length == 0) {
-			synchronized (cache) {
+			synchronized (this) {
 				cache.remove(element.key);
 				cache.resetSpaceLimit(CACHE_LIMIT, element);
 			}
@@ -383,30 +425,117 @@ public class MixinModel {
 		}
 	}
 
-	// TODO long-running operation. shouldn't be synchronized
-	public synchronized void reportModule(ISourceModule sourceModule) {
-			if (!elementToMixinCache.containsKey(sourceModule)) {
-				elementToMixinCache.put(sourceModule,
-						new ArrayList<MixinElement>());
-			} else {
-				// Module already in model. So we do not to rebuild it.
-				if (!modulesToReparse.remove(sourceModule)) {
+	/**
+	 * Parses the module and adds its elements to the model. The module is
+	 * parsed without holding the lock of the model and all its elements are
+	 * added at once, so the other threads don't see the partially reported
+	 * module. The threads reporting the module being parsed wait until it is
+	 * completed and report it again if its elements were not added.
+	 * 
+	 * <p>
+	 * The callers holding the lock of the model and the parsing thread itself
+	 * can't wait, so they return immediately and should tolerate the missing
+	 * elements of the module being parsed.
+	 */
+	// long-running operation
+	public void reportModule(ISourceModule sourceModule) {
+		// can't wait for the other thread if holding the lock it needs
+		final boolean locked = Thread.holdsLock(this);
+		final List<MixinElement> moduleElements;
+		final ModuleReport report;
+		synchronized (this) {
+			final ModuleReport inProgress = reportsInProgress.get(sourceModule);
+			if (inProgress != null) {
+				if (locked || inProgress.thread == Thread.currentThread()) {
+					// would deadlock waiting, the elements of the module are
+					// not available to this caller yet
 					return;
 				}
-				// We need to reparse module if some elements are moved from it.
+				report = inProgress;
+				moduleElements = null;
+			} else {
+				List<MixinElement> elements = elementToMixinCache
+						.get(sourceModule);
+				if (elements == null) {
+					elements = new ArrayList<MixinElement>();
+					elementToMixinCache.put(sourceModule, elements);
+				} else {
+					// Module already in model. So we do not to rebuild it.
+					if (!modulesToReparse.remove(sourceModule)) {
+						return;
+					}
+					// We need to reparse module if some elements are moved
+					// from it.
+				}
+				moduleElements = elements;
+				report = new ModuleReport();
+				reportsInProgress.put(sourceModule, report);
+			}
+		}
+		if (moduleElements == null) {
+			awaitReport(report);
+			if (!report.published) {
+				reportModule(sourceModule);
 			}
+			return;
+		}
 		try {
-			IMixinParser mixinParser = MixinManager
+			final List<ElementInfo> infos = parseModule(sourceModule);
+			if (infos != null) {
+				synchronized (this) {
+					// the module could be removed while it was parsed
+					if (elementToMixinCache.get(sourceModule) == moduleElements) {
+						for (ElementInfo info : infos) {
+							addElement(info, sourceModule);
+						}
+						report.published = true;
+					}
+				}
+			}
+		} finally {
+			synchronized (this) {
+				reportsInProgress.remove(sourceModule);
+			}
+			report.done.countDown();
+		}
+	}
+
+	private static void awaitReport(ModuleReport report) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				report.done.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the elements reported by the mixin parser for the specified
+	 * module or <code>null</code> if the module could not be parsed.
+	 */
+	private List<ElementInfo> parseModule(ISourceModule sourceModule) {
+		try {
+			final IMixinParser mixinParser = MixinManager
 					.getMixinParser(sourceModule);
-			if (mixinParser != null) {
-				this.currentModule = sourceModule;
-				mixinParser.setRequirestor(mixinRequestor);
+			if (mixinParser == null) {
+				return null;
+			}
+			final MixinRequestor requestor = new MixinRequestor();
+			// the parser instance is shared
+			synchronized (mixinParser) {
+				mixinParser.setRequirestor(requestor);
 				mixinParser.parserSourceModule(true, sourceModule);
-				this.currentModule = null;
 			}
+			return requestor.infos;
 		} catch (CoreException e) {
 			DLTKCore.error("Error in reportModule", e); //$NON-NLS-1$
-			return;
+			return null;
 		}
 	}
 
@@ -435,13 +564,15 @@ public class MixinModel {
 	 * if cache doesn't contain required element
 	 * 
 	 * @param key
+	 * @param module
+	 *            the module of the new element or <code>null</code>
 	 * @return
 	 */
-	private MixinElement getCreateEmpty(String key) {
+	private MixinElement getCreateEmpty(String key, ISourceModule module) {
 		// called with lock being held
 		MixinElement element = (MixinElement) cache.get(key);
 		if (element == null) {
-			element = new MixinElement(key, currentModule);
+			element = new MixinElement(key, module);
 			this.cache.put(key, element);
 			this.cache.ensureSpaceLimit(1, element);
 		}
@@ -455,13 +586,22 @@ public class MixinModel {
 	private IMixinChangedListener changedListener = new IMixinChangedListener() {
 		public void elementChanged(ElementChangedEvent event) {
 			IModelElementDelta delta = event.getDelta();
+			final List<ISourceModule> addedModules = new ArrayList<ISourceModule>();
 			synchronized (MixinModel.this) {
-				processDelta(delta);
+				processDelta(delta, addedModules);
+			}
+			// parsed without the lock, so the lookups are not blocked
+			for (ISourceModule module : addedModules) {
+				reportModule(module);
 			}
 		}
 
-		// called with lock being held
-		private void processDelta(IModelElementDelta delta) {
+		/**
+		 * Called with lock being held, collects the added modules to be
+		 * reported after the lock is released.
+		 */
+		private void processDelta(IModelElementDelta delta,
+				List<ISourceModule> addedModules) {
 			IModelElement element = delta.getElement();
 			if (delta.getKind() == IModelElementDelta.REMOVED
 					|| delta.getKind() == IModelElementDelta.CHANGED
@@ -511,7 +651,7 @@ public class MixinModel {
 			if (delta.getKind() == IModelElementDelta.ADDED) {
 				if (element.getElementType() == IModelElement.SOURCE_MODULE) {
 					if (modulesToReparse.add((ISourceModule) element)) {
-						reportModule((ISourceModule) element);
+						addedModules.add((ISourceModule) element);
 					}
 				}
 				knownKeysCache.clear();
@@ -520,7 +660,7 @@ public class MixinModel {
 
 			if ((delta.getFlags() & IModelElementDelta.F_CHILDREN) != 0) {
 				for (IModelElementDelta child : delta.getAffectedChildren()) {
-					processDelta(child);
+					processDelta(child, addedModules);
 				}
 			} else if (delta.getKind() == IModelElementDelta.REMOVED
 					&& element.getElementType() == IModelElement.SCRIPT_FOLDER) {
@@ -882,47 +1022,58 @@ public class MixinModel {
 		}
 	};
 
-	private final class MixinRequestor implements IMixinRequestor {
+	/**
+	 * Collects the elements reported by the parser, they are added to the
+	 * model after the module is parsed.
+	 */
+	private static final class MixinRequestor implements IMixinRequestor {
+		final List<ElementInfo> infos = new ArrayList<ElementInfo>();
+
 		public void reportElement(ElementInfo info) {
-			// if( DLTKCore.VERBOSE_MIXIN ) {
-			// System.out.println("Append mixin:" + info.key);
-			// }
-			synchronized (MixinModel.this) {
-				knownKeysCache.put(info.key, Boolean.TRUE);
-				String[] list = info.key.split("\\" //$NON-NLS-1$
-						+ IMixinRequestor.MIXIN_NAME_SEPARATOR);
-				MixinElement element = getCreateEmpty(info.key);
-				addElementToModules(element);
-				element.addModule(currentModule);
-				element.addInfo(info, currentModule);
-				// Append as childs for all other elements. Also append modules
-				// to
-				// all selected elements.
-				if (list.length != 1) {
-					for (int i = 0; i < list.length - 1; ++i) {
-						MixinElement parent = getCreateEmpty(element
-								.getParentKey());
-						parent.children.add(element);
-						addElementToModules(parent);
-						element = parent;
-					}
-				}
-			}
+			// the parser could reuse the info
+			final ElementInfo copy = new ElementInfo();
+			copy.key = info.key;
+			copy.object = info.object;
+			infos.add(copy);
 		}
+	}
 
-		// called with lock being held
-		private void addElementToModules(MixinElement element) {
-			List<MixinElement> elements = MixinModel.this.elementToMixinCache
-					.get(currentModule);
-			if (elements == null) {
-				elements = new ArrayList<MixinElement>();
-				MixinModel.this.elementToMixinCache
-						.put(currentModule, elements);
+	// called with lock being held
+	private void addElement(ElementInfo info, ISourceModule module) {
+		// if( DLTKCore.VERBOSE_MIXIN ) {
+		// System.out.println("Append mixin:" + info.key);
+		// }
+		knownKeysCache.put(info.key, Boolean.TRUE);
+		String[] list = info.key.split("\\" //$NON-NLS-1$
+				+ IMixinRequestor.MIXIN_NAME_SEPARATOR);
+		MixinElement element = getCreateEmpty(info.key, module);
+		addElementToModule(element, module);
+		element.addModule(module);
+		element.addInfo(info, module);
+		// Append as childs for all other elements. Also append modules
+		// to
+		// all selected elements.
+		if (list.length != 1) {
+			for (int i = 0; i < list.length - 1; ++i) {
+				MixinElement parent = getCreateEmpty(element.getParentKey(),
+						module);
+				parent.children.add(element);
+				addElementToModule(parent, module);
+				element = parent;
 			}
-			elements.add(element);
 		}
 	}
 
+	// called with lock being held
+	private void addElementToModule(MixinElement element, ISourceModule module) {
+		List<MixinElement> elements = elementToMixinCache.get(module);
+		if (elements == null) {
+			elements = new ArrayList<MixinElement>();
+			elementToMixinCache.put(module, elements);
+		}
+		elements.add(element);
+	}
+
 	public synchronized void makeAllModuleElementsFinal(ISourceModule module) {
 		List<MixinElement> elements = elementToMixinCache.get(module);
 		if (elements != null) {
@@ -993,4 +1144,27 @@ public class MixinModel {
 	public String getNature() {
 		return toolkit.getNatureId();
 	}
+
+	/**
+	 * Returns the statistics of the element lookups, the hits are the lookups
+	 * answered without parsing the modules.
+	 * 
+	 * @since 5.2
+	 */
+	public synchronized CacheStatistics getStatistics() {
+		return new CacheStatistics(getLogContext(), hits.get(), misses.get(),
+				cache.getEvictions(), cache.getCurrentSpace(), CACHE_LIMIT, 0);
+	}
+
+	/**
+	 * Returns the statistics of the mixin searches, the hits are the searches
+	 * answered from the request cache.
+	 * 
+	 * @since 5.2
+	 */
+	public synchronized CacheStatistics getRequestStatistics() {
+		return new CacheStatistics(getLogContext() + " requests", //$NON-NLS-1$
+				requestHits.get(), requestMisses.get(), 0, requestCache
+						.getCurrentSpace(), REQUEST_CACHE_LIMIT, 0);
+	}
 }
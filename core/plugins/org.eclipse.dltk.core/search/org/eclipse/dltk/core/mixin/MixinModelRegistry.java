@@ -11,11 +11,14 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.mixin;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.dltk.core.IDLTKLanguageToolkit;
 import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 
 public class MixinModelRegistry {
 
@@ -49,6 +52,22 @@ public class MixinModelRegistry {
 
 	}
 
+	/**
+	 * Returns the lookup and search statistics of the registered models.
+	 * 
+	 * @since 5.2
+	 */
+	public static List<CacheStatistics> getCacheStatistics() {
+		final List<CacheStatistics> result = new ArrayList<CacheStatistics>();
+		synchronized (models) {
+			for (final MixinModel model : models.keySet()) {
+				result.add(model.getStatistics());
+				result.add(model.getRequestStatistics());
+			}
+		}
+		return result;
+	}
+
 	public static void clearKeysCache(IDLTKLanguageToolkit toolkit) {
 		synchronized (models) {
 			for (final MixinModel model : models.keySet()) {
@@ -19,6 +19,10 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.eclipse.dltk.compiler.CharOperation;
@@ -61,6 +65,10 @@ public class DiskIndex {
 	// offset if not read yet
 
 	private char[] cachedCategoryName;
+
+	private HashtableOfObject sortedCategoryWords; // category name ->
+	// SortedWords of the cached category table
+
 	char separator = Index.DEFAULT_SEPARATOR;
 
 	public static final String SIGNATURE = "DLTK INDEX VERSION 1.014"; //$NON-NLS-1$
@@ -73,6 +81,68 @@ public class DiskIndex {
 
 	private static final int CHUNK_SIZE = 100;
 
+	/**
+	 * The words of the category table in the sorted order, so the words
+	 * starting with the same prefix are found with the binary search. The
+	 * category tables are written in this order, so the tables which are too
+	 * big to stay cached between the queries don't need to be sorted every
+	 * time they are read.
+	 */
+	private static class SortedWords {
+
+		final HashtableOfObject table;
+
+		final char[][] words;
+
+		SortedWords(HashtableOfObject table) {
+			this.table = table;
+			this.words = new char[table.elementSize][];
+			int count = 0;
+			char[][] keys = table.keyTable;
+			for (int i = 0, l = keys.length; i < l; i++)
+				if (keys[i] != null)
+					this.words[count++] = keys[i];
+			Arrays.sort(this.words, 0, count, WORD_COMPARATOR);
+		}
+
+		/**
+		 * Creates the instance for the words of the table which are sorted
+		 * already.
+		 */
+		SortedWords(HashtableOfObject table, char[][] sortedWords) {
+			this.table = table;
+			this.words = sortedWords;
+		}
+
+		/**
+		 * Answers the index of the first word which is not less than the
+		 * specified prefix.
+		 */
+		int lowerBound(char[] prefix) {
+			int low = 0;
+			int high = this.words.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (CharOperation.compareWith(this.words[middle], prefix) < 0)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+	}
+
+	private static final Comparator<char[]> WORD_COMPARATOR = new Comparator<char[]>() {
+		public int compare(char[] word1, char[] word2) {
+			int length = Math.min(word1.length, word2.length);
+			for (int i = 0; i < length; i++) {
+				if (word1[i] != word2[i])
+					return word1[i] - word2[i];
+			}
+			return word1.length - word2.length;
+		}
+	};
+
 	static class IntList {
 
 		int size;
@@ -115,6 +185,7 @@ public class DiskIndex {
 		this.cachedChunks = null;
 		this.categoryTables = null;
 		this.cachedCategoryName = null;
+		this.sortedCategoryWords = null;
 		this.categoryOffsets = null;
 	}
 
@@ -226,14 +297,14 @@ public class DiskIndex {
 					HashtableOfObject wordsToDocNumbers = readCategoryTable(
 							categories[i], false);
 					if (wordsToDocNumbers != null) {
-						char[][] words = wordsToDocNumbers.keyTable;
-						for (int j = 0, m = words.length; j < m; j++) {
-							char[] word = words[j];
-							if (word != null && key[0] == word[0]
-									&& CharOperation.prefixEquals(key, word))
-								results = addQueryResult(results, word,
-										wordsToDocNumbers, memoryIndex);
-						}
+						// the words starting with the key follow each other
+						SortedWords sortedWords = getSortedWords(
+								categories[i], wordsToDocNumbers);
+						char[][] words = sortedWords.words;
+						for (int j = sortedWords.lowerBound(key), m = words.length; j < m
+								&& CharOperation.compareWith(words[j], key) == 0; j++)
+							results = addQueryResult(results, words[j],
+									wordsToDocNumbers, memoryIndex);
 					}
 				}
 				break;
@@ -272,10 +343,13 @@ public class DiskIndex {
 				}
 				break;
 			default:
+				char[][] prefixes = getMatchPrefixes(key, matchRule);
 				for (int i = 0, l = categories.length; i < l; i++) {
 					HashtableOfObject wordsToDocNumbers = readCategoryTable(
 							categories[i], false);
-					if (wordsToDocNumbers != null) {
+					if (wordsToDocNumbers == null)
+						continue;
+					if (prefixes == null) {
 						char[][] words = wordsToDocNumbers.keyTable;
 						for (int j = 0, m = words.length; j < m; j++) {
 							char[] word = words[j];
@@ -285,6 +359,23 @@ public class DiskIndex {
 										wordsToDocNumbers, memoryIndex);
 							}
 						}
+					} else {
+						// check only the words starting with the prefixes
+						SortedWords sortedWords = getSortedWords(
+								categories[i], wordsToDocNumbers);
+						char[][] words = sortedWords.words;
+						for (int k = 0; k < prefixes.length; k++) {
+							char[] prefix = prefixes[k];
+							for (int j = sortedWords.lowerBound(prefix), m = words.length; j < m
+									&& CharOperation.compareWith(words[j],
+											prefix) == 0; j++) {
+								if (Index.isMatch(key, words[j], matchRule)) {
+									results = addQueryResult(results,
+											words[j], wordsToDocNumbers,
+											memoryIndex);
+								}
+							}
+						}
 					}
 				}
 			}
@@ -295,6 +386,108 @@ public class DiskIndex {
 		return results;
 	}
 
+	/**
+	 * Answers the prefixes one of which every word matching the key starts
+	 * with, or <code>null</code> if all the words should be checked.
+	 */
+	static char[][] getMatchPrefixes(char[] key, int matchRule) {
+		if (key.length == 0)
+			return null;
+		int length = key.length;
+		if ((matchRule & SearchPattern.R_PATTERN_MATCH) != 0) {
+			// only the characters before the first wildcard are known
+			length = 0;
+			while (length < key.length && key[length] != '*'
+					&& key[length] != '?')
+				length++;
+			if (length == 0)
+				return null;
+		}
+		if ((matchRule & SearchPattern.R_CASE_SENSITIVE) != 0) {
+			if ((matchRule & SearchPattern.R_CAMELCASE_MATCH) != 0) {
+				// camel case match checks the first character only
+				length = 1;
+			}
+			return new char[][] { CharOperation.subarray(key, 0, length) };
+		}
+		// the case insensitive match compares the lower case characters, so
+		// collect all the characters the matching words could start with
+		char first = key[0];
+		char lowerFirst = Character.toLowerCase(first);
+		char[] chars = CaseFolding.charsLoweredTo(lowerFirst);
+		if (first != lowerFirst) {
+			char[] more = CaseFolding.charsLoweredTo(first);
+			if (more.length != 0) {
+				chars = CharOperation.concat(chars, more);
+				Arrays.sort(chars);
+			}
+		}
+		char[][] prefixes = new char[chars.length][];
+		for (int i = 0; i < chars.length; i++)
+			prefixes[i] = new char[] { chars[i] };
+		return prefixes;
+	}
+
+	/**
+	 * The inverse of {@link Character#toLowerCase(char)}, computed once as it
+	 * requires checking all the characters.
+	 */
+	private static class CaseFolding {
+		private static final char[] NO_CHARS = new char[0];
+
+		/**
+		 * Maps the lower case character to the sorted characters converted to
+		 * it, for the characters converted from the other ones only.
+		 */
+		private static final Map<Character, char[]> FOLDS = new HashMap<Character, char[]>();
+
+		static {
+			for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+				char lower = Character.toLowerCase((char) c);
+				if (lower != c) {
+					Character key = Character.valueOf(lower);
+					char[] chars = FOLDS.get(key);
+					if (chars == null) {
+						chars = Character.toLowerCase(lower) == lower ? new char[] { lower }
+								: NO_CHARS;
+					}
+					FOLDS.put(key, CharOperation.append(chars, (char) c));
+				}
+			}
+			for (char[] chars : FOLDS.values()) {
+				Arrays.sort(chars);
+			}
+		}
+
+		/**
+		 * Answers all the characters converted to the specified one by
+		 * {@link Character#toLowerCase(char)} in ascending order.
+		 */
+		static char[] charsLoweredTo(char lower) {
+			char[] chars = FOLDS.get(Character.valueOf(lower));
+			if (chars != null)
+				return chars;
+			return Character.toLowerCase(lower) == lower ? new char[] { lower }
+					: NO_CHARS;
+		}
+	}
+
+	private synchronized SortedWords getSortedWords(char[] categoryName,
+			HashtableOfObject wordsToDocNumbers) {
+		if (this.sortedCategoryWords == null) {
+			this.sortedCategoryWords = new HashtableOfObject(3);
+		} else {
+			SortedWords sortedWords = (SortedWords) this.sortedCategoryWords
+					.get(categoryName);
+			if (sortedWords != null && sortedWords.table == wordsToDocNumbers
+					&& sortedWords.words.length == wordsToDocNumbers.elementSize)
+				return sortedWords;
+		}
+		SortedWords sortedWords = new SortedWords(wordsToDocNumbers);
+		this.sortedCategoryWords.put(categoryName, sortedWords);
+		return sortedWords;
+	}
+
 	private void cacheDocumentNames() throws IOException {
 		// will need all document names so get them now
 		this.cachedChunks = new String[this.numberOfChunks][];
@@ -769,6 +962,10 @@ public class DiskIndex {
 		char[][] matchingWords = null;
 		int count = 0;
 		int firstOffset = -1;
+		// the words are written in the sorted order, the tables written by the
+		// older versions are sorted on demand
+		char[][] readWords = null;
+		boolean sorted = true;
 		try {
 			stream.skip(offset);
 			int size = stream.readInt();
@@ -796,8 +993,13 @@ public class DiskIndex {
 				throw oom;
 			}
 			int largeArraySize = 256;
+			readWords = new char[size][];
 			for (int i = 0; i < size; i++) {
 				char[] word = Util.readUTF(stream);
+				if (sorted && i > 0
+						&& WORD_COMPARATOR.compare(readWords[i - 1], word) >= 0)
+					sorted = false;
+				readWords[i] = word;
 				int arrayOffset = stream.readInt();
 				// if arrayOffset is:
 				// <= 0 then the array size == 1 with the value -> -arrayOffset
@@ -835,6 +1037,12 @@ public class DiskIndex {
 				}
 			}
 			this.categoryTables.put(categoryName, categoryTable);
+			if (sorted) {
+				if (this.sortedCategoryWords == null)
+					this.sortedCategoryWords = new HashtableOfObject(3);
+				this.sortedCategoryWords.put(categoryName, new SortedWords(
+						categoryTable, readWords));
+			}
 			// cache the table as long as its not too big
 			// in practise, some tables can be greater than 500K when the
 			// contain more than 10K elements
@@ -994,11 +1202,20 @@ public class DiskIndex {
 			if (this.categoryTables != null) {
 				if (this.cachedCategoryName == null) {
 					this.categoryTables = null;
+					this.sortedCategoryWords = null;
 				} else if (this.categoryTables.elementSize > 1) {
 					HashtableOfObject newTables = new HashtableOfObject(3);
 					newTables.put(this.cachedCategoryName,
 							this.categoryTables.get(this.cachedCategoryName));
 					this.categoryTables = newTables;
+					if (this.sortedCategoryWords != null) {
+						Object sortedWords = this.sortedCategoryWords
+								.get(this.cachedCategoryName);
+						this.sortedCategoryWords = new HashtableOfObject(3);
+						if (sortedWords != null)
+							this.sortedCategoryWords.put(
+									this.cachedCategoryName, sortedWords);
+					}
 				}
 			}
 		}
@@ -1118,9 +1335,11 @@ public class DiskIndex {
 		// table
 		this.categoryTables.put(categoryName, null); // flush cached table
 		stream.writeInt(wordsToDocs.elementSize);
-		char[][] words = wordsToDocs.keyTable;
+		// write the words in the sorted order, so they are not sorted every
+		// time the table is read
+		char[][] words = new SortedWords(wordsToDocs).words;
 		for (int i = 0, l = words.length; i < l; i++) {
-			Object o = values[i];
+			Object o = wordsToDocs.get(words[i]);
 			if (o != null) {
 				Util.writeUTF(stream, words[i]);
 				if (o instanceof int[]) {
@@ -19,6 +19,7 @@ import org.eclipse.dltk.compiler.util.SimpleSet;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.search.IDLTKSearchScope;
 import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
 import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
 
 /**
@@ -29,6 +30,13 @@ import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
  * 
  * Indexes are not synchronized structures and should only be queried/updated
  * one at a time.
+ * 
+ * The small changes are saved to the segment file next to the index file
+ * instead of rewriting the whole index, and are kept in the memory index, so
+ * the queries merge them with the disk index. The segment is merged into the
+ * index file when the changes grow large. The type graph file is saved for the
+ * index file only, the changes from the segment are applied to it when it is
+ * loaded.
  */
 
 public class Index {
@@ -47,6 +55,42 @@ public class Index {
 
 	protected MemoryIndex memoryIndex;
 
+	/**
+	 * The type graph of this index, loaded or built on demand and updated
+	 * together with the index after that.
+	 */
+	private TypeGraph typeGraph;
+
+	/**
+	 * The extension appended to the index file name to get the file of its
+	 * type graph
+	 * 
+	 * @since 5.2
+	 */
+	public static final String TYPE_GRAPH_EXTENSION = ".types"; //$NON-NLS-1$
+
+	/**
+	 * The extension appended to the index file name to get the file of the
+	 * changes not merged into the index file yet
+	 * 
+	 * @since 5.2
+	 */
+	public static final String SEGMENT_EXTENSION = ".segment"; //$NON-NLS-1$
+
+	/**
+	 * The extension appended to the index file name to get the file of the
+	 * indexed documents states, maintained by the index requests
+	 * 
+	 * @since 5.2
+	 */
+	public static final String MANIFEST_EXTENSION = ".manifest"; //$NON-NLS-1$
+
+	/**
+	 * The modification count of the memory index when it was saved as a
+	 * segment
+	 */
+	private int savedModificationCount;
+
 	/**
 	 * Mask used on match rule for indexing.
 	 */
@@ -110,8 +154,22 @@ public class Index {
 		this.memoryIndex = new MemoryIndex();
 		this.diskIndex = new DiskIndex(fileName);
 		this.diskIndex.initialize(reuseExistingFile);
-		if (reuseExistingFile)
+		File segmentFile = getSegmentFile();
+		if (reuseExistingFile) {
 			this.separator = this.diskIndex.separator;
+			MemoryIndex segment = MemoryIndex.load(segmentFile,
+					getStamp(getIndexFile()));
+			if (segment != null) {
+				this.memoryIndex = segment;
+				this.savedModificationCount = segment.modificationCount;
+			} else {
+				segmentFile.delete();
+			}
+		} else {
+			segmentFile.delete();
+			new File(fileName + MANIFEST_EXTENSION).delete();
+			this.typeGraph = new TypeGraph();
+		}
 	}
 
 	protected Index(String fileName, String containerPath) {
@@ -125,6 +183,9 @@ public class Index {
 			System.out.println("DEBUG INDEX: Add Index Entry:" + new String( category ) + " " + new String( key ) + " path:" + containerRelativePath ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		}
 		this.memoryIndex.addIndexEntry(category, key, containerRelativePath);
+		if (this.typeGraph != null
+				&& CharOperation.equals(category, IIndexConstants.SUPER_REF))
+			this.typeGraph.add(key, containerRelativePath);
 	}
 
 	public File getIndexFile() {
@@ -134,8 +195,11 @@ public class Index {
 		return this.diskIndex.getIndexFile();
 	}
 
+	/**
+	 * Answers if the index has the changes which are not saved yet.
+	 */
 	public boolean hasChanged() {
-		return this.memoryIndex.hasChanged();
+		return this.memoryIndex.modificationCount != this.savedModificationCount;
 	}
 
 	/**
@@ -154,6 +218,23 @@ public class Index {
 			}
 		}
 
+		HashtableOfObject results = queryResults(categories, key, matchRule);
+		if (results == null)
+			return null;
+
+		EntryResult[] entryResults = new EntryResult[results.elementSize];
+		int count = 0;
+		Object[] values = results.valueTable;
+		for (int i = 0, l = values.length; i < l; i++) {
+			EntryResult result = (EntryResult) values[i];
+			if (result != null)
+				entryResults[count++] = result;
+		}
+		return entryResults;
+	}
+
+	private HashtableOfObject queryResults(char[][] categories, char[] key,
+			int matchRule) throws IOException {
 		HashtableOfObject results;
 		int rule = matchRule & MATCH_RULE_INDEX_MASK;
 		if (this.memoryIndex.hasChanged()) {
@@ -165,18 +246,97 @@ public class Index {
 			results = this.diskIndex.addQueryResults(categories, key, rule,
 					null);
 		}
-		if (results == null)
+		return results;
+	}
+
+	/**
+	 * Returns the type graph of this index. The graph is loaded from the file
+	 * saved with the index file and updated with the changes not merged into
+	 * the index file yet, or built from the index entries if that file is
+	 * stale. Must be called with the read lock of the monitor.
+	 * 
+	 * @return the type graph or <code>null</code> if it is not available
+	 * @since 5.2
+	 */
+	public synchronized TypeGraph getTypeGraph() {
+		if (this.typeGraph == null && this.diskIndex != null) {
+			File file = getTypeGraphFile();
+			if (file != null) {
+				this.typeGraph = TypeGraph.load(file, getStamp(getIndexFile()));
+				if (this.typeGraph != null)
+					this.memoryIndex.updateTypeGraph(this.typeGraph);
+			}
+			if (this.typeGraph == null) {
+				try {
+					this.typeGraph = buildTypeGraph();
+				} catch (IOException e) {
+					if (DLTKCore.DEBUG)
+						e.printStackTrace();
+				}
+			}
+		}
+		return this.typeGraph;
+	}
+
+	private TypeGraph buildTypeGraph() throws IOException {
+		TypeGraph graph = new TypeGraph();
+		HashtableOfObject results = queryResults(
+				new char[][] { IIndexConstants.SUPER_REF }, null,
+				SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		if (results != null) {
+			Object[] values = results.valueTable;
+			for (int i = 0, l = values.length; i < l; i++) {
+				EntryResult result = (EntryResult) values[i];
+				if (result != null) {
+					String[] names = result.getDocumentNames(this);
+					for (int j = 0; j < names.length; j++)
+						graph.add(result.getWord(), names[j]);
+				}
+			}
+		}
+		return graph;
+	}
+
+	private File getTypeGraphFile() {
+		File indexFile = getIndexFile();
+		if (indexFile == null)
 			return null;
+		return new File(indexFile.getPath() + TYPE_GRAPH_EXTENSION);
+	}
 
-		EntryResult[] entryResults = new EntryResult[results.elementSize];
-		int count = 0;
-		Object[] values = results.valueTable;
-		for (int i = 0, l = values.length; i < l; i++) {
-			EntryResult result = (EntryResult) values[i];
-			if (result != null)
-				entryResults[count++] = result;
+	private File getSegmentFile() {
+		return new File(this.diskIndex.fileName + SEGMENT_EXTENSION);
+	}
+
+	private static long getStamp(File file) {
+		return file.lastModified() ^ (file.length() << 32);
+	}
+
+	/**
+	 * Answers the stamp of the saved index, it is changed every time the index
+	 * is saved.
+	 * 
+	 * @since 5.2
+	 */
+	public long getStamp() {
+		long stamp = getStamp(getIndexFile());
+		File segmentFile = getSegmentFile();
+		if (segmentFile.isFile())
+			stamp = stamp * 31 + getStamp(segmentFile);
+		return stamp;
+	}
+
+	private void saveTypeGraph() {
+		File file = getTypeGraphFile();
+		if (this.typeGraph == null || file == null)
+			return;
+		try {
+			this.typeGraph.save(file, getStamp(getIndexFile()));
+		} catch (IOException e) {
+			file.delete();
+			if (DLTKCore.DEBUG)
+				e.printStackTrace();
 		}
-		return entryResults;
 	}
 
 	/**
@@ -206,6 +366,8 @@ public class Index {
 
 	public void remove(String containerRelativePath) {
 		this.memoryIndex.remove(containerRelativePath);
+		if (this.typeGraph != null)
+			this.typeGraph.removeDocument(containerRelativePath);
 	}
 
 	public void save() throws IOException {
@@ -213,6 +375,30 @@ public class Index {
 		if (!hasChanged())
 			return;
 
+		if (!this.memoryIndex.shouldMerge()
+				&& this.diskIndex.separator == this.separator) {
+			// save the changes only, the separator is saved with the index file
+			this.memoryIndex.save(getSegmentFile(), getStamp(getIndexFile()));
+			this.savedModificationCount = this.memoryIndex.modificationCount;
+			if (DLTKCore.DEBUG_INDEX) {
+				System.out.println("Index segment for " + this.containerPath + " (" + new Path(diskIndex.fileName).lastSegment() + ") saved"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$		
+			}
+			// the type graph file is rewritten when the segment is merged
+			return;
+		}
+		compact();
+	}
+
+	/**
+	 * Merges all the changes into the index file. Must own the write lock of
+	 * the monitor.
+	 * 
+	 * @since 5.2
+	 */
+	public void compact() throws IOException {
+		if (!this.memoryIndex.hasChanged())
+			return;
+
 		if (DLTKCore.DEBUG_INDEX) {
 			System.out.println("Index for " + this.containerPath + " (" + new Path(diskIndex.fileName).lastSegment() + ") saved"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$		
 		}
@@ -220,6 +406,9 @@ public class Index {
 		this.diskIndex.separator = this.separator;
 		this.diskIndex = this.diskIndex.mergeWith(this.memoryIndex);
 		this.memoryIndex = new MemoryIndex();
+		this.savedModificationCount = 0;
+		getSegmentFile().delete();
+		saveTypeGraph();
 		// if (numberOfChanges > 1000)
 		// System.gc(); // reclaim space if the MemoryIndex was very BIG
 	}
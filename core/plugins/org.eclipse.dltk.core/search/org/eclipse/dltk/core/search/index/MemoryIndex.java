@@ -9,15 +9,25 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.search.index;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.regex.Pattern;
 
 import org.eclipse.dltk.compiler.CharOperation;
 import org.eclipse.dltk.compiler.util.HashtableOfObject;
 import org.eclipse.dltk.compiler.util.SimpleLookupTable;
 import org.eclipse.dltk.compiler.util.SimpleSet;
+import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.search.SearchPattern;
 import org.eclipse.dltk.core.search.indexing.IIndexConstants;
 import org.eclipse.dltk.internal.core.util.SimpleWordSet;
+import org.eclipse.dltk.internal.core.util.Util;
 
 public class MemoryIndex {
 
@@ -36,6 +46,15 @@ public class MemoryIndex {
 
 	HashtableOfObject lastReferenceTable;
 
+	/**
+	 * The number of the changes made to this index, used to find out if it has
+	 * changed since it was saved as a segment.
+	 */
+	int modificationCount;
+
+	private static final int SEGMENT_MAGIC = 0x444C5347; // "DLSG"
+	private static final int SEGMENT_VERSION = 1;
+
 	MemoryIndex() {
 		this.docsToReferences = new SimpleLookupTable(7);
 		this.allWords = new SimpleWordSet(7);
@@ -58,6 +77,32 @@ public class MemoryIndex {
 		}
 	}
 
+	/**
+	 * Replaces the edges of the documents changed in this index in the
+	 * specified type graph with the ones of this index.
+	 */
+	void updateTypeGraph(TypeGraph graph) {
+		Object[] paths = this.docsToReferences.keyTable;
+		Object[] referenceTables = this.docsToReferences.valueTable;
+		for (int i = 0, l = paths.length; i < l; i++) {
+			String documentName = (String) paths[i];
+			if (documentName == null)
+				continue;
+			graph.removeDocument(documentName);
+			HashtableOfObject categoryToWords = (HashtableOfObject) referenceTables[i];
+			if (categoryToWords == null)
+				continue;
+			SimpleWordSet wordSet = (SimpleWordSet) categoryToWords
+					.get(IIndexConstants.SUPER_REF);
+			if (wordSet != null) {
+				char[][] words = wordSet.words;
+				for (int j = 0, m = words.length; j < m; j++)
+					if (words[j] != null)
+						graph.add(words[j], documentName);
+			}
+		}
+	}
+
 	void addIndexEntry(char[] category, char[] key, String documentName) {
 		HashtableOfObject referenceTable;
 		if (documentName.equals(this.lastDocumentName))
@@ -79,6 +124,7 @@ public class MemoryIndex {
 			referenceTable.put(category, existingWords = new SimpleWordSet(1));
 
 		existingWords.add(this.allWords.add(key));
+		++this.modificationCount;
 	}
 
 	HashtableOfObject addQueryResults(char[][] categories, char[] key,
@@ -196,9 +242,117 @@ public class MemoryIndex {
 			this.lastReferenceTable = null;
 		}
 		this.docsToReferences.put(documentName, null);
+		++this.modificationCount;
 	}
 
 	boolean shouldMerge() {
 		return this.docsToReferences.elementSize >= NUM_CHANGES;
 	}
+
+	/**
+	 * Saves the changed and removed documents to the segment file. The file is
+	 * written to the temporary one first and then renamed, so the segment is
+	 * replaced atomically.
+	 * 
+	 * @param stamp
+	 *            the stamp of the disk index the changes are made to
+	 */
+	void save(File file, long stamp) throws IOException {
+		final File tempFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile), 8192));
+		try {
+			out.writeInt(SEGMENT_MAGIC);
+			out.writeInt(SEGMENT_VERSION);
+			out.writeLong(stamp);
+			out.writeInt(this.docsToReferences.elementSize);
+			Object[] paths = this.docsToReferences.keyTable;
+			Object[] referenceTables = this.docsToReferences.valueTable;
+			for (int i = 0, l = paths.length; i < l; i++) {
+				if (paths[i] == null)
+					continue;
+				out.writeUTF((String) paths[i]);
+				HashtableOfObject categoryToWords = (HashtableOfObject) referenceTables[i];
+				if (categoryToWords == null) {
+					// removed document
+					out.writeInt(-1);
+					continue;
+				}
+				out.writeInt(categoryToWords.elementSize);
+				char[][] categories = categoryToWords.keyTable;
+				Object[] wordSets = categoryToWords.valueTable;
+				for (int j = 0, m = categories.length; j < m; j++) {
+					if (categories[j] == null)
+						continue;
+					Util.writeUTF(out, categories[j]);
+					SimpleWordSet wordSet = (SimpleWordSet) wordSets[j];
+					out.writeInt(wordSet.elementSize);
+					char[][] words = wordSet.words;
+					for (int k = 0, n = words.length; k < n; k++)
+						if (words[k] != null)
+							Util.writeUTF(out, words[k]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if (!tempFile.renameTo(file)) {
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				tempFile.delete();
+				throw new IOException("Could not save index segment " + file); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Loads the changes saved for the disk index with the specified stamp.
+	 * 
+	 * @return the index or <code>null</code> if there is no saved segment or
+	 *         it is stale
+	 */
+	static MemoryIndex load(File file, long stamp) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file), 8192));
+			try {
+				if (in.readInt() != SEGMENT_MAGIC
+						|| in.readInt() != SEGMENT_VERSION
+						|| in.readLong() != stamp) {
+					return null;
+				}
+				final MemoryIndex index = new MemoryIndex();
+				for (int i = in.readInt(); --i >= 0;) {
+					final String documentName = in.readUTF();
+					final int categoryCount = in.readInt();
+					if (categoryCount < 0) {
+						index.remove(documentName);
+						continue;
+					}
+					if (categoryCount == 0) {
+						// changed document without entries
+						index.docsToReferences.put(documentName,
+								new HashtableOfObject(3));
+					}
+					for (int j = categoryCount; --j >= 0;) {
+						final char[] category = Util.readUTF(in);
+						for (int k = in.readInt(); --k >= 0;)
+							index.addIndexEntry(category, Util.readUTF(in),
+									documentName);
+					}
+				}
+				return index;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
 }
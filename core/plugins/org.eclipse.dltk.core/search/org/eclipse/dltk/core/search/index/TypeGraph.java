@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.search.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.compiler.CharOperation;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+
+/**
+ * The supertype to subtype graph of the types declared in the documents of
+ * the single {@link Index}. The graph is updated together with the index and
+ * is saved next to the index file, so the hierarchy queries don't need to scan
+ * the index repeatedly.
+ *
+ * @since 5.2
+ */
+public class TypeGraph {
+
+	/**
+	 * Type declaration with one of its direct supertypes
+	 */
+	public static class Edge {
+		/**
+		 * The simple name of the declared type
+		 */
+		public final String typeName;
+		/**
+		 * The simple name of the direct supertype
+		 */
+		public final String superTypeName;
+		/**
+		 * The container relative path of the declaring document
+		 */
+		public final String document;
+		/**
+		 * <code>true</code> if the declared type is local or anonymous
+		 */
+		public final boolean local;
+
+		Edge(String typeName, String superTypeName, String document,
+				boolean local) {
+			this.typeName = typeName;
+			this.superTypeName = superTypeName;
+			this.document = document;
+			this.local = local;
+		}
+	}
+
+	private static final int MAGIC = 0x44544752; // DTGR
+	private static final int VERSION = 1;
+
+	private final Map<String, List<Edge>> byDocument = new HashMap<String, List<Edge>>();
+	private final Map<String, List<Edge>> bySuperType = new HashMap<String, List<Edge>>();
+	private final Map<String, List<Edge>> byType = new HashMap<String, List<Edge>>();
+	private int size;
+
+	/**
+	 * Adds the edge decoded from the {@link IIndexConstants#SUPER_REF} index
+	 * key.
+	 */
+	synchronized void add(char[] key, String document) {
+		// superSimpleName{superQualification{simpleName{enclosingTypeName{...
+		final int end1 = CharOperation.indexOf(IIndexConstants.SEPARATOR, key,
+				0);
+		if (end1 < 0) {
+			return;
+		}
+		final int end2 = CharOperation.indexOf(IIndexConstants.SEPARATOR, key,
+				end1 + 1);
+		if (end2 < 0) {
+			return;
+		}
+		final int end3 = CharOperation.indexOf(IIndexConstants.SEPARATOR, key,
+				end2 + 1);
+		if (end3 < 0) {
+			return;
+		}
+		final int start4 = end3 + 1;
+		final boolean local = start4 + 1 < key.length
+				&& key[start4] == IIndexConstants.ZERO_CHAR
+				&& key[start4 + 1] == IIndexConstants.SEPARATOR;
+		add(new Edge(new String(key, end2 + 1, end3 - end2 - 1), new String(
+				key, 0, end1), document, local));
+	}
+
+	private void add(Edge edge) {
+		append(byDocument, edge.document, edge);
+		append(bySuperType, edge.superTypeName, edge);
+		append(byType, edge.typeName, edge);
+		++size;
+	}
+
+	private static void append(Map<String, List<Edge>> map, String key,
+			Edge edge) {
+		List<Edge> edges = map.get(key);
+		if (edges == null) {
+			edges = new ArrayList<Edge>(2);
+			map.put(key, edges);
+		}
+		edges.add(edge);
+	}
+
+	private static void remove(Map<String, List<Edge>> map, String key,
+			String document) {
+		final List<Edge> edges = map.get(key);
+		if (edges != null) {
+			for (int i = edges.size(); --i >= 0;) {
+				if (edges.get(i).document.equals(document)) {
+					edges.remove(i);
+				}
+			}
+			if (edges.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the edges declared in the specified document
+	 */
+	synchronized void removeDocument(String document) {
+		final List<Edge> edges = byDocument.remove(document);
+		if (edges != null) {
+			for (Edge edge : edges) {
+				remove(bySuperType, edge.superTypeName, document);
+				remove(byType, edge.typeName, document);
+			}
+			size -= edges.size();
+		}
+	}
+
+	/**
+	 * Returns the declarations of the direct subtypes of the specified type or
+	 * all the declarations if the name is <code>null</code>.
+	 */
+	public synchronized List<Edge> getSubTypes(String superTypeName) {
+		if (superTypeName == null) {
+			final List<Edge> result = new ArrayList<Edge>(size);
+			for (List<Edge> edges : byDocument.values()) {
+				result.addAll(edges);
+			}
+			return result;
+		}
+		return copyOf(bySuperType.get(superTypeName));
+	}
+
+	/**
+	 * Returns the declarations of the specified type with their direct
+	 * supertypes.
+	 */
+	public synchronized List<Edge> getSuperTypes(String typeName) {
+		return copyOf(byType.get(typeName));
+	}
+
+	private static List<Edge> copyOf(List<Edge> edges) {
+		if (edges == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<Edge>(edges);
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Saves the graph, the stamp identifies the state of the index file.
+	 */
+	synchronized void save(File file, long stamp) throws IOException {
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file), 8192));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(stamp);
+			out.writeInt(byDocument.size());
+			for (Map.Entry<String, List<Edge>> entry : byDocument.entrySet()) {
+				out.writeUTF(entry.getKey());
+				final List<Edge> edges = entry.getValue();
+				out.writeInt(edges.size());
+				for (Edge edge : edges) {
+					out.writeUTF(edge.typeName);
+					out.writeUTF(edge.superTypeName);
+					out.writeBoolean(edge.local);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads the graph saved for the index file with the specified stamp.
+	 *
+	 * @return the graph or <code>null</code> if there is no saved graph or it
+	 *         is stale
+	 */
+	static TypeGraph load(File file, long stamp) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file), 8192));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION
+						|| in.readLong() != stamp) {
+					return null;
+				}
+				final TypeGraph graph = new TypeGraph();
+				for (int i = in.readInt(); --i >= 0;) {
+					final String document = in.readUTF();
+					for (int j = in.readInt(); --j >= 0;) {
+						final String typeName = in.readUTF();
+						final String superTypeName = in.readUTF();
+						graph.add(new Edge(typeName, superTypeName, document,
+								in.readBoolean()));
+					}
+				}
+				return graph;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
+}
@@ -23,7 +23,7 @@ public abstract class AbstractJob implements IJob {
 
 	public static final boolean DEBUG = false;
 
-	protected boolean isCancelled = false;
+	protected volatile boolean isCancelled = false;
 
 	public boolean belongsTo(String jobFamily) {
 		return false;
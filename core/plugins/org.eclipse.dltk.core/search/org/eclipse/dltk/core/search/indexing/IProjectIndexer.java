@@ -11,7 +11,11 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.search.indexing;
 
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.dltk.core.IDLTKLanguageToolkit;
 import org.eclipse.dltk.core.IProjectFragment;
 import org.eclipse.dltk.core.IScriptProject;
@@ -36,6 +40,26 @@ public interface IProjectIndexer {
 
 		IndexManager getIndexManager();
 
+		/**
+		 * Extracts the index entries of the specified modules concurrently,
+		 * without touching the index. The returned documents should be added
+		 * to the index with {@link IndexDocument#flush(Index)} owning the
+		 * write lock of the index. Returns <code>null</code> if the modules
+		 * should be indexed one by one with
+		 * {@link #indexSourceModule(Index, IDLTKLanguageToolkit, ISourceModule, IPath)}
+		 * instead. The documents of the modules failed to index or not
+		 * indexed because of the cancellation are not included into the
+		 * result.
+		 * 
+		 * @param monitor
+		 *            the progress monitor checked for the cancellation, could
+		 *            be <code>null</code>
+		 * @since 5.2
+		 */
+		Map<ISourceModule, IndexDocument> indexSourceModules(
+				IDLTKLanguageToolkit toolkit, List<ISourceModule> modules,
+				IPath containerPath, IProgressMonitor monitor);
+
 	}
 
 	/**
@@ -29,6 +29,13 @@ public class IndexDocument {
 	private IPath path = null;
 	private final String containerRelativePath;
 
+	/*
+	 * the entries recorded by the document not bound to the index
+	 */
+	private char[][] categories;
+	private char[][] keys;
+	private int entryCount;
+
 	/**
 	 * @param toolkit
 	 * @param module
@@ -45,6 +52,21 @@ public class IndexDocument {
 				containerPath, module, path);
 	}
 
+	/**
+	 * Creates the document which is not bound to the index. The index entries
+	 * are recorded by the document and should be added to the index with
+	 * {@link #flush(Index)} later, so the modules could be indexed
+	 * concurrently.
+	 * 
+	 * @since 5.2
+	 */
+	public IndexDocument(IDLTKLanguageToolkit toolkit, ISourceModule module,
+			IPath containerPath) {
+		this(toolkit, module, containerPath, null);
+		this.categories = new char[16][];
+		this.keys = new char[16][];
+	}
+
 	public ISourceModule getSourceModule() {
 		return module;
 	}
@@ -86,11 +108,37 @@ public class IndexDocument {
 	 *            the key of the index entry
 	 */
 	public void addIndexEntry(char[] category, char[] key) {
-		index.addIndexEntry(category, key, containerRelativePath);
+		if (index != null) {
+			index.addIndexEntry(category, key, containerRelativePath);
+		} else {
+			if (entryCount == keys.length) {
+				final int newLength = entryCount * 2;
+				System.arraycopy(categories, 0,
+						categories = new char[newLength][], 0, entryCount);
+				System.arraycopy(keys, 0, keys = new char[newLength][], 0,
+						entryCount);
+			}
+			categories[entryCount] = category;
+			keys[entryCount++] = key;
+		}
 	}
 
 	/**
-	 * @return
+	 * Adds the recorded entries to the specified index, replacing the entries
+	 * of this document already there. Must own the write lock of the index.
+	 * 
+	 * @since 5.2
+	 */
+	public void flush(Index target) {
+		target.remove(containerRelativePath);
+		for (int i = 0; i < entryCount; ++i) {
+			target.addIndexEntry(categories[i], keys[i], containerRelativePath);
+		}
+	}
+
+	/**
+	 * @return the index or <code>null</code> if the document is not bound to
+	 *         the index
 	 */
 	public Index getIndex() {
 		return index;
@@ -143,6 +143,22 @@ public class IndexManager extends JobManager implements IIndexConstants {
 									.verbose("Deleting index file " + indexesFiles[i]); //$NON-NLS-1$
 						}
 						indexesFiles[i].delete();
+					} else if (fileName.endsWith(Index.TYPE_GRAPH_EXTENSION)
+							&& !knownPaths.containsKey(fileName.substring(0,
+									fileName.length()
+											- Index.TYPE_GRAPH_EXTENSION
+													.length()))) {
+						indexesFiles[i].delete();
+					} else if (fileName.endsWith(Index.SEGMENT_EXTENSION)
+							&& !knownPaths.containsKey(fileName.substring(0,
+									fileName.length()
+											- Index.SEGMENT_EXTENSION.length()))) {
+						indexesFiles[i].delete();
+					} else if (fileName.endsWith(Index.MANIFEST_EXTENSION)
+							&& !knownPaths.containsKey(fileName.substring(0,
+									fileName.length()
+											- Index.MANIFEST_EXTENSION.length()))) {
+						indexesFiles[i].delete();
 					}
 				}
 			}
@@ -651,6 +667,9 @@ public class IndexManager extends JobManager implements IIndexConstants {
 		if (indexFile.exists()) {
 			indexFile.delete();
 		}
+		new File(indexLocation + Index.TYPE_GRAPH_EXTENSION).delete();
+		new File(indexLocation + Index.SEGMENT_EXTENSION).delete();
+		new File(indexLocation + Index.MANIFEST_EXTENSION).delete();
 		final Object o = this.indexes.remove(indexLocation);
 		if (o instanceof Index) {
 			final Index index = (Index) o;
@@ -687,6 +706,9 @@ public class IndexManager extends JobManager implements IIndexConstants {
 				if (indexFile.exists()) {
 					indexFile.delete();
 				}
+				new File(indexLocation + Index.TYPE_GRAPH_EXTENSION).delete();
+				new File(indexLocation + Index.SEGMENT_EXTENSION).delete();
+				new File(indexLocation + Index.MANIFEST_EXTENSION).delete();
 			} else if (locations == null) {
 				max--;
 			}
@@ -11,7 +11,20 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.search.indexing.core;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.DLTKLanguageManager;
 import org.eclipse.dltk.core.IDLTKLanguageToolkit;
@@ -92,8 +105,11 @@ public abstract class AbstractProjectIndexer implements IProjectIndexer,
 		} catch (ModelException e) {
 			DLTKCore.error("Failed to index fragment:" + path.toString(), e);
 		}
-		if (fragmentToIndex == null || !fragmentToIndex.isExternal()
-				|| fragmentToIndex.isBuiltin()) {
+		if (fragmentToIndex != null && !fragmentToIndex.isExternal()) {
+			requestIfNotWaiting(new SourceFragmentRequest(this, project, path));
+			return;
+		}
+		if (fragmentToIndex == null || fragmentToIndex.isBuiltin()) {
 			requestIfNotWaiting(new ProjectRequest(this, project));
 			return;
 		}
@@ -120,8 +136,8 @@ public abstract class AbstractProjectIndexer implements IProjectIndexer,
 	}
 
 	public void removeProjectFragment(IScriptProject project, IPath sourceFolder) {
-		// TODO optimize
-		requestIfNotWaiting(new ProjectRequest(this, project));
+		requestIfNotWaiting(new SourceFragmentRequest(this, project,
+				sourceFolder));
 	}
 
 	public void removeSourceModule(IScriptProject project, String path) {
@@ -157,6 +173,122 @@ public abstract class AbstractProjectIndexer implements IProjectIndexer,
 
 	public abstract void doIndexing(IndexDocument document);
 
+	/**
+	 * The minimal number of modules per thread to index them concurrently
+	 */
+	private static final int MODULES_PER_THREAD = 16;
+
+	/**
+	 * The threads extracting the index entries, shared by all the indexers as
+	 * the index requests are executed one at a time. The idle threads are
+	 * stopped after a while.
+	 */
+	private static final ThreadPoolExecutor WORKERS = createWorkers();
+
+	private static ThreadPoolExecutor createWorkers() {
+		final int count = Math.max(2, Runtime.getRuntime()
+				.availableProcessors());
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(count,
+				count, 10, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "DLTK indexer worker #" //$NON-NLS-1$
+					+ counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * Answers if {@link #doIndexing(IndexDocument)} could be called
+	 * concurrently for the documents not bound to the index. The default
+	 * implementation returns <code>false</code>.
+	 * 
+	 * @since 5.2
+	 */
+	protected boolean isConcurrentIndexingSupported() {
+		return false;
+	}
+
+	/**
+	 * Returns the number of the threads to extract the index entries of the
+	 * specified number of modules, the modules are indexed one by one if it is
+	 * less than 2.
+	 * 
+	 * @since 5.2
+	 */
+	protected int getIndexingThreadCount(int moduleCount) {
+		return Math.min(Runtime.getRuntime().availableProcessors(),
+				moduleCount / MODULES_PER_THREAD);
+	}
+
+	public Map<ISourceModule, IndexDocument> indexSourceModules(
+			final IDLTKLanguageToolkit toolkit,
+			final List<ISourceModule> modules, final IPath containerPath,
+			final IProgressMonitor monitor) {
+		final int threadCount = Math.min(WORKERS.getMaximumPoolSize(),
+				getIndexingThreadCount(modules.size()));
+		if (threadCount < 2 || !isConcurrentIndexingSupported()) {
+			return null;
+		}
+		final IndexDocument[] documents = new IndexDocument[modules.size()];
+		final AtomicInteger next = new AtomicInteger();
+		final Runnable worker = new Runnable() {
+			public void run() {
+				int i;
+				while ((monitor == null || !monitor.isCanceled())
+						&& (i = next.getAndIncrement()) < documents.length) {
+					final ISourceModule module = modules.get(i);
+					try {
+						final IndexDocument document = new IndexDocument(
+								toolkit, module, containerPath);
+						doIndexing(document);
+						documents[i] = document;
+					} catch (Throwable e) {
+						DLTKCore.error(NLS.bind(
+								Messages.AbstractProjectIndexer_indexError,
+								module.getPath()), e);
+					}
+				}
+			}
+		};
+		final List<Future<?>> futures = new ArrayList<Future<?>>(threadCount);
+		for (int t = 0; t < threadCount; ++t) {
+			futures.add(WORKERS.submit(worker));
+		}
+		boolean interrupted = false;
+		for (Future<?> future : futures) {
+			for (;;) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					// the worker reports its errors itself
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		final Map<ISourceModule, IndexDocument> result = new HashMap<ISourceModule, IndexDocument>();
+		for (int i = 0; i < documents.length; ++i) {
+			if (documents[i] != null) {
+				result.put(modules.get(i), documents[i]);
+			}
+		}
+		return result;
+	}
+
 	public Index getProjectIndex(IScriptProject project) {
 		return getIndexManager().getIndex(project.getProject().getFullPath(),
 				true, true);
@@ -38,6 +38,7 @@ import org.eclipse.dltk.core.environment.IFileHandle;
 import org.eclipse.dltk.core.search.index.Index;
 import org.eclipse.dltk.core.search.indexing.IIndexConstants;
 import org.eclipse.dltk.core.search.indexing.IProjectIndexer;
+import org.eclipse.dltk.core.search.indexing.IndexDocument;
 import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
 import org.eclipse.dltk.internal.core.BuiltinSourceModule;
 
@@ -90,21 +91,40 @@ public class ArchiveProjectFragmentRequest extends IndexRequest {
 			index.separator = Index.JAR_SEPARATOR;
 			index.addIndexEntry(IIndexConstants.STAMP, CharOperation.NO_CHAR,
 					SIGNATURE_PREFIX + signature);
-			for (Iterator<Object> i = changes.iterator(); !isCancelled
-					&& i.hasNext();) {
-				final Object change = i.next();
-				if (change instanceof String) {
-					index.remove((String) change);
-				} else if (change instanceof ISourceModule) {
-					ISourceModule module = (ISourceModule) change;
-					getIndexer().indexSourceModule(index, toolkit, module,
-							containerPath);
+		} finally {
+			imon.exitWrite();
+		}
+		try {
+			int start = 0;
+			while (!isCancelled && start < changes.size()) {
+				final int end = Math.min(start + BATCH_SIZE, changes.size());
+				final List<Object> batch = changes.subList(start, end);
+				start = end;
+				// parse the modules before taking the lock, so the index could
+				// be queried meanwhile
+				final Map<ISourceModule, IndexDocument> documents = indexSourceModules(
+						batch, toolkit, containerPath);
+				imon.enterWrite();
+				try {
+					for (Iterator<Object> i = batch.iterator(); !isCancelled
+							&& i.hasNext();) {
+						final Object change = i.next();
+						if (change instanceof String) {
+							index.remove((String) change);
+						} else if (change instanceof ISourceModule) {
+							ISourceModule module = (ISourceModule) change;
+							indexSourceModule(index, toolkit, module,
+									containerPath, documents);
+						}
+					}
+				} finally {
+					imon.exitWrite();
 				}
 			}
-
 		} catch (Throwable e) {
 			e.printStackTrace();
 		} finally {
+			imon.enterWrite();
 			try {
 				index.save();
 			} catch (IOException e) {
@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
@@ -33,6 +34,7 @@ import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
 import org.eclipse.dltk.core.search.index.Index;
 import org.eclipse.dltk.core.search.indexing.IProjectIndexer;
+import org.eclipse.dltk.core.search.indexing.IndexDocument;
 import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
 import org.eclipse.dltk.internal.core.BuiltinSourceModule;
 import org.eclipse.dltk.internal.core.ModelManager;
@@ -66,44 +68,81 @@ public class ExternalProjectFragmentRequest extends IndexRequest {
 		}
 		final IPath containerPath = fragment.getPath();
 		Set<IFileHandle> parentFolders = new HashSet<IFileHandle>();
-		final List<Object> changes = checkChanges(index, modules,
-				containerPath, getEnvironment(), parentFolders);
+		final IEnvironment fragmentEnvironment = getEnvironment();
+		// the manifest requires the state of every file, which is cheap for
+		// the local files only
+		final IndexManifest manifest = fragmentEnvironment != null
+				&& fragmentEnvironment.isLocal() ? IndexManifest.load(index)
+				: null;
+		final List<Object> changes;
+		if (manifest != null) {
+			changes = checkChanges(index, modules, containerPath, manifest);
+		} else {
+			changes = checkChanges(index, modules, containerPath,
+					fragmentEnvironment, parentFolders);
+		}
 		if (DEBUG) {
 			log("changes.size=" + changes.size()); //$NON-NLS-1$
 		}
 		if (changes.isEmpty()) {
+			if (manifest != null) {
+				// save the verified content hashes
+				saveManifest(index, manifest);
+			}
 			return;
 		}
 		final ReadWriteMonitor imon = index.monitor;
-		imon.enterWrite();
+		boolean completed = false;
 		try {
-			for (Iterator<Object> i = changes.iterator(); !isCancelled
-					&& i.hasNext();) {
-				final Object change = i.next();
-				if (change instanceof String) {
-					index.remove((String) change);
-				} else if (change instanceof ISourceModule) {
-					ISourceModule module = (ISourceModule) change;
-					IFileHandle file = EnvironmentPathUtils.getFile(module,
-							false);
-					if (file != null && changes.size() > 1) {
-						IFileHandle parentHandle = file.getParent();
-						if (parentHandle != null
-								&& parentFolders.add(parentHandle.getParent())) {
-							ModelManager.getModelManager().getCoreCache()
-									.updateFolderTimestamps(parentHandle);
+			int start = 0;
+			while (!isCancelled && start < changes.size()) {
+				final int end = Math.min(start + BATCH_SIZE, changes.size());
+				final List<Object> batch = changes.subList(start, end);
+				start = end;
+				// parse the modules before taking the lock, so the index could
+				// be queried meanwhile
+				final Map<ISourceModule, IndexDocument> documents = indexSourceModules(
+						batch, toolkit, containerPath);
+				imon.enterWrite();
+				try {
+					for (Iterator<Object> i = batch.iterator(); !isCancelled
+							&& i.hasNext();) {
+						final Object change = i.next();
+						if (change instanceof String) {
+							index.remove((String) change);
+						} else if (change instanceof ISourceModule) {
+							ISourceModule module = (ISourceModule) change;
+							IFileHandle file = EnvironmentPathUtils.getFile(
+									module, false);
+							if (file != null && changes.size() > 1) {
+								IFileHandle parentHandle = file.getParent();
+								if (parentHandle != null
+										&& parentFolders.add(parentHandle
+												.getParent())) {
+									ModelManager.getModelManager()
+											.getCoreCache()
+											.updateFolderTimestamps(
+													parentHandle);
+								}
+							}
+							indexSourceModule(index, toolkit, module,
+									containerPath, documents);
 						}
 					}
-					getIndexer().indexSourceModule(index, toolkit, module,
-							containerPath);
+				} finally {
+					imon.exitWrite();
 				}
 			}
-
+			completed = !isCancelled;
 		} catch (Throwable e) {
 			e.printStackTrace();
 		} finally {
+			imon.enterWrite();
 			try {
 				index.save();
+				if (manifest != null && completed) {
+					saveManifest(index, manifest);
+				}
 			} catch (IOException e) {
 				DLTKCore.error("error saving index", e); //$NON-NLS-1$
 			} finally {
@@ -112,6 +151,14 @@ public class ExternalProjectFragmentRequest extends IndexRequest {
 		}
 	}
 
+	private static void saveManifest(Index index, IndexManifest manifest) {
+		try {
+			manifest.save(index);
+		} catch (IOException e) {
+			DLTKCore.error("error saving index manifest", e); //$NON-NLS-1$
+		}
+	}
+
 	protected IEnvironment getEnvironment() {
 		return EnvironmentManager.getEnvironment(fragment);
 	}
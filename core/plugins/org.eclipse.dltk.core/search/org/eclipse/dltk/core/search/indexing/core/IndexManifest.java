@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.search.indexing.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.core.search.index.Index;
+
+/**
+ * The states (size, modification time and content hash) of the documents in
+ * the index, saved next to the index file. The states are combined into the
+ * folder digests and the digest of the whole container, so the unchanged
+ * container is detected with one comparison and only the documents of the
+ * changed folders are compared one by one.
+ *
+ * @since 5.2
+ */
+public class IndexManifest {
+
+	private static final int MAGIC = 0x444C4D46;
+	private static final int VERSION = 1;
+
+	/**
+	 * The state of the document
+	 */
+	static class Entry {
+		final long size;
+		final long lastModified;
+		/**
+		 * The content hash or <code>0</code> if unknown. It is computed when
+		 * the document is indexed and when the size of the changed file is the
+		 * same, so the touched files are not indexed again.
+		 */
+		long hash;
+
+		Entry(long size, long lastModified, long hash) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+		Entry(IFileHandle handle) {
+			this(handle.length(), handle.lastModified(), 0);
+		}
+
+		boolean sameStamp(Entry other) {
+			return size == other.size && lastModified == other.lastModified;
+		}
+	}
+
+	private final File file;
+	private final SortedMap<String, Entry> entries = new TreeMap<String, Entry>();
+	private long indexStamp;
+	private boolean changed;
+
+	private IndexManifest(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Loads the manifest of the specified index. Returns the empty manifest if
+	 * it was not saved yet or could not be read.
+	 */
+	public static IndexManifest load(Index index) {
+		final IndexManifest manifest = new IndexManifest(new File(index
+				.getIndexFile().getPath()
+				+ Index.MANIFEST_EXTENSION));
+		if (!manifest.file.isFile()) {
+			return manifest;
+		}
+		try {
+			final DataInputStream stream = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(manifest.file),
+							8192));
+			try {
+				if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+					return manifest;
+				}
+				manifest.indexStamp = stream.readLong();
+				final int count = stream.readInt();
+				for (int i = 0; i < count; ++i) {
+					final String document = stream.readUTF();
+					manifest.entries.put(document, new Entry(stream
+							.readLong(), stream.readLong(), stream.readLong()));
+				}
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			manifest.indexStamp = 0;
+			manifest.entries.clear();
+		}
+		return manifest;
+	}
+
+	/**
+	 * Saves the manifest if it was changed, must be called after the index is
+	 * saved.
+	 */
+	public void save(Index index) throws IOException {
+		final long stamp = index.getStamp();
+		if (!changed && stamp == indexStamp) {
+			return;
+		}
+		final File tempFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		final DataOutputStream stream = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile), 8192));
+		try {
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeLong(stamp);
+			stream.writeInt(entries.size());
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				stream.writeUTF(entry.getKey());
+				final Entry value = entry.getValue();
+				stream.writeLong(value.size);
+				stream.writeLong(value.lastModified);
+				stream.writeLong(value.hash);
+			}
+		} finally {
+			stream.close();
+		}
+		file.delete();
+		if (!tempFile.renameTo(file)) {
+			tempFile.delete();
+			throw new IOException("Failed to save " + file); //$NON-NLS-1$
+		}
+		indexStamp = stamp;
+		changed = false;
+	}
+
+	/**
+	 * Answers if the manifest describes the current state of the index, i.e.
+	 * the index was not changed by somebody else since the manifest was saved.
+	 */
+	boolean isValid(Index index) {
+		return !entries.isEmpty() && indexStamp == index.getStamp();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	Entry get(String document) {
+		return entries.get(document);
+	}
+
+	void put(String document, Entry entry) {
+		entries.put(document, entry);
+		changed = true;
+	}
+
+	void remove(String document) {
+		if (entries.remove(document) != null) {
+			changed = true;
+		}
+	}
+
+	/**
+	 * Forgets the states of all the documents, e.g. if the manifest is stale.
+	 */
+	void clear() {
+		if (!entries.isEmpty()) {
+			entries.clear();
+			changed = true;
+		}
+	}
+
+	/**
+	 * Answers the digest of the document states, the folder digests are put to
+	 * the specified map.
+	 */
+	static long digest(SortedMap<String, Entry> states,
+			Map<String, Long> folderDigests) {
+		long digest = 0;
+		for (Map.Entry<String, Entry> state : states.entrySet()) {
+			final String document = state.getKey();
+			final Entry entry = state.getValue();
+			long documentDigest = mix(mix(mix(0, document.hashCode()),
+					entry.size), entry.lastModified);
+			final String folder = folderOf(document);
+			final Long folderDigest = folderDigests.get(folder);
+			folderDigests.put(folder, Long.valueOf(mix(
+					folderDigest != null ? folderDigest.longValue() : 0,
+					documentDigest)));
+			digest = mix(digest, documentDigest);
+		}
+		return digest;
+	}
+
+	long digest(Map<String, Long> folderDigests) {
+		return digest(entries, folderDigests);
+	}
+
+	static String folderOf(String document) {
+		final int pos = document.lastIndexOf('/');
+		return pos > 0 ? document.substring(0, pos) : ""; //$NON-NLS-1$
+	}
+
+	private static long mix(long digest, long value) {
+		return (digest ^ value) * 0x100000001B3L;
+	}
+
+	/**
+	 * Returns the hash of the file content or <code>0</code> if the file could
+	 * not be read.
+	 */
+	static long contentHash(IFileHandle handle) {
+		try {
+			final InputStream stream = handle
+					.openInputStream(new NullProgressMonitor());
+			try {
+				final CRC32 crc = new CRC32();
+				final byte[] buffer = new byte[8192];
+				int len;
+				while ((len = stream.read(buffer)) > 0) {
+					crc.update(buffer, 0, len);
+				}
+				// never 0, since it means unknown
+				return (crc.getValue() << 1) | 1;
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return 0;
+		}
+	}
+
+}
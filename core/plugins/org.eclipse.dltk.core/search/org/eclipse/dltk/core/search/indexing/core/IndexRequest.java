@@ -19,8 +19,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.dltk.core.IDLTKLanguageToolkit;
 import org.eclipse.dltk.core.ISourceModule;
 import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.caching.IContentCache;
@@ -30,6 +35,7 @@ import org.eclipse.dltk.core.environment.IFileHandle;
 import org.eclipse.dltk.core.search.index.Index;
 import org.eclipse.dltk.core.search.indexing.AbstractJob;
 import org.eclipse.dltk.core.search.indexing.IProjectIndexer;
+import org.eclipse.dltk.core.search.indexing.IndexDocument;
 import org.eclipse.dltk.core.search.indexing.IProjectIndexer.Internal;
 import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
 import org.eclipse.dltk.internal.core.ModelManager;
@@ -38,6 +44,15 @@ import org.eclipse.dltk.internal.core.ModelManager;
  * @since 2.0
  */
 public abstract class IndexRequest extends AbstractJob {
+	/**
+	 * The maximal number of the changes whose index entries are extracted
+	 * before they are added to the index, so the entries of all the changed
+	 * modules are not kept in memory at once.
+	 * 
+	 * @since 5.2
+	 */
+	protected static final int BATCH_SIZE = 256;
+
 	private IProjectIndexer indexer;
 
 	public IndexRequest(IProjectIndexer indexer) {
@@ -56,10 +71,24 @@ public abstract class IndexRequest extends AbstractJob {
 	 * @throws IOException
 	 */
 	protected String[] queryDocumentNames(final Index index) throws IOException {
+		return queryDocumentNames(index, null);
+	}
+
+	/**
+	 * Returns the names of the documents starting with the specified prefix.
+	 * Read lock is acquired automatically.
+	 * 
+	 * @param prefix
+	 *            the prefix of the document names or <code>null</code> to
+	 *            return all the documents
+	 * @since 5.2
+	 */
+	protected String[] queryDocumentNames(final Index index, String prefix)
+			throws IOException {
 		final ReadWriteMonitor monitor = index.monitor;
 		monitor.enterRead();
 		try {
-			return index.queryDocumentNames(null);
+			return index.queryDocumentNames(prefix);
 		} finally {
 			monitor.exitRead();
 		}
@@ -101,8 +130,28 @@ public abstract class IndexRequest extends AbstractJob {
 			Collection<ISourceModule> modules, IPath containerPath,
 			IEnvironment environment, Set<IFileHandle> parentFolders)
 			throws ModelException, IOException {
+		return checkChanges(index, modules, containerPath, environment,
+				parentFolders, null);
+	}
+
+	/**
+	 * Check changes of the specified modules compared to the documents of the
+	 * index starting with the specified prefix, the other documents are not
+	 * queried and not reported as removed. Returns the changes in the same
+	 * format as
+	 * {@link #checkChanges(Index, Collection, IPath, IEnvironment, Set)}.
+	 * 
+	 * @param documentPrefix
+	 *            the prefix of the checked documents or <code>null</code> to
+	 *            check all the documents of the index
+	 * @since 5.2
+	 */
+	protected List<Object> checkChanges(Index index,
+			Collection<ISourceModule> modules, IPath containerPath,
+			IEnvironment environment, Set<IFileHandle> parentFolders,
+			String documentPrefix) throws ModelException, IOException {
 		IContentCache coreCache = ModelManager.getModelManager().getCoreCache();
-		final String[] documents = queryDocumentNames(index);
+		final String[] documents = queryDocumentNames(index, documentPrefix);
 		if (documents != null && documents.length != 0) {
 			// final long indexLastModified =
 			// index.getIndexFile().lastModified();
@@ -152,6 +201,168 @@ public abstract class IndexRequest extends AbstractJob {
 		}
 	}
 
+	/**
+	 * Check changes of the specified modules compared to the index, using the
+	 * manifest of the indexed document states instead of the content cache.
+	 * Returns the {@link List} of changes in the same format as
+	 * {@link #checkChanges(Index, Collection, IPath, IEnvironment, Set)}. The
+	 * manifest is updated with the states of the changed modules, so it should
+	 * be saved only if all the changes were indexed. The manifest which was
+	 * saved for another state of the index is ignored, the documents are
+	 * checked with the content cache then, like the documents indexed before
+	 * the manifest existed.
+	 * 
+	 * @since 5.2
+	 */
+	protected List<Object> checkChanges(Index index,
+			Collection<ISourceModule> modules, IPath containerPath,
+			IndexManifest manifest) throws ModelException, IOException {
+		final Map<String, ISourceModule> m = collectSourceModulePaths(
+				modules, containerPath);
+		final Map<String, IFileHandle> handles = new HashMap<String, IFileHandle>();
+		final SortedMap<String, IndexManifest.Entry> states = new TreeMap<String, IndexManifest.Entry>();
+		for (Map.Entry<String, ISourceModule> entry : m.entrySet()) {
+			final IFileHandle handle = EnvironmentPathUtils.getFile(entry
+					.getValue(), false);
+			if (handle != null) {
+				handles.put(entry.getKey(), handle);
+				states.put(entry.getKey(), new IndexManifest.Entry(handle));
+			}
+		}
+		if (!manifest.isValid(index)) {
+			// the index was saved without the manifest
+			manifest.clear();
+		}
+		final Map<String, Long> folderDigests = new HashMap<String, Long>();
+		final long digest = IndexManifest.digest(states, folderDigests);
+		final Map<String, Long> savedFolderDigests = new HashMap<String, Long>();
+		final long savedDigest = manifest.digest(savedFolderDigests);
+		if (digest == savedDigest && states.size() == m.size()
+				&& states.size() == manifest.size() && manifest.size() != 0) {
+			// nothing changed since the index was saved
+			return new ArrayList<Object>();
+		}
+		final IContentCache coreCache = ModelManager.getModelManager()
+				.getCoreCache();
+		final List<Object> changes = new ArrayList<Object>();
+		final String[] documents = queryDocumentNames(index);
+		if (documents != null) {
+			for (int i = 0; i < documents.length; ++i) {
+				final String document = documents[i];
+				final ISourceModule module = m.remove(document);
+				if (module == null) {
+					changes.add(document);
+					manifest.remove(document);
+					continue;
+				}
+				final IndexManifest.Entry state = states.get(document);
+				if (state == null) {
+					continue;
+				}
+				final String folder = IndexManifest.folderOf(document);
+				final Long folderDigest = savedFolderDigests.get(folder);
+				if (folderDigest != null
+						&& folderDigest.equals(folderDigests.get(folder))) {
+					continue;
+				}
+				final IFileHandle handle = handles.get(document);
+				final IndexManifest.Entry saved = manifest.get(document);
+				if (saved != null) {
+					if (saved.sameStamp(state)) {
+						continue;
+					}
+					if (saved.size == state.size) {
+						// the file is touched, but could be the same, the hash
+						// is saved to be compared the next time
+						state.hash = IndexManifest.contentHash(handle);
+						if (saved.hash != 0 && state.hash == saved.hash) {
+							manifest.put(document, state);
+							continue;
+						}
+					}
+				} else if (coreCache.getCacheEntryAttributeString(handle,
+						"indexed", true) != null) { //$NON-NLS-1$
+					// indexed before the manifest was saved
+					manifest.put(document, state);
+					continue;
+				}
+				changes.add(module);
+			}
+		}
+		changes.addAll(m.values());
+		for (Object change : changes) {
+			if (change instanceof ISourceModule) {
+				final String document = SourceIndexUtil.containerRelativePath(
+						containerPath, (ISourceModule) change);
+				final IndexManifest.Entry state = states.get(document);
+				if (state != null) {
+					if (state.hash == 0) {
+						// the file is read by the indexer anyway
+						state.hash = IndexManifest.contentHash(handles
+								.get(document));
+					}
+					manifest.put(document, state);
+				}
+			}
+		}
+		if (DEBUG) {
+			log("modules.size=" + modules.size()); //$NON-NLS-1$
+			log("changes.size=" + changes.size()); //$NON-NLS-1$
+		}
+		return changes;
+	}
+
+	/**
+	 * Extracts the index entries of the modules from the specified changes
+	 * concurrently if supported by the indexer. Should be called without
+	 * owning the lock of the index, the returned documents are added to the
+	 * index by
+	 * {@link #indexSourceModule(Index, IDLTKLanguageToolkit, ISourceModule, IPath, Map)}
+	 * . The extraction stops when this request is cancelled. The changes should
+	 * be passed in the batches of at most {@link #BATCH_SIZE} items.
+	 * 
+	 * @return the extracted documents or <code>null</code>
+	 * @since 5.2
+	 */
+	protected Map<ISourceModule, IndexDocument> indexSourceModules(
+			List<Object> changes, IDLTKLanguageToolkit toolkit,
+			IPath containerPath) {
+		final List<ISourceModule> modules = new ArrayList<ISourceModule>();
+		for (Object change : changes) {
+			if (change instanceof ISourceModule) {
+				modules.add((ISourceModule) change);
+			}
+		}
+		final IProgressMonitor monitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return isCancelled;
+			}
+		};
+		return getIndexer().indexSourceModules(toolkit, modules,
+				containerPath, monitor);
+	}
+
+	/**
+	 * Indexes the specified module, using the document extracted by
+	 * {@link #indexSourceModules(List, IDLTKLanguageToolkit, IPath)} if
+	 * available. Must own the write lock of the index.
+	 * 
+	 * @since 5.2
+	 */
+	protected void indexSourceModule(Index index,
+			IDLTKLanguageToolkit toolkit, ISourceModule module,
+			IPath containerPath, Map<ISourceModule, IndexDocument> documents) {
+		final IndexDocument document = documents != null ? documents
+				.get(module) : null;
+		if (document != null) {
+			document.flush(index);
+		} else {
+			getIndexer().indexSourceModule(index, toolkit, module,
+					containerPath);
+		}
+	}
+
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
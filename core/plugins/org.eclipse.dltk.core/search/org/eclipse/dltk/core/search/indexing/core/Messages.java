@@ -4,6 +4,7 @@ import org.eclipse.osgi.util.NLS;
 
 public class Messages extends NLS {
 	private static final String BUNDLE_NAME = "org.eclipse.dltk.core.search.indexing.core.messages"; //$NON-NLS-1$
+	public static String AbstractProjectIndexer_indexError;
 	public static String MixinBuilder_buildingRuntimeModelFor;
 	public static String MixinBuilder_buildingRuntimeModelFor2;
 	public static String MixinBuilder_savingIndexFor;
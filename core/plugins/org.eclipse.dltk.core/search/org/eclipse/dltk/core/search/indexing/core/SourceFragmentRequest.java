@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.search.indexing.core;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.dltk.core.DLTKLanguageManager;
+import org.eclipse.dltk.core.IProjectFragment;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.search.indexing.IProjectIndexer;
+
+/**
+ * Updates the project index for the single source folder which was added or
+ * removed, so only the modules of this folder are checked instead of the whole
+ * project.
+ *
+ * @since 5.2
+ */
+public class SourceFragmentRequest extends IndexRequest {
+
+	private final IScriptProject project;
+	private final IPath path;
+
+	public SourceFragmentRequest(IProjectIndexer indexer,
+			IScriptProject project, IPath path) {
+		super(indexer);
+		this.project = project;
+		this.path = path;
+	}
+
+	@Override
+	protected String getName() {
+		return path.toString();
+	}
+
+	@Override
+	protected void run() throws CoreException {
+		final IProjectIndexer.Internal indexer = getIndexer();
+		final IProjectFragment[] fragments = project.getProjectFragments();
+		if (path.segmentCount() <= 1 || isEnclosed(fragments)) {
+			indexer.request(new ProjectRequest(indexer, project));
+			return;
+		}
+		IProjectFragment fragment = null;
+		for (IProjectFragment f : fragments) {
+			if (f.getPath().equals(path)) {
+				fragment = f;
+				break;
+			}
+		}
+		final Set<ISourceModule> modules;
+		if (fragment != null) {
+			if (fragment.isExternal() || !fragment.getParent().equals(project)) {
+				return;
+			}
+			final ProjectRequest.SourceModuleCollector moduleCollector = new ProjectRequest.SourceModuleCollector();
+			fragment.accept(moduleCollector);
+			modules = moduleCollector.modules;
+		} else {
+			modules = Collections.emptySet();
+		}
+		indexer.request(new SourceModulesRequest(indexer, project,
+				DLTKLanguageManager.getLanguageToolkit(project), modules, path));
+	}
+
+	/**
+	 * Answers if the folder is inside of the other source folder of the
+	 * project, so its modules are indexed (or not) depending on the exclusion
+	 * patterns of that folder and the whole project should be checked.
+	 */
+	private boolean isEnclosed(IProjectFragment[] fragments) {
+		for (IProjectFragment fragment : fragments) {
+			final IPath fragmentPath = fragment.getPath();
+			if (!fragment.isExternal() && !fragmentPath.equals(path)
+					&& fragmentPath.isPrefixOf(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean belongsTo(String jobFamily) {
+		return jobFamily.equals(project.getProject().getName());
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((project == null) ? 0 : project.hashCode());
+		result = prime * result + ((path == null) ? 0 : path.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (!super.equals(obj))
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SourceFragmentRequest other = (SourceFragmentRequest) obj;
+		if (project == null) {
+			if (other.project != null)
+				return false;
+		} else if (!project.equals(other.project))
+			return false;
+		if (path == null) {
+			if (other.path != null)
+				return false;
+		} else if (!path.equals(other.path))
+			return false;
+		return true;
+	}
+}
@@ -12,6 +12,7 @@
 package org.eclipse.dltk.core.search.indexing.core;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -21,8 +22,10 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.IDLTKLanguageToolkit;
+import org.eclipse.dltk.core.IProjectFragment;
 import org.eclipse.dltk.core.IScriptProject;
 import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.environment.EnvironmentManager;
 import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
@@ -38,6 +41,7 @@ public class SourceModulesRequest extends IndexRequest {
 	private final IScriptProject project;
 	private final IDLTKLanguageToolkit toolkit;
 	private final Set<ISourceModule> modules;
+	private final IPath scope;
 
 	/**
 	 * @param project
@@ -50,6 +54,26 @@ public class SourceModulesRequest extends IndexRequest {
 		this.project = project;
 		this.toolkit = toolkit;
 		this.modules = modules;
+		this.scope = null;
+	}
+
+	/**
+	 * Creates the request updating only the documents of the specified
+	 * project fragment, the documents of the other fragments are not checked
+	 * and left in the index as is.
+	 * 
+	 * @param scope
+	 *            the path of the project fragment of the specified modules
+	 * @since 5.2
+	 */
+	public SourceModulesRequest(IProjectIndexer indexer,
+			IScriptProject project, IDLTKLanguageToolkit toolkit,
+			Set<ISourceModule> modules, IPath scope) {
+		super(indexer);
+		this.project = project;
+		this.toolkit = toolkit;
+		this.modules = modules;
+		this.scope = scope;
 	}
 
 	@Override
@@ -70,8 +94,17 @@ public class SourceModulesRequest extends IndexRequest {
 		}
 		final IPath containerPath = project.getPath();
 		Set<IFileHandle> parentFolders = new HashSet<IFileHandle>();
-		final List<?> changes = checkChanges(index, modules, containerPath,
-				EnvironmentManager.getEnvironment(project), parentFolders);
+		final List<?> changes;
+		if (scope != null) {
+			// only the documents of the scope fragment are checked
+			changes = checkChanges(index, modules, containerPath,
+					environment, parentFolders, scope.removeFirstSegments(1)
+							.addTrailingSeparator().toString());
+			removeNested(changes);
+		} else {
+			changes = checkChanges(index, modules, containerPath,
+					environment, parentFolders);
+		}
 		if (DEBUG) {
 			log("changes.size=" + changes.size()); //$NON-NLS-1$
 		}
@@ -106,6 +139,39 @@ public class SourceModulesRequest extends IndexRequest {
 		}
 	}
 
+	/**
+	 * Removes the documents of the project fragments nested into the scope
+	 * fragment from the specified changes, since their modules were not
+	 * collected.
+	 */
+	private void removeNested(List<?> changes) throws ModelException {
+		// the fragments nested into the scope one
+		final List<String> nested = new ArrayList<String>();
+		for (IProjectFragment fragment : project.getProjectFragments()) {
+			final IPath path = fragment.getPath();
+			if (!fragment.isExternal() && scope.isPrefixOf(path)
+					&& !scope.equals(path)) {
+				nested.add(path.removeFirstSegments(1).addTrailingSeparator()
+						.toString());
+			}
+		}
+		if (nested.isEmpty()) {
+			return;
+		}
+		for (Iterator<?> i = changes.iterator(); i.hasNext();) {
+			final Object change = i.next();
+			if (change instanceof String) {
+				final String document = (String) change;
+				for (String n : nested) {
+					if (document.startsWith(n)) {
+						i.remove();
+						break;
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public boolean belongsTo(String jobFamily) {
 		return jobFamily.equals(project.getProject().getName());
@@ -117,6 +183,7 @@ public class SourceModulesRequest extends IndexRequest {
 		int result = super.hashCode();
 		result = prime * result + ((modules == null) ? 0 : modules.hashCode());
 		result = prime * result + ((project == null) ? 0 : project.hashCode());
+		result = prime * result + ((scope == null) ? 0 : scope.hashCode());
 		return result;
 	}
 
@@ -139,6 +206,11 @@ public class SourceModulesRequest extends IndexRequest {
 				return false;
 		} else if (!project.equals(other.project))
 			return false;
+		if (scope == null) {
+			if (other.scope != null)
+				return false;
+		} else if (!scope.equals(other.scope))
+			return false;
 		return true;
 	}
 }
@@ -18,6 +18,7 @@ import org.eclipse.dltk.internal.core.util.LRUCache;
  */
 public class MixinCache extends OverflowingLRUCache {
 	IMixinElement spaceLimitParent = null;
+	private long evictions;
 
 	/**
 	 * Constructs a new element cache of the given size.
@@ -47,9 +48,17 @@ public class MixinCache extends OverflowingLRUCache {
 		if( element instanceof IInternalMixinElement ) {
 			((IInternalMixinElement)element).close();
 		}
+		++evictions;
 		return true;
 	}
 
+	/**
+	 * Returns the number of elements closed to make space.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
 	/*
 	 * Ensures that there is enough room for adding the given number of
 	 * children. If the space limit must be increased, record the parent that
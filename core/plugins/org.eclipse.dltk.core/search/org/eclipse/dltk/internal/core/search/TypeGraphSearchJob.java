@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.dltk.core.search.IDLTKSearchScope;
+import org.eclipse.dltk.core.search.SearchParticipant;
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.index.TypeGraph;
+import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
+
+/**
+ * Collects the {@link TypeGraph}s of the indexes selected for the pattern.
+ * The graphs are queried after the job is finished, so the hierarchy is
+ * computed without querying the indexes name by name.
+ */
+public class TypeGraphSearchJob extends PatternSearchJob {
+
+	public static class IndexGraph {
+		public final TypeGraph graph;
+		final String containerPath;
+		final char separator;
+
+		IndexGraph(Index index, TypeGraph graph) {
+			this.graph = graph;
+			this.containerPath = index.getContainerPath();
+			this.separator = index.separator;
+		}
+	}
+
+	private final List<IndexGraph> graphs = new ArrayList<IndexGraph>();
+	private boolean stale;
+
+	public TypeGraphSearchJob(SearchPattern pattern,
+			SearchParticipant participant, IDLTKSearchScope scope) {
+		super(pattern, participant, scope, null);
+	}
+
+	@Override
+	public boolean search(Index index, IProgressMonitor progressMonitor) {
+		if (index == null)
+			return COMPLETE;
+		if (progressMonitor != null && progressMonitor.isCanceled())
+			throw new OperationCanceledException();
+		if (participant.isSkipped(index))
+			return COMPLETE;
+		ReadWriteMonitor monitor = index.monitor;
+		if (monitor == null)
+			return COMPLETE; // index got deleted since acquired
+		try {
+			monitor.enterRead();
+			TypeGraph graph = index.getTypeGraph();
+			if (graph != null) {
+				graphs.add(new IndexGraph(index, graph));
+			} else {
+				stale = true;
+			}
+			return COMPLETE;
+		} finally {
+			monitor.exitRead();
+		}
+	}
+
+	public List<IndexGraph> getGraphs() {
+		return graphs;
+	}
+
+	/**
+	 * Checks if some of the indexes have no type graph, so the graphs don't
+	 * describe the whole scope.
+	 */
+	public boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * Returns the path of the document if it is enclosed by the scope or
+	 * <code>null</code> otherwise.
+	 */
+	public String getDocumentPath(IndexGraph graph, String relativePath) {
+		if (scope instanceof DLTKSearchScope) {
+			if (((DLTKSearchScope) scope).getAccessRuleSet(relativePath,
+					graph.containerPath) == DLTKSearchScope.NOT_ENCLOSED)
+				return null;
+			return documentPath(graph, relativePath);
+		}
+		String documentPath = documentPath(graph, relativePath);
+		return scope.encloses(documentPath) ? documentPath : null;
+	}
+
+	private static String documentPath(IndexGraph graph, String relativePath) {
+		StringBuffer buffer = new StringBuffer(graph.containerPath.length()
+				+ 1 + relativePath.length());
+		buffer.append(graph.containerPath);
+		buffer.append(graph.separator);
+		buffer.append(relativePath);
+		return buffer.toString();
+	}
+
+	public String toString() {
+		return "collecting type graphs for " + pattern.toString(); //$NON-NLS-1$
+	}
+}
@@ -19,4 +19,9 @@ public class StructureProjectIndexer extends AbstractProjectIndexer {
 	public void doIndexing(IndexDocument document) {
 		new StructureIndexer(document).indexDocument();
 	}
+
+	@Override
+	protected boolean isConcurrentIndexingSupported() {
+		return true;
+	}
 }
@@ -21,10 +21,13 @@ import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -36,6 +39,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.environment.EnvironmentPathUtils;
 import org.eclipse.dltk.core.environment.IDeployment;
@@ -82,7 +86,7 @@ public abstract class AbstractInterpreterInstallType implements
 
 	private String fId;
 
-	private static HashMap<Object, LibraryLocation[]> fCachedLocations = new HashMap<Object, LibraryLocation[]>();
+	private static final LibraryLocationCache fCachedLocations = new LibraryLocationCache();
 
 	protected AbstractInterpreterInstallType() {
 		fInterpreters = new ArrayList<IInterpreterInstall>();
@@ -536,6 +540,52 @@ public abstract class AbstractInterpreterInstallType implements
 		return name;
 	}
 
+	private volatile Set<String> fPossibleNames;
+
+	/**
+	 * Fast check if the file with the specified name could be accepted by
+	 * {@link #validatePossiblyName(IFileHandle)}, used to skip the files
+	 * during the interpreter search without querying them. The default
+	 * implementation compares the name (with and without extension) to the
+	 * {@link #getPossibleInterpreterNames()} ignoring case, if
+	 * {@link #validatePossiblyName(IFileHandle)} is overridden all the names
+	 * are accepted.
+	 * 
+	 * @since 5.2
+	 */
+	public boolean isPossibleInterpreterName(String fileName) {
+		Set<String> names = fPossibleNames;
+		if (names == null) {
+			names = createPossibleNames();
+			fPossibleNames = names;
+		}
+		if (names.isEmpty()) {
+			return true;
+		}
+		final String name = fileName.toLowerCase();
+		if (names.contains(name)) {
+			return true;
+		}
+		final int dot = name.lastIndexOf('.');
+		return dot > 0 && names.contains(name.substring(0, dot));
+	}
+
+	private Set<String> createPossibleNames() {
+		try {
+			if (getClass().getMethod("validatePossiblyName", //$NON-NLS-1$
+					IFileHandle.class).getDeclaringClass() != AbstractInterpreterInstallType.class) {
+				return Collections.emptySet();
+			}
+		} catch (NoSuchMethodException e) {
+			return Collections.emptySet();
+		}
+		final Set<String> names = new HashSet<String>();
+		for (String possibleName : getPossibleInterpreterNames()) {
+			names.add(possibleName.toLowerCase());
+		}
+		return names;
+	}
+
 	public IStatus validatePossiblyName(IFileHandle installLocation) {
 		String possibleNames[] = getPossibleInterpreterNames();
 
@@ -741,17 +791,23 @@ public abstract class AbstractInterpreterInstallType implements
 		};
 	}
 
-	public synchronized LibraryLocation[] getDefaultLibraryLocations(
+	public LibraryLocation[] getDefaultLibraryLocations(
 			final IFileHandle installLocation) {
 		return getDefaultLibraryLocations(installLocation, null);
 	}
 
-	public synchronized LibraryLocation[] getDefaultLibraryLocations(
+	public LibraryLocation[] getDefaultLibraryLocations(
 			final IFileHandle installLocation, EnvironmentVariable[] variables) {
 		return getDefaultLibraryLocations(installLocation, variables, null);
 	}
 
-	public synchronized LibraryLocation[] getDefaultLibraryLocations(
+	/**
+	 * Returns the default library locations of the specified interpreter.
+	 * Results are cached in memory and persisted between sessions, persisted
+	 * values are revalidated in background once per session. Different
+	 * interpreters could be resolved concurrently.
+	 */
+	public LibraryLocation[] getDefaultLibraryLocations(
 			final IFileHandle installLocation, EnvironmentVariable[] variables,
 			IProgressMonitor monitor) {
 		if (monitor != null) {
@@ -762,11 +818,45 @@ public abstract class AbstractInterpreterInstallType implements
 											LaunchingMessages.AbstractInterpreterInstallType_resolvingLibraryPaths,
 											this.getName()), 100);
 		}
-		Object cacheKey = makeKey(installLocation, variables);
-		if (fCachedLocations.containsKey(cacheKey)) {
-			return fCachedLocations.get(cacheKey);
+		final String cacheKey = (String) makeKey(installLocation, variables);
+		LibraryLocation[] libs = fCachedLocations.getCached(cacheKey);
+		if (libs != null) {
+			return libs;
 		}
+		synchronized (fCachedLocations.getLock(cacheKey)) {
+			libs = fCachedLocations.getCached(cacheKey);
+			if (libs != null) {
+				return libs;
+			}
+			libs = fCachedLocations.load(installLocation, variables);
+			if (libs != null) {
+				fCachedLocations.putCached(cacheKey, libs);
+				new RevalidateLibraryLocationsJob(installLocation, variables,
+						cacheKey, libs).schedule();
+				if (monitor != null) {
+					monitor.done();
+				}
+				return libs;
+			}
+			libs = discoverLibraryLocations(installLocation, variables,
+					monitor);
+			if (libs.length != 0) {
+				fCachedLocations.putCached(cacheKey, libs);
+				fCachedLocations.store(installLocation, variables, libs);
+			}
+		}
+		if (monitor != null) {
+			monitor.done();
+		}
+		return libs;
+	}
 
+	/**
+	 * Executes the library discovery script for the specified interpreter.
+	 */
+	private LibraryLocation[] discoverLibraryLocations(
+			final IFileHandle installLocation, EnvironmentVariable[] variables,
+			IProgressMonitor monitor) {
 		final ArrayList<LibraryLocation> locations = new ArrayList<LibraryLocation>();
 
 		final ILookupRunnable runnable = createLookupRunnable(installLocation,
@@ -792,15 +882,49 @@ public abstract class AbstractInterpreterInstallType implements
 									e));
 		}
 
-		LibraryLocation[] libs = correctLocations(locations,
+		return correctLocations(locations,
 				monitor != null ? new SubProgressMonitor(monitor, 5) : null);
-		if (libs.length != 0) {
-			fCachedLocations.put(cacheKey, libs);
+	}
+
+	/**
+	 * Runs the discovery script for the library locations loaded from the
+	 * persistent cache and updates the cache if the result is different.
+	 */
+	private class RevalidateLibraryLocationsJob extends Job {
+
+		private final IFileHandle installLocation;
+		private final EnvironmentVariable[] variables;
+		private final String cacheKey;
+		private final LibraryLocation[] cached;
+
+		public RevalidateLibraryLocationsJob(IFileHandle installLocation,
+				EnvironmentVariable[] variables, String cacheKey,
+				LibraryLocation[] cached) {
+			super(
+					NLS
+							.bind(
+									LaunchingMessages.AbstractInterpreterInstallType_resolvingLibraryPaths,
+									getName()));
+			this.installLocation = installLocation;
+			this.variables = variables;
+			this.cacheKey = cacheKey;
+			this.cached = cached;
+			setSystem(true);
+			setPriority(DECORATE);
 		}
-		if (monitor != null) {
-			monitor.done();
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			final LibraryLocation[] libs = discoverLibraryLocations(
+					installLocation, variables, monitor);
+			if (libs.length != 0 && !Arrays.equals(libs, cached)) {
+				synchronized (fCachedLocations.getLock(cacheKey)) {
+					fCachedLocations.putCached(cacheKey, libs);
+					fCachedLocations.store(installLocation, variables, libs);
+				}
+			}
+			return Status.OK_STATUS;
 		}
-		return libs;
 	}
 
 	public static Object makeKey(IFileHandle installLocation,
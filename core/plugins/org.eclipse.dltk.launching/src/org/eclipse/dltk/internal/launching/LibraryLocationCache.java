@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.internal.launching;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.Predicate;
+import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.launching.EnvironmentVariable;
+import org.eclipse.dltk.launching.LibraryLocation;
+import org.eclipse.dltk.launching.model.InterpreterGeneratedContent;
+import org.eclipse.dltk.launching.model.LaunchingModel;
+import org.eclipse.dltk.launching.model.LaunchingModelFactory;
+import org.eclipse.dltk.launching.model.util.GeneratedContentPredicate;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Two level cache of the default interpreter library locations: in-memory for
+ * the current session and persistent in the {@link LaunchingModel}, so the
+ * discovery script is not executed again after restart while the interpreter
+ * executable remains the same.
+ *
+ * <p>
+ * Persistent entries are stored as {@link InterpreterGeneratedContent} of the
+ * interpreter (identified by environment and executable path). The key of the
+ * content includes the executable size and the environment variables, the
+ * executable modification time is stored in
+ * {@link InterpreterGeneratedContent#getInterpreterLastModified()}.
+ * </p>
+ */
+class LibraryLocationCache {
+
+	private static final String KEY_PREFIX = "libraryLocations#"; //$NON-NLS-1$
+
+	private final Map<String, LibraryLocation[]> locations = new ConcurrentHashMap<String, LibraryLocation[]>();
+
+	private final Map<String, Object> locks = new HashMap<String, Object>();
+
+	/**
+	 * Returns the lock object to serialize discovery of the same interpreter,
+	 * different interpreters are discovered concurrently.
+	 */
+	Object getLock(String key) {
+		synchronized (locks) {
+			Object lock = locks.get(key);
+			if (lock == null) {
+				lock = new Object();
+				locks.put(key, lock);
+			}
+			return lock;
+		}
+	}
+
+	LibraryLocation[] getCached(String key) {
+		return locations.get(key);
+	}
+
+	void putCached(String key, LibraryLocation[] libs) {
+		locations.put(key, libs);
+	}
+
+	/**
+	 * Loads the persisted library locations of the specified interpreter.
+	 * Returns <code>null</code> if there are no persisted locations or the
+	 * interpreter executable was changed since they were saved.
+	 */
+	LibraryLocation[] load(IFileHandle installLocation,
+			EnvironmentVariable[] variables) {
+		final EObject object;
+		try {
+			object = LaunchingModel.getInstance().find(
+					installLocation.getEnvironmentId(),
+					installLocation.getPath().toString(),
+					new GeneratedContentPredicate(makeContentKey(
+							installLocation, variables)));
+		} catch (RuntimeException e) {
+			DLTKLaunchingPlugin.log(e);
+			return null;
+		}
+		if (!(object instanceof InterpreterGeneratedContent)) {
+			return null;
+		}
+		final InterpreterGeneratedContent content = (InterpreterGeneratedContent) object;
+		final Date lastModified = content.getInterpreterLastModified();
+		if (lastModified == null
+				|| lastModified.getTime() != installLocation.lastModified()) {
+			return null;
+		}
+		final List<LibraryLocation> result = new ArrayList<LibraryLocation>();
+		for (String value : content.getValue()) {
+			try {
+				result.add(new LibraryLocation(Path.fromPortableString(value)));
+			} catch (IllegalArgumentException e) {
+				if (DLTKCore.DEBUG) {
+					e.printStackTrace();
+				}
+				return null;
+			}
+		}
+		if (result.isEmpty()) {
+			return null;
+		}
+		return result.toArray(new LibraryLocation[result.size()]);
+	}
+
+	/**
+	 * Persists the library locations of the specified interpreter.
+	 */
+	void store(IFileHandle installLocation, EnvironmentVariable[] variables,
+			LibraryLocation[] libs) {
+		final InterpreterGeneratedContent content = LaunchingModelFactory.eINSTANCE
+				.createInterpreterGeneratedContent();
+		content.setKey(makeContentKey(installLocation, variables));
+		content.setInterpreterLastModified(new Date(installLocation
+				.lastModified()));
+		final Date now = new Date();
+		content.setFetchedAt(now);
+		content.setLastModified(now);
+		for (LibraryLocation location : libs) {
+			content.getValue().add(
+					location.getLibraryPath().toPortableString());
+		}
+		try {
+			LaunchingModel.getInstance().save(
+					installLocation.getEnvironmentId(),
+					installLocation.getPath().toString(),
+					new LibraryLocationsPredicate(makeVariablesKey(variables)),
+					content);
+		} catch (RuntimeException e) {
+			DLTKLaunchingPlugin.log(e);
+		}
+	}
+
+	private static String makeContentKey(IFileHandle installLocation,
+			EnvironmentVariable[] variables) {
+		return KEY_PREFIX + installLocation.length() + '#'
+				+ makeVariablesKey(variables);
+	}
+
+	private static String makeVariablesKey(EnvironmentVariable[] variables) {
+		final StringBuilder sb = new StringBuilder();
+		if (variables != null) {
+			for (int i = 0; i < variables.length; i++) {
+				sb.append('|').append(variables[i].getName()).append(':')
+						.append(variables[i].getValue());
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Matches persisted library locations with the same environment
+	 * variables, ignoring the executable size, so the outdated value is
+	 * replaced on save.
+	 */
+	private static class LibraryLocationsPredicate implements
+			Predicate<EObject> {
+
+		private final String variablesKey;
+
+		public LibraryLocationsPredicate(String variablesKey) {
+			this.variablesKey = variablesKey;
+		}
+
+		public boolean evaluate(EObject t) {
+			if (!(t instanceof InterpreterGeneratedContent)) {
+				return false;
+			}
+			final String key = ((InterpreterGeneratedContent) t).getKey();
+			if (key == null || !key.startsWith(KEY_PREFIX)) {
+				return false;
+			}
+			final int pos = key.indexOf('#', KEY_PREFIX.length());
+			return pos >= 0 && variablesKey.equals(key.substring(pos + 1));
+		}
+	}
+
+}
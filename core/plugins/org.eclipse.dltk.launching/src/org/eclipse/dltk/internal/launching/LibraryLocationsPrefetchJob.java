@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.internal.launching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.dltk.core.environment.IEnvironment;
+import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.launching.IInterpreterInstall;
+import org.eclipse.dltk.launching.LaunchingMessages;
+
+/**
+ * Resolves default library locations of the specified interpreters in
+ * parallel, so the results are available in the cache when they are requested
+ * later.
+ */
+public class LibraryLocationsPrefetchJob extends Job {
+
+	private static final int MAX_THREADS = 4;
+
+	private final IInterpreterInstall[] interpreters;
+
+	public LibraryLocationsPrefetchJob(IInterpreterInstall[] interpreters) {
+		super(LaunchingMessages.AbstractInterpreterInstallType_fetchingInterpreterLibraryLocations);
+		this.interpreters = interpreters;
+		setSystem(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		final List<IInterpreterInstall> pending = new ArrayList<IInterpreterInstall>();
+		for (IInterpreterInstall interpreter : interpreters) {
+			if (interpreter.getLibraryLocations() == null
+					&& isConnected(interpreter.getInstallLocation())) {
+				pending.add(interpreter);
+			}
+		}
+		if (pending.isEmpty()) {
+			return Status.OK_STATUS;
+		}
+		monitor.beginTask(getName(), pending.size());
+		final int threads = Math.min(pending.size(), Math.max(1, Math.min(
+				MAX_THREADS, Runtime.getRuntime().availableProcessors())));
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new PrefetchThreadFactory());
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final IInterpreterInstall interpreter : pending) {
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						interpreter.getInterpreterInstallType()
+								.getDefaultLibraryLocations(
+										interpreter.getInstallLocation(),
+										interpreter.getEnvironmentVariables(),
+										null);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					return Status.CANCEL_STATUS;
+				} catch (Exception e) {
+					DLTKLaunchingPlugin.log(e);
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Remote environments are not connected here, their interpreters are
+	 * resolved on demand.
+	 */
+	private static boolean isConnected(IFileHandle installLocation) {
+		if (installLocation == null) {
+			return false;
+		}
+		final IEnvironment environment = installLocation.getEnvironment();
+		return environment != null && environment.isConnected();
+	}
+
+	private static class PrefetchThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r,
+					"Library locations discovery #" //$NON-NLS-1$
+							+ counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
@@ -1,11 +1,19 @@
 package org.eclipse.dltk.launching;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -15,16 +23,45 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IExecutionEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.internal.launching.AbstractInterpreterInstallType;
+import org.eclipse.dltk.internal.launching.DLTKLaunchingPlugin;
 import org.eclipse.osgi.util.NLS;
 
 public class InterpreterSearcher {
+
+	/**
+	 * Receives the interpreters as soon as they are found. Methods of this
+	 * interface are called from the search worker threads.
+	 *
+	 * @since 5.2
+	 */
+	public interface IInterpreterSearchListener {
+		void interpreterFound(IFileHandle file, IInterpreterInstallType type);
+	}
+
+	/**
+	 * Names of the directories which are not expected to contain
+	 * interpreters, they are not traversed.
+	 */
+	private static final Set<String> SKIPPED_DIRECTORIES = new HashSet<String>(
+			Arrays.asList(new String[] { ".git", ".svn", ".hg", "CVS", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					"man", "doc", "docs", "info", "include", "locale", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+					"icons", "pixmaps", "fonts", "__pycache__", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					"node_modules", "proc", "sys", "dev" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	private static final int MAX_LOCAL_THREADS = 8;
+	private static final int MAX_REMOTE_THREADS = 4;
+
 	private Set<IFileHandle> searchedDirs;
 	private List<IFileHandle> found;
 	private List<IInterpreterInstallType> types;
+	private final AtomicInteger foundCount = new AtomicInteger();
 
 	private String natureId;
 	private IInterpreterInstallType[] installTypes;
 	private Set<IFileHandle> ignore;
+	private IInterpreterSearchListener listener;
+	private ExecutorService executor;
 
 	protected void searchFast(IProgressMonitor monitor,
 			IEnvironment environment, int depth) {
@@ -58,20 +95,15 @@ public class InterpreterSearcher {
 		// Folder list
 		final String separator = environment.getPathsSeparator();
 
-		final List<IPath> folders = new ArrayList<IPath>();
+		final List<IFileHandle> folders = new ArrayList<IFileHandle>();
 		String[] res = path.split(separator);
 		for (int i = 0; i < res.length; i++) {
-			folders.add(Path.fromOSString(res[i]));
+			final IPath folder = Path.fromOSString(res[i]);
+			folders.add(environment.getFile(folder));
 		}
 
 		monitor.beginTask(Messages.InterpreterSearcher_1, folders.size());
-		for (final IPath folder : folders) {
-			IFileHandle f = environment.getFile(folder);
-			if (f.isDirectory()) {
-				search(f, monitor, depth);
-			}
-			monitor.worked(1);
-		}
+		search(folders, monitor, depth);
 		monitor.done();
 	}
 
@@ -79,7 +111,7 @@ public class InterpreterSearcher {
 	 * Searches the specified directory recursively for installed Interpreters,
 	 * adding each detected Interpreter to the <code>found</code> list. Any
 	 * directories specified in the <code>ignore</code> are not traversed.
-	 * 
+	 *
 	 * @param directory
 	 * @param found
 	 * @param types
@@ -89,74 +121,163 @@ public class InterpreterSearcher {
 	 */
 	protected void search(IFileHandle directory, IProgressMonitor monitor,
 			int depth) {
-		if (depth == 0) {
-			return;
-		}
-
-		if (monitor.isCanceled()) {
-			return;
-		}
-
-		if (!searchedDirs.add(directory)) {
-			return;
-		}
-
-		IFileHandle[] files = directory.getChildren();
-		if (files == null) {
-			return;
-		}
+		search(Collections.singletonList(directory), monitor, depth);
+	}
 
-		List<IFileHandle> subDirs = new ArrayList<IFileHandle>();
-		for (int i = 0; i < files.length; i++) {
+	/**
+	 * Searches the specified directories level by level, directories of the
+	 * same level are processed concurrently.
+	 */
+	private void search(List<IFileHandle> directories,
+			IProgressMonitor monitor, int depth) {
+		List<IFileHandle> level = directories;
+		boolean root = true;
+		while (!level.isEmpty() && depth != 0) {
 			if (monitor.isCanceled()) {
 				return;
 			}
+			final List<Future<DirectoryResult>> futures = new ArrayList<Future<DirectoryResult>>();
+			for (IFileHandle directory : level) {
+				if (searchedDirs.add(directory)) {
+					futures.add(executor.submit(new DirectoryScan(directory,
+							depth != 1, root, monitor)));
+				} else if (root) {
+					synchronized (monitor) {
+						monitor.worked(1);
+					}
+				}
+			}
+			final List<IFileHandle> next = new ArrayList<IFileHandle>();
+			for (Future<DirectoryResult> future : futures) {
+				final DirectoryResult result;
+				try {
+					result = future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (ExecutionException e) {
+					DLTKLaunchingPlugin.log(e.getCause());
+					continue;
+				}
+				found.addAll(result.files);
+				types.addAll(result.types);
+				next.addAll(result.subDirs);
+			}
+			level = next;
+			root = false;
+			--depth;
+		}
+	}
 
-			final IFileHandle file = files[i];
+	private static class DirectoryResult {
+		final List<IFileHandle> files = new ArrayList<IFileHandle>();
+		final List<IInterpreterInstallType> types = new ArrayList<IInterpreterInstallType>();
+		final List<IFileHandle> subDirs = new ArrayList<IFileHandle>();
+	}
 
-			monitor.subTask(NLS.bind(
-					Messages.InterpreterSearcher_foundSearching, Integer
-							.valueOf(found.size()), file.getCanonicalPath()));
+	private class DirectoryScan implements Callable<DirectoryResult> {
 
-			// Check if file is a symlink
-			if (file.isDirectory() && file.isSymlink()) {
-				continue;
-			}
+		private final IFileHandle directory;
+		private final boolean recursive;
+		private final boolean root;
+		private final IProgressMonitor monitor;
 
-			if (!ignore.contains(file)) {
-				boolean validLocation = false;
-				// Take the first Interpreter install type that claims the
-				// location as a
-				// valid Interpreter install. Interpreter install types should
-				// be smart enough to not
-				// claim another type's Interpreter, but just in case...
-				for (int j = 0; j < installTypes.length; j++) {
-					if (monitor.isCanceled()) {
-						return;
-					}
-
-					final IInterpreterInstallType installType = installTypes[j];
-					IStatus status = installType.validatePossiblyName(file);
+		public DirectoryScan(IFileHandle directory, boolean recursive,
+				boolean root, IProgressMonitor monitor) {
+			this.directory = directory;
+			this.recursive = recursive;
+			this.root = root;
+			this.monitor = monitor;
+		}
 
-					if (status.isOK()) {
-						found.add(file);
-						types.add(installType);
-						validLocation = true;
-						break;
+		public DirectoryResult call() {
+			final DirectoryResult result = new DirectoryResult();
+			try {
+				if (!monitor.isCanceled() && (!root || directory.isDirectory())) {
+					scan(result);
+				}
+			} finally {
+				if (root) {
+					synchronized (monitor) {
+						monitor.worked(1);
 					}
 				}
+			}
+			return result;
+		}
 
-				if (file.isDirectory() && !validLocation) {
-					subDirs.add(file);
+		private void scan(DirectoryResult result) {
+			synchronized (monitor) {
+				monitor.subTask(NLS.bind(
+						Messages.InterpreterSearcher_foundSearching, Integer
+								.valueOf(foundCount.get()), directory
+								.getCanonicalPath()));
+			}
+			final IFileHandle[] files = directory.getChildren();
+			if (files == null) {
+				return;
+			}
+			for (int i = 0; i < files.length; i++) {
+				if (monitor.isCanceled()) {
+					return;
+				}
+				final IFileHandle file = files[i];
+				if (ignore.contains(file)) {
+					continue;
+				}
+				final String name = file.getName();
+				final IInterpreterInstallType installType = validate(file,
+						name);
+				if (installType != null) {
+					result.files.add(file);
+					result.types.add(installType);
+					foundCount.incrementAndGet();
+					if (listener != null) {
+						listener.interpreterFound(file, installType);
+					}
+				} else if (recursive && !SKIPPED_DIRECTORIES.contains(name)
+						&& file.isDirectory() && !file.isSymlink()) {
+					result.subDirs.add(file);
 				}
 			}
 		}
 
-		if (!subDirs.isEmpty()) {
-			for (IFileHandle subDir : subDirs) {
-				search(subDir, monitor, depth - 1);
+		/**
+		 * Take the first Interpreter install type that claims the location as
+		 * a valid Interpreter install. Interpreter install types should be
+		 * smart enough to not claim another type's Interpreter, but just in
+		 * case...
+		 */
+		private IInterpreterInstallType validate(IFileHandle file, String name) {
+			boolean directoryChecked = false;
+			for (int j = 0; j < installTypes.length; j++) {
+				final IInterpreterInstallType installType = installTypes[j];
+				if (!isPossibleName(installType, name)) {
+					continue;
+				}
+				if (!directoryChecked) {
+					// symlinks to directories are not traversed nor accepted
+					if (file.isDirectory() && file.isSymlink()) {
+						return null;
+					}
+					directoryChecked = true;
+				}
+				IStatus status = installType.validatePossiblyName(file);
+				if (status.isOK()) {
+					return installType;
+				}
 			}
+			return null;
+		}
+	}
+
+	private static boolean isPossibleName(IInterpreterInstallType installType,
+			String name) {
+		if (installType instanceof AbstractInterpreterInstallType) {
+			return ((AbstractInterpreterInstallType) installType)
+					.isPossibleInterpreterName(name);
 		}
+		return true;
 	}
 
 	public InterpreterSearcher() {
@@ -167,6 +288,31 @@ public class InterpreterSearcher {
 
 	public void search(IEnvironment environment, String natureId,
 			Set<IFileHandle> ignore, int depth, IProgressMonitor monitor) {
+		search(environment, natureId, ignore, depth, monitor, null);
+	}
+
+	/**
+	 * Searches the interpreters of the specified nature in the folders from
+	 * the PATH environment variable. Directories are processed concurrently,
+	 * found interpreters are reported to the specified listener as soon as
+	 * they are detected and are available via {@link #getFoundFiles()} and
+	 * {@link #getFoundInstallTypes()} after this method returns.
+	 *
+	 * @param environment
+	 * @param natureId
+	 * @param ignore
+	 *            locations to skip, could be <code>null</code>
+	 * @param depth
+	 *            deepness of search. -1 if infinite.
+	 * @param monitor
+	 * @param listener
+	 *            the listener to receive found interpreters or
+	 *            <code>null</code>
+	 * @since 5.2
+	 */
+	public void search(IEnvironment environment, String natureId,
+			Set<IFileHandle> ignore, int depth, IProgressMonitor monitor,
+			IInterpreterSearchListener listener) {
 		if (natureId == null) {
 			throw new IllegalArgumentException();
 		}
@@ -174,15 +320,44 @@ public class InterpreterSearcher {
 		this.found.clear();
 		this.types.clear();
 		this.searchedDirs.clear();
+		this.foundCount.set(0);
 
 		this.natureId = natureId;
 		this.installTypes = ScriptRuntime.getInterpreterInstallTypes(natureId);
 
 		this.ignore = ignore == null ? Collections.<IFileHandle> emptySet()
 				: ignore;
+		this.listener = listener;
+
+		this.executor = Executors.newFixedThreadPool(
+				getThreadCount(environment), new SearchThreadFactory());
+		try {
+			searchFast(monitor == null ? new NullProgressMonitor() : monitor,
+					environment, depth);
+		} finally {
+			executor.shutdownNow();
+			executor = null;
+			this.listener = null;
+		}
+	}
+
+	private static int getThreadCount(IEnvironment environment) {
+		if (environment.isLocal()) {
+			return Math.max(2, Math.min(MAX_LOCAL_THREADS, Runtime
+					.getRuntime().availableProcessors()));
+		}
+		return MAX_REMOTE_THREADS;
+	}
 
-		searchFast(monitor == null ? new NullProgressMonitor() : monitor,
-				environment, depth);
+	private static class SearchThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "Interpreter search #" //$NON-NLS-1$
+					+ counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
 	}
 
 	public boolean hasResults() {
@@ -69,6 +69,7 @@ import org.eclipse.dltk.internal.launching.DefaultProjectBuildpathEntry;
 import org.eclipse.dltk.internal.launching.InterpreterContainerInitializer;
 import org.eclipse.dltk.internal.launching.InterpreterDefinitionsContainer;
 import org.eclipse.dltk.internal.launching.InterpreterListener;
+import org.eclipse.dltk.internal.launching.LibraryLocationsPrefetchJob;
 import org.eclipse.dltk.internal.launching.RuntimeBuildpathEntry;
 import org.eclipse.dltk.internal.launching.RuntimeBuildpathEntryResolver;
 import org.eclipse.dltk.internal.launching.RuntimeBuildpathProvider;
@@ -2028,6 +2029,7 @@ public final class ScriptRuntime {
 		}
 		if (defs != null) {
 			// notify of initial Interpreters for backwards compatibility
+			final List<IInterpreterInstall> allInstalls = new ArrayList<IInterpreterInstall>();
 			IInterpreterInstallType[] installTypes = getInterpreterInstallTypes();
 			for (int i = 0; i < installTypes.length; i++) {
 				IInterpreterInstallType type = installTypes[i];
@@ -2035,9 +2037,16 @@ public final class ScriptRuntime {
 				if (installs != null) {
 					for (int j = 0; j < installs.length; j++) {
 						fireInterpreterAdded(installs[j]);
+						allInstalls.add(installs[j]);
 					}
 				}
 			}
+			// resolve default library locations in background
+			if (!allInstalls.isEmpty()) {
+				new LibraryLocationsPrefetchJob(
+						allInstalls.toArray(new IInterpreterInstall[allInstalls
+								.size()])).schedule();
+			}
 
 			// save settings if required
 			if (setPref) {
@@ -50,9 +50,11 @@ public class LaunchingModel {
 		}
 
 		public InterpreterInfo find(IInterpreterInstall interpreter) {
-			final String environmentId = interpreter.getEnvironmentId();
-			final String location = interpreter.getInstallLocation().getPath()
-					.toString();
+			return find(interpreter.getEnvironmentId(), interpreter
+					.getInstallLocation().getPath().toString());
+		}
+
+		public InterpreterInfo find(String environmentId, String location) {
 			for (EObject object : resource.getContents()) {
 				if (object instanceof InterpreterInfo) {
 					final InterpreterInfo info = (InterpreterInfo) object;
@@ -69,13 +71,12 @@ public class LaunchingModel {
 		 * @param interpreter
 		 * @return
 		 */
-		public InterpreterInfo create(IInterpreterInstall interpreter) {
-			InterpreterInfo info = find(interpreter);
+		public InterpreterInfo create(String environmentId, String location) {
+			InterpreterInfo info = find(environmentId, location);
 			if (info == null) {
 				info = LaunchingModelFactory.eINSTANCE.createInterpreterInfo();
-				info.setEnvironment(interpreter.getEnvironmentId());
-				info.setLocation(interpreter.getInstallLocation().getPath()
-						.toString());
+				info.setEnvironment(environmentId);
+				info.setLocation(location);
 				resource.getContents().add(info);
 			}
 			return info;
@@ -156,7 +157,25 @@ public class LaunchingModel {
 	 */
 	public EObject find(IInterpreterInstall interpreter,
 			Predicate<EObject> predicate) {
-		InterpreterInfo info = getModel().find(interpreter);
+		return find(interpreter.getEnvironmentId(), interpreter
+				.getInstallLocation().getPath().toString(), predicate);
+	}
+
+	/**
+	 * Returns the first content object matching the specified predicate for
+	 * the interpreter identified by its environment and location or
+	 * <code>null</code>. This method could be used when only the interpreter
+	 * executable is known, e.g. during library discovery.
+	 * 
+	 * @param environmentId
+	 * @param location
+	 * @param predicate
+	 * @return
+	 * @since 5.2
+	 */
+	public EObject find(String environmentId, String location,
+			Predicate<EObject> predicate) {
+		InterpreterInfo info = getModel().find(environmentId, location);
 		if (info != null) {
 			for (EObject object : info.getContents()) {
 				if (predicate.evaluate(object)) {
@@ -179,12 +198,39 @@ public class LaunchingModel {
 	 */
 	public EObject save(IInterpreterInstall interpreter,
 			Predicate<EObject> predicate, EObject value) {
+		return save(interpreter.getEnvironmentId(), interpreter
+				.getInstallLocation().getPath().toString(), predicate, value);
+	}
+
+	/**
+	 * Replace the first content object matching the specified predicate with
+	 * the new value for the interpreter identified by its environment and
+	 * location.
+	 * 
+	 * @param environmentId
+	 * @param location
+	 * @param predicate
+	 * @param value
+	 *            new value or <code>null</code>
+	 * @return
+	 * @since 5.2
+	 */
+	public EObject save(String environmentId, String location,
+			Predicate<EObject> predicate, EObject value) {
 		if (value != null) {
 			Assert.isLegal(predicate.evaluate(value));
 		}
-		// TODO synchronization
+		synchronized (saveLock) {
+			return doSave(environmentId, location, predicate, value);
+		}
+	}
+
+	private final Object saveLock = new Object();
+
+	private EObject doSave(String environmentId, String location,
+			Predicate<EObject> predicate, EObject value) {
 		final Model model = loadModel();
-		final InterpreterInfo info = model.create(interpreter);
+		final InterpreterInfo info = model.create(environmentId, location);
 		for (ListIterator<EObject> i = info.getContents().listIterator(); i
 				.hasNext();) {
 			EObject object = i.next();
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -53,11 +54,29 @@ public class DefaultLogConsole extends AbstractLogConsole {
 
 	}
 
-	protected final List<LogItem> items = new ArrayList<LogItem>();
-	protected int writePos = 0;
+	private static final int CAPACITY = 1024;
+	private static final int PAGE_SIZE = CAPACITY / 4;
 
-	private static final int LIMIT = 1000;
-	private static final int PURGE = LIMIT / 4;
+	private static final long WRITE_DELAY = 100;
+
+	/**
+	 * Number of the write attempts without progress, after which the item
+	 * claimed but not stored by the producer is skipped.
+	 */
+	private static final int MAX_STALLS = 3;
+
+	private final LogRingBuffer<LogItem> items = new LogRingBuffer<LogItem>(
+			CAPACITY, PAGE_SIZE);
+
+	private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+	/**
+	 * Guards the write position, is never taken by the logging threads
+	 */
+	private final Object writeLock = new Object();
+	private long writePos = 0;
+	private long clearPos = 0;
+	private int stalls = 0;
 
 	public void println(ILogConsoleStream stream, Object message) {
 		if (message == null) {
@@ -75,25 +94,21 @@ public class DefaultLogConsole extends AbstractLogConsole {
 	}
 
 	private void print(final LogItem item) {
-		synchronized (items) {
-			items.add(item);
-			if (items.size() > LIMIT) {
-				// TODO (alex) keep list of pages and drop the whole page(s)
-				items.removeAll(new ArrayList<LogItem>(items.subList(0, PURGE)));
-				if (writePos > PURGE) {
-					writePos -= PURGE;
-				} else {
-					writePos = 0;
-				}
-			}
-			if (consoleImpl != null) {
-				writeJob.schedule(100);
-			}
+		items.add(item);
+		if (consoleImpl != null) {
+			scheduleWrite();
+		}
+	}
+
+	private void scheduleWrite() {
+		if (writeScheduled.compareAndSet(false, true)) {
+			writeJob.schedule(WRITE_DELAY);
 		}
 	}
 
 	private final Job writeJob = new Job("") {
 		protected IStatus run(IProgressMonitor monitor) {
+			writeScheduled.set(false);
 			try {
 				execute();
 			} catch (IOException e) {
@@ -104,67 +119,90 @@ public class DefaultLogConsole extends AbstractLogConsole {
 		}
 
 		protected void execute() throws IOException {
-			synchronized (items) {
-				if (consoleImpl == null) {
+			final LogConsoleImpl console;
+			final List<LogItem> batch = new ArrayList<LogItem>();
+			synchronized (writeLock) {
+				console = consoleImpl;
+				if (console == null) {
 					return;
 				}
-				// TODO (alex) release lock earlier
-				if (writePos < items.size()) {
-					for (int i = writePos; i < items.size(); ++i) {
-						final LogItem item = items.get(i);
-						buffer.setLength(0);
-						if (item.timestamp != 0) {
-							timestamp.setTime(item.timestamp);
-							final String timeStr = timestamp.toString();
-							buffer.append(timeStr.substring(11));
-							if (timeStr.length() < 23) {
-								buffer.append("000".substring(0,
-										23 - timeStr.length()));
-							}
-							buffer.append(' ');
-						}
-						if (item.category != null) {
-							buffer.append(item.category);
-							buffer.append(' ');
-						}
-						if (item.message instanceof CompoundMessage) {
-							final CompoundMessage msg = (CompoundMessage) item.message;
-							int headerLen = buffer.length();
-							buffer.append(msg.getHeader());
-							consoleImpl.println(item.stream, buffer.toString());
-							if (!msg.getContents().isEmpty()) {
-								headerLen += 2;
-								buffer.setLength(headerLen);
-								for (int j = 0; j < headerLen; ++j) {
-									buffer.setCharAt(j, ' ');
-								}
-								for (Object message : msg.getContents()) {
-									buffer.append(message);
-									consoleImpl.println(item.stream,
-											buffer.toString());
-									buffer.setLength(headerLen);
-								}
-							}
-						} else {
-							buffer.append(item.message);
-							consoleImpl.println(item.stream, buffer.toString());
-						}
+				final long start = Math.max(writePos, clearPos);
+				writePos = items.read(start, batch, stalls >= MAX_STALLS);
+				if (writePos < items.next()) {
+					stalls = writePos == start ? stalls + 1 : 0;
+					scheduleWrite();
+				} else {
+					stalls = 0;
+				}
+			}
+			// format without holding any locks, write the same stream items
+			// at once
+			ILogConsoleStream stream = null;
+			output.setLength(0);
+			for (LogItem item : batch) {
+				if (item.stream != stream && output.length() != 0) {
+					console.write(stream, output.toString());
+					output.setLength(0);
+				}
+				stream = item.stream;
+				format(item);
+			}
+			if (output.length() != 0) {
+				console.write(stream, output.toString());
+				output.setLength(0);
+			}
+		}
+
+		private void format(LogItem item) {
+			buffer.setLength(0);
+			if (item.timestamp != 0) {
+				timestamp.setTime(item.timestamp);
+				final String timeStr = timestamp.toString();
+				buffer.append(timeStr.substring(11));
+				if (timeStr.length() < 23) {
+					buffer.append("000".substring(0, 23 - timeStr.length()));
+				}
+				buffer.append(' ');
+			}
+			if (item.category != null) {
+				buffer.append(item.category);
+				buffer.append(' ');
+			}
+			if (item.message instanceof CompoundMessage) {
+				final CompoundMessage msg = (CompoundMessage) item.message;
+				int headerLen = buffer.length();
+				buffer.append(msg.getHeader());
+				output.append(buffer).append('\n');
+				if (!msg.getContents().isEmpty()) {
+					headerLen += 2;
+					buffer.setLength(headerLen);
+					for (int j = 0; j < headerLen; ++j) {
+						buffer.setCharAt(j, ' ');
+					}
+					for (Object message : msg.getContents()) {
+						buffer.append(message);
+						output.append(buffer).append('\n');
+						buffer.setLength(headerLen);
 					}
-					writePos = items.size();
 				}
+			} else {
+				buffer.append(item.message);
+				output.append(buffer).append('\n');
 			}
 		}
 
 		private final StringBuilder buffer = new StringBuilder(128);
 
+		private final StringBuilder output = new StringBuilder(1024);
+
 		private final Timestamp timestamp = new Timestamp(currentTimeMillis());
 	};
 
-	protected LogConsoleImpl consoleImpl = null;
+	protected volatile LogConsoleImpl consoleImpl = null;
 
 	@Override
 	public void activate() {
-		synchronized (items) {
+		synchronized (writeLock) {
 			final IConsoleManager consoleManager = ConsolePlugin.getDefault()
 					.getConsoleManager();
 			if (consoleImpl == null) {
@@ -176,20 +214,21 @@ public class DefaultLogConsole extends AbstractLogConsole {
 	}
 
 	protected void consoleInitialized() {
-		writeJob.schedule(100);
+		scheduleWrite();
 	}
 
 	protected void consoleDisposed() {
-		synchronized (items) {
+		synchronized (writeLock) {
 			consoleImpl = null;
-			writePos = 0;
+			// the retained items are written again to the new console
+			writePos = items.oldest();
 		}
 	}
 
 	protected void clear() {
-		synchronized (items) {
-			items.clear();
-			writePos = 0;
+		synchronized (writeLock) {
+			clearPos = items.next();
+			writePos = clearPos;
 		}
 	}
 
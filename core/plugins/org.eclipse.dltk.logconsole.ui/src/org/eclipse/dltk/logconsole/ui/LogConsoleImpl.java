@@ -56,6 +56,14 @@ public class LogConsoleImpl extends IOConsole {
 
 	protected void println(ILogConsoleStream stream, String message)
 			throws IOException {
+		write(stream, message + "\n");
+	}
+
+	/**
+	 * Writes the text to the specified stream as is.
+	 */
+	protected void write(ILogConsoleStream stream, String text)
+			throws IOException {
 		IOConsoleOutputStream outputStream;
 		synchronized (streams) {
 			outputStream = streams.get(stream);
@@ -65,7 +73,7 @@ public class LogConsoleImpl extends IOConsole {
 			}
 			streams.put(stream, outputStream);
 		}
-		outputStream.write(message + "\n");
+		outputStream.write(text);
 	}
 
 	private void setupColor(final IOConsoleOutputStream outputStream,
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.logconsole.ui;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed capacity buffer accepting the items from multiple threads without
+ * locking and keeping the last <code>capacity</code> of them. Each item gets
+ * the sequence number, the single consumer reads the items by their sequence
+ * numbers. When the consumer falls behind, the overwritten items are dropped
+ * page by page.
+ */
+class LogRingBuffer<T> {
+
+	private static final long EMPTY = -1;
+
+	private final int mask;
+	private final int pageSize;
+	private final AtomicReferenceArray<T> values;
+	private final AtomicLongArray sequences;
+	private final AtomicLong next = new AtomicLong();
+
+	/**
+	 * @param capacity
+	 *            the capacity, must be the power of 2
+	 * @param pageSize
+	 *            the number of items dropped at once, must be the power of 2
+	 *            not greater than capacity
+	 */
+	public LogRingBuffer(int capacity, int pageSize) {
+		if (Integer.bitCount(capacity) != 1 || Integer.bitCount(pageSize) != 1
+				|| pageSize > capacity) {
+			throw new IllegalArgumentException();
+		}
+		this.mask = capacity - 1;
+		this.pageSize = pageSize;
+		this.values = new AtomicReferenceArray<T>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; ++i) {
+			sequences.set(i, EMPTY);
+		}
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Adds the item, could be called from any thread.
+	 *
+	 * @return the sequence number of the added item
+	 */
+	public long add(T value) {
+		final long sequence = next.getAndIncrement();
+		final int index = (int) (sequence & mask);
+		sequences.set(index, EMPTY);
+		values.set(index, value);
+		sequences.set(index, sequence);
+		return sequence;
+	}
+
+	/**
+	 * Returns the sequence number of the next item to be added.
+	 */
+	public long next() {
+		return next.get();
+	}
+
+	/**
+	 * Returns the sequence number of the oldest item which could be still
+	 * available.
+	 */
+	public long oldest() {
+		return Math.max(0, next.get() - capacity());
+	}
+
+	/**
+	 * Reads the items starting with the specified sequence number into the
+	 * list. Reading stops at the item, which is claimed by the producer but
+	 * not stored yet, unless <code>skipIncomplete</code> is specified.
+	 *
+	 * @return the sequence number to continue reading from
+	 */
+	public long read(long from, List<T> result, boolean skipIncomplete) {
+		long sequence = from;
+		final long end = next.get();
+		while (sequence < end) {
+			final long oldest = end - capacity();
+			if (sequence < oldest) {
+				// overwritten, drop whole pages
+				sequence = (oldest + pageSize - 1) & ~((long) pageSize - 1);
+				continue;
+			}
+			final int index = (int) (sequence & mask);
+			final long stored = sequences.get(index);
+			if (stored == sequence) {
+				final T value = values.get(index);
+				if (sequences.get(index) == sequence) {
+					result.add(value);
+				}
+				// otherwise it was overwritten while reading
+			} else if (stored < sequence && !skipIncomplete) {
+				break;
+			}
+			++sequence;
+		}
+		return sequence;
+	}
+
+}
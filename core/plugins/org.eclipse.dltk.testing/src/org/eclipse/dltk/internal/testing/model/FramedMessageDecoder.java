@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Decodes the messages of the {@link ITestRunFramedProtocol} and forwards them
+ * to the {@link ITestRunListener2}. Frames are read into the reusable buffer
+ * and dispatched by the opcode, so the cost of the message does not depend on
+ * the number of the message kinds.
+ */
+public class FramedMessageDecoder implements ITestRunFramedProtocol {
+
+	private static final int HEADER_SIZE = 8;
+
+	private final InputStream input;
+	private final ITestRunListener2 listener;
+
+	private byte[] buffer = new byte[4096];
+	private int position;
+	private int limit;
+
+	public FramedMessageDecoder(InputStream input, ITestRunListener2 listener) {
+		this.input = input;
+		this.listener = listener;
+	}
+
+	/**
+	 * Checks if the stream starts with the header of the framed protocol. If
+	 * the header is recognized it is consumed, otherwise the stream is reset
+	 * to the initial position.
+	 *
+	 * @param input
+	 *            the stream supporting mark
+	 */
+	public static boolean detect(InputStream input) throws IOException {
+		input.mark(HEADER_SIZE);
+		final byte[] header = new byte[HEADER_SIZE];
+		int count = 0;
+		while (count < HEADER_SIZE) {
+			final int len = input.read(header, count, HEADER_SIZE - count);
+			if (len < 0) {
+				break;
+			}
+			count += len;
+		}
+		if (count == HEADER_SIZE && getInt(header, 0) == MAGIC) {
+			final int version = getInt(header, 4);
+			if (version != VERSION) {
+				throw new IOException("Unsupported protocol version " + version); //$NON-NLS-1$
+			}
+			return true;
+		}
+		input.reset();
+		return false;
+	}
+
+	/**
+	 * Reads and dispatches messages until the end of stream.
+	 */
+	public void run() throws IOException {
+		while (readFrame()) {
+			dispatch(buffer[0]);
+		}
+	}
+
+	/**
+	 * Reads the next frame into the buffer.
+	 *
+	 * @return <code>false</code> if the end of stream is reached
+	 */
+	private boolean readFrame() throws IOException {
+		final int b1 = input.read();
+		if (b1 < 0) {
+			return false;
+		}
+		final int b2 = input.read();
+		final int b3 = input.read();
+		final int b4 = input.read();
+		if ((b2 | b3 | b4) < 0) {
+			throw new EOFException();
+		}
+		final int length = (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+		if (length <= 0 || length > MAX_FRAME_LENGTH) {
+			throw new IOException("Invalid frame length " + length); //$NON-NLS-1$
+		}
+		if (buffer.length < length) {
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+		}
+		int count = 0;
+		while (count < length) {
+			final int len = input.read(buffer, count, length - count);
+			if (len < 0) {
+				throw new EOFException();
+			}
+			count += len;
+		}
+		position = 1;
+		limit = length;
+		return true;
+	}
+
+	private void dispatch(byte opcode) throws IOException {
+		switch (opcode) {
+		case RUN_START:
+			listener.testRunStarted(readInt());
+			break;
+		case RUN_END:
+			listener.testRunEnded(readLong());
+			break;
+		case RUN_STOPPED:
+			listener.testRunStopped(readLong());
+			break;
+		case TEST_TREE: {
+			final String testId = readString();
+			final String testName = readString();
+			final boolean isSuite = readBoolean();
+			listener.testTreeEntry(testId, testName, isSuite, readInt());
+			break;
+		}
+		case TEST_START: {
+			final String testId = readString();
+			listener.testStarted(testId, readString());
+			break;
+		}
+		case TEST_END: {
+			final String testId = readString();
+			listener.testEnded(testId, readString());
+			break;
+		}
+		case TEST_FAILED: {
+			final int status = readInt();
+			final String testId = readString();
+			final String testName = readString();
+			final String trace = readString();
+			final String expected = readNullableString();
+			final String actual = readNullableString();
+			listener.testFailed(status, testId, testName, trace, expected,
+					actual, readInt());
+			break;
+		}
+		case TEST_RERAN: {
+			final String testId = readString();
+			final String className = readString();
+			final String testName = readString();
+			final int status = readInt();
+			final String trace = readString();
+			final String expected = readNullableString();
+			listener.testReran(testId, className, testName, status, trace,
+					expected, readNullableString());
+			break;
+		}
+		default:
+			// unknown messages are skipped for forward compatibility
+			break;
+		}
+	}
+
+	private void ensure(int count) throws IOException {
+		if (position + count > limit) {
+			throw new EOFException("Truncated frame"); //$NON-NLS-1$
+		}
+	}
+
+	private boolean readBoolean() throws IOException {
+		ensure(1);
+		return buffer[position++] != 0;
+	}
+
+	private int readInt() throws IOException {
+		ensure(4);
+		final int value = getInt(buffer, position);
+		position += 4;
+		return value;
+	}
+
+	private long readLong() throws IOException {
+		final long high = readInt();
+		return (high << 32) | (readInt() & 0xFFFFFFFFL);
+	}
+
+	private String readString() throws IOException {
+		final int length = readInt();
+		if (length < 0) {
+			throw new IOException("Invalid string length " + length); //$NON-NLS-1$
+		}
+		ensure(length);
+		final String value = newString(buffer, position, length);
+		position += length;
+		return value;
+	}
+
+	private String readNullableString() throws IOException {
+		return readBoolean() ? readString() : null;
+	}
+
+	private static String newString(byte[] bytes, int offset, int length)
+			throws UnsupportedEncodingException {
+		for (int i = 0; i < length; ++i) {
+			if (bytes[offset + i] < 0) {
+				return new String(bytes, offset, length, ENCODING);
+			}
+		}
+		// fast path for the ASCII content
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; ++i) {
+			chars[i] = (char) bytes[offset + i];
+		}
+		return new String(chars);
+	}
+
+	private static int getInt(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xFF) << 24)
+				| ((bytes[offset + 1] & 0xFF) << 16)
+				| ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+	}
+
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the messages of the {@link ITestRunFramedProtocol}. This is the
+ * reference implementation of the runner side of the protocol, used by the
+ * tests of the {@link FramedMessageDecoder} and by the load generator.
+ */
+public class FramedMessageEncoder implements ITestRunFramedProtocol {
+
+	private final OutputStream output;
+	private final ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+	private final DataOutputStream data = new DataOutputStream(frame);
+
+	public FramedMessageEncoder(OutputStream output) throws IOException {
+		this.output = output;
+		final DataOutputStream header = new DataOutputStream(output);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+	}
+
+	public void testRunStarted(int testCount) throws IOException {
+		begin(RUN_START);
+		data.writeInt(testCount);
+		end();
+	}
+
+	public void testRunEnded(long elapsedTime) throws IOException {
+		begin(RUN_END);
+		data.writeLong(elapsedTime);
+		end();
+	}
+
+	public void testRunStopped(long elapsedTime) throws IOException {
+		begin(RUN_STOPPED);
+		data.writeLong(elapsedTime);
+		end();
+	}
+
+	public void testTreeEntry(String testId, String testName, boolean isSuite,
+			int testCount) throws IOException {
+		begin(TEST_TREE);
+		writeString(testId);
+		writeString(testName);
+		data.writeBoolean(isSuite);
+		data.writeInt(testCount);
+		end();
+	}
+
+	public void testStarted(String testId, String testName) throws IOException {
+		begin(TEST_START);
+		writeString(testId);
+		writeString(testName);
+		end();
+	}
+
+	public void testEnded(String testId, String testName) throws IOException {
+		begin(TEST_END);
+		writeString(testId);
+		writeString(testName);
+		end();
+	}
+
+	public void testFailed(int status, String testId, String testName,
+			String trace, String expected, String actual, int code)
+			throws IOException {
+		begin(TEST_FAILED);
+		data.writeInt(status);
+		writeString(testId);
+		writeString(testName);
+		writeString(trace);
+		writeNullableString(expected);
+		writeNullableString(actual);
+		data.writeInt(code);
+		end();
+	}
+
+	public void testReran(String testId, String className, String testName,
+			int status, String trace, String expected, String actual)
+			throws IOException {
+		begin(TEST_RERAN);
+		writeString(testId);
+		writeString(className);
+		writeString(testName);
+		data.writeInt(status);
+		writeString(trace);
+		writeNullableString(expected);
+		writeNullableString(actual);
+		end();
+	}
+
+	public void flush() throws IOException {
+		output.flush();
+	}
+
+	private void begin(byte opcode) throws IOException {
+		frame.reset();
+		data.writeByte(opcode);
+	}
+
+	private void end() throws IOException {
+		final int length = frame.size();
+		output.write((length >>> 24) & 0xFF);
+		output.write((length >>> 16) & 0xFF);
+		output.write((length >>> 8) & 0xFF);
+		output.write(length & 0xFF);
+		frame.writeTo(output);
+	}
+
+	private void writeNullableString(String value) throws IOException {
+		data.writeBoolean(value != null);
+		if (value != null) {
+			writeString(value);
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		final byte[] bytes = value.getBytes(ENCODING);
+		data.writeInt(bytes.length);
+		data.write(bytes);
+	}
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+/**
+ * Constants of the framed test runner protocol.
+ *
+ * <p>
+ * The stream starts with the {@link #MAGIC} followed by the {@link #VERSION}.
+ * Each message is written as the length of the frame (4 bytes, big endian),
+ * followed by the one byte opcode and the payload. Strings are written as the
+ * length of the UTF-8 representation followed by the bytes, nullable strings
+ * are prefixed with a boolean flag.
+ * </p>
+ *
+ * <p>
+ * Runners which are not aware of this protocol continue to use the line based
+ * format described in {@link org.eclipse.dltk.testing.MessageIds}, the client
+ * detects the format by the first bytes of the stream.
+ * </p>
+ */
+public interface ITestRunFramedProtocol {
+
+	int MAGIC = 0x444C5446; // DLTF
+
+	int VERSION = 1;
+
+	String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * Maximum accepted frame length, larger frames are treated as corrupted
+	 * stream.
+	 */
+	int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+	/**
+	 * payload: int testCount
+	 */
+	byte RUN_START = 1;
+
+	/**
+	 * payload: long elapsedTime
+	 */
+	byte RUN_END = 2;
+
+	/**
+	 * payload: long elapsedTime
+	 */
+	byte RUN_STOPPED = 3;
+
+	/**
+	 * payload: String testId, String testName, boolean isSuite, int testCount
+	 */
+	byte TEST_TREE = 4;
+
+	/**
+	 * payload: String testId, String testName
+	 */
+	byte TEST_START = 5;
+
+	/**
+	 * payload: String testId, String testName
+	 */
+	byte TEST_END = 6;
+
+	/**
+	 * payload: int status, String testId, String testName, String trace,
+	 * nullable String expected, nullable String actual, int code
+	 */
+	byte TEST_FAILED = 7;
+
+	/**
+	 * payload: String testId, String className, String testName, int status,
+	 * String trace, nullable String expected, nullable String actual
+	 */
+	byte TEST_RERAN = 8;
+
+}
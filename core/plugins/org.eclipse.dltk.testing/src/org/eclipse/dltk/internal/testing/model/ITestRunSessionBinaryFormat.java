@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+/**
+ * Constants of the binary test run history format.
+ */
+interface ITestRunSessionBinaryFormat {
+
+	int MAGIC = 0x444C5452; // DLTR
+
+	int VERSION = 1;
+
+	String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	byte KIND_CATEGORY = 1;
+	byte KIND_SUITE = 2;
+	byte KIND_CASE = 3;
+
+	byte NO_STATUS = -1;
+
+	/**
+	 * Size of the trailer offset at the end of file
+	 */
+	int TRAILER_POINTER_SIZE = 8;
+
+}
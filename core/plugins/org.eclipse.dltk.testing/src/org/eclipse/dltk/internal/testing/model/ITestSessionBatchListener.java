@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+/**
+ * The {@link ITestSessionListener} which receives the coalesced notifications.
+ * The consecutive {@link #testAdded(TestElement)},
+ * {@link #testStarted(TestCaseElement)} and {@link #testEnded(TestCaseElement)}
+ * events are not delivered individually, but are collected into the single
+ * {@link #testsChanged(TestElement[], TestCaseElement[], TestCaseElement[])}
+ * call instead. Other events are delivered as usual, the order of the events
+ * is preserved. Unlike the plain {@link ITestSessionListener}s, which are
+ * notified synchronously, the batch listeners are notified asynchronously from
+ * the job.
+ */
+public interface ITestSessionBatchListener extends ITestSessionListener {
+
+	/**
+	 * The tests were added, started or ended. Each element is reported once
+	 * per array in the order of the first event, the test which has both
+	 * started and ended is included into both arrays.
+	 *
+	 * @param added
+	 *            the tests added to the plan
+	 * @param started
+	 *            the started tests
+	 * @param ended
+	 *            the ended tests
+	 */
+	void testsChanged(TestElement[] added, TestCaseElement[] started,
+			TestCaseElement[] ended);
+
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.dltk.testing.MessageIds;
+
+/**
+ * Maps the headers of the line based protocol messages to the integer
+ * constants, so the message kind is detected with the single lookup instead of
+ * the chain of <code>startsWith()</code> checks.
+ */
+final class MessageIdTable {
+
+	static final int UNKNOWN = 0;
+	static final int TRACE_START = 1;
+	static final int EXPECTED_START = 2;
+	static final int ACTUAL_START = 3;
+	static final int RTRACE_START = 4;
+	static final int TEST_RUN_START = 5;
+	static final int TEST_START = 6;
+	static final int TEST_END = 7;
+	static final int TEST_ERROR = 8;
+	static final int TEST_FAILED = 9;
+	static final int TEST_RUN_END = 10;
+	static final int TEST_STOPPED = 11;
+	static final int TEST_TREE = 12;
+	static final int TEST_RERAN = 13;
+
+	private static final Map<String, Integer> IDS = new HashMap<String, Integer>();
+
+	static {
+		IDS.put(MessageIds.TRACE_START, TRACE_START);
+		IDS.put(MessageIds.EXPECTED_START, EXPECTED_START);
+		IDS.put(MessageIds.ACTUAL_START, ACTUAL_START);
+		IDS.put(MessageIds.RTRACE_START, RTRACE_START);
+		IDS.put(MessageIds.TEST_RUN_START, TEST_RUN_START);
+		IDS.put(MessageIds.TEST_START, TEST_START);
+		IDS.put(MessageIds.TEST_END, TEST_END);
+		IDS.put(MessageIds.TEST_ERROR, TEST_ERROR);
+		IDS.put(MessageIds.TEST_FAILED, TEST_FAILED);
+		IDS.put(MessageIds.TEST_RUN_END, TEST_RUN_END);
+		IDS.put(MessageIds.TEST_STOPPED, TEST_STOPPED);
+		IDS.put(MessageIds.TEST_TREE, TEST_TREE);
+		IDS.put(MessageIds.TEST_RERAN, TEST_RERAN);
+	}
+
+	private MessageIdTable() {
+	}
+
+	/**
+	 * Returns the kind of the specified message or {@link #UNKNOWN}
+	 */
+	static int lookup(String message) {
+		if (message.length() < MessageIds.MSG_HEADER_LENGTH
+				|| message.charAt(0) != '%') {
+			return UNKNOWN;
+		}
+		final Integer id = IDS.get(message.substring(0,
+				MessageIds.MSG_HEADER_LENGTH));
+		return id != null ? id.intValue() : UNKNOWN;
+	}
+
+}
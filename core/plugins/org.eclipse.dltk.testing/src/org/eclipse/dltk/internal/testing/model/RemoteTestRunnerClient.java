@@ -47,24 +47,26 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 
 	class DefaultProcessingState extends ProcessingState {
 		ProcessingState readMessage(String message) {
-			if (message.startsWith(MessageIds.TRACE_START)) {
+			final int id= MessageIdTable.lookup(message);
+			switch (id) {
+			case MessageIdTable.TRACE_START:
 				fFailedTrace.setLength(0);
 				return fTraceState;
-			}
-			if (message.startsWith(MessageIds.EXPECTED_START)) {
+			case MessageIdTable.EXPECTED_START:
 				fExpectedResult.setLength(0);
 				return fExpectedState;
-			}
-			if (message.startsWith(MessageIds.ACTUAL_START)) {
+			case MessageIdTable.ACTUAL_START:
 				fActualResult.setLength(0);
 				return fActualState;
-			}
-			if (message.startsWith(MessageIds.RTRACE_START)) {
+			case MessageIdTable.RTRACE_START:
 				fFailedRerunTrace.setLength(0);
 				return fRerunState;
+			case MessageIdTable.UNKNOWN:
+				return this;
 			}
 			String arg= message.substring(MessageIds.MSG_HEADER_LENGTH);
-			if (message.startsWith(MessageIds.TEST_RUN_START)) {
+			switch (id) {
+			case MessageIdTable.TEST_RUN_START: {
 				// version < 2 format: count
 				// version >= 2 format: count+" "+version
 				int count= 0;
@@ -78,45 +80,40 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 					count= Integer.parseInt(sc);
 				}
 				notifyTestRunStarted(count);
-				return this;
+				break;
 			}
-			if (message.startsWith(MessageIds.TEST_START)) {
+			case MessageIdTable.TEST_START:
 				notifyTestStarted(arg);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_END)) {
+				break;
+			case MessageIdTable.TEST_END:
 				notifyTestEnded(arg);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_ERROR)) {
+				break;
+			case MessageIdTable.TEST_ERROR:
 				extractFailure(arg, ITestRunListener2.STATUS_ERROR);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_FAILED)) {
+				break;
+			case MessageIdTable.TEST_FAILED:
 				extractFailure(arg, ITestRunListener2.STATUS_FAILURE);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_RUN_END)) {
+				break;
+			case MessageIdTable.TEST_RUN_END: {
 				long elapsedTime= Long.parseLong(arg);
 				testRunEnded(elapsedTime);
-				return this;
+				break;
 			}
-			if (message.startsWith(MessageIds.TEST_STOPPED)) {
+			case MessageIdTable.TEST_STOPPED: {
 				long elapsedTime= Long.parseLong(arg);
 				notifyTestRunStopped(elapsedTime);
 //	            shutDown();
-				return this;
+				break;
 			}
-			if (message.startsWith(MessageIds.TEST_TREE)) {
+			case MessageIdTable.TEST_TREE:
 				notifyTestTreeEntry(arg);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_RERAN)) {
+				break;
+			case MessageIdTable.TEST_RERAN:
 				if (hasTestId())
 					scanReranMessage(arg);
 				else
 					scanOldReranMessage(arg);
-				return this;
+				break;
 			}
 			return this;
 		}
@@ -662,35 +659,41 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	}
 
 	private void addOperation(Runnable runnable) {
-		synchronized (operations) {
+		synchronized (operationsLock) {
 			operations.add(runnable);
-			operations.notify();
+			operationsLock.notify();
 		}
 	}
 
-	private List operations= new ArrayList();
+	/**
+	 * Pending operations, the whole queue is taken by the operations thread at
+	 * once, so the producer is never blocked behind the processing.
+	 */
+	private final Object operationsLock= new Object();
+	private List<Runnable> operations= new ArrayList<Runnable>();
 	private Thread operationsThread;
-	private boolean isTerminated = false;
+	private volatile boolean isTerminated = false;
 	private Runnable runner= new Runnable() {
 		public void run() {
-			while (!isTerminated || operations.size() > 0) {
-				Runnable operation= null;
-				synchronized (operations) {
-					if (operations.size() > 0) {
-						operation= (Runnable) operations.get(0);
-						operations.remove(0);
-					} else {
+			for (;;) {
+				final List<Runnable> batch;
+				synchronized (operationsLock) {
+					if (operations.isEmpty()) {
+						if (isTerminated) {
+							return;
+						}
 						try {
-							operations.wait();
+							operationsLock.wait();
 						} catch (InterruptedException e) {
 							e.printStackTrace();
 						}
+						continue;
 					}
+					batch= operations;
+					operations= new ArrayList<Runnable>();
 				}
-				if (operation != null) {
+				for (Runnable operation : batch) {
 					try {
-//						System.out.println("Exec operation");
-//						System.out.flush();
 						operation.run();
 					} catch (Throwable t) {
 						t.printStackTrace();
@@ -12,8 +12,10 @@
  *******************************************************************************/
 package org.eclipse.dltk.internal.testing.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -51,24 +53,26 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 
 	class DefaultProcessingState extends ProcessingState {
 		ProcessingState readMessage(String message) {
-			if (message.startsWith(MessageIds.TRACE_START)) {
+			final int id = MessageIdTable.lookup(message);
+			switch (id) {
+			case MessageIdTable.TRACE_START:
 				fFailedTrace.setLength(0);
 				return fTraceState;
-			}
-			if (message.startsWith(MessageIds.EXPECTED_START)) {
+			case MessageIdTable.EXPECTED_START:
 				fExpectedResult.setLength(0);
 				return fExpectedState;
-			}
-			if (message.startsWith(MessageIds.ACTUAL_START)) {
+			case MessageIdTable.ACTUAL_START:
 				fActualResult.setLength(0);
 				return fActualState;
-			}
-			if (message.startsWith(MessageIds.RTRACE_START)) {
+			case MessageIdTable.RTRACE_START:
 				fFailedRerunTrace.setLength(0);
 				return fRerunState;
+			case MessageIdTable.UNKNOWN:
+				return this;
 			}
 			String arg = message.substring(MessageIds.MSG_HEADER_LENGTH);
-			if (message.startsWith(MessageIds.TEST_RUN_START)) {
+			switch (id) {
+			case MessageIdTable.TEST_RUN_START: {
 				// version < 2 format: count
 				// version >= 2 format: count+" "+version
 				int count = 0;
@@ -82,45 +86,40 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 					count = Integer.parseInt(sc);
 				}
 				notifyTestRunStarted(count);
-				return this;
+				break;
 			}
-			if (message.startsWith(MessageIds.TEST_START)) {
+			case MessageIdTable.TEST_START:
 				notifyTestStarted(arg);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_END)) {
+				break;
+			case MessageIdTable.TEST_END:
 				notifyTestEnded(arg);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_ERROR)) {
+				break;
+			case MessageIdTable.TEST_ERROR:
 				extractFailure(arg, ITestRunListener2.STATUS_ERROR);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_FAILED)) {
+				break;
+			case MessageIdTable.TEST_FAILED:
 				extractFailure(arg, ITestRunListener2.STATUS_FAILURE);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_RUN_END)) {
+				break;
+			case MessageIdTable.TEST_RUN_END: {
 				long elapsedTime = Long.parseLong(arg);
 				testRunEnded(elapsedTime);
-				return this;
+				break;
 			}
-			if (message.startsWith(MessageIds.TEST_STOPPED)) {
+			case MessageIdTable.TEST_STOPPED: {
 				long elapsedTime = Long.parseLong(arg);
 				notifyTestRunStopped(elapsedTime);
 				shutDown();
-				return this;
+				break;
 			}
-			if (message.startsWith(MessageIds.TEST_TREE)) {
+			case MessageIdTable.TEST_TREE:
 				notifyTestTreeEntry(arg);
-				return this;
-			}
-			if (message.startsWith(MessageIds.TEST_RERAN)) {
+				break;
+			case MessageIdTable.TEST_RERAN:
 				if (hasTestId())
 					scanReranMessage(arg);
 				else
 					scanOldReranMessage(arg);
-				return this;
+				break;
 			}
 			return this;
 		}
@@ -239,6 +238,8 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 
 	private boolean fDebug = false;
 
+	private static final int BUFFER_SIZE = 64 * 1024;
+
 	/**
 	 * Reads the message stream from the RemoteTestRunner
 	 */
@@ -256,13 +257,8 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 					System.out.println("Creating server socket " + fServerPort); //$NON-NLS-1$
 				fServerSocket = new ServerSocket(fServerPort);
 				fSocket = fServerSocket.accept();
-				try {
-					fBufferedReader = new BufferedReader(new InputStreamReader(
-							fSocket.getInputStream(), "UTF-8")); //$NON-NLS-1$
-				} catch (UnsupportedEncodingException e) {
-					fBufferedReader = new BufferedReader(new InputStreamReader(
-							fSocket.getInputStream()));
-				}
+				final InputStream input = new BufferedInputStream(fSocket
+						.getInputStream(), BUFFER_SIZE);
 				try {
 					fWriter = new PrintWriter(new OutputStreamWriter(fSocket
 							.getOutputStream(), "UTF-8"), true); //$NON-NLS-1$
@@ -270,10 +266,25 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 					fWriter = new PrintWriter(new OutputStreamWriter(fSocket
 							.getOutputStream()), true);
 				}
-				String message;
-				while (fBufferedReader != null
-						&& (message = readMessage(fBufferedReader)) != null)
-					receiveMessage(message);
+				if (FramedMessageDecoder.detect(input)) {
+					if (fDebug)
+						System.out.println("Framed protocol " + fServerPort); //$NON-NLS-1$
+					new FramedMessageDecoder(input, new SafeTestRunListener())
+							.run();
+				} else {
+					try {
+						fBufferedReader = new BufferedReader(
+								new InputStreamReader(input, "UTF-8"), //$NON-NLS-1$
+								BUFFER_SIZE);
+					} catch (UnsupportedEncodingException e) {
+						fBufferedReader = new BufferedReader(
+								new InputStreamReader(input), BUFFER_SIZE);
+					}
+					String message;
+					while (fBufferedReader != null
+							&& (message = readMessage(fBufferedReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -577,6 +588,98 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 		}
 	}
 
+	/**
+	 * Forwards the messages decoded by the {@link FramedMessageDecoder} to the
+	 * registered listeners.
+	 */
+	private class SafeTestRunListener implements ITestRunListener2 {
+
+		public void testRunStarted(final int testCount) {
+			notifyTestRunStarted(testCount);
+		}
+
+		public void testRunEnded(long elapsedTime) {
+			SocketTestRunnerClient.this.testRunEnded(elapsedTime);
+		}
+
+		public void testRunStopped(long elapsedTime) {
+			notifyTestRunStopped(elapsedTime);
+			shutDown();
+		}
+
+		public void testStarted(final String testId, final String testName) {
+			if (DLTKTestingPlugin.isStopped())
+				return;
+			for (int i = 0; i < fListeners.length; i++) {
+				final ITestRunListener2 listener = fListeners[i];
+				SafeRunner.run(new ListenerSafeRunnable() {
+					public void run() {
+						listener.testStarted(testId, testName);
+					}
+				});
+			}
+		}
+
+		public void testEnded(final String testId, final String testName) {
+			if (DLTKTestingPlugin.isStopped())
+				return;
+			for (int i = 0; i < fListeners.length; i++) {
+				final ITestRunListener2 listener = fListeners[i];
+				SafeRunner.run(new ListenerSafeRunnable() {
+					public void run() {
+						listener.testEnded(testId, testName);
+					}
+				});
+			}
+		}
+
+		public void testRunTerminated() {
+			notifyTestRunTerminated();
+		}
+
+		public void testTreeEntry(String description) {
+			notifyTestTreeEntry(description);
+		}
+
+		public void testTreeEntry(final String testId, final String testName,
+				final boolean isSuite, final int testCount) {
+			for (int i = 0; i < fListeners.length; i++) {
+				fListeners[i].testTreeEntry(testId, testName, isSuite,
+						testCount);
+			}
+		}
+
+		public void testFailed(final int status, final String testId,
+				final String testName, final String trace,
+				final String expected, final String actual, final int code) {
+			if (DLTKTestingPlugin.isStopped())
+				return;
+			for (int i = 0; i < fListeners.length; i++) {
+				final ITestRunListener2 listener = fListeners[i];
+				SafeRunner.run(new ListenerSafeRunnable() {
+					public void run() {
+						listener.testFailed(status, testId, testName, trace,
+								expected, actual, code);
+					}
+				});
+			}
+		}
+
+		public void testReran(final String testId, final String className,
+				final String testName, final int status, final String trace,
+				final String expected, final String actual) {
+			for (int i = 0; i < fListeners.length; i++) {
+				final ITestRunListener2 listener = fListeners[i];
+				SafeRunner.run(new ListenerSafeRunnable() {
+					public void run() {
+						listener.testReran(testId, className, testName,
+								status, trace, expected, actual);
+					}
+				});
+			}
+		}
+	}
+
 	public void rerunTest(String testId, String className, String testName) {
 		if (isRunning()) {
 			fActualResult.setLength(0);
@@ -22,6 +22,24 @@ public abstract class TestContainerElement extends TestElement implements
 	private List<TestElement> fChildren;
 	private Status fChildrenStatus;
 
+	/**
+	 * Loads the children of the containers restored from the history.
+	 */
+	interface IChildrenLoader {
+		void loadChildren(TestContainerElement container);
+	}
+
+	private volatile IChildrenLoader fChildrenLoader;
+
+	/**
+	 * Marks the container which children are being loaded by the current
+	 * thread, the other threads wait for the session lock.
+	 */
+	private static final IChildrenLoader LOADING = new IChildrenLoader() {
+		public void loadChildren(TestContainerElement container) {
+		}
+	};
+
 	public TestContainerElement(TestContainerElement parent, String id,
 			String testName) {
 		this(parent, id, testName, 8);
@@ -55,13 +73,45 @@ public abstract class TestContainerElement extends TestElement implements
 	 * @see org.eclipse.jdt.junit.model.ITestSuiteElement#getChildren()
 	 */
 	public ITestElement[] getChildren() {
+		loadChildren();
 		return fChildren.toArray(new ITestElement[fChildren.size()]);
 	}
 
 	public void addChild(TestElement child) {
+		loadChildren();
 		fChildren.add(child);
 	}
 
+	/**
+	 * Restores the cumulated status of the children from the history, the
+	 * children itself are created by the specified loader on demand.
+	 */
+	void restoreChildren(Status childrenStatus, IChildrenLoader loader) {
+		fChildrenStatus = childrenStatus;
+		fChildrenLoader = loader;
+	}
+
+	Status getChildrenStatus() {
+		return fChildrenStatus;
+	}
+
+	private void loadChildren() {
+		if (fChildrenLoader != null) {
+			synchronized (getSessionLock()) {
+				final IChildrenLoader loader = fChildrenLoader;
+				// the loaded children are added by the same thread
+				if (loader != null && loader != LOADING) {
+					fChildrenLoader = LOADING;
+					try {
+						loader.loadChildren(this);
+					} finally {
+						fChildrenLoader = null;
+					}
+				}
+			}
+		}
+	}
+
 	public Status getStatus() {
 		Status suiteStatus = getSuiteStatus();
 		if (fChildrenStatus != null) {
@@ -74,6 +124,7 @@ public abstract class TestContainerElement extends TestElement implements
 	}
 
 	private Status getCumulatedStatus() {
+		loadChildren();
 		TestElement[] children = fChildren.toArray(new TestElement[fChildren
 				.size()]);
 		// copy list to avoid concurreny problems
@@ -98,6 +149,7 @@ public abstract class TestContainerElement extends TestElement implements
 	}
 
 	public void childChangedStatus(TestElement child, Status childStatus) {
+		loadChildren();
 		int childCount = fChildren.size();
 		if (child == fChildren.get(0) && childStatus.isRunning()) {
 			// is first child, and is running -> copy status
@@ -46,6 +46,14 @@ public abstract class TestElement implements ITestElement {
 
 		private static final Status[] OLD_CODE = { OK, ERROR, FAILURE };
 
+		/**
+		 * All the statuses, the index in this array is used as the status code
+		 * in the binary history files.
+		 */
+		static final Status[] ALL = { OK, ERROR, FAILURE, FAILURE_BLOCKED,
+				FAILURE_SKIPPED, FAILURE_UNKNOWN, FAILURE_ABORTED, RUNNING,
+				RUNNING_ERROR, RUNNING_FAILURE, NOT_RUN };
+
 		private String fName;
 		private final int fOldCode;
 		private int failedCode;
@@ -218,6 +226,17 @@ public abstract class TestElement implements ITestElement {
 	private String fTrace;
 	private String fExpected;
 	private String fActual;
+
+	/**
+	 * Loads the failure trace of the elements restored from the history, or
+	 * <code>null</code> if trace is already available.
+	 */
+	interface ITraceLoader {
+		void loadTrace(TestElement element);
+	}
+
+	private volatile ITraceLoader fTraceLoader;
+	private boolean fComparisonFailure;
 	
 	/**
 	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
@@ -296,6 +315,7 @@ public abstract class TestElement implements ITestElement {
 	public FailureTrace getFailureTrace() {
 		Result testResult = getTestResult(false);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE) {
+			loadTrace();
 			return new FailureTrace(fTrace, fExpected, fActual);
 		}
 		return null;
@@ -339,6 +359,12 @@ public abstract class TestElement implements ITestElement {
 		// TODO: notify about change?
 		// TODO: multiple errors/failures per test
 		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=125296
+		if (fTraceLoader != null) {
+			// wait for the pending load, so it doesn't override the trace
+			synchronized (getSessionLock()) {
+				fTraceLoader = null;
+			}
+		}
 		fTrace = trace;
 		fExpected = expected;
 		fActual = actual;
@@ -362,21 +388,69 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public String getTrace() {
+		loadTrace();
 		return fTrace;
 	}
 
 	public String getExpected() {
+		loadTrace();
 		return fExpected;
 	}
 
 	public String getActual() {
+		loadTrace();
 		return fActual;
 	}
 
 	public boolean isComparisonFailure() {
+		if (fTraceLoader != null) {
+			return fComparisonFailure;
+		}
 		return fExpected != null && fActual != null;
 	}
 
+	/**
+	 * Restores the state of the element from the history without notifying
+	 * the parent, the failure trace is loaded on demand by the specified
+	 * loader.
+	 */
+	void restoreState(Status status, double time, ITraceLoader traceLoader,
+			boolean comparisonFailure) {
+		fStatus = status;
+		fTime = time;
+		fTraceLoader = traceLoader;
+		fComparisonFailure = comparisonFailure;
+	}
+
+	/**
+	 * Sets the failure trace loaded from the history.
+	 */
+	void restoreTrace(String trace, String expected, String actual) {
+		fTrace = trace;
+		fExpected = expected;
+		fActual = actual;
+	}
+
+	private void loadTrace() {
+		if (fTraceLoader != null) {
+			synchronized (getSessionLock()) {
+				final ITraceLoader loader = fTraceLoader;
+				if (loader != null) {
+					loader.loadTrace(this);
+					fTraceLoader = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the lock guarding the elements loaded from the history of the
+	 * session.
+	 */
+	Object getSessionLock() {
+		return getRoot().getTestRunSession();
+	}
+
 	public TestRoot getRoot() {
 		return getParent().getRoot();
 	}
@@ -12,6 +12,7 @@
 package org.eclipse.dltk.internal.testing.model;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -80,6 +81,10 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	private ITestRunnerClient fTestRunnerClient;
 
 	private final ListenerList/*<ITestSessionListener>*/ fSessionListeners;
+	/**
+	 * Delivers the events of the running session to the fSessionListeners
+	 */
+	private final TestSessionEventDispatcher fEventDispatcher;
 	
 	/**
 	 * The model root, or <code>null</code> if swapped to disk.
@@ -142,6 +147,13 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	volatile boolean fIsRunning;
 	
 	volatile boolean fIsStopped;
+
+	/**
+	 * <code>true</code> if the swap file contains the current state of this
+	 * session, so it is not written again on the next swap out. Reset by every
+	 * change of the session.
+	 */
+	private volatile boolean fSwapFileValid;
 	
 
 	/**
@@ -167,6 +179,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		fTestRunnerClient= null;
 
 		fSessionListeners= new ListenerList();
+		fEventDispatcher= new TestSessionEventDispatcher(fSessionListeners);
 	}
 	
 	
@@ -243,6 +256,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		});
 
 		fSessionListeners= new ListenerList();
+		fEventDispatcher= new TestSessionEventDispatcher(fSessionListeners);
 		addTestSessionListener(new TestRunListenerAdapter(this));
 	}
 	
@@ -258,6 +272,19 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		fTestResult= null;
 		fIdToTest = new HashMap<String, TestElement>();
 		fCategoryMap = new HashMap<String, TestCategoryElement>();
+		fSwapFileValid= false;
+	}
+
+	/**
+	 * Restores the counters of the session swapped in from the history file.
+	 */
+	void restoreCounts(int total, int started, int failures, int errors,
+			int ignored) {
+		fTotalCount= total;
+		fStartedCount= started;
+		fFailureCount= failures;
+		fErrorCount= errors;
+		fIgnoredCount= ignored;
 	}
 
 	/*
@@ -386,6 +413,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	 */
 	public void setTotalCount(int count) {
 		this.fTotalCount = count;
+		fSwapFileValid= false;
 //		System.out.println("COUNT:" + count);
 	}
 
@@ -437,7 +465,9 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		try {
 			File swapFile= getSwapFile();
 			
-			DLTKTestingModel.exportTestRunSession(this, swapFile);
+			if (!fSwapFileValid || !swapFile.exists()) {
+				TestRunSessionBinaryWriter.write(this, swapFile);
+			}
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
 			fTestRunnerClient= null;
@@ -445,10 +475,11 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			fCategoryMap = new HashMap<String, TestCategoryElement>();
 			fIncompleteTestSuites= null;
 			fUnrootedSuite= null;
+			fSwapFileValid= true;
 			
 		} catch (IllegalStateException e) {
 			DLTKTestingPlugin.log(e);
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			DLTKTestingPlugin.log(e);
 		}
 	}
@@ -470,7 +501,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	private File getSwapFile() throws IllegalStateException {
 		File historyDir= DLTKTestingPlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + ".dltkrun"; //$NON-NLS-1$
 		return new File(historyDir, swapFileName);
 	}
 
@@ -480,12 +511,14 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			return;
 
 		try {
-			DLTKTestingModel.importIntoTestRunSession(getSwapFile(), this);
+			TestRunSessionBinaryReader.read(getSwapFile(), this);
+			fTestResult= null;
+			fSwapFileValid= true;
 		} catch (IllegalStateException e) {
 			DLTKTestingPlugin.log(e);
 			fTestRoot= new TestRoot(this);
 			fTestResult= null;
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			DLTKTestingPlugin.log(e);
 			fTestRoot= new TestRoot(this);
 			fTestResult= null;
@@ -541,6 +574,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			} else if (status == Status.FAILURE) {
 				fFailureCount--;
 			}
+			fSwapFileValid= false;
 			/* TODO fTestRunnerClient.rerunTest(testId, className, testName); */
 			return true;
 			
@@ -700,30 +734,24 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			
 			fStartTime= System.currentTimeMillis();
 			fIsRunning= true;
+			fSwapFileValid= false;
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).sessionStarted();
-			}
+			fEventDispatcher.sessionStarted();
 		}
 	
 		public void testRunEnded(long elapsedTime) {
 			fIsRunning= false;
+			fSwapFileValid= false;
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).sessionEnded(elapsedTime);
-			}
+			fEventDispatcher.sessionEnded(elapsedTime);
 		}
 	
 		public void testRunStopped(long elapsedTime) {
 			fIsRunning= false;
+			fSwapFileValid= false;
 			fIsStopped= true;
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).sessionStopped(elapsedTime);
-			}
+			fEventDispatcher.sessionStopped(elapsedTime);
 		}
 	
 		public void testRunTerminated() {
@@ -734,33 +762,26 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testTreeEntry(java.lang.String)
 		 */
 		public void testTreeEntry(String description) {
+			fSwapFileValid= false;
 			TestElement testElement= addTreeEntry(description);
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).testAdded(testElement);
-			}
+			fEventDispatcher.testAdded(testElement);
 		}
 
 		public void testTreeEntry(String testId, String testName,
 				boolean isSuite, int testCount) {
+			fSwapFileValid= false;
 			TestElement testElement = addTreeEntry(testId, testName, isSuite,
 					testCount);
 
-			Object[] listeners = fSessionListeners.getListeners();
-			for (int i = 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).testAdded(testElement);
-			}
+			fEventDispatcher.testAdded(testElement);
 		}
 	
 		private TestElement createUnrootedTestElement(String testId, String testName) {
 			TestSuiteElement unrootedSuite= getUnrootedSuite();
 			TestElement testElement= createTestElement(unrootedSuite, testId, testName, false, 1);
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).testAdded(testElement);
-			}
+			fEventDispatcher.testAdded(testElement);
 			
 			return testElement;
 		}
@@ -773,11 +794,9 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 
 		public void testStarted(String testId, String testName) {
+			fSwapFileValid= false;
 			if (fStartedCount == 0) {
-				Object[] listeners= fSessionListeners.getListeners();
-				for (int i= 0; i < listeners.length; ++i) {
-					((ITestSessionListener) listeners[i]).runningBegins();
-				}
+				fEventDispatcher.runningBegins();
 			}
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
@@ -791,13 +810,11 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			
 			fStartedCount++;
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).testStarted(testCaseElement);
-			}
+			fEventDispatcher.testStarted(testCaseElement);
 		}
 	
 		public void testEnded(String testId, String testName) {
+			fSwapFileValid= false;
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
 				testElement= createUnrootedTestElement(testId, testName);
@@ -817,10 +834,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			if (testCaseElement.getStatus() == Status.RUNNING)
 				setStatus(testCaseElement, Status.OK);
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).testEnded(testCaseElement);
-			}
+			fEventDispatcher.testEnded(testCaseElement);
 		}
 		
 		
@@ -832,6 +846,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testFailed(int, java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
 		 */
 		public void testFailed(int statusCode, String testId, String testName, String trace, String expected, String actual, int code) {
+			fSwapFileValid= false;
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
 				testElement= createUnrootedTestElement(testId, testName);
@@ -841,10 +856,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			Status status= Status.convert(statusCode, code);
 			registerTestFailureStatus(testElement, status, trace, nullifyEmpty(expected), nullifyEmpty(actual));
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				((ITestSessionListener) listeners[i]).testFailed(testElement, status, trace, expected, actual, code);
-			}
+			fEventDispatcher.testFailed(testElement, status, trace, expected, actual, code);
 		}
 
 		private String nullifyEmpty(String string) {
@@ -866,6 +878,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testReran(java.lang.String, java.lang.String, java.lang.String, int, java.lang.String, java.lang.String, java.lang.String)
 		 */
 		public void testReran(String testId, String className, String testName, int statusCode, String trace, String expectedResult, String actualResult) {
+			fSwapFileValid= false;
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
 				testElement= createUnrootedTestElement(testId, testName);
@@ -878,11 +891,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			Status status= Status.convert(statusCode, ITestingClient.PASSED);
 			registerTestFailureStatus(testElement, status, trace, nullifyEmpty(expectedResult), nullifyEmpty(actualResult));
 			
-			Object[] listeners= fSessionListeners.getListeners();
-			for (int i= 0; i < listeners.length; ++i) {
-				//TODO: post old & new status?
-				((ITestSessionListener) listeners[i]).testReran(testCaseElement, status, trace, expectedResult, actualResult);
-			}
+			fEventDispatcher.testReran(testCaseElement, status, trace, expectedResult, actualResult);
 		}
 	
 		private void logUnexpectedTest(String testId, TestElement testElement) {
@@ -896,10 +905,8 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			return;
 		fIsRunning = false;
 		fIsStopped = true;
-		Object[] listeners = fSessionListeners.getListeners();
-		for (int i = 0; i < listeners.length; ++i) {
-			((ITestSessionListener) listeners[i]).sessionTerminated();
-		}
+		fSwapFileValid= false;
+		fEventDispatcher.sessionTerminated();
 	}
 
 	private static class IncompleteTestSuite {
@@ -913,6 +920,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	}
 	
 	public void registerTestFailureStatus(TestElement testElement, Status status, String trace, String expected, String actual) {
+		fSwapFileValid= false;
 		testElement.setStatus(status, trace, expected, actual);
 		if (status.isError()) {
 			fErrorCount++;
@@ -922,6 +930,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	}
 
 	public void registerTestEnded(TestElement testElement, boolean completed) {
+		fSwapFileValid= false;
 		if (testElement instanceof TestCaseElement) {
 			if (! completed) {
 				return;
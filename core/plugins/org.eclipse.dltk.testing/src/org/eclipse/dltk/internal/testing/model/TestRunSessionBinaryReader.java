@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.eclipse.dltk.internal.testing.model.TestContainerElement.IChildrenLoader;
+import org.eclipse.dltk.internal.testing.model.TestElement.ITraceLoader;
+import org.eclipse.dltk.internal.testing.model.TestElement.Status;
+import org.eclipse.dltk.testing.DLTKTestingPlugin;
+
+/**
+ * Restores the test run session from the binary history file written by the
+ * {@link TestRunSessionBinaryWriter}. Only the session counters and the
+ * {@link TestRoot} are read immediately, the children of the containers and
+ * the failure traces are read when they are requested for the first time.
+ */
+class TestRunSessionBinaryReader implements ITestRunSessionBinaryFormat {
+
+	private final File file;
+	private final TestRunSession session;
+
+	private TestRunSessionBinaryReader(File file, TestRunSession session) {
+		this.file = file;
+		this.session = session;
+	}
+
+	public static void read(File file, TestRunSession session)
+			throws IOException {
+		new TestRunSessionBinaryReader(file, session).readSession();
+	}
+
+	private void readSession() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+				throw new IOException("Unsupported test run history format"); //$NON-NLS-1$
+			}
+			readString(raf); // name
+			readNullableString(raf); // project
+			final int total = raf.readInt();
+			final int started = raf.readInt();
+			final int failures = raf.readInt();
+			final int errors = raf.readInt();
+			final int ignored = raf.readInt();
+			raf.readLong(); // start time
+
+			raf.seek(raf.length() - TRAILER_POINTER_SIZE);
+			raf.seek(raf.readLong());
+			final Status rootStatus = readElementStatus(raf);
+			final Status rootChildrenStatus = readStatus(raf);
+			final double rootTime = raf.readDouble();
+			final long rootOffset = raf.readLong();
+			final int rootLength = raf.readInt();
+
+			session.reset();
+			session.restoreCounts(total, started, failures, errors, ignored);
+			final TestRoot root = session.getTestRoot();
+			root.restoreState(rootStatus, rootTime, null, false);
+			root.restoreChildren(rootChildrenStatus, new ChildrenBlock(
+					rootOffset, rootLength));
+		} finally {
+			raf.close();
+		}
+	}
+
+	private class ChildrenBlock implements IChildrenLoader {
+		private final long offset;
+		private final int length;
+
+		public ChildrenBlock(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public void loadChildren(TestContainerElement container) {
+			try {
+				final DataInputStream in = readBlock(offset, length);
+				final int count = in.readInt();
+				for (int i = 0; i < count; ++i) {
+					readElement(in, container);
+				}
+			} catch (IOException e) {
+				DLTKTestingPlugin.log(e);
+			}
+		}
+	}
+
+	private class TraceBlock implements ITraceLoader {
+		private final long offset;
+		private final int length;
+
+		public TraceBlock(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public void loadTrace(TestElement element) {
+			try {
+				final DataInputStream in = readBlock(offset, length);
+				final String trace = readString(in);
+				final String expected = readNullableString(in);
+				final String actual = readNullableString(in);
+				element.restoreTrace(trace, expected, actual);
+			} catch (IOException e) {
+				DLTKTestingPlugin.log(e);
+			}
+		}
+	}
+
+	private void readElement(DataInput in, TestContainerElement parent)
+			throws IOException {
+		final byte kind = in.readByte();
+		final String id = readString(in);
+		final String name = readString(in);
+		final double time = in.readDouble();
+		final long traceOffset = in.readLong();
+		final int traceLength = in.readInt();
+		final boolean comparisonFailure = in.readBoolean();
+		final ITraceLoader traceLoader = traceOffset >= 0 ? new TraceBlock(
+				traceOffset, traceLength) : null;
+		final TestElement element;
+		if (kind == KIND_CATEGORY) {
+			element = new TestCategoryElement(parent, id, name);
+		} else if (kind == KIND_SUITE) {
+			element = session.createTestElement(parent, id, name, true, 0);
+		} else if (kind == KIND_CASE) {
+			element = session.createTestElement(parent, id, name, false, 0);
+		} else {
+			throw new IOException("Unknown element kind " + kind); //$NON-NLS-1$
+		}
+		if (element instanceof TestContainerElement) {
+			final Status status = readElementStatus(in);
+			final Status childrenStatus = readStatus(in);
+			final long childrenOffset = in.readLong();
+			final int childrenLength = in.readInt();
+			element.restoreState(status, time, traceLoader, comparisonFailure);
+			((TestContainerElement) element).restoreChildren(childrenStatus,
+					new ChildrenBlock(childrenOffset, childrenLength));
+		} else {
+			final Status status = readElementStatus(in);
+			((TestCaseElement) element).setIgnored(in.readBoolean());
+			element.restoreState(status, time, traceLoader, comparisonFailure);
+		}
+	}
+
+	private DataInputStream readBlock(long offset, int length)
+			throws IOException {
+		final byte[] data = new byte[length];
+		final RandomAccessFile raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			raf.seek(offset);
+			raf.readFully(data);
+		} finally {
+			raf.close();
+		}
+		return new DataInputStream(new ByteArrayInputStream(data));
+	}
+
+	private static Status readStatus(DataInput in) throws IOException {
+		final byte index = in.readByte();
+		if (index >= 0 && index < Status.ALL.length) {
+			return Status.ALL[index];
+		}
+		return null;
+	}
+
+	private static Status readElementStatus(DataInput in) throws IOException {
+		final Status status = readStatus(in);
+		return status != null ? status : Status.NOT_RUN;
+	}
+
+	private static String readNullableString(DataInput in) throws IOException {
+		return in.readBoolean() ? readString(in) : null;
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, ENCODING);
+	}
+
+}
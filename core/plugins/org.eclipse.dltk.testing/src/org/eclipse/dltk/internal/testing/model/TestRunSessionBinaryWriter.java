@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.internal.testing.model.TestElement.Status;
+import org.eclipse.dltk.testing.model.ITestElement;
+
+/**
+ * Writes the test run session to the compact binary history file, which is
+ * read lazily by the {@link TestRunSessionBinaryReader}.
+ *
+ * <p>
+ * The children of every container are written as a separate block before the
+ * block of the container itself, so the record of the container contains the
+ * location of its children block. Failure traces are written as separate
+ * blocks too. The file ends with the trailer describing the {@link TestRoot}
+ * followed by the trailer offset.
+ * </p>
+ */
+class TestRunSessionBinaryWriter implements ITestRunSessionBinaryFormat {
+
+	private final DataOutputStream out;
+
+	private TestRunSessionBinaryWriter(DataOutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes the session to the temporary file which then replaces the
+	 * specified file, so the elements of the session which are not loaded yet
+	 * are read from the previous version of the file while it is written.
+	 */
+	public static void write(TestRunSession session, File file)
+			throws IOException {
+		final File temp = new File(file.getParentFile(), file.getName()
+				+ ".tmp"); //$NON-NLS-1$
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 8192));
+		boolean written = false;
+		try {
+			new TestRunSessionBinaryWriter(out).writeSession(session);
+			written = true;
+		} finally {
+			out.close();
+			if (!written) {
+				temp.delete();
+			}
+		}
+		// all the elements are loaded now, so the file could be replaced
+		if (!temp.renameTo(file)) {
+			file.delete();
+			if (!temp.renameTo(file)) {
+				temp.delete();
+				throw new IOException("Cannot replace " + file); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private void writeSession(TestRunSession session) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeString(session.getTestRunName());
+		final IScriptProject project = session.getLaunchedProject();
+		writeNullableString(project != null ? project.getElementName() : null);
+		out.writeInt(session.getTotalCount());
+		out.writeInt(session.getStartedCount());
+		out.writeInt(session.getFailureCount());
+		out.writeInt(session.getErrorCount());
+		out.writeInt(session.getIgnoredCount());
+		out.writeLong(session.getStartTime());
+
+		final TestRoot root = session.getTestRoot();
+		final long[] rootBlock = writeChildren(root);
+		final long trailer = out.size();
+		out.writeByte(indexOf(root.getSuiteStatus()));
+		out.writeByte(indexOf(root.getChildrenStatus()));
+		out.writeDouble(root.fTime);
+		out.writeLong(rootBlock[0]);
+		out.writeInt((int) rootBlock[1]);
+		out.writeLong(trailer);
+	}
+
+	/**
+	 * Writes the children block of the specified container and returns its
+	 * offset and length.
+	 */
+	private long[] writeChildren(TestContainerElement container)
+			throws IOException {
+		final ITestElement[] children = container.getChildren();
+		final long[][] childBlocks = new long[children.length][];
+		final long[][] traceBlocks = new long[children.length][];
+		for (int i = 0; i < children.length; ++i) {
+			final TestElement child = (TestElement) children[i];
+			if (child instanceof TestContainerElement) {
+				childBlocks[i] = writeChildren((TestContainerElement) child);
+			}
+			if (child.getTrace() != null) {
+				traceBlocks[i] = writeTrace(child);
+			}
+		}
+		final long offset = out.size();
+		out.writeInt(children.length);
+		for (int i = 0; i < children.length; ++i) {
+			writeElement((TestElement) children[i], childBlocks[i],
+					traceBlocks[i]);
+		}
+		return new long[] { offset, out.size() - offset };
+	}
+
+	private void writeElement(TestElement element, long[] childBlock,
+			long[] traceBlock) throws IOException {
+		if (element instanceof TestCategoryElement) {
+			out.writeByte(KIND_CATEGORY);
+		} else if (element instanceof TestSuiteElement) {
+			out.writeByte(KIND_SUITE);
+		} else if (element instanceof TestCaseElement) {
+			out.writeByte(KIND_CASE);
+		} else {
+			throw new IllegalStateException(String.valueOf(element));
+		}
+		writeString(element.getId());
+		writeString(element.getTestName());
+		out.writeDouble(element.fTime);
+		if (traceBlock != null) {
+			out.writeLong(traceBlock[0]);
+			out.writeInt((int) traceBlock[1]);
+			out.writeBoolean(element.isComparisonFailure());
+		} else {
+			out.writeLong(-1);
+			out.writeInt(0);
+			out.writeBoolean(false);
+		}
+		if (element instanceof TestContainerElement) {
+			final TestContainerElement container = (TestContainerElement) element;
+			out.writeByte(indexOf(container.getSuiteStatus()));
+			out.writeByte(indexOf(container.getChildrenStatus()));
+			out.writeLong(childBlock[0]);
+			out.writeInt((int) childBlock[1]);
+		} else {
+			out.writeByte(indexOf(element.getStatus()));
+			out.writeBoolean(((TestCaseElement) element).isIgnored());
+		}
+	}
+
+	private long[] writeTrace(TestElement element) throws IOException {
+		final long offset = out.size();
+		writeString(element.getTrace());
+		writeNullableString(element.getExpected());
+		writeNullableString(element.getActual());
+		return new long[] { offset, out.size() - offset };
+	}
+
+	private void writeNullableString(String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			writeString(value);
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		final byte[] bytes = value.getBytes(ENCODING);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static int indexOf(Status status) {
+		if (status != null) {
+			for (int i = 0; i < Status.ALL.length; ++i) {
+				if (Status.ALL[i] == status) {
+					return i;
+				}
+			}
+		}
+		return NO_STATUS;
+	}
+
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.dltk.internal.testing.model.TestElement.Status;
+import org.eclipse.dltk.testing.DLTKTestingPlugin;
+
+/**
+ * Delivers the events of the {@link TestRunSession} to the listeners. The
+ * {@link ITestSessionListener}s are notified synchronously, as the events
+ * occur. The events for the {@link ITestSessionBatchListener}s are collected
+ * and delivered periodically as the coalesced notifications, so the thread
+ * reading the events from the test runner is not blocked by them.
+ */
+class TestSessionEventDispatcher extends Job {
+
+	/**
+	 * Delay between the first queued event and the delivery of the batch
+	 */
+	private static final long FLUSH_INTERVAL = 50;
+
+	private static final int SESSION_STARTED = 0;
+	private static final int SESSION_ENDED = 1;
+	private static final int SESSION_STOPPED = 2;
+	private static final int SESSION_TERMINATED = 3;
+	private static final int RUNNING_BEGINS = 4;
+	private static final int TEST_ADDED = 5;
+	private static final int TEST_STARTED = 6;
+	private static final int TEST_ENDED = 7;
+	private static final int TEST_FAILED = 8;
+	private static final int TEST_RERAN = 9;
+
+	private static class SessionEvent {
+		final int kind;
+		final TestElement element;
+		long elapsedTime;
+		Status status;
+		String trace;
+		String expected;
+		String actual;
+		int code;
+
+		SessionEvent(int kind, TestElement element) {
+			this.kind = kind;
+			this.element = element;
+		}
+
+		boolean isCoalescable() {
+			return kind == TEST_ADDED || kind == TEST_STARTED
+					|| kind == TEST_ENDED;
+		}
+	}
+
+	private final ListenerList listeners;
+	private List<SessionEvent> queue = new ArrayList<SessionEvent>();
+
+	public TestSessionEventDispatcher(ListenerList listeners) {
+		super("TestRunSession - dispatch events"); //$NON-NLS-1$
+		this.listeners = listeners;
+		setSystem(true);
+	}
+
+	public void sessionStarted() {
+		post(new SessionEvent(SESSION_STARTED, null));
+	}
+
+	public void sessionEnded(long elapsedTime) {
+		final SessionEvent event = new SessionEvent(SESSION_ENDED, null);
+		event.elapsedTime = elapsedTime;
+		post(event);
+	}
+
+	public void sessionStopped(long elapsedTime) {
+		final SessionEvent event = new SessionEvent(SESSION_STOPPED, null);
+		event.elapsedTime = elapsedTime;
+		post(event);
+	}
+
+	public void sessionTerminated() {
+		post(new SessionEvent(SESSION_TERMINATED, null));
+	}
+
+	public void runningBegins() {
+		post(new SessionEvent(RUNNING_BEGINS, null));
+	}
+
+	public void testAdded(TestElement testElement) {
+		post(new SessionEvent(TEST_ADDED, testElement));
+	}
+
+	public void testStarted(TestCaseElement testCaseElement) {
+		post(new SessionEvent(TEST_STARTED, testCaseElement));
+	}
+
+	public void testEnded(TestCaseElement testCaseElement) {
+		post(new SessionEvent(TEST_ENDED, testCaseElement));
+	}
+
+	public void testFailed(TestElement testElement, Status status,
+			String trace, String expected, String actual, int code) {
+		final SessionEvent event = new SessionEvent(TEST_FAILED, testElement);
+		event.status = status;
+		event.trace = trace;
+		event.expected = expected;
+		event.actual = actual;
+		event.code = code;
+		post(event);
+	}
+
+	public void testReran(TestCaseElement testCaseElement, Status status,
+			String trace, String expected, String actual) {
+		final SessionEvent event = new SessionEvent(TEST_RERAN,
+				testCaseElement);
+		event.status = status;
+		event.trace = trace;
+		event.expected = expected;
+		event.actual = actual;
+		post(event);
+	}
+
+	private void post(SessionEvent event) {
+		boolean hasBatchListeners = false;
+		final Object[] list = listeners.getListeners();
+		for (int i = 0; i < list.length; ++i) {
+			if (list[i] instanceof ITestSessionBatchListener) {
+				hasBatchListeners = true;
+			} else {
+				dispatch((ITestSessionListener) list[i], event);
+			}
+		}
+		if (!hasBatchListeners) {
+			return;
+		}
+		final boolean first;
+		synchronized (this) {
+			first = queue.isEmpty();
+			queue.add(event);
+		}
+		if (first) {
+			schedule(FLUSH_INTERVAL);
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		final List<SessionEvent> batch;
+		synchronized (this) {
+			batch = queue;
+			queue = new ArrayList<SessionEvent>();
+		}
+		if (!batch.isEmpty()) {
+			final Object[] list = listeners.getListeners();
+			for (int i = 0; i < list.length; ++i) {
+				if (list[i] instanceof ITestSessionBatchListener) {
+					deliverCoalesced((ITestSessionBatchListener) list[i], batch);
+				}
+			}
+		}
+		synchronized (this) {
+			if (!queue.isEmpty()) {
+				// events posted while the previous batch was delivered
+				schedule(FLUSH_INTERVAL);
+			}
+		}
+		return org.eclipse.core.runtime.Status.OK_STATUS;
+	}
+
+	private void deliverCoalesced(ITestSessionBatchListener listener,
+			List<SessionEvent> batch) {
+		final Set<TestElement> added = new LinkedHashSet<TestElement>();
+		final Set<TestCaseElement> started = new LinkedHashSet<TestCaseElement>();
+		final Set<TestCaseElement> ended = new LinkedHashSet<TestCaseElement>();
+		for (SessionEvent event : batch) {
+			if (event.isCoalescable()) {
+				if (event.kind == TEST_ADDED) {
+					added.add(event.element);
+				} else if (event.kind == TEST_STARTED) {
+					started.add((TestCaseElement) event.element);
+				} else {
+					ended.add((TestCaseElement) event.element);
+				}
+			} else {
+				flushChanges(listener, added, started, ended);
+				dispatch(listener, event);
+			}
+		}
+		flushChanges(listener, added, started, ended);
+	}
+
+	private void flushChanges(ITestSessionBatchListener listener,
+			Set<TestElement> added, Set<TestCaseElement> started,
+			Set<TestCaseElement> ended) {
+		if (added.isEmpty() && started.isEmpty() && ended.isEmpty()) {
+			return;
+		}
+		try {
+			listener.testsChanged(added.toArray(new TestElement[added.size()]),
+					started.toArray(new TestCaseElement[started.size()]), ended
+							.toArray(new TestCaseElement[ended.size()]));
+		} catch (RuntimeException e) {
+			DLTKTestingPlugin.log(e);
+		}
+		added.clear();
+		started.clear();
+		ended.clear();
+	}
+
+	private static void dispatch(ITestSessionListener listener,
+			SessionEvent event) {
+		try {
+			switch (event.kind) {
+			case SESSION_STARTED:
+				listener.sessionStarted();
+				break;
+			case SESSION_ENDED:
+				listener.sessionEnded(event.elapsedTime);
+				break;
+			case SESSION_STOPPED:
+				listener.sessionStopped(event.elapsedTime);
+				break;
+			case SESSION_TERMINATED:
+				listener.sessionTerminated();
+				break;
+			case RUNNING_BEGINS:
+				listener.runningBegins();
+				break;
+			case TEST_ADDED:
+				listener.testAdded(event.element);
+				break;
+			case TEST_STARTED:
+				listener.testStarted((TestCaseElement) event.element);
+				break;
+			case TEST_ENDED:
+				listener.testEnded((TestCaseElement) event.element);
+				break;
+			case TEST_FAILED:
+				listener.testFailed(event.element, event.status, event.trace,
+						event.expected, event.actual, event.code);
+				break;
+			case TEST_RERAN:
+				listener.testReran((TestCaseElement) event.element,
+						event.status, event.trace, event.expected, event.actual);
+				break;
+			}
+		} catch (RuntimeException e) {
+			DLTKTestingPlugin.log(e);
+		}
+	}
+
+}
@@ -42,7 +42,7 @@ import org.eclipse.dltk.internal.testing.Messages;
 import org.eclipse.dltk.internal.testing.launcher.NullTestRunnerUI;
 import org.eclipse.dltk.internal.testing.model.DLTKTestingModel;
 import org.eclipse.dltk.internal.testing.model.ITestRunSessionListener;
-import org.eclipse.dltk.internal.testing.model.ITestSessionListener;
+import org.eclipse.dltk.internal.testing.model.ITestSessionBatchListener;
 import org.eclipse.dltk.internal.testing.model.TestCaseElement;
 import org.eclipse.dltk.internal.testing.model.TestElement;
 import org.eclipse.dltk.internal.testing.model.TestRunSession;
@@ -600,7 +600,7 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
-	private class TestSessionListener implements ITestSessionListener {
+	private class TestSessionListener implements ITestSessionBatchListener {
 		public void sessionStarted() {
 			fTestViewer.registerViewersRefresh();
 			fShowOnErrorOnly = getShowOnErrorOnly();
@@ -707,6 +707,26 @@ public class TestRunnerViewPart extends ViewPart {
 			fTestViewer.registerTestAdded(testElement);
 		}
 
+		public void testsChanged(TestElement[] added,
+				TestCaseElement[] started, TestCaseElement[] ended) {
+			for (int i = 0; i < added.length; ++i) {
+				fTestViewer.registerTestAdded(added[i]);
+			}
+			for (int i = 0; i < started.length; ++i) {
+				fTestViewer.registerViewerUpdate(started[i]);
+			}
+			for (int i = 0; i < ended.length; ++i) {
+				fTestViewer.registerViewerUpdate(ended[i]);
+			}
+			if (started.length != 0) {
+				// only the last started test is shown to the user
+				final TestCaseElement last = started[started.length - 1];
+				fTestViewer.registerAutoScrollTarget(last);
+				registerInfoMessage(getTestRunnerUI().getTestStartedMessage(
+						last));
+			}
+		}
+
 		public boolean acceptsSwapToDisk() {
 			return false;
 		}
@@ -14,7 +14,6 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -791,27 +790,15 @@ public class TypeInfoViewer {
 
 			MatchRule searchRule = ModelAccess.convertSearchRule(fFilter
 					.getSearchFlags());
-			IType[] types = new ModelAccess().findTypes(
-					fFilter.getNamePattern(), searchRule, 0,
-					Modifiers.AccNameSpace, fScope, monitor);
 			if (searchRule == MatchRule.CAMEL_CASE) {
-				LinkedList<IType> result = new LinkedList<IType>();
-				if (types != null) {
-					result.addAll(Arrays.asList(types));
-				}
 				// old-style search engine searches for prefixes as well when
-				// 'camel-case' pattern is given. This is not the case for the
-				// new search engine, so we invoke another search process for
-				// prefixes:
-				types = new ModelAccess().findTypes(fFilter.getNamePattern(),
-						MatchRule.PREFIX, 0, Modifiers.AccNameSpace, fScope,
-						monitor);
-				if (types != null) {
-					result.addAll(Arrays.asList(types));
-				}
-				types = result.size() == 0 ? null : result
-						.toArray(new IType[result.size()]);
+				// 'camel-case' pattern is given, the new search engine does
+				// both in one pass when asked to.
+				searchRule = MatchRule.CAMEL_CASE_OR_PREFIX;
 			}
+			IType[] types = new ModelAccess().findTypes(
+					fFilter.getNamePattern(), searchRule, 0,
+					Modifiers.AccNameSpace, fScope, monitor);
 			if (types != null) {
 				for (IType type : types) {
 					fReqestor.acceptTypeNameMatch(new DLTKSearchTypeNameMatch(
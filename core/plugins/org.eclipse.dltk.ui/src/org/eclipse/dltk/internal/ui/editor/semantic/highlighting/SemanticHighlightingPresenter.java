@@ -13,6 +13,8 @@ package org.eclipse.dltk.internal.ui.editor.semantic.highlighting;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.eclipse.dltk.internal.ui.editor.ScriptSourceViewer;
@@ -391,6 +393,81 @@ public class SemanticHighlightingPresenter implements
 		return null;
 	}
 
+	/**
+	 * The minimal number of unchanged characters between the changed positions
+	 * to repair them with the separate text presentations.
+	 */
+	private static final int PRESENTATION_GAP = 256;
+
+	/**
+	 * Create the text presentations in the background, one for each cluster of
+	 * the changed positions, so the unchanged text between them is not
+	 * repaired.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 * 
+	 * @param addedPositions
+	 *            the added positions
+	 * @param removedPositions
+	 *            the removed positions
+	 * @return the text presentations or <code>null</code>, if reconciliation
+	 *         should be canceled
+	 * @since 5.2
+	 */
+	public TextPresentation[] createPresentations(
+			HighlightedPosition[] addedPositions,
+			HighlightedPosition[] removedPositions) {
+		ScriptSourceViewer sourceViewer = fSourceViewer;
+		ScriptPresentationReconciler presentationReconciler = fPresentationReconciler;
+		if (sourceViewer == null || presentationReconciler == null)
+			return null;
+
+		if (isCanceled())
+			return null;
+
+		IDocument document = sourceViewer.getDocument();
+		if (document == null)
+			return null;
+
+		final List<Position> changed = new ArrayList<Position>(
+				addedPositions.length + removedPositions.length);
+		changed.addAll(Arrays.asList(addedPositions));
+		changed.addAll(Arrays.asList(removedPositions));
+		Collections.sort(changed, new Comparator<Position>() {
+			public int compare(Position p1, Position p2) {
+				return p1.getOffset() - p2.getOffset();
+			}
+		});
+		final List<TextPresentation> result = new ArrayList<TextPresentation>();
+		int start = -1;
+		int end = -1;
+		try {
+			for (Position position : changed) {
+				final int offset = position.getOffset();
+				if (start != -1 && offset - end > PRESENTATION_GAP) {
+					result.add(presentationReconciler.createRepairDescription(
+							new Region(start, end - start), document));
+					start = -1;
+				}
+				if (start == -1) {
+					start = offset;
+					end = offset + position.getLength();
+				} else {
+					end = Math.max(end, offset + position.getLength());
+				}
+			}
+			if (start != -1 && start < end) {
+				result.add(presentationReconciler.createRepairDescription(
+						new Region(start, end - start), document));
+			}
+		} catch (RuntimeException e) {
+			// Assume concurrent modification from UI thread
+			return null;
+		}
+		return result.toArray(new TextPresentation[result.size()]);
+	}
+
 	/**
 	 * Create a runnable for updating the presentation.
 	 * <p>
@@ -426,6 +503,54 @@ public class SemanticHighlightingPresenter implements
 		return runnable;
 	}
 
+	/**
+	 * Create a runnable for updating the presentation with the specified text
+	 * presentations.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 * 
+	 * @since 5.2
+	 */
+	public Runnable createUpdateRunnable(
+			final TextPresentation[] textPresentations,
+			final HighlightedPosition[] added,
+			final HighlightedPosition[] removed) {
+		if (fSourceViewer == null || textPresentations == null)
+			return null;
+
+		if (isCanceled())
+			return null;
+
+		return new Runnable() {
+			public void run() {
+				updatePresentation(textPresentations, added, removed);
+			}
+		};
+	}
+
+	/**
+	 * Invalidate the presentation of the positions based on the given added
+	 * positions and the existing deleted positions, repairing only the
+	 * specified text presentations.
+	 * <p>
+	 * NOTE: Indirectly called from background thread by UI runnable.
+	 * </p>
+	 * 
+	 * @since 5.2
+	 */
+	public void updatePresentation(TextPresentation[] textPresentations,
+			HighlightedPosition[] addedPositions,
+			HighlightedPosition[] removedPositions) {
+		if (fSourceViewer == null || isCanceled())
+			return;
+		if (updatePositions(addedPositions, removedPositions)) {
+			for (TextPresentation textPresentation : textPresentations) {
+				fSourceViewer.changeTextPresentation(textPresentation, false);
+			}
+		}
+	}
+
 	/**
 	 * Invalidate the presentation of the positions based on the given added
 	 * positions and the existing deleted positions. Also unregisters the
@@ -449,6 +574,24 @@ public class SemanticHighlightingPresenter implements
 		if (fSourceViewer == null)
 			return;
 
+		if (!updatePositions(addedPositions, removedPositions))
+			return;
+
+		if (textPresentation != null)
+			fSourceViewer.changeTextPresentation(textPresentation, false);
+		else
+			fSourceViewer.invalidateTextPresentation();
+	}
+
+	/**
+	 * Unregisters the deleted positions from the document and patches the
+	 * positions of this presenter.
+	 * 
+	 * @return <code>true</code> if the positions were updated or
+	 *         <code>false</code> if the update was canceled
+	 */
+	private boolean updatePositions(HighlightedPosition[] addedPositions,
+			HighlightedPosition[] removedPositions) {
 		//		checkOrdering("added positions: ", Arrays.asList(addedPositions)); //$NON-NLS-1$
 		//		checkOrdering("removed positions: ", Arrays.asList(removedPositions)); //$NON-NLS-1$
 		//		checkOrdering("old positions: ", fPositions); //$NON-NLS-1$
@@ -456,11 +599,11 @@ public class SemanticHighlightingPresenter implements
 		// TODO: double-check consistency with document.getPositions(...)
 		// TODO: reuse removed positions
 		if (isCanceled())
-			return;
+			return false;
 
 		IDocument document = fSourceViewer.getDocument();
 		if (document == null)
-			return;
+			return false;
 
 		String positionCategory = getPositionCategory();
 
@@ -539,11 +682,7 @@ public class SemanticHighlightingPresenter implements
 			DLTKUIPlugin.log(e);
 		}
 		//		checkOrdering("new positions: ", fPositions); //$NON-NLS-1$
-
-		if (textPresentation != null)
-			fSourceViewer.changeTextPresentation(textPresentation, false);
-		else
-			fSourceViewer.invalidateTextPresentation();
+		return true;
 	}
 
 	// private void checkOrdering(String s, List positions) {
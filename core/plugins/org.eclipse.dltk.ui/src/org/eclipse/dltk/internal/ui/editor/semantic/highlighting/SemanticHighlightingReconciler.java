@@ -30,9 +30,15 @@ import org.eclipse.dltk.ui.editor.highlighting.HighlightedPosition;
 import org.eclipse.dltk.ui.editor.highlighting.HighlightingStyle;
 import org.eclipse.dltk.ui.editor.highlighting.ISemanticHighlightingUpdater;
 import org.eclipse.dltk.ui.editor.highlighting.ISemanticHighlightingUpdater.UpdateResult;
+import org.eclipse.dltk.ui.editor.highlighting.ISemanticHighlightingUpdaterExtension;
 import org.eclipse.dltk.ui.editor.highlighting.SemanticHighlighting;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextInputListener;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.swt.widgets.Display;
@@ -94,6 +100,115 @@ public class SemanticHighlightingReconciler implements
 	private HighlightingStyle[] fJobHighlightings;
 	private ISemanticHighlightingUpdater positionUpdater;
 
+	/**
+	 * Tracks the region of the document changed since the last reconcile, so
+	 * the highlighting could be recomputed for that region only.
+	 */
+	private class DamageTracker implements IDocumentListener,
+			ITextInputListener {
+
+		private IDocument document;
+		/** The start of the changed region, <code>-1</code> if unknown */
+		private int start = -1;
+		private int end;
+		/** <code>true</code> if the whole document should be reconciled */
+		private boolean full = true;
+		/** The number of the document changes */
+		private int modificationCount;
+
+		synchronized void connect(IDocument newDocument) {
+			if (document != null) {
+				document.removeDocumentListener(this);
+			}
+			document = newDocument;
+			if (document != null) {
+				document.addDocumentListener(this);
+			}
+			full = true;
+		}
+
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		public synchronized void documentChanged(DocumentEvent event) {
+			++modificationCount;
+			final int offset = event.getOffset();
+			final int oldEnd = offset + event.getLength();
+			final int newEnd = offset
+					+ (event.getText() != null ? event.getText().length() : 0);
+			if (start == -1) {
+				start = offset;
+				end = newEnd;
+			} else {
+				// map the previous region to the new document coordinates
+				final int delta = newEnd - oldEnd;
+				if (start >= oldEnd) {
+					start += delta;
+				} else if (start > offset) {
+					start = offset;
+				}
+				if (end >= oldEnd) {
+					end += delta;
+				} else if (end > offset) {
+					end = newEnd;
+				}
+				start = Math.min(start, offset);
+				end = Math.max(end, newEnd);
+			}
+		}
+
+		public void inputDocumentAboutToBeChanged(IDocument oldInput,
+				IDocument newInput) {
+		}
+
+		public void inputDocumentChanged(IDocument oldInput,
+				IDocument newInput) {
+			connect(newInput);
+		}
+
+		/**
+		 * Returns the region to reconcile, extended to the whole lines, or
+		 * <code>null</code> if the whole document should be reconciled.
+		 */
+		synchronized IRegion getRegion() {
+			if (full || start == -1 || document == null) {
+				return null;
+			}
+			try {
+				final int regionStart = document.getLineInformationOfOffset(
+						Math.min(start, document.getLength())).getOffset();
+				final IRegion lastLine = document
+						.getLineInformationOfOffset(Math.min(end, document
+								.getLength()));
+				return new Region(regionStart, lastLine.getOffset()
+						+ lastLine.getLength() - regionStart);
+			} catch (BadLocationException e) {
+				return null;
+			}
+		}
+
+		synchronized int getModificationCount() {
+			return modificationCount;
+		}
+
+		/**
+		 * Resets the changed region after the successful reconcile if there
+		 * were no changes since it was started.
+		 */
+		synchronized void reconciled(int count) {
+			if (count == modificationCount) {
+				start = -1;
+				full = false;
+			}
+		}
+
+		synchronized void invalidate() {
+			full = true;
+		}
+	}
+
+	private final DamageTracker fDamageTracker = new DamageTracker();
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.Script.IScriptReconcilingListener#
 	 * aboutToBeReconciled()
@@ -133,25 +248,42 @@ public class SemanticHighlightingReconciler implements
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
+			final int modificationCount = fDamageTracker
+					.getModificationCount();
+			if (forced) {
+				fDamageTracker.invalidate();
+			}
 			HighlightedPosition[] added = HighlightedPosition.NO_POSITIONS;
 			HighlightedPosition[] removed = HighlightedPosition.NO_POSITIONS;
 			if (!fJobPresenter.isCanceled()) {
 				final List<HighlightedPosition> currentPositions = new ArrayList<HighlightedPosition>();
 				fJobPresenter.addAllPositions(currentPositions);
-				final UpdateResult result = positionUpdater.reconcile(
-						(IModuleSource) ast, currentPositions);
+				final IRegion region = fDamageTracker.getRegion();
+				final UpdateResult result;
+				if (region != null
+						&& positionUpdater instanceof ISemanticHighlightingUpdaterExtension) {
+					result = ((ISemanticHighlightingUpdaterExtension) positionUpdater)
+							.reconcile((IModuleSource) ast, region,
+									currentPositions);
+				} else {
+					result = positionUpdater.reconcile((IModuleSource) ast,
+							currentPositions);
+				}
 				added = result.addedPositions;
 				removed = result.removedPositions;
 			}
 
 			if (added.length != 0 || removed.length != 0) {
 				if (!fJobPresenter.isCanceled()) {
-					final TextPresentation textPresentation = fJobPresenter
-							.createPresentation(added, removed);
+					final TextPresentation[] textPresentations = fJobPresenter
+							.createPresentations(added, removed);
 					if (!fJobPresenter.isCanceled())
-						updatePresentation(textPresentation, added, removed);
+						updatePresentation(textPresentations, added, removed);
 				}
 			}
+			if (!fJobPresenter.isCanceled()) {
+				fDamageTracker.reconciled(modificationCount);
+			}
 
 			// long t1 = System.currentTimeMillis();
 			// System.out.println(t1 - t0);
@@ -169,18 +301,18 @@ public class SemanticHighlightingReconciler implements
 	/**
 	 * Update the presentation.
 	 * 
-	 * @param textPresentation
-	 *            the text presentation
+	 * @param textPresentations
+	 *            the text presentations
 	 * @param addedPositions
 	 *            the added positions
 	 * @param removedPositions
 	 *            the removed positions
 	 */
-	private void updatePresentation(TextPresentation textPresentation,
+	private void updatePresentation(TextPresentation[] textPresentations,
 			HighlightedPosition[] addedPositions,
 			HighlightedPosition[] removedPositions) {
 		Runnable runnable = fJobPresenter.createUpdateRunnable(
-				textPresentation, addedPositions, removedPositions);
+				textPresentations, addedPositions, removedPositions);
 		if (runnable == null)
 			return;
 
@@ -216,6 +348,8 @@ public class SemanticHighlightingReconciler implements
 
 		fEditor = editor;
 		fSourceViewer = sourceViewer;
+		fSourceViewer.addTextInputListener(fDamageTracker);
+		fDamageTracker.connect(fSourceViewer.getDocument());
 
 		if (fEditor != null) {
 			fEditor.addReconcileListener(this);
@@ -239,6 +373,8 @@ public class SemanticHighlightingReconciler implements
 			fSourceViewer.removeTextInputListener(this);
 		}
 
+		fSourceViewer.removeTextInputListener(fDamageTracker);
+		fDamageTracker.connect(null);
 		fSourceViewer = null;
 		fSemanticHighlightings = null;
 		fHighlightings = null;
@@ -323,6 +459,7 @@ public class SemanticHighlightingReconciler implements
 	 * @since 3.2
 	 */
 	public void refresh() {
+		fDamageTracker.invalidate();
 		scheduleJob();
 	}
 }
@@ -38,6 +38,7 @@ import org.eclipse.dltk.core.IProjectFragment;
 import org.eclipse.dltk.core.IType;
 import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.WorkingCopyOwner;
+import org.eclipse.dltk.core.index2.search.ISearchEngine.MatchRule;
 import org.eclipse.dltk.core.index2.search.ModelAccess;
 import org.eclipse.dltk.core.search.IDLTKSearchConstants;
 import org.eclipse.dltk.core.search.IDLTKSearchScope;
@@ -580,9 +581,14 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog
 		progressMonitor
 				.setTaskName(DLTKUIMessages.FilteredTypesSelectionDialog_searchJob_taskName);
 
-		IType[] types = new ModelAccess().findTypes(typePattern, ModelAccess
-				.convertSearchRule(itemsFilter.getMatchRule()), 0,
-				Modifiers.AccNameSpace, typeSearchFilter.getSearchScope(),
+		MatchRule searchRule = ModelAccess.convertSearchRule(itemsFilter
+				.getMatchRule());
+		if (searchRule == MatchRule.CAMEL_CASE) {
+			// the items filter accepts the prefix matches as well
+			searchRule = MatchRule.CAMEL_CASE_OR_PREFIX;
+		}
+		IType[] types = new ModelAccess().findTypes(typePattern, searchRule,
+				0, Modifiers.AccNameSpace, typeSearchFilter.getSearchScope(),
 				progressMonitor);
 		if (types != null) {
 			for (IType type : types) {
@@ -13,6 +13,7 @@ package org.eclipse.dltk.ui.editor.highlighting;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -22,6 +23,7 @@ import java.util.Map;
 
 import org.eclipse.dltk.compiler.env.IModuleSource;
 import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 
 /**
@@ -35,9 +37,16 @@ import org.eclipse.jface.text.Position;
  * "delta" is returned from the
  * {@link #reconcile(org.eclipse.dltk.compiler.env.ISourceModule, HighlightedPosition[])}
  * method.
+ * 
+ * Descendant classes producing the positions which depend on the local code
+ * only could override {@link #supportsRegionReconcile()} to reconcile the
+ * changed region only. Then the positions outside of it are ignored and
+ * {@link #getReconcileRegion()} could be checked to skip the AST nodes outside
+ * of the region.
  */
 public abstract class AbstractSemanticHighlighter implements
-		ISemanticHighlightingUpdater, ISemanticHighlightingRequestor {
+		ISemanticHighlightingUpdater, ISemanticHighlightingUpdaterExtension,
+		ISemanticHighlightingRequestor, ISemanticHighlightingRequestorExtension {
 
 	private IHighlightedPositionFactory positionFactory;
 	private Map<String, HighlightingStyle> highlightingStyles = new HashMap<String, HighlightingStyle>();
@@ -56,15 +65,48 @@ public abstract class AbstractSemanticHighlighter implements
 
 	private final List<HighlightedPosition> newPositions = new ArrayList<HighlightedPosition>();
 	private int oldPositionCount = 0;
+	/**
+	 * The old positions sorted by offset
+	 */
 	private final List<HighlightedPosition> oldPositions = new ArrayList<HighlightedPosition>();
+	/**
+	 * The indexes of the old positions reported again
+	 */
+	private final BitSet keptPositions = new BitSet();
+	/**
+	 * The region being reconciled or <code>null</code>
+	 */
+	private IRegion region;
 
 	public UpdateResult reconcile(IModuleSource code,
 			List<HighlightedPosition> currentPositions) {
+		return reconcile(code, null, currentPositions);
+	}
+
+	/**
+	 * @since 5.2
+	 */
+	public UpdateResult reconcile(IModuleSource code, IRegion region,
+			List<HighlightedPosition> currentPositions) {
+		if (region != null && !supportsRegionReconcile()) {
+			region = null;
+		}
 		try {
 			newPositions.clear();
-			this.oldPositionCount = currentPositions.size();
+			this.region = region;
 			this.oldPositions.clear();
-			this.oldPositions.addAll(currentPositions);
+			this.keptPositions.clear();
+			if (region == null) {
+				this.oldPositions.addAll(currentPositions);
+			} else {
+				for (HighlightedPosition position : currentPositions) {
+					if (isInReconcileRegion(position.getOffset(),
+							position.getOffset() + position.getLength())) {
+						this.oldPositions.add(position);
+					}
+				}
+			}
+			this.oldPositionCount = oldPositions.size();
 			if (doHighlighting(code)) {
 				checkNewPositionOrdering();
 				final HighlightedPosition[] removed = getRemovedPositions();
@@ -78,11 +120,25 @@ public abstract class AbstractSemanticHighlighter implements
 			}
 		} catch (Exception e) {
 			DLTKCore.error("Error in SemanticPositionUpdater", e); //$NON-NLS-1$
+		} finally {
+			this.region = null;
 		}
 		return new UpdateResult(HighlightedPosition.NO_POSITIONS,
 				HighlightedPosition.NO_POSITIONS);
 	}
 
+	/**
+	 * Answers if the highlighting of the changed region could be recomputed
+	 * alone. The default implementation returns <code>false</code>, so the
+	 * whole source module is reconciled, as the change could affect the
+	 * highlighting elsewhere, e.g. of the references to a renamed declaration.
+	 * 
+	 * @since 5.2
+	 */
+	protected boolean supportsRegionReconcile() {
+		return false;
+	}
+
 	/**
 	 * This method should do all of the semantic highlighting. When something
 	 * should be highlighted
@@ -94,19 +150,45 @@ public abstract class AbstractSemanticHighlighter implements
 	protected abstract boolean doHighlighting(IModuleSource code)
 			throws Exception;
 
+	/**
+	 * @since 5.2
+	 */
+	public IRegion getReconcileRegion() {
+		return region;
+	}
+
+	/**
+	 * Answers if the specified range intersects the region being reconciled,
+	 * always <code>true</code> if the whole source module is reconciled.
+	 * 
+	 * @since 5.2
+	 */
+	protected boolean isInReconcileRegion(int start, int end) {
+		final IRegion r = region;
+		return r == null
+				|| (start < r.getOffset() + r.getLength() && end > r
+						.getOffset());
+	}
+
 	public void addPosition(int start, int end, String highlightingKey) {
 		final int len = end - start;
 		if (len <= 0) {
 			return;
 		}
+		if (!isInReconcileRegion(start, end)) {
+			return;
+		}
 		final HighlightingStyle hl = highlightingStyles.get(highlightingKey);
 		if (hl == null) {
 			return;
 		}
-		for (int i = 0, size = oldPositions.size(); i < size; ++i) {
+		for (int i = indexAtOffset(start), size = oldPositions.size(); i < size; ++i) {
 			final HighlightedPosition p = oldPositions.get(i);
-			if (p != null && p.isEqual(start, len, hl)) {
-				oldPositions.set(i, null);
+			if (p.getOffset() != start) {
+				break;
+			}
+			if (!keptPositions.get(i) && p.isEqual(start, len, hl)) {
+				keptPositions.set(i);
 				--oldPositionCount;
 				return;
 			}
@@ -132,6 +214,24 @@ public abstract class AbstractSemanticHighlighter implements
 		}
 	}
 
+	/**
+	 * Returns the index of the first old position with the offset equal or
+	 * greater than the specified one.
+	 */
+	private int indexAtOffset(int offset) {
+		int low = 0;
+		int high = oldPositions.size();
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (oldPositions.get(mid).getOffset() < offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
 	/**
 	 * @return
 	 */
@@ -146,9 +246,8 @@ public abstract class AbstractSemanticHighlighter implements
 		final HighlightedPosition[] result = new HighlightedPosition[oldPositionCount];
 		int index = 0;
 		for (int i = 0, size = oldPositions.size(); i < size; ++i) {
-			final HighlightedPosition p = oldPositions.get(i);
-			if (p != null) {
-				result[index++] = p;
+			if (!keptPositions.get(i)) {
+				result[index++] = oldPositions.get(i);
 			}
 		}
 		return result;
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.editor.highlighting;
+
+import org.eclipse.jface.text.IRegion;
+
+/**
+ * Extension of the {@link ISemanticHighlightingRequestor} reporting the region
+ * being reconciled, so the highlighters could skip the AST nodes outside of
+ * it.
+ * 
+ * @since 5.2
+ */
+public interface ISemanticHighlightingRequestorExtension {
+
+	/**
+	 * Returns the region being reconciled or <code>null</code> if the whole
+	 * source module is reconciled. The positions outside of this region are
+	 * ignored by the requestor.
+	 */
+	IRegion getReconcileRegion();
+
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.editor.highlighting;
+
+import java.util.List;
+
+import org.eclipse.dltk.compiler.env.IModuleSource;
+import org.eclipse.dltk.ui.editor.highlighting.ISemanticHighlightingUpdater.UpdateResult;
+import org.eclipse.jface.text.IRegion;
+
+/**
+ * Extension of the {@link ISemanticHighlightingUpdater} recomputing the
+ * highlighting of the changed region of the document only.
+ * 
+ * @since 5.2
+ */
+public interface ISemanticHighlightingUpdaterExtension {
+
+	/**
+	 * Recomputes the highlighting of the specified region. The positions not
+	 * intersecting the region are kept as is. Implementations could reconcile
+	 * the whole source module instead if the change could affect the
+	 * highlighting outside of the region.
+	 * 
+	 * @param code
+	 *            source module
+	 * @param region
+	 *            the changed region of the document
+	 * @param currentPositions
+	 *            current semantic {@link HighlightedPosition}s sorted by
+	 *            starting offset.
+	 * @return
+	 */
+	UpdateResult reconcile(IModuleSource code, IRegion region,
+			List<HighlightedPosition> currentPositions);
+
+}
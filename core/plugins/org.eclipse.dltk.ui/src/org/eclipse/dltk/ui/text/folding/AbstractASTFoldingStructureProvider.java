@@ -567,6 +567,12 @@ public abstract class AbstractASTFoldingStructureProvider implements
 
 	private boolean fInitCollapseDocs;
 
+	/**
+	 * The source of the input the folding structure is being computed for, so
+	 * it is not fetched and compared again to reuse the cached AST.
+	 */
+	private volatile String fInputSource;
+
 	/**
 	 * Creates a new folding provider. It must be
 	 * {@link #install(ITextEditor, ProjectionViewer, IPreferenceStore)
@@ -772,6 +778,10 @@ public abstract class AbstractASTFoldingStructureProvider implements
 			for (int i = 0; i < size; i++)
 				deletions.add(list.get(i).annotation);
 		}
+		if (deletions.isEmpty() && additions.isEmpty() && updates.isEmpty()) {
+			// nothing changed, don't disturb the viewer
+			return;
+		}
 		Annotation[] removals = new Annotation[deletions.size()];
 		deletions.toArray(removals);
 		Annotation[] changes = new Annotation[updates.size()];
@@ -783,7 +793,12 @@ public abstract class AbstractASTFoldingStructureProvider implements
 			FoldingStructureComputationContext ctx) {
 		try {
 			String contents = ((ISourceReference) fInput).getSource();
-			return computeFoldingStructure(contents, ctx);
+			fInputSource = contents;
+			try {
+				return computeFoldingStructure(contents, ctx);
+			} finally {
+				fInputSource = null;
+			}
 		} catch (ModelException e) {
 			return false;
 		}
@@ -809,15 +824,8 @@ public abstract class AbstractASTFoldingStructureProvider implements
 		}
 
 		// 2. Compute blocks regions
-		final Document d = new Document(contents);
-		final MethodCollector methodCollector = new MethodCollector();
-		if (fInput != null) {
-			try {
-				fInput.accept(methodCollector);
-			} catch (ModelException e) {
-				// empty
-			}
-		}
+		MethodCollector methodCollector = null;
+		IDocument document = null;
 		for (int i = 0; i < blockRegions.length; i++) {
 			CodeBlock codeBlock = blockRegions[i];
 
@@ -828,12 +836,10 @@ public abstract class AbstractASTFoldingStructureProvider implements
 			IRegion reg = codeBlock.region;
 
 			// code
-			boolean multiline = false;
-			try {
-				multiline = isMultilineRegion(d, reg);
-			} catch (BadLocationException e) {
-				// nothing to do
+			if (document == null && isDocumentMultilineOverridden()) {
+				document = new Document(contents);
 			}
+			boolean multiline = checkMultilineRegion(contents, document, reg);
 			IRegion normalized = alignRegion(reg, ctx);
 			if (normalized != null && multiline) {
 				Position position = createMemberPosition(normalized);
@@ -845,16 +851,21 @@ public abstract class AbstractASTFoldingStructureProvider implements
 							len = len - 1;
 						}
 						if (contents.length() >= len) {
-							int hash = contents.substring(
-									normalized.getOffset(), len).hashCode();
+							int hash;
 							IModelElement element = null;
 
 							if (codeBlock.statement instanceof MethodDeclaration) {
 								MethodDeclaration meth = (MethodDeclaration) codeBlock.statement;
 								hash = meth.getName().hashCode();
+								if (methodCollector == null) {
+									methodCollector = collectMethods();
+								}
 								element = methodCollector.get(meth
 										.getNameStart(), meth.getNameEnd()
 										- meth.getNameStart());
+							} else {
+								hash = hashCode(contents, normalized
+										.getOffset(), len);
 							}
 							SourceRangeStamp codeStamp = new SourceRangeStamp(
 									hash, normalized.getLength());
@@ -873,6 +884,50 @@ public abstract class AbstractASTFoldingStructureProvider implements
 		return true;
 	}
 
+	private MethodCollector collectMethods() {
+		final MethodCollector methodCollector = new MethodCollector();
+		if (fInput != null) {
+			try {
+				fInput.accept(methodCollector);
+			} catch (ModelException e) {
+				// empty
+			}
+		}
+		return methodCollector;
+	}
+
+	/**
+	 * Returns the same value as <code>contents.substring(start, end).hashCode()</code>
+	 * without copying the characters.
+	 * 
+	 * @since 5.2
+	 */
+	protected static int hashCode(String contents, int start, int end) {
+		if (start < 0 || end > contents.length() || start > end) {
+			throw new StringIndexOutOfBoundsException();
+		}
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + contents.charAt(i);
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the same value as
+	 * <code>contents.substring(start, end).trim().length()</code> without
+	 * copying the characters.
+	 */
+	private static int trimmedLength(String contents, int start, int end) {
+		while (start < end && contents.charAt(start) <= ' ') {
+			++start;
+		}
+		while (start < end && contents.charAt(end - 1) <= ' ') {
+			--end;
+		}
+		return end - start;
+	}
+
 	private void addDocAnnotations(String contents,
 			FoldingStructureComputationContext ctx, IRegion[] commentRegions,
 			boolean isDoc) {
@@ -893,8 +948,9 @@ public abstract class AbstractASTFoldingStructureProvider implements
 				continue;
 			}
 
-			int hash = contents.substring(normalized.getOffset(),
-					normalized.getOffset() + normalized.getLength()).hashCode();
+			int hash = hashCode(contents, normalized.getOffset(), normalized
+					.getOffset()
+					+ normalized.getLength());
 			final IModelElement element;
 			if (commentResolver != null) {
 				element = commentResolver.getElementByCommentPosition(
@@ -1028,15 +1084,98 @@ public abstract class AbstractASTFoldingStructureProvider implements
 		return d.get(offset, length).trim().length() == 0;
 	}
 
+	/**
+	 * @deprecated override {@link #isMultilineRegion(String, IRegion)}
+	 *             instead, this method is called only if it is overridden
+	 */
+	@Deprecated
 	protected boolean isMultilineRegion(IDocument d, IRegion region)
 			throws BadLocationException {
 		int line1 = d.getLineOfOffset(region.getOffset());
 		int line2 = d.getLineOfOffset(region.getOffset() + region.getLength());
+		return isMultiline(line2 - line1);
+	}
+
+	/**
+	 * Answers if the region spans enough lines to be folded. Counts the line
+	 * delimiters in the specified contents, so no document is created for it.
+	 * 
+	 * @since 5.2
+	 */
+	protected boolean isMultilineRegion(String contents, IRegion region) {
+		final int start = region.getOffset();
+		final int end = Math.min(start + region.getLength(), contents.length());
+		int delimiters = 0;
+		for (int i = start; i < end; ++i) {
+			final char c = contents.charAt(i);
+			if (c == '\n') {
+				++delimiters;
+			} else if (c == '\r') {
+				if (i + 1 < contents.length() && contents.charAt(i + 1) == '\n') {
+					// the delimiter ends after the region
+					if (i + 2 > end)
+						break;
+					++i;
+				}
+				++delimiters;
+			}
+		}
+		return isMultiline(delimiters);
+	}
+
+	private Boolean fDocumentMultilineOverridden;
+
+	/**
+	 * Answers if the descendant class overrides the deprecated
+	 * {@link #isMultilineRegion(IDocument, IRegion)}.
+	 */
+	private boolean isDocumentMultilineOverridden() {
+		if (fDocumentMultilineOverridden == null) {
+			boolean overridden = false;
+			for (Class<?> c = getClass(); c != AbstractASTFoldingStructureProvider.class; c = c
+					.getSuperclass()) {
+				try {
+					c.getDeclaredMethod("isMultilineRegion", IDocument.class, //$NON-NLS-1$
+							IRegion.class);
+					overridden = true;
+					break;
+				} catch (NoSuchMethodException e) {
+					// check the superclass
+				}
+			}
+			fDocumentMultilineOverridden = Boolean.valueOf(overridden);
+		}
+		return fDocumentMultilineOverridden.booleanValue();
+	}
+
+	/**
+	 * Calls {@link #isMultilineRegion(IDocument, IRegion)} if it is
+	 * overridden, otherwise {@link #isMultilineRegion(String, IRegion)}.
+	 * 
+	 * @param document
+	 *            the document of the contents or <code>null</code> if it
+	 *            should be created when needed
+	 */
+	@SuppressWarnings("deprecation")
+	private boolean checkMultilineRegion(String contents, IDocument document,
+			IRegion region) {
+		if (isDocumentMultilineOverridden()) {
+			try {
+				return isMultilineRegion(document != null ? document
+						: new Document(contents), region);
+			} catch (BadLocationException e) {
+				return false;
+			}
+		}
+		return isMultilineRegion(contents, region);
+	}
+
+	private boolean isMultiline(int lineDelta) {
 		final int foldMinLines = getMinimalFoldableLinesCount();
 		if (foldMinLines > 0) {
-			return line2 - line1 + 1 >= foldMinLines;
+			return lineDelta + 1 >= foldMinLines;
 		} else {
-			return line1 != line2;
+			return lineDelta != 0;
 		}
 	}
 
@@ -1286,7 +1425,7 @@ public abstract class AbstractASTFoldingStructureProvider implements
 		if (offset == 0 && fInput instanceof ISourceModule) {
 			final ISourceModule module = (ISourceModule) fInput;
 			try {
-				if (code.equals(module.getSource())) {
+				if (code == fInputSource || code.equals(module.getSource())) {
 					// use the cache luke! ;)
 					return SourceParserUtil.getModuleDeclaration(module);
 				}
@@ -1491,11 +1630,10 @@ public abstract class AbstractASTFoldingStructureProvider implements
 						int offset0 = start.getOffset();
 						int length0 = lastRegion.getOffset()
 								+ lastRegion.getLength() - offset0 - 1;
-						length0 = contents
-								.substring(offset0, offset0 + length0).trim()
-								.length();
+						length0 = trimmedLength(contents, offset0, offset0
+								+ length0);
 						IRegion fullRegion = new Region(offset0, length0);
-						if (isMultilineRegion(d, fullRegion)) {
+						if (checkMultilineRegion(contents, d, fullRegion)) {
 							regions.add(fullRegion);
 						}
 					}
@@ -1508,7 +1646,7 @@ public abstract class AbstractASTFoldingStructureProvider implements
 				int length0 = lastRegion.getOffset() - offset0
 						+ lastRegion.getLength() - 1;
 				IRegion fullRegion = new Region(offset0, length0);
-				if (isMultilineRegion(d, fullRegion)) {
+				if (checkMultilineRegion(contents, d, fullRegion)) {
 					regions.add(fullRegion);
 				}
 			}
@@ -15,9 +15,11 @@ import junit.framework.TestSuite;
 
 import org.eclipse.dltk.core.tests.builder.BuildParticipantManagerTests;
 import org.eclipse.dltk.core.tests.buildpath.BuildpathTests;
+import org.eclipse.dltk.core.tests.buildpath.ExternalLibraryWatcherTest;
 import org.eclipse.dltk.core.tests.buildpath.SetContainerEventsTest;
 import org.eclipse.dltk.core.tests.cache.CacheTests;
 import org.eclipse.dltk.core.tests.cache.SourceModuleInfoCacheTest;
+import org.eclipse.dltk.core.tests.cache.StructureCacheFormatTests;
 import org.eclipse.dltk.core.tests.compiler.CompilerCharOperationTests;
 import org.eclipse.dltk.core.tests.compiler.CompilerUtilTests;
 import org.eclipse.dltk.core.tests.ddp.CoreDDPTests;
@@ -26,11 +28,18 @@ import org.eclipse.dltk.core.tests.launching.InterpreterConfigTests;
 import org.eclipse.dltk.core.tests.mixin.MixinIndexTests;
 import org.eclipse.dltk.core.tests.mixin.MixinModelTests;
 import org.eclipse.dltk.core.tests.model.BufferTests;
+import org.eclipse.dltk.core.tests.model.ModelCacheConcurrencyTests;
 import org.eclipse.dltk.core.tests.model.ModelMembersTests;
 import org.eclipse.dltk.core.tests.model.NamespaceTests;
 import org.eclipse.dltk.core.tests.model.WorkingCopyTests;
 import org.eclipse.dltk.core.tests.parser.SourceParserTests;
 import org.eclipse.dltk.core.tests.search.Bug387751Test;
+import org.eclipse.dltk.core.tests.search.ConcurrentIndexingTests;
+import org.eclipse.dltk.core.tests.search.IndexManifestTests;
+import org.eclipse.dltk.core.tests.search.SourceFragmentIndexingTests;
+import org.eclipse.dltk.core.tests.search.IndexQueryTests;
+import org.eclipse.dltk.core.tests.search.IndexSegmentTests;
+import org.eclipse.dltk.core.tests.search.TypeGraphTests;
 import org.eclipse.dltk.core.tests.util.CharacterStackTests;
 import org.eclipse.dltk.core.tests.utils.CharOperationTests;
 import org.eclipse.dltk.core.tests.utils.IntListTests;
@@ -46,6 +55,7 @@ public class AllTests {
 		suite.addTest(BuildpathTests.suite());
 
 		suite.addTest(new TestSuite(CacheTests.class));
+		suite.addTestSuite(StructureCacheFormatTests.class);
 
 		suite.addTest(new TestSuite(CompilerUtilTests.class));
 		suite.addTest(new TestSuite(CompilerCharOperationTests.class));
@@ -61,7 +71,14 @@ public class AllTests {
 
 		suite.addTest(BufferTests.suite());
 		suite.addTest(ModelMembersTests.suite());
+		suite.addTest(ModelCacheConcurrencyTests.suite());
 		suite.addTestSuite(NamespaceTests.class);
+		suite.addTestSuite(TypeGraphTests.class);
+		suite.addTestSuite(IndexSegmentTests.class);
+		suite.addTestSuite(IndexQueryTests.class);
+		suite.addTest(ConcurrentIndexingTests.suite());
+		suite.addTest(IndexManifestTests.suite());
+		suite.addTest(SourceFragmentIndexingTests.suite());
 		suite.addTest(WorkingCopyTests.suite());
 
 		suite.addTest(new TestSuite(SourceParserTests.class));
@@ -74,6 +91,7 @@ public class AllTests {
 		suite.addTest(new JUnit4TestAdapter(Bug387751Test.class));
 		suite.addTest(new JUnit4TestAdapter(SourceModuleInfoCacheTest.class));
 		suite.addTest(new JUnit4TestAdapter(SetContainerEventsTest.class));
+		suite.addTest(new JUnit4TestAdapter(ExternalLibraryWatcherTest.class));
 		// $JUnit-END$
 		return suite;
 	}
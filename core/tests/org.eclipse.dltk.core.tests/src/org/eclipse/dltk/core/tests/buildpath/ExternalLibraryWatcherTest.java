@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.buildpath;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.ElementChangedEvent;
+import org.eclipse.dltk.core.IBuildpathEntry;
+import org.eclipse.dltk.core.IElementChangedListener;
+import org.eclipse.dltk.core.IModelElementDelta;
+import org.eclipse.dltk.core.IProjectFragment;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.ModelException;
+import org.eclipse.dltk.core.environment.EnvironmentPathUtils;
+import org.eclipse.dltk.core.internal.environment.LocalEnvironment;
+import org.eclipse.dltk.core.tests.ProjectSetup;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExternalLibraryWatcherTest extends Assert {
+
+	private static final long INTERVAL = 100;
+	private static final long TIMEOUT = 10000;
+
+	@Rule
+	public final ProjectSetup project = new ProjectSetup(
+			ModelTestsPlugin.WORKSPACE, "bug387751",
+			ProjectSetup.Option.INDEXER_DISABLED);
+
+	@Rule
+	public final TemporaryFolder temp = new TemporaryFolder();
+
+	private Hashtable<String, String> savedOptions;
+
+	/**
+	 * The changed project fragments of the external libraries
+	 */
+	final List<IPath> changed = Collections
+			.synchronizedList(new ArrayList<IPath>());
+
+	final IElementChangedListener listener = new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			visit(event.getDelta());
+		}
+
+		private void visit(IModelElementDelta delta) {
+			if (delta.getKind() == IModelElementDelta.CHANGED
+					&& delta.getElement() instanceof IProjectFragment
+					&& ((IProjectFragment) delta.getElement()).isExternal()) {
+				changed.add(delta.getElement().getPath());
+			}
+			for (IModelElementDelta child : delta.getAffectedChildren()) {
+				visit(child);
+			}
+		}
+	};
+
+	@Before
+	public void setUp() {
+		savedOptions = DLTKCore.getOptions();
+		final Hashtable<String, String> options = DLTKCore.getOptions();
+		options.put(DLTKCore.EXTERNAL_LIBRARY_WATCHER_INTERVAL, Long
+				.toString(INTERVAL));
+		DLTKCore.setOptions(options);
+	}
+
+	@After
+	public void tearDown() {
+		DLTKCore.setOptions(savedOptions);
+	}
+
+	@Test
+	public void nestedFileChange() throws Exception {
+		final File folder = temp.newFolder("lib");
+		final File nested = new File(folder, "nested");
+		assertTrue(nested.mkdir());
+		final File file = new File(nested, "module.txt");
+		write(file, "Foo");
+		final IPath path = getFullPath(folder);
+		addBuildpathEntry(project.getScriptProject(), DLTKCore
+				.newExtLibraryEntry(path));
+		// let the watcher remember the initial state of the folder
+		Thread.sleep(INTERVAL * 5);
+		DLTKCore.addElementChangedListener(listener);
+		try {
+			final long lastModified = nested.lastModified();
+			write(file, "Foo Bar");
+			assertTrue(file.setLastModified(file.lastModified() + 2000));
+			// the change is not visible at the top level of the library
+			assertTrue(nested.setLastModified(lastModified));
+			final long start = System.currentTimeMillis();
+			while (!changed.contains(path)
+					&& System.currentTimeMillis() - start < TIMEOUT) {
+				Thread.sleep(INTERVAL);
+			}
+		} finally {
+			DLTKCore.removeElementChangedListener(listener);
+		}
+		assertTrue(changed.toString(), changed.contains(path));
+	}
+
+	@Test
+	public void disabled() throws Exception {
+		final Hashtable<String, String> options = DLTKCore.getOptions();
+		options.put(DLTKCore.EXTERNAL_LIBRARY_WATCHER_INTERVAL, "0");
+		DLTKCore.setOptions(options);
+		final File folder = temp.newFolder("lib");
+		final File file = new File(folder, "module.txt");
+		write(file, "Foo");
+		final IPath path = getFullPath(folder);
+		addBuildpathEntry(project.getScriptProject(), DLTKCore
+				.newExtLibraryEntry(path));
+		DLTKCore.addElementChangedListener(listener);
+		try {
+			write(new File(folder, "module2.txt"), "Bar");
+			assertTrue(folder.setLastModified(folder.lastModified() + 2000));
+			Thread.sleep(INTERVAL * 10);
+		} finally {
+			DLTKCore.removeElementChangedListener(listener);
+		}
+		assertFalse(changed.toString(), changed.contains(path));
+	}
+
+	private static void write(File file, String content) throws IOException {
+		final FileOutputStream output = new FileOutputStream(file);
+		try {
+			output.write(content.getBytes("UTF-8"));
+		} finally {
+			output.close();
+		}
+	}
+
+	private IPath getFullPath(File file) {
+		return EnvironmentPathUtils.getFullPath(LocalEnvironment.getInstance(),
+				new Path(file.getAbsolutePath()));
+	}
+
+	private void addBuildpathEntry(IScriptProject scriptProject,
+			IBuildpathEntry entry) throws ModelException {
+		final List<IBuildpathEntry> buildpath = new ArrayList<IBuildpathEntry>();
+		buildpath.add(entry);
+		Collections.addAll(buildpath, scriptProject.getRawBuildpath());
+		scriptProject.setRawBuildpath(
+				buildpath.toArray(new IBuildpathEntry[buildpath.size()]), null);
+	}
+}
@@ -30,6 +30,8 @@ import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.SourceParserUtil;
 import org.eclipse.dltk.core.tests.ProjectSetup;
 import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.internal.core.SourceModuleInfoCache;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -201,4 +203,39 @@ public class SourceModuleInfoCacheTest extends Assert {
 		assertThat(modules.get(0), not(IS_CACHED));
 	}
 
+	private static CacheStatistics getStatistics() {
+		return ((SourceModuleInfoCache) getCache()).getStatistics();
+	}
+
+	@Test
+	public void statistics() throws CoreException {
+		final ISourceModule module = project.getSourceModule("src",
+				"folder1/a.txt");
+		assertNotNull(module);
+		final CacheStatistics before = getStatistics();
+		assertNotNull(SourceParserUtil.parse(module, null));
+		assertNotNull(SourceParserUtil.parse(module, null));
+		final CacheStatistics after = getStatistics();
+		assertTrue(after.getMisses() > before.getMisses());
+		assertTrue(after.getHits() > before.getHits());
+		assertEquals(1, after.getSize());
+		assertTrue(after.getEstimatedWeight() > 0);
+	}
+
+	@Test
+	public void weight() throws CoreException {
+		final ISourceModule module = project.getSourceModule("src",
+				"folder1/a.txt");
+		assertNotNull(module);
+		assertEquals(0, getStatistics().getEstimatedWeight());
+		assertNotNull(SourceParserUtil.parse(module, null));
+		final long weight = getStatistics().getEstimatedWeight();
+		assertTrue(weight > 0);
+		getCache().remove(module);
+		assertEquals(0, getStatistics().getEstimatedWeight());
+		// the module is cached again with the same weight
+		assertNotNull(SourceParserUtil.parse(module, null));
+		assertEquals(weight, getStatistics().getEstimatedWeight());
+	}
+
 }
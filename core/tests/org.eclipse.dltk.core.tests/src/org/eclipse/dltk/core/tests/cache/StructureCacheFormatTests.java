@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.compiler.ISourceElementRequestor;
+import org.eclipse.dltk.compiler.SourceElementRequestorAdaptor;
+import org.eclipse.dltk.core.caching.MixinModelCollector;
+import org.eclipse.dltk.core.caching.MixinModelProcessor;
+import org.eclipse.dltk.core.caching.StructureModelCollector;
+import org.eclipse.dltk.core.caching.StructureModelProcessor;
+import org.eclipse.dltk.core.mixin.IMixinRequestor;
+
+public class StructureCacheFormatTests extends TestCase {
+
+	private static class RecordingRequestor extends
+			SourceElementRequestorAdaptor {
+		final StringBuilder log = new StringBuilder();
+
+		private void element(String kind, ElementInfo info) {
+			log.append(kind).append(' ').append(info.name).append(' ')
+					.append(info.modifiers).append(' ').append(
+							info.nameSourceStart).append(' ').append(
+							info.nameSourceEnd).append(' ').append(
+							info.declarationStart);
+		}
+
+		@Override
+		public void enterModule() {
+			log.append("module\n");
+		}
+
+		@Override
+		public void exitModule(int declarationEnd) {
+			log.append("/module ").append(declarationEnd).append('\n');
+		}
+
+		@Override
+		public void enterType(TypeInfo info) {
+			element("type", info);
+			log.append(' ').append(Arrays.toString(info.superclasses)).append(
+					'\n');
+		}
+
+		@Override
+		public void exitType(int declarationEnd) {
+			log.append("/type ").append(declarationEnd).append('\n');
+		}
+
+		@Override
+		public void enterMethod(MethodInfo info) {
+			element("method", info);
+			log.append(' ').append(Arrays.toString(info.parameterNames))
+					.append(' ').append(
+							Arrays.toString(info.parameterInitializers))
+					.append(' ').append(info.isConstructor).append('\n');
+		}
+
+		@Override
+		public void exitMethod(int declarationEnd) {
+			log.append("/method ").append(declarationEnd).append('\n');
+		}
+
+		@Override
+		public void enterField(FieldInfo info) {
+			element("field", info);
+			log.append('\n');
+		}
+
+		@Override
+		public void exitField(int declarationEnd) {
+			log.append("/field ").append(declarationEnd).append('\n');
+		}
+
+		@Override
+		public void acceptMethodReference(String methodName, int argCount,
+				int sourcePosition, int sourceEndPosition) {
+			log.append("call ").append(methodName).append(' ').append(
+					argCount).append(' ').append(sourcePosition).append(' ')
+					.append(sourceEndPosition).append('\n');
+		}
+
+		@Override
+		public void acceptTypeReference(String typeName, int sourcePosition) {
+			log.append("typeref ").append(typeName).append(' ').append(
+					sourcePosition).append('\n');
+		}
+
+		@Override
+		public void acceptImport(ImportInfo importInfo) {
+			log.append("import ").append(importInfo.name).append(' ').append(
+					importInfo.version).append(' ').append(
+					importInfo.sourceStart).append(' ').append(
+					importInfo.sourceEnd).append('\n');
+		}
+
+		@Override
+		public void enterNamespace(String[] namespace) {
+			log.append("namespace ").append(Arrays.toString(namespace))
+					.append('\n');
+		}
+
+		@Override
+		public void exitNamespace() {
+			log.append("/namespace\n");
+		}
+	}
+
+	/**
+	 * Reports the synthetic module with the specified number of types
+	 */
+	private static void generate(ISourceElementRequestor requestor, int types) {
+		int offset = 0;
+		requestor.enterModule();
+		ISourceElementRequestor.ImportInfo importInfo = new ISourceElementRequestor.ImportInfo();
+		importInfo.name = "http";
+		importInfo.version = "1.0";
+		importInfo.sourceStart = offset;
+		importInfo.sourceEnd = offset += 20;
+		requestor.acceptImport(importInfo);
+		requestor.enterNamespace(new String[] { "app", "model" });
+		for (int t = 0; t < types; ++t) {
+			ISourceElementRequestor.TypeInfo type = new ISourceElementRequestor.TypeInfo();
+			type.name = "Type" + t;
+			type.modifiers = t % 3;
+			type.declarationStart = offset += 2;
+			type.nameSourceStart = offset += 6;
+			type.nameSourceEnd = offset += type.name.length();
+			type.superclasses = t % 2 == 0 ? new String[] { "Base" } : null;
+			requestor.enterType(type);
+			for (int m = 0; m < 10; ++m) {
+				ISourceElementRequestor.MethodInfo method = new ISourceElementRequestor.MethodInfo();
+				method.name = "method" + m;
+				method.declarationStart = offset += 4;
+				method.nameSourceStart = offset += 5;
+				method.nameSourceEnd = offset += method.name.length();
+				method.parameterNames = new String[] { "value", "options" };
+				method.parameterInitializers = new String[] { null, "{}" };
+				method.isConstructor = m == 0;
+				requestor.enterMethod(method);
+				requestor.acceptTypeReference("Type" + (t + m) % types,
+						offset += 8);
+				requestor.acceptMethodReference("method" + m % 3, 2,
+						offset += 3, offset += 12);
+				requestor.exitMethod(offset += 2);
+			}
+			ISourceElementRequestor.FieldInfo field = new ISourceElementRequestor.FieldInfo();
+			field.name = "field" + t;
+			field.declarationStart = offset += 4;
+			field.nameSourceStart = offset;
+			field.nameSourceEnd = offset += field.name.length();
+			requestor.enterField(field);
+			requestor.exitField(offset);
+			requestor.exitType(offset += 2);
+		}
+		requestor.exitNamespace();
+		requestor.exitModule(offset + 1);
+	}
+
+	private static byte[] collect(boolean compact, int types) {
+		final StructureModelCollector collector = new StructureModelCollector(
+				new SourceElementRequestorAdaptor(), compact);
+		generate(collector, types);
+		return collector.getBytes();
+	}
+
+	private static String replay(byte[] bytes) throws IOException {
+		final RecordingRequestor requestor = new RecordingRequestor();
+		new StructureModelProcessor(new ByteArrayInputStream(bytes), requestor)
+				.perform();
+		return requestor.log.toString();
+	}
+
+	private static String expected(int types) {
+		final RecordingRequestor requestor = new RecordingRequestor();
+		generate(requestor, types);
+		return requestor.log.toString();
+	}
+
+	public void testCompactRoundTrip() throws IOException {
+		assertEquals(expected(20), replay(collect(true, 20)));
+	}
+
+	public void testLegacyFormat() throws IOException {
+		assertEquals(expected(20), replay(collect(false, 20)));
+	}
+
+	public void testCompactIsSmaller() {
+		final int legacy = collect(false, 50).length;
+		final int compact = collect(true, 50).length;
+		assertTrue(compact + " < " + legacy, compact * 2 < legacy);
+	}
+
+	public void testMixinRoundTrip() throws IOException {
+		for (boolean compact : new boolean[] { false, true }) {
+			final MixinModelCollector collector = new MixinModelCollector(
+					compact);
+			final String[] keys = { "Object", "Object{new", "Kernel",
+					"Object{new", "тест" };
+			for (String key : keys) {
+				IMixinRequestor.ElementInfo info = new IMixinRequestor.ElementInfo();
+				info.key = key;
+				collector.reportElement(info);
+			}
+			final StringBuilder sb = new StringBuilder();
+			new MixinModelProcessor(new ByteArrayInputStream(collector
+					.getBytes()), new IMixinRequestor() {
+				public void reportElement(ElementInfo info) {
+					sb.append(info.key).append(';');
+				}
+			}).process();
+			assertEquals("Object;Object{new;Kernel;Object{new;тест;", sb.toString());
+		}
+	}
+
+	private static byte[] mixinBytes(MixinModelCollector collector) {
+		final IMixinRequestor.ElementInfo info = new IMixinRequestor.ElementInfo();
+		info.key = "Object";
+		collector.reportElement(info);
+		return collector.getBytes();
+	}
+
+	public void testDefaultIsCompact() {
+		final StructureModelCollector collector = new StructureModelCollector(
+				new SourceElementRequestorAdaptor());
+		generate(collector, 5);
+		assertTrue(Arrays.equals(collect(true, 5), collector.getBytes()));
+		assertTrue(Arrays.equals(mixinBytes(new MixinModelCollector(true)),
+				mixinBytes(new MixinModelCollector())));
+	}
+
+	public void testSubclassDefaultIsLegacy() {
+		final StructureModelCollector collector = new StructureModelCollector(
+				new SourceElementRequestorAdaptor()) {
+		};
+		generate(collector, 5);
+		assertTrue(Arrays.equals(collect(false, 5), collector.getBytes()));
+		assertTrue(Arrays.equals(mixinBytes(new MixinModelCollector(false)),
+				mixinBytes(new MixinModelCollector() {
+				})));
+	}
+
+	/**
+	 * Reports the size and the replay speed of both formats
+	 */
+	public void testBenchmark() throws IOException {
+		final int types = 500;
+		final int iterations = 20;
+		final int[] sizes = new int[2];
+		for (boolean compact : new boolean[] { false, true }) {
+			final byte[] bytes = collect(compact, types);
+			sizes[compact ? 1 : 0] = bytes.length;
+			// warm up
+			replay(bytes);
+			final long start = System.nanoTime();
+			for (int i = 0; i < iterations; ++i) {
+				new StructureModelProcessor(new ByteArrayInputStream(bytes),
+						new SourceElementRequestorAdaptor()).perform();
+			}
+			final long elapsed = System.nanoTime() - start;
+			System.out.println((compact ? "compact" : "legacy") + ": "
+					+ bytes.length + " bytes, "
+					+ (elapsed / iterations / 1000) + " us per replay");
+		}
+		assertTrue(sizes[1] < sizes[0]);
+	}
+
+}
@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.tests.mixin;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.resources.IProject;
@@ -19,6 +22,8 @@ import org.eclipse.dltk.core.mixin.MixinModel;
 import org.eclipse.dltk.core.search.index.MixinIndex;
 import org.eclipse.dltk.core.tests.model.AbstractModelTests;
 import org.eclipse.dltk.core.tests.model.TestLanguageToolkit;
+import org.eclipse.dltk.internal.core.ModelManager;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 
 /**
  * Tests for the {@link MixinIndex} class.
@@ -65,6 +70,68 @@ public class MixinModelTests extends AbstractModelTests {
 		}
 	}
 
+	public void testConcurrentFind() throws Throwable {
+		final MixinModel model = new MixinModel(TestLanguageToolkit
+				.getDefault());
+		try {
+			final List<Throwable> errors = new ArrayList<Throwable>();
+			final int[] counts = new int[8];
+			final List<Thread> threads = new ArrayList<Thread>();
+			for (int t = 0; t < counts.length; ++t) {
+				final int index = t;
+				threads.add(new Thread() {
+					@Override
+					public void run() {
+						try {
+							counts[index] = model.find("{foo*").length;
+						} catch (Throwable e) {
+							synchronized (errors) {
+								errors.add(e);
+							}
+						}
+					}
+				});
+			}
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			if (!errors.isEmpty()) {
+				throw errors.get(0);
+			}
+			for (int count : counts) {
+				TestCase.assertEquals(3, count);
+			}
+			TestCase.assertTrue(model.keyExists("{foo{$a"));
+			TestCase.assertFalse(model.keyExists("{foo{$c"));
+			TestCase.assertFalse(model.keyExists("{foo{$c"));
+			TestCase.assertTrue(model.getStatistics().getHits() > 0);
+		} finally {
+			model.stop();
+		}
+	}
+
+	public void testStatisticsExported() throws Throwable {
+		MixinModel model = new MixinModel(TestLanguageToolkit.getDefault());
+		try {
+			TestCase.assertEquals(1, model.find("{foo").length);
+			final List<String> names = new ArrayList<String>();
+			for (CacheStatistics statistics : ModelManager.getModelManager()
+					.getCacheStatistics()) {
+				names.add(statistics.getName());
+			}
+			TestCase.assertTrue(names.toString(), names.contains(model
+					.getStatistics().getName()));
+			TestCase.assertTrue(names.toString(), names.contains(model
+					.getRequestStatistics().getName()));
+			TestCase.assertTrue(model.getRequestStatistics().getMisses() > 0);
+		} finally {
+			model.stop();
+		}
+	}
+
 	public void testMixin003() throws Throwable {
 		MixinModel model = new MixinModel(TestLanguageToolkit.getDefault());
 		try {
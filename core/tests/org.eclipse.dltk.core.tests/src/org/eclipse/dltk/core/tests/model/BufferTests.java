@@ -10,6 +10,7 @@
 package org.eclipse.dltk.core.tests.model;
 
 import java.util.ArrayList;
+import java.util.Hashtable;
 
 import junit.framework.Test;
 
@@ -17,9 +18,12 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.dltk.core.BufferChangedEvent;
+import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.IBuffer;
 import org.eclipse.dltk.core.IBufferChangedListener;
 import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.internal.core.BufferManager;
+import org.eclipse.dltk.internal.core.util.CacheStatistics;
 
 
 public class BufferTests extends ModifyingResourceTests implements IBufferChangedListener {
@@ -164,6 +168,137 @@ public class BufferTests extends ModifyingResourceTests implements IBufferChange
 		}
 	}
 	
+	/**
+	 * Tests the characters returned by the buffer are not changed by the
+	 * following modifications and are not copied while it is not modified.
+	 */
+	public void testCharactersSnapshot() throws CoreException {
+		IBuffer buffer = this.createBuffer(
+			"P/x/y/A.txt",
+			"package x.y;\n" +
+			"public class A {\n" +
+			"}"
+		);
+		try {
+			buffer.replace(0, 8, "");
+			char[] chars = buffer.getCharacters();
+			assertSame("should not copy", chars, buffer.getCharacters());
+			buffer.replace(0, 4, "");
+			assertSourceEquals(
+				"unexpected snapshot",
+				"x.y;\n" +
+				"public class A {\n" +
+				"}",
+				new String(chars)
+			);
+			assertSourceEquals(
+				"unexpected buffer contents",
+				"\n" +
+				"public class A {\n" +
+				"}",
+				buffer.getContents()
+			);
+		} finally {
+			this.deleteBuffer(buffer);
+		}
+	}
+	/**
+	 * Tests the buffers sharing the same characters don't modify each other.
+	 */
+	public void testSharedCharacters() throws CoreException {
+		IBuffer buffer = this.createBuffer(
+			"P/x/y/A.txt",
+			"package x.y;\n" +
+			"public class A {\n" +
+			"}"
+		);
+		IBuffer copy = this.createBuffer(
+			"P/x/y/B.txt",
+			""
+		);
+		try {
+			copy.setContents(buffer.getCharacters());
+			copy.replace(0, 8, "");
+			assertSourceEquals(
+				"unexpected buffer contents",
+				"package x.y;\n" +
+				"public class A {\n" +
+				"}",
+				buffer.getContents()
+			);
+			assertSourceEquals(
+				"unexpected copy contents",
+				"x.y;\n" +
+				"public class A {\n" +
+				"}",
+				copy.getContents()
+			);
+			buffer.replace(0, 12, "");
+			assertSourceEquals(
+				"unexpected copy contents",
+				"x.y;\n" +
+				"public class A {\n" +
+				"}",
+				copy.getContents()
+			);
+		} finally {
+			this.deleteBuffer(copy);
+			this.deleteBuffer(buffer);
+		}
+	}
+	/**
+	 * Tests the open buffers are weighed by their characters.
+	 */
+	public void testBufferCacheWeight() throws CoreException {
+		IBuffer buffer = this.createBuffer(
+			"P/x/y/A.txt",
+			"package x.y;\n" +
+			"public class A {\n" +
+			"}"
+		);
+		try {
+			BufferManager manager = BufferManager.getDefaultBufferManager();
+			assertSame(buffer, manager.getBuffer(buffer.getOwner()));
+			CacheStatistics statistics = manager.getStatistics();
+			assertTrue("should contain the buffer", statistics.getSize() > 0);
+			assertTrue("should weigh the characters",
+					statistics.getEstimatedWeight() >= 2 * buffer.getLength());
+		} finally {
+			this.deleteBuffer(buffer);
+		}
+	}
+	/**
+	 * Tests the buffer with unsaved changes is kept open above the limit of
+	 * the open buffers.
+	 */
+	public void testBufferCacheLimit() throws CoreException {
+		IBuffer buffer = this.createBuffer(
+			"P/x/y/A.txt",
+			"package x.y;\n" +
+			"public class A {\n" +
+			"}"
+		);
+		Hashtable<String, String> savedOptions = DLTKCore.getOptions();
+		try {
+			buffer.append("\n");
+			BufferManager manager = BufferManager.getDefaultBufferManager();
+			long failedEvictions = manager.getStatistics().getFailedEvictions();
+			Hashtable<String, String> options = DLTKCore.getOptions();
+			options.put(DLTKCore.BUFFER_CACHE_LIMIT, "1");
+			DLTKCore.setOptions(options);
+			CacheStatistics statistics = manager.getStatistics();
+			assertEquals("unexpected limit", 1, statistics.getLimit());
+			assertTrue("should fail to close the buffer",
+					statistics.getFailedEvictions() > failedEvictions);
+			assertSame("should keep the buffer", buffer,
+					manager.getBuffer(buffer.getOwner()));
+			assertFalse("should not close the buffer", buffer.isClosed());
+			assertTrue("should keep the changes", buffer.hasUnsavedChanges());
+		} finally {
+			DLTKCore.setOptions(savedOptions);
+			this.deleteBuffer(buffer);
+		}
+	}
 	/**
 	 * Tests deleting text at the beginning of a buffer.
 	 */
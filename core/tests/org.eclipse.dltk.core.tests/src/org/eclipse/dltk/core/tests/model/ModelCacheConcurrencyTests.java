@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.IParent;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.ModelException;
+import org.eclipse.dltk.internal.core.ModelManager;
+
+public class ModelCacheConcurrencyTests extends AbstractModelTests {
+	private static final String PRJ_NAME = "ModelCacheConcurrency";
+
+	public ModelCacheConcurrencyTests(String name) {
+		super(ModelTestsPlugin.PLUGIN_NAME, name);
+	}
+
+	public static Test suite() {
+		return new Suite(ModelCacheConcurrencyTests.class);
+	}
+
+	@Override
+	public void setUpSuite() throws Exception {
+		super.setUpSuite();
+		setUpScriptProjectTo(PRJ_NAME, "ModelMembers");
+	}
+
+	@Override
+	public void tearDownSuite() throws Exception {
+		deleteProject(PRJ_NAME);
+		super.tearDownSuite();
+	}
+
+	private static int traverse(IModelElement element) throws ModelException {
+		int count = 1;
+		if (element instanceof IParent) {
+			for (IModelElement child : ((IParent) element).getChildren()) {
+				count += traverse(child);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Traverses the project from the specified number of threads, closing it
+	 * from time to time, so the infos are read and opened concurrently.
+	 */
+	private void traverse(final IScriptProject project, int threadCount,
+			final int iterations, final int expected) throws Exception {
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		final AtomicInteger mismatches = new AtomicInteger();
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < threadCount; ++t) {
+			final boolean closer = t == 0;
+			threads.add(new Thread("traverse-" + t) {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < iterations; ++i) {
+							if (closer && i % 100 == 0) {
+								project.close();
+							}
+							if (traverse(project) != expected) {
+								mismatches.incrementAndGet();
+							}
+						}
+					} catch (Throwable e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (!errors.isEmpty()) {
+			throw new Exception(errors.get(0));
+		}
+		assertEquals(0, mismatches.get());
+	}
+
+	public void testConcurrentTraversal() throws Exception {
+		final IScriptProject project = getScriptProject(PRJ_NAME);
+		final int expected = traverse(project);
+		assertTrue(expected > 1);
+		traverse(project, 4, 200, expected);
+	}
+
+	/**
+	 * Collects the elements having the info in the cache
+	 */
+	private static void collect(IModelElement element,
+			List<IModelElement> result) throws ModelException {
+		if (ModelManager.getModelManager().getInfo(element) != null) {
+			result.add(element);
+		}
+		if (element instanceof IParent) {
+			for (IModelElement child : ((IParent) element).getChildren()) {
+				collect(child, result);
+			}
+		}
+	}
+
+	/**
+	 * Reads the infos of the elements from the specified number of threads.
+	 * 
+	 * @param synchronize
+	 *            <code>true</code> to read under the {@link ModelManager}
+	 *            lock, as getInfo() did before it became lock-free
+	 * @return the time taken in milliseconds
+	 */
+	private long readInfos(final List<IModelElement> elements,
+			int threadCount, final int iterations, final boolean synchronize)
+			throws Exception {
+		final ModelManager manager = ModelManager.getModelManager();
+		final AtomicInteger missing = new AtomicInteger();
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < threadCount; ++t) {
+			threads.add(new Thread("read-" + t) {
+				@Override
+				public void run() {
+					for (int i = 0; i < iterations; ++i) {
+						for (IModelElement element : elements) {
+							final Object info;
+							if (synchronize) {
+								synchronized (manager) {
+									info = manager.getInfo(element);
+								}
+							} else {
+								info = manager.getInfo(element);
+							}
+							if (info == null) {
+								missing.incrementAndGet();
+							}
+						}
+					}
+				}
+			});
+		}
+		final long start = System.currentTimeMillis();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		final long elapsed = System.currentTimeMillis() - start;
+		assertEquals(0, missing.get());
+		return elapsed;
+	}
+
+	/**
+	 * Reports how the reads scale with the number of threads, compared to the
+	 * reads serialized by the {@link ModelManager} lock.
+	 */
+	public void testReadScaling() throws Exception {
+		final IScriptProject project = getScriptProject(PRJ_NAME);
+		final List<IModelElement> elements = new ArrayList<IModelElement>();
+		collect(project, elements);
+		assertFalse(elements.isEmpty());
+		final int iterations = 2000;
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			final long locked = readInfos(elements, threads, iterations, true);
+			final long free = readInfos(elements, threads, iterations, false);
+			System.out.println(threads + " thread(s), "
+					+ (threads * iterations * elements.size())
+					+ " reads: synchronized " + locked + " ms, lock-free "
+					+ free + " ms");
+		}
+	}
+
+	public void testIntern() throws Exception {
+		final ModelManager manager = ModelManager.getModelManager();
+		final String[] results = new String[8];
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < results.length; ++t) {
+			final int index = t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; ++i) {
+						manager.intern(new String("symbol" + i));
+					}
+					results[index] = manager.intern(new String("symbol0"));
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int t = 1; t < results.length; ++t) {
+			assertSame(results[0], results[t]);
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.ModelException;
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.EntryResult;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+import org.eclipse.dltk.core.search.indexing.IndexDocument;
+import org.eclipse.dltk.core.search.indexing.core.AbstractProjectIndexer;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.core.tests.model.ModifyingResourceTests;
+import org.eclipse.dltk.core.tests.model.TestLanguageToolkit;
+
+/**
+ * Compares the sequential indexing of the synthetic library with the
+ * concurrent extraction of the index entries by
+ * {@link AbstractProjectIndexer#indexSourceModules}. Takes a while, so it is
+ * not included into the AllTests suite.
+ */
+public class ConcurrentIndexingBenchmark extends ModifyingResourceTests {
+	private static final String PRJ_NAME = "ConcurrentIndexingBenchmark";
+	private static final int MODULE_COUNT = 20000;
+	private static final int TYPES_PER_MODULE = 10;
+	private static final int ITERATIONS = 3;
+
+	public ConcurrentIndexingBenchmark(String name) {
+		super(ModelTestsPlugin.PLUGIN_NAME, name);
+	}
+
+	public static Test suite() {
+		return new Suite(ConcurrentIndexingBenchmark.class);
+	}
+
+	@Override
+	public void setUpSuite() throws Exception {
+		super.setUpSuite();
+		final IProject project = createScriptProject(PRJ_NAME,
+				new String[] { ModelTestsPlugin.TEST_NATURE },
+				new String[] { "src" }).getProject();
+		// the files are written directly and refreshed at once, creating them
+		// one by one through the workspace takes much longer
+		final File folder = project.getFolder("src").getLocation().toFile();
+		for (int i = 0; i < MODULE_COUNT; ++i) {
+			write(new File(folder, "module" + i + ".txt"), source(i));
+		}
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+	}
+
+	@Override
+	public void tearDownSuite() throws Exception {
+		deleteProject(PRJ_NAME);
+		super.tearDownSuite();
+	}
+
+	private static String source(int module) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < TYPES_PER_MODULE; ++i) {
+			sb.append("class Type").append(module).append('_').append(i)
+					.append(" {\n");
+			sb.append("  method").append(i).append("(a, b, c) {\n");
+			sb.append("    return a + b * c\n");
+			sb.append("  }\n");
+			sb.append("}\n");
+		}
+		return sb.toString();
+	}
+
+	private static void write(File file, String content) throws IOException {
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(content.getBytes("UTF-8"));
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Indexes the names following the <code>class</code> keyword, scanning
+	 * the whole source like a simple parser would.
+	 */
+	private static class TestIndexer extends AbstractProjectIndexer {
+		private static final char[] CLASS = "class".toCharArray();
+
+		@Override
+		public void doIndexing(IndexDocument document) {
+			final char[] source;
+			try {
+				source = document.getSourceModule().getSourceAsCharArray();
+			} catch (ModelException e) {
+				return;
+			}
+			boolean afterClass = false;
+			int i = 0;
+			while (i < source.length) {
+				if (Character.isJavaIdentifierStart(source[i])) {
+					final int start = i;
+					while (i < source.length
+							&& Character.isJavaIdentifierPart(source[i])) {
+						++i;
+					}
+					final char[] word = Arrays.copyOfRange(source, start, i);
+					if (afterClass) {
+						document.addIndexEntry(IIndexConstants.TYPE_DECL, word);
+					}
+					afterClass = Arrays.equals(word, CLASS);
+				} else {
+					++i;
+				}
+			}
+		}
+
+		@Override
+		protected boolean isConcurrentIndexingSupported() {
+			return true;
+		}
+	}
+
+	private List<ISourceModule> getModules() throws ModelException {
+		final List<ISourceModule> modules = Arrays.asList(getScriptFolder(
+				PRJ_NAME, "src", new Path("")).getSourceModules());
+		assertEquals(MODULE_COUNT, modules.size());
+		return modules;
+	}
+
+	private IPath getContainerPath() {
+		return getScriptProject(PRJ_NAME).getPath().append("src");
+	}
+
+	private Index createIndex(File file) throws IOException {
+		file.delete();
+		return new Index(file.getPath(), getContainerPath().toString(), false);
+	}
+
+	private static int countEntries(Index index) throws IOException {
+		final EntryResult[] entries = index.query(
+				new char[][] { IIndexConstants.TYPE_DECL }, null,
+				SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		return entries != null ? entries.length : 0;
+	}
+
+	private long indexSequentially(TestIndexer indexer,
+			List<ISourceModule> modules, Index index) {
+		final long start = System.nanoTime();
+		for (ISourceModule module : modules) {
+			indexer.indexSourceModule(index, TestLanguageToolkit.getDefault(),
+					module, getContainerPath());
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long indexConcurrently(TestIndexer indexer,
+			List<ISourceModule> modules, Index index) {
+		final long start = System.nanoTime();
+		final Map<ISourceModule, IndexDocument> documents = indexer
+				.indexSourceModules(TestLanguageToolkit.getDefault(), modules,
+						getContainerPath(), null);
+		for (ISourceModule module : modules) {
+			final IndexDocument document = documents != null ? documents
+					.get(module) : null;
+			if (document != null) {
+				document.flush(index);
+			} else {
+				indexer.indexSourceModule(index, TestLanguageToolkit
+						.getDefault(), module, getContainerPath());
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	public void testBenchmark() throws Exception {
+		final List<ISourceModule> modules = getModules();
+		final TestIndexer indexer = new TestIndexer();
+		final File file = File.createTempFile("benchmark", ".index");
+		try {
+			long sequential = Long.MAX_VALUE;
+			long concurrent = Long.MAX_VALUE;
+			// the first iteration warms up the caches and the JIT
+			for (int i = 0; i <= ITERATIONS; ++i) {
+				Index index = createIndex(file);
+				final long sequentialTime = indexSequentially(indexer,
+						modules, index);
+				assertEquals(MODULE_COUNT * TYPES_PER_MODULE,
+						countEntries(index));
+				index = createIndex(file);
+				final long concurrentTime = indexConcurrently(indexer,
+						modules, index);
+				assertEquals(MODULE_COUNT * TYPES_PER_MODULE,
+						countEntries(index));
+				if (i != 0) {
+					sequential = Math.min(sequential, sequentialTime);
+					concurrent = Math.min(concurrent, concurrentTime);
+				}
+			}
+			System.out.println(MODULE_COUNT + " modules, "
+					+ Runtime.getRuntime().availableProcessors()
+					+ " processors: sequential " + sequential / 1000000
+					+ " ms, concurrent " + concurrent / 1000000 + " ms");
+		} finally {
+			file.delete();
+			new File(file.getPath() + Index.SEGMENT_EXTENSION).delete();
+			new File(file.getPath() + Index.TYPE_GRAPH_EXTENSION).delete();
+		}
+	}
+
+}
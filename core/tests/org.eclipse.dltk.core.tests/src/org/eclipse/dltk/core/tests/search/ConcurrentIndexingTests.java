@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.EntryResult;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+import org.eclipse.dltk.core.search.indexing.IndexDocument;
+import org.eclipse.dltk.core.search.indexing.core.AbstractProjectIndexer;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.core.tests.model.ModifyingResourceTests;
+import org.eclipse.dltk.core.tests.model.TestLanguageToolkit;
+
+public class ConcurrentIndexingTests extends ModifyingResourceTests {
+	private static final String PRJ_NAME = "ConcurrentIndexing";
+	private static final int MODULE_COUNT = 100;
+
+	public ConcurrentIndexingTests(String name) {
+		super(ModelTestsPlugin.PLUGIN_NAME, name);
+	}
+
+	public static Test suite() {
+		return new Suite(ConcurrentIndexingTests.class);
+	}
+
+	@Override
+	public void setUpSuite() throws Exception {
+		super.setUpSuite();
+		createScriptProject(PRJ_NAME,
+				new String[] { ModelTestsPlugin.TEST_NATURE },
+				new String[] { "src" });
+		for (int i = 0; i < MODULE_COUNT; ++i) {
+			createFile("/" + PRJ_NAME + "/src/module" + i + ".txt", "module"
+					+ i);
+		}
+	}
+
+	@Override
+	public void tearDownSuite() throws Exception {
+		deleteProject(PRJ_NAME);
+		super.tearDownSuite();
+	}
+
+	private static class TestIndexer extends AbstractProjectIndexer {
+		final AtomicInteger indexed = new AtomicInteger();
+		final Set<Thread> threads = Collections
+				.synchronizedSet(new HashSet<Thread>());
+
+		@Override
+		public void doIndexing(IndexDocument document) {
+			indexed.incrementAndGet();
+			threads.add(Thread.currentThread());
+			document.addIndexEntry(IIndexConstants.TYPE_DECL, document
+					.getSourceModule().getElementName().toCharArray());
+		}
+
+		@Override
+		protected boolean isConcurrentIndexingSupported() {
+			return true;
+		}
+
+		@Override
+		protected int getIndexingThreadCount(int moduleCount) {
+			return 2;
+		}
+	}
+
+	private List<ISourceModule> getModules() throws Exception {
+		final List<ISourceModule> modules = new ArrayList<ISourceModule>();
+		for (int i = 0; i < MODULE_COUNT; ++i) {
+			final ISourceModule module = getSourceModule(PRJ_NAME, "src",
+					"module" + i + ".txt");
+			assertNotNull(module);
+			assertTrue(module.exists());
+			modules.add(module);
+		}
+		return modules;
+	}
+
+	private IPath getContainerPath() {
+		return getScriptProject(PRJ_NAME).getPath().append("src");
+	}
+
+	private static int countEntries(Index index) throws IOException {
+		final EntryResult[] entries = index.query(
+				new char[][] { IIndexConstants.TYPE_DECL }, null,
+				SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		int count = 0;
+		if (entries != null) {
+			for (EntryResult entry : entries) {
+				count += entry.getDocumentNames(index).length;
+			}
+		}
+		return count;
+	}
+
+	public void testConcurrentIndexing() throws Exception {
+		final List<ISourceModule> modules = getModules();
+		final TestIndexer indexer = new TestIndexer();
+		final Map<ISourceModule, IndexDocument> documents = indexer
+				.indexSourceModules(TestLanguageToolkit.getDefault(),
+						modules, getContainerPath(), null);
+		assertNotNull(documents);
+		assertEquals(MODULE_COUNT, documents.size());
+		assertEquals(MODULE_COUNT, indexer.indexed.get());
+		assertFalse(indexer.threads.contains(Thread.currentThread()));
+		final File file = File.createTempFile("concurrent", ".index");
+		file.delete();
+		try {
+			final Index index = new Index(file.getPath(), getContainerPath()
+					.toString(), false);
+			for (ISourceModule module : modules) {
+				final IndexDocument document = documents.get(module);
+				assertNotNull(document);
+				assertSame(module, document.getSourceModule());
+				document.flush(index);
+			}
+			assertEquals(MODULE_COUNT, countEntries(index));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testCancelledIndexing() throws Exception {
+		final TestIndexer indexer = new TestIndexer();
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		final Map<ISourceModule, IndexDocument> documents = indexer
+				.indexSourceModules(TestLanguageToolkit.getDefault(),
+						getModules(), getContainerPath(), monitor);
+		assertNotNull(documents);
+		assertTrue(documents.isEmpty());
+		assertEquals(0, indexer.indexed.get());
+	}
+
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.ModelException;
+import org.eclipse.dltk.core.caching.IContentCache;
+import org.eclipse.dltk.core.environment.EnvironmentPathUtils;
+import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+import org.eclipse.dltk.core.search.indexing.core.IndexManifest;
+import org.eclipse.dltk.core.search.indexing.core.IndexRequest;
+import org.eclipse.dltk.core.search.indexing.core.SourceIndexUtil;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.core.tests.model.ModifyingResourceTests;
+import org.eclipse.dltk.internal.core.ModelManager;
+
+public class IndexManifestTests extends ModifyingResourceTests {
+	private static final String PRJ_NAME = "IndexManifest";
+	private static final String[] MODULES = { "a.txt", "b.txt", "sub/c.txt" };
+	private static final String INDEXED = "indexed";
+
+	public IndexManifestTests(String name) {
+		super(ModelTestsPlugin.PLUGIN_NAME, name);
+	}
+
+	public static Test suite() {
+		return new Suite(IndexManifestTests.class);
+	}
+
+	/**
+	 * Exposes the manifest based change detection
+	 */
+	private static class TestRequest extends IndexRequest {
+		TestRequest() {
+			super(null);
+		}
+
+		List<Object> check(Index index, Collection<ISourceModule> modules,
+				IPath containerPath, IndexManifest manifest)
+				throws ModelException, IOException {
+			return checkChanges(index, modules, containerPath, manifest);
+		}
+
+		@Override
+		protected String getName() {
+			return "Test";
+		}
+
+		@Override
+		protected void run() {
+		}
+	}
+
+	private File indexFile;
+	private Index index;
+
+	@Override
+	public void setUpSuite() throws Exception {
+		super.setUpSuite();
+		createScriptProject(PRJ_NAME,
+				new String[] { ModelTestsPlugin.TEST_NATURE },
+				new String[] { "src" });
+		createFolder("/" + PRJ_NAME + "/src/sub");
+		for (String module : MODULES) {
+			createFile("/" + PRJ_NAME + "/src/" + module, module);
+		}
+	}
+
+	@Override
+	public void tearDownSuite() throws Exception {
+		deleteProject(PRJ_NAME);
+		super.tearDownSuite();
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		for (String module : MODULES) {
+			final IFile file = getFile("/" + PRJ_NAME + "/src/" + module);
+			file.setContents(new ByteArrayInputStream(module.getBytes()),
+					IResource.FORCE, null);
+			getCoreCache().removeCacheEntryAttributes(getHandle(module),
+					INDEXED);
+		}
+		indexFile = File.createTempFile("manifest", ".index");
+		indexFile.delete();
+		index = new Index(indexFile.getPath(), getContainerPath().toString(),
+				false);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (String extension : new String[] { "", Index.SEGMENT_EXTENSION,
+				Index.TYPE_GRAPH_EXTENSION, Index.MANIFEST_EXTENSION }) {
+			new File(indexFile.getPath() + extension).delete();
+		}
+		super.tearDown();
+	}
+
+	private static IContentCache getCoreCache() {
+		return ModelManager.getModelManager().getCoreCache();
+	}
+
+	private ISourceModule getModule(String path) throws ModelException {
+		final ISourceModule module = getSourceModule(PRJ_NAME, "src", path);
+		assertNotNull(module);
+		assertTrue(module.exists());
+		return module;
+	}
+
+	private IFileHandle getHandle(String path) throws ModelException {
+		final IFileHandle handle = EnvironmentPathUtils.getFile(
+				getModule(path), false);
+		assertNotNull(handle);
+		return handle;
+	}
+
+	private List<ISourceModule> getModules() throws ModelException {
+		final List<ISourceModule> modules = new ArrayList<ISourceModule>();
+		for (String module : MODULES) {
+			modules.add(getModule(module));
+		}
+		return modules;
+	}
+
+	private IPath getContainerPath() {
+		return getScriptProject(PRJ_NAME).getPath().append("src");
+	}
+
+	private void addDocument(ISourceModule module) {
+		final String document = SourceIndexUtil.containerRelativePath(
+				getContainerPath(), module);
+		index.remove(document);
+		index.addIndexEntry(IIndexConstants.TYPE_DECL, module.getElementName()
+				.toCharArray(), document);
+	}
+
+	/**
+	 * Checks the changes with the saved manifest, applies them to the index
+	 * and saves the index and the manifest, like the index requests do.
+	 *
+	 * @return the paths of the changed documents
+	 */
+	private Set<String> update() throws Exception {
+		final IndexManifest manifest = IndexManifest.load(index);
+		final List<Object> changes = new TestRequest().check(index,
+				getModules(), getContainerPath(), manifest);
+		final Set<String> result = new HashSet<String>();
+		for (Object change : changes) {
+			if (change instanceof String) {
+				index.remove((String) change);
+				result.add((String) change);
+			} else {
+				final ISourceModule module = (ISourceModule) change;
+				addDocument(module);
+				result.add(SourceIndexUtil.containerRelativePath(
+						getContainerPath(), module));
+			}
+		}
+		index.save();
+		manifest.save(index);
+		return result;
+	}
+
+	private static Set<String> set(String... documents) {
+		final Set<String> result = new HashSet<String>();
+		for (String document : documents) {
+			result.add(document);
+		}
+		return result;
+	}
+
+	public void testInitial() throws Exception {
+		assertEquals(set(MODULES), update());
+	}
+
+	public void testUnchanged() throws Exception {
+		assertEquals(set(MODULES), update());
+		assertEquals(set(), update());
+		assertEquals(set(), update());
+	}
+
+	public void testTouchedSameContent() throws Exception {
+		assertEquals(set(MODULES), update());
+		final File file = getFile("/" + PRJ_NAME + "/src/a.txt").getLocation()
+				.toFile();
+		assertTrue(file.setLastModified(file.lastModified() + 10000));
+		assertEquals(set(), update());
+		// the verified content hash is saved with the new time stamp
+		assertEquals(set(), update());
+	}
+
+	public void testSizeChanged() throws Exception {
+		assertEquals(set(MODULES), update());
+		getFile("/" + PRJ_NAME + "/src/sub/c.txt").setContents(
+				new ByteArrayInputStream("changed content".getBytes()),
+				IResource.FORCE, null);
+		assertEquals(set("sub/c.txt"), update());
+		assertEquals(set(), update());
+	}
+
+	public void testStaleManifest() throws Exception {
+		assertEquals(set(MODULES), update());
+		// the index is saved by somebody else without updating the manifest
+		index.remove("sub/c.txt");
+		index.save();
+		getCoreCache().setCacheEntryAttribute(getHandle("a.txt"), INDEXED, "");
+		// the saved states are not trusted, the content cache is checked
+		assertEquals(set("b.txt", "sub/c.txt"), update());
+		assertEquals(set(), update());
+	}
+
+	public void testIndexedBeforeManifest() throws Exception {
+		for (ISourceModule module : getModules()) {
+			addDocument(module);
+		}
+		index.save();
+		getCoreCache().setCacheEntryAttribute(getHandle("a.txt"), INDEXED, "");
+		getCoreCache().setCacheEntryAttribute(getHandle("sub/c.txt"), INDEXED,
+				"");
+		assertEquals(set("b.txt"), update());
+		assertEquals(set(), update());
+	}
+
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.EntryResult;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+
+public class IndexQueryTests extends TestCase {
+
+	private static final String[] NAMES = { "Alpha", "AlphaBeta",
+			"AlphaBetaGamma", "alpha", "alphabet", "ABC", "AbstractBase",
+			"Beta", "BetaAlpha", "beta", "Gamma", "GammaRay", "gamma",
+			"Ärger", "ärger", "Z", "ZZ" };
+
+	private static final String[] KEYS = { "A", "a", "Alpha", "alpha", "AB",
+			"ab", "AlBe", "ABe", "Be", "b", "G*", "g*a", "*a", "A?pha*",
+			"Ä", "är", "Z", "X", "" };
+
+	private static final int[] RULES = {
+			SearchPattern.R_EXACT_MATCH,
+			SearchPattern.R_PREFIX_MATCH,
+			SearchPattern.R_PATTERN_MATCH,
+			SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_CAMELCASE_MATCH,
+			SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_PREFIX_MATCH,
+			SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_PREFIX_MATCH
+					| SearchPattern.R_CASE_SENSITIVE,
+			SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE };
+
+	private File indexFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		indexFile = File.createTempFile("query", ".index");
+		indexFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		indexFile.delete();
+		new File(indexFile.getPath() + Index.SEGMENT_EXTENSION).delete();
+		new File(indexFile.getPath() + Index.TYPE_GRAPH_EXTENSION).delete();
+		super.tearDown();
+	}
+
+	private Index createIndex(String[] names) throws IOException {
+		final Index index = new Index(indexFile.getPath(), "/container", false);
+		for (int i = 0; i < names.length; ++i) {
+			index.addIndexEntry(IIndexConstants.TYPE_DECL,
+					names[i].toCharArray(), "file" + (i % 10) + ".src");
+		}
+		index.compact();
+		return index;
+	}
+
+	private static List<String> query(Index index, String key, int matchRule)
+			throws IOException {
+		final List<String> result = new ArrayList<String>();
+		final EntryResult[] entries = index.query(
+				new char[][] { IIndexConstants.TYPE_DECL }, key.toCharArray(),
+				matchRule);
+		if (entries != null) {
+			for (EntryResult entry : entries) {
+				result.add(new String(entry.getWord()));
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private static List<String> expected(String key, int matchRule) {
+		final List<String> result = new ArrayList<String>();
+		for (String name : NAMES) {
+			if (Index.isMatch(key.toCharArray(), name.toCharArray(), matchRule)) {
+				result.add(name);
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	public void testMatchRules() throws IOException {
+		final Index index = createIndex(NAMES);
+		for (String key : KEYS) {
+			for (int rule : RULES) {
+				assertEquals(key + " / " + rule, expected(key, rule), query(
+						index, key, rule));
+			}
+		}
+	}
+
+	public void testLargeVocabulary() throws IOException {
+		final int count = 200000;
+		final String[] names = new String[count];
+		for (int i = 0; i < count; ++i) {
+			names[i] = "Type" + Integer.toString(i, 36) + "Name" + i;
+		}
+		final Index index = createIndex(names);
+		final int rule = SearchPattern.R_PREFIX_MATCH
+				| SearchPattern.R_CASE_SENSITIVE;
+		// the first query reads the category table and sorts the words
+		assertEquals(1, query(index, "Type0Name", rule).size());
+		for (int i = 0; i < 1000; ++i) {
+			assertEquals(1, query(index, "Type" + Integer.toString(i, 36)
+					+ "Name" + i, rule).size());
+		}
+	}
+
+	/**
+	 * The tables over 10000 words are not cached between the queries, so they
+	 * are read again by every query.
+	 */
+	public void testLargeTableQueries() throws IOException {
+		final int count = 20000;
+		final String[] names = new String[count];
+		for (int i = 0; i < count; ++i) {
+			names[i] = (i % 2 == 0 ? "Type" : "type") + Integer.toString(i, 36)
+					+ "Name" + i;
+		}
+		createIndex(names);
+		final Index index = new Index(indexFile.getPath(), "/container", true);
+		final String[] keys = { "Type1", "type1", "TypeZ", "Typ*Name1?",
+				"T1N", "x" };
+		for (int repeat = 0; repeat < 3; ++repeat) {
+			for (String key : keys) {
+				for (int rule : RULES) {
+					final List<String> expected = new ArrayList<String>();
+					for (String name : names) {
+						if (Index.isMatch(key.toCharArray(), name
+								.toCharArray(), rule)) {
+							expected.add(name);
+						}
+					}
+					Collections.sort(expected);
+					index.startQuery();
+					try {
+						assertEquals(key + " / " + rule, expected, query(index,
+								key, rule));
+					} finally {
+						index.stopQuery();
+					}
+				}
+			}
+		}
+	}
+
+}
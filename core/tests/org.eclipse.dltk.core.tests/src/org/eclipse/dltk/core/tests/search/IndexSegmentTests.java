@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.EntryResult;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+
+public class IndexSegmentTests extends TestCase {
+
+	private File indexFile;
+	private File segmentFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		indexFile = File.createTempFile("segment", ".index");
+		indexFile.delete();
+		segmentFile = new File(indexFile.getPath() + Index.SEGMENT_EXTENSION);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		indexFile.delete();
+		segmentFile.delete();
+		new File(indexFile.getPath() + Index.TYPE_GRAPH_EXTENSION).delete();
+		super.tearDown();
+	}
+
+	private static void addType(Index index, String document, String name) {
+		index.addIndexEntry(IIndexConstants.TYPE_DECL, name.toCharArray(),
+				document);
+	}
+
+	private static List<String> queryTypes(Index index) throws IOException {
+		final List<String> result = new ArrayList<String>();
+		final EntryResult[] entries = index.query(
+				new char[][] { IIndexConstants.TYPE_DECL }, null,
+				SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		if (entries != null) {
+			for (EntryResult entry : entries) {
+				for (String document : entry.getDocumentNames(index)) {
+					result.add(new String(entry.getWord()) + "@" + document);
+				}
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private Index reopen() throws IOException {
+		return new Index(indexFile.getPath(), "/container", true);
+	}
+
+	public void testSaveChangesToSegment() throws IOException {
+		final Index index = new Index(indexFile.getPath(), "/container", false);
+		addType(index, "a.src", "A");
+		index.save();
+		assertTrue(segmentFile.isFile());
+		assertFalse(index.hasChanged());
+		addType(index, "b.src", "B");
+		assertTrue(index.hasChanged());
+		index.save();
+		assertEquals("[A@a.src, B@b.src]", queryTypes(index).toString());
+		assertEquals("[A@a.src, B@b.src]", queryTypes(reopen()).toString());
+	}
+
+	public void testRemoveDocument() throws IOException {
+		final Index index = new Index(indexFile.getPath(), "/container", false);
+		addType(index, "a.src", "A");
+		addType(index, "b.src", "B");
+		index.compact();
+		assertFalse(segmentFile.exists());
+		final long length = indexFile.length();
+		index.remove("a.src");
+		index.save();
+		assertTrue(segmentFile.isFile());
+		assertEquals(length, indexFile.length());
+		assertEquals("[B@b.src]", queryTypes(index).toString());
+		assertEquals("[B@b.src]", queryTypes(reopen()).toString());
+	}
+
+	public void testCompact() throws IOException {
+		final Index index = new Index(indexFile.getPath(), "/container", false);
+		addType(index, "a.src", "A");
+		index.save();
+		index.remove("a.src");
+		addType(index, "a.src", "C");
+		index.save();
+		index.compact();
+		assertFalse(segmentFile.exists());
+		assertEquals("[C@a.src]", queryTypes(index).toString());
+		assertEquals("[C@a.src]", queryTypes(reopen()).toString());
+	}
+
+	public void testStaleSegmentIgnored() throws IOException {
+		final Index index = new Index(indexFile.getPath(), "/container", false);
+		addType(index, "a.src", "A");
+		index.compact();
+		addType(index, "b.src", "B");
+		index.save();
+		// the index file is recreated, so the segment doesn't belong to it
+		final Index recreated = new Index(indexFile.getPath(), "/container",
+				false);
+		assertFalse(segmentFile.exists());
+		assertTrue(queryTypes(recreated).isEmpty());
+	}
+
+}
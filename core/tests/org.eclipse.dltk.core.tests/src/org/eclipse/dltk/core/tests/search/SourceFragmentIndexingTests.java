@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.IBuildpathEntry;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IProjectIndexer;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.core.tests.model.ModifyingResourceTests;
+import org.eclipse.dltk.internal.core.mixin.MixinProjectIndexer;
+import org.eclipse.dltk.internal.core.search.ProjectIndexerManager;
+
+/**
+ * Checks the documents of the project index after the source folders are
+ * added to and removed from the buildpath.
+ */
+public class SourceFragmentIndexingTests extends ModifyingResourceTests {
+	private static final String PRJ_NAME = "SourceFragmentIndexing";
+
+	public SourceFragmentIndexingTests(String name) {
+		super(ModelTestsPlugin.PLUGIN_NAME, name);
+	}
+
+	public static Test suite() {
+		return new Suite(SourceFragmentIndexingTests.class);
+	}
+
+	private IScriptProject project;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createScriptProject(PRJ_NAME,
+				new String[] { ModelTestsPlugin.TEST_NATURE },
+				new String[] { "src" });
+		createFolder("/" + PRJ_NAME + "/src/nested");
+		createFolder("/" + PRJ_NAME + "/src2");
+		createFile("/" + PRJ_NAME + "/src/a.txt", "a");
+		createFile("/" + PRJ_NAME + "/src/nested/b.txt", "b");
+		createFile("/" + PRJ_NAME + "/src2/c.txt", "c");
+		waitUntilIndexesReady();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		deleteProject(PRJ_NAME);
+		super.tearDown();
+	}
+
+	private IProjectIndexer.Internal getIndexer() {
+		for (IProjectIndexer indexer : ProjectIndexerManager
+				.getIndexers(ModelTestsPlugin.TEST_NATURE)) {
+			if (indexer instanceof MixinProjectIndexer) {
+				return (IProjectIndexer.Internal) indexer;
+			}
+		}
+		fail("Mixin indexer is not enabled");
+		return null;
+	}
+
+	private Set<String> getDocuments() throws Exception {
+		waitUntilIndexesReady();
+		final Index index = getIndexer().getProjectIndex(project);
+		assertNotNull(index);
+		index.monitor.enterRead();
+		try {
+			return new HashSet<String>(Arrays.asList(index
+					.queryDocumentNames(null)));
+		} finally {
+			index.monitor.exitRead();
+		}
+	}
+
+	private static Set<String> set(String... documents) {
+		return new HashSet<String>(Arrays.asList(documents));
+	}
+
+	private IPath path(String folder) {
+		return new Path("/" + PRJ_NAME + "/" + folder);
+	}
+
+	private void setBuildpath(IBuildpathEntry... entries) throws Exception {
+		project.setRawBuildpath(entries, null);
+	}
+
+	/**
+	 * Returns the entry of the <code>src</code> folder excluding the
+	 * <code>nested</code> folder
+	 */
+	private IBuildpathEntry newOuterEntry() {
+		return DLTKCore.newSourceEntry(path("src"),
+				new IPath[] { new Path("nested/") });
+	}
+
+	public void testInitial() throws Exception {
+		assertEquals(set("src/a.txt", "src/nested/b.txt"), getDocuments());
+	}
+
+	public void testAddSourceFolder() throws Exception {
+		setBuildpath(DLTKCore.newSourceEntry(path("src")), DLTKCore
+				.newSourceEntry(path("src2")));
+		assertEquals(set("src/a.txt", "src/nested/b.txt", "src2/c.txt"),
+				getDocuments());
+	}
+
+	public void testRemoveSourceFolder() throws Exception {
+		setBuildpath(DLTKCore.newSourceEntry(path("src")), DLTKCore
+				.newSourceEntry(path("src2")));
+		assertEquals(set("src/a.txt", "src/nested/b.txt", "src2/c.txt"),
+				getDocuments());
+		setBuildpath(DLTKCore.newSourceEntry(path("src2")));
+		assertEquals(set("src2/c.txt"), getDocuments());
+	}
+
+	public void testNestedSourceFolder() throws Exception {
+		setBuildpath(newOuterEntry(), DLTKCore.newSourceEntry(path(
+				"src/nested")));
+		assertEquals(set("src/a.txt", "src/nested/b.txt"), getDocuments());
+		// the documents of the nested folder are kept, while the modules of
+		// the outer folder do not include them
+		getIndexer().indexProjectFragment(project, path("src"));
+		assertEquals(set("src/a.txt", "src/nested/b.txt"), getDocuments());
+		createFile("/" + PRJ_NAME + "/src/nested/d.txt", "d");
+		getIndexer().indexProjectFragment(project, path("src/nested"));
+		assertEquals(set("src/a.txt", "src/nested/b.txt", "src/nested/d.txt"),
+				getDocuments());
+	}
+
+	public void testRemoveNestedSourceFolder() throws Exception {
+		setBuildpath(newOuterEntry(), DLTKCore.newSourceEntry(path(
+				"src/nested")));
+		assertEquals(set("src/a.txt", "src/nested/b.txt"), getDocuments());
+		// the folder stays inside of the enclosing source folder, but is
+		// excluded from it
+		setBuildpath(newOuterEntry());
+		assertEquals(set("src/a.txt"), getDocuments());
+		// the folder is included into the enclosing source folder
+		setBuildpath(DLTKCore.newSourceEntry(path("src")));
+		assertEquals(set("src/a.txt", "src/nested/b.txt"), getDocuments());
+	}
+
+}
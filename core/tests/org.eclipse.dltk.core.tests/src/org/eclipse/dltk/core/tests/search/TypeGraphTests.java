@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.index.TypeGraph;
+import org.eclipse.dltk.core.search.indexing.IIndexConstants;
+import org.eclipse.dltk.internal.core.search.matching.SuperTypeReferencePattern;
+
+public class TypeGraphTests extends TestCase {
+
+	private File indexFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		indexFile = File.createTempFile("typegraph", ".index");
+		indexFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		indexFile.delete();
+		new File(indexFile.getPath() + Index.TYPE_GRAPH_EXTENSION).delete();
+		new File(indexFile.getPath() + Index.SEGMENT_EXTENSION).delete();
+		super.tearDown();
+	}
+
+	private static void addType(Index index, String document, String name,
+			String superName, String[] enclosingTypeNames) {
+		index.addIndexEntry(IIndexConstants.SUPER_REF,
+				SuperTypeReferencePattern.createIndexKey(0, null, name,
+						enclosingTypeNames, null, IIndexConstants.TYPE_SUFFIX,
+						superName.toCharArray(), IIndexConstants.TYPE_SUFFIX),
+				document);
+	}
+
+	private static List<String> subTypes(TypeGraph graph, String superName) {
+		final List<String> result = new ArrayList<String>();
+		for (TypeGraph.Edge edge : graph.getSubTypes(superName)) {
+			result.add(edge.typeName + "@" + edge.document
+					+ (edge.local ? "(local)" : ""));
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private Index createIndex() throws IOException {
+		final Index index = new Index(indexFile.getPath(), "/container", false);
+		addType(index, "a.src", "A", "Base", null);
+		addType(index, "b.src", "B", "Base", null);
+		addType(index, "b.src", "C", "B", new String[] { "B" });
+		return index;
+	}
+
+	public void testIncrementalUpdates() throws IOException {
+		final Index index = createIndex();
+		final TypeGraph graph = index.getTypeGraph();
+		assertEquals("[A@a.src, B@b.src]", subTypes(graph, "Base").toString());
+		assertEquals(1, graph.getSuperTypes("C").size());
+		assertEquals("B", graph.getSuperTypes("C").get(0).superTypeName);
+		index.remove("b.src");
+		assertEquals("[A@a.src]", subTypes(graph, "Base").toString());
+		assertTrue(subTypes(graph, "B").isEmpty());
+		assertEquals(1, graph.size());
+	}
+
+	private byte[] readTypeGraphFile() throws IOException {
+		final File file = new File(indexFile.getPath()
+				+ Index.TYPE_GRAPH_EXTENSION);
+		final byte[] content = new byte[(int) file.length()];
+		final FileInputStream input = new FileInputStream(file);
+		try {
+			int offset = 0;
+			while (offset < content.length) {
+				final int count = input.read(content, offset, content.length
+						- offset);
+				assertTrue(count > 0);
+				offset += count;
+			}
+		} finally {
+			input.close();
+		}
+		return content;
+	}
+
+	public void testSaveAndLoad() throws IOException {
+		final Index index = createIndex();
+		index.compact();
+		assertTrue(new File(indexFile.getPath() + Index.TYPE_GRAPH_EXTENSION)
+				.isFile());
+		final Index reopened = new Index(indexFile.getPath(), "/container",
+				true);
+		final TypeGraph graph = reopened.getTypeGraph();
+		assertEquals(3, graph.size());
+		assertEquals("[A@a.src, B@b.src]", subTypes(graph, "Base").toString());
+		assertEquals("[C@b.src]", subTypes(graph, "B").toString());
+		assertEquals(3, graph.getSubTypes(null).size());
+	}
+
+	public void testSegmentSave() throws IOException {
+		final Index index = createIndex();
+		index.compact();
+		final byte[] saved = readTypeGraphFile();
+		index.remove("a.src");
+		addType(index, "d.src", "D", "Base", null);
+		index.save();
+		assertTrue(new File(indexFile.getPath() + Index.SEGMENT_EXTENSION)
+				.isFile());
+		// the segment save doesn't rewrite the type graph file
+		assertTrue(Arrays.equals(saved, readTypeGraphFile()));
+		final Index reopened = new Index(indexFile.getPath(), "/container",
+				true);
+		final TypeGraph graph = reopened.getTypeGraph();
+		assertEquals(3, graph.size());
+		assertEquals("[B@b.src, D@d.src]", subTypes(graph, "Base").toString());
+		assertEquals("[C@b.src]", subTypes(graph, "B").toString());
+		reopened.compact();
+		assertFalse(new File(indexFile.getPath() + Index.SEGMENT_EXTENSION)
+				.isFile());
+		final TypeGraph compacted = new Index(indexFile.getPath(),
+				"/container", true).getTypeGraph();
+		assertEquals("[B@b.src, D@d.src]", subTypes(compacted, "Base")
+				.toString());
+	}
+
+	public void testRebuildFromIndex() throws IOException {
+		final Index index = createIndex();
+		index.save();
+		new File(indexFile.getPath() + Index.TYPE_GRAPH_EXTENSION).delete();
+		final Index reopened = new Index(indexFile.getPath(), "/container",
+				true);
+		final TypeGraph graph = reopened.getTypeGraph();
+		assertEquals("[A@a.src, B@b.src]", subTypes(graph, "Base").toString());
+		assertEquals("[C@b.src]", subTypes(graph, "B").toString());
+	}
+
+}
@@ -3,12 +3,16 @@ package org.eclipse.dltk.ui.tests;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.eclipse.dltk.ui.tests.console.NioScriptConsoleIOTests;
+import org.eclipse.dltk.ui.tests.console.ScriptConsoleResponseParserTests;
 import org.eclipse.dltk.ui.tests.core.DLTKUILanguageManagerTests;
 import org.eclipse.dltk.ui.tests.core.ScriptElementLabelsTest;
 import org.eclipse.dltk.ui.tests.navigator.scriptexplorer.PackageExplorerTests;
 import org.eclipse.dltk.ui.tests.refactoring.ModelElementUtilTests;
 import org.eclipse.dltk.ui.tests.templates.ScriptTemplateContextTest;
+import org.eclipse.dltk.ui.tests.testing.FramedMessageDecoderTests;
 import org.eclipse.dltk.ui.tests.text.FloatNumberRuleTest;
+import org.eclipse.dltk.ui.tests.text.FoldingRegionTests;
 import org.eclipse.dltk.ui.tests.text.TodoHighlightingTest;
 
 public class AllTests {
@@ -24,6 +28,10 @@ public class AllTests {
 		suite.addTestSuite(ScriptTemplateContextTest.class);
 		suite.addTestSuite(TodoHighlightingTest.class);
 		suite.addTestSuite(FloatNumberRuleTest.class);
+		suite.addTestSuite(FoldingRegionTests.class);
+		suite.addTestSuite(FramedMessageDecoderTests.class);
+		suite.addTestSuite(ScriptConsoleResponseParserTests.class);
+		suite.addTestSuite(NioScriptConsoleIOTests.class);
 		// $JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.tests.console;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.console.IScriptConsoleInterpreter;
+import org.eclipse.dltk.console.IScriptConsoleOutputListener;
+import org.eclipse.dltk.console.InterpreterResponse;
+import org.eclipse.dltk.console.NioScriptConsoleIO;
+
+public class NioScriptConsoleIOTests extends TestCase {
+
+	private static final int TIMEOUT = 10000;
+
+	private ServerSocketChannel server;
+	private Socket remote;
+	private BufferedReader remoteInput;
+	private OutputStream remoteOutput;
+	private NioScriptConsoleIO io;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		server = ServerSocketChannel.open();
+		server.socket().bind(
+				new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+		final SocketChannel client = SocketChannel.open(server.socket()
+				.getLocalSocketAddress());
+		remote = server.accept().socket();
+		remote.setSoTimeout(TIMEOUT);
+		remoteInput = new BufferedReader(new InputStreamReader(remote
+				.getInputStream(), "UTF-8"));
+		remoteOutput = remote.getOutputStream();
+		respond("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<console><info id=\"test\"/></console>");
+		io = new NioScriptConsoleIO(client, TIMEOUT);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		io.close();
+		remote.close();
+		server.close();
+		super.tearDown();
+	}
+
+	private void respond(String body) throws IOException {
+		send(header(body) + body);
+	}
+
+	private static String header(String body) throws IOException {
+		return String.format("%010d", Integer.valueOf(body
+				.getBytes("UTF-8").length));
+	}
+
+	private void send(String data) throws IOException {
+		remoteOutput.write(data.getBytes("UTF-8"));
+		remoteOutput.flush();
+	}
+
+	private void expectRequest(String... lines) throws IOException {
+		for (String line : lines) {
+			assertEquals(line, remoteInput.readLine());
+		}
+	}
+
+	private static String interpreterResponse(String output) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><console>"
+				+ "<interpreter state=\"new\" stream=\"stdout\">" + output
+				+ "</interpreter></console>";
+	}
+
+	private static class OutputCollector implements
+			IScriptConsoleOutputListener {
+		final StringBuilder output = new StringBuilder();
+
+		public void outputReceived(String chunk, boolean isError) {
+			assertFalse(isError);
+			output.append(chunk);
+		}
+	}
+
+	public void testId() {
+		assertEquals("test", io.getId());
+	}
+
+	public void testStreamedOutput() throws IOException {
+		final Thread remoteThread = startRemote(new RemoteScript() {
+			public void run() throws IOException {
+				expectRequest("interpreter", "puts");
+				final String body = interpreterResponse("hello, world");
+				final int split = body.indexOf("world");
+				send(header(body) + body.substring(0, split));
+				send(body.substring(split));
+			}
+		});
+		final OutputCollector collector = new OutputCollector();
+		final InterpreterResponse response = io.execInterpreter("puts",
+				collector);
+		assertNotNull(response);
+		assertEquals(IScriptConsoleInterpreter.WAIT_NEW_COMMAND, response
+				.getState());
+		assertEquals("", response.getContent());
+		assertEquals("hello, world", collector.output.toString());
+		join(remoteThread);
+	}
+
+	public void testInterrupt() throws IOException {
+		final Thread remoteThread = startRemote(new RemoteScript() {
+			public void run() throws IOException {
+				expectRequest("interpreter", "loop");
+				final String body = interpreterResponse("first second");
+				final int split = body.indexOf("second");
+				send(header(body) + body.substring(0, split));
+				// the interrupt request is sent to the remote side
+				expectRequest("shell", "interrupt");
+				send(body.substring(split));
+				respond("<?xml version=\"1.0\" encoding=\"UTF-8\"?><console/>");
+				expectRequest("interpreter", "next");
+				respond(interpreterResponse("done"));
+			}
+		});
+		final OutputCollector collector = new OutputCollector() {
+			@Override
+			public void outputReceived(String chunk, boolean isError) {
+				super.outputReceived(chunk, isError);
+				if (output.toString().endsWith("first ")) {
+					io.cancel();
+				}
+			}
+		};
+		assertNull(io.execInterpreter("loop", collector));
+		assertEquals("first ", collector.output.toString());
+		// the rest of the interrupted response and the response to the
+		// interrupt request are skipped
+		final InterpreterResponse response = io.execInterpreter("next");
+		assertNotNull(response);
+		assertEquals("done", response.getContent());
+		join(remoteThread);
+	}
+
+	private interface RemoteScript {
+		void run() throws IOException;
+	}
+
+	private Throwable remoteError;
+
+	private Thread startRemote(final RemoteScript script) {
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					script.run();
+				} catch (Throwable e) {
+					remoteError = e;
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private void join(Thread thread) {
+		try {
+			thread.join(TIMEOUT);
+		} catch (InterruptedException e) {
+			fail(e.toString());
+		}
+		assertFalse(thread.isAlive());
+		if (remoteError != null) {
+			fail(remoteError.toString());
+		}
+	}
+
+}
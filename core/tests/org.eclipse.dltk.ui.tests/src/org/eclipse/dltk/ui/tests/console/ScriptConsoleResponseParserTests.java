@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.tests.console;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.console.ScriptConsoleResponseParser;
+import org.eclipse.dltk.console.ScriptConsoleResponseParser.Handler;
+
+public class ScriptConsoleResponseParserTests extends TestCase {
+
+	/**
+	 * Records the events, the adjacent text portions are merged, so the
+	 * result doesn't depend on the way the input is split.
+	 */
+	private static class RecordingHandler implements Handler {
+		final List<String> events = new ArrayList<String>();
+		final StringBuilder text = new StringBuilder();
+
+		public void startElement(String name, Map<String, String> attributes) {
+			flush();
+			events.add("start " + name + " "
+					+ new TreeMap<String, String>(attributes));
+		}
+
+		public void endElement(String name) {
+			flush();
+			events.add("end " + name);
+		}
+
+		public void text(String value) {
+			assertTrue(value.length() != 0);
+			text.append(value);
+		}
+
+		void flush() {
+			if (text.length() != 0) {
+				events.add("text " + text);
+				text.setLength(0);
+			}
+		}
+	}
+
+	private static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<response><!-- comment with <tags> & -->"
+			+ "<interpreter state=\"new\" stream='stdout' title=\"a &lt;&amp;&gt; &#65;\">"
+			+ "caf\u00E9 \u20AC \uD83D\uDE00 &lt;x&gt; &quot;&apos; &#x42;&#67;"
+			+ "<![CDATA[<raw> & ]]]]>text</interpreter><empty a=\"1\"/></response>";
+
+	private static final List<String> EXPECTED = Arrays.asList("text \n",
+			"start response {}",
+			"start interpreter {state=new, stream=stdout, title=a <&> A}",
+			"text caf\u00E9 \u20AC \uD83D\uDE00 <x> \"' BC<raw> & ]]text",
+			"end interpreter", "start empty {a=1}", "end empty",
+			"end response");
+
+	private static List<String> parse(byte[] bytes, int chunk) {
+		final RecordingHandler handler = new RecordingHandler();
+		final ScriptConsoleResponseParser parser = new ScriptConsoleResponseParser(
+				handler);
+		for (int offset = 0; offset < bytes.length; offset += chunk) {
+			parser.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunk,
+					bytes.length - offset)));
+		}
+		parser.end();
+		handler.flush();
+		return handler.events;
+	}
+
+	private static List<String> parse(String response)
+			throws UnsupportedEncodingException {
+		final byte[] bytes = response.getBytes("UTF-8");
+		return parse(bytes, bytes.length);
+	}
+
+	public void testResponse() throws UnsupportedEncodingException {
+		assertEquals(EXPECTED, parse(RESPONSE));
+	}
+
+	public void testSplitResponse() throws UnsupportedEncodingException {
+		final byte[] bytes = RESPONSE.getBytes("UTF-8");
+		for (int chunk = 1; chunk <= 16; ++chunk) {
+			assertEquals("chunk " + chunk, EXPECTED, parse(bytes, chunk));
+		}
+	}
+
+	public void testSplitEverywhere() throws UnsupportedEncodingException {
+		final byte[] bytes = RESPONSE.getBytes("UTF-8");
+		for (int split = 0; split <= bytes.length; ++split) {
+			final RecordingHandler handler = new RecordingHandler();
+			final ScriptConsoleResponseParser parser = new ScriptConsoleResponseParser(
+					handler);
+			parser.feed(ByteBuffer.wrap(bytes, 0, split));
+			parser.feed(ByteBuffer.wrap(bytes, split, bytes.length - split));
+			parser.end();
+			handler.flush();
+			assertEquals("split " + split, EXPECTED, handler.events);
+		}
+	}
+
+	public void testPartialText() throws UnsupportedEncodingException {
+		final RecordingHandler handler = new RecordingHandler();
+		final ScriptConsoleResponseParser parser = new ScriptConsoleResponseParser(
+				handler);
+		parser.feed(ByteBuffer.wrap("<interpreter>first ".getBytes("UTF-8")));
+		// the text is delivered before the response is completed
+		assertEquals("first ", handler.text.toString());
+		final byte[] euro = "\u20AC".getBytes("UTF-8");
+		parser.feed(ByteBuffer.wrap(euro, 0, 1));
+		assertEquals("first ", handler.text.toString());
+		parser.feed(ByteBuffer.wrap(euro, 1, euro.length - 1));
+		assertEquals("first \u20AC", handler.text.toString());
+		parser.feed(ByteBuffer.wrap("&am".getBytes("UTF-8")));
+		assertEquals("first \u20AC", handler.text.toString());
+		parser.feed(ByteBuffer.wrap("p;<![CDATA[x]".getBytes("UTF-8")));
+		assertEquals("first \u20AC&", handler.text.toString());
+		parser.feed(ByteBuffer.wrap("]>second</interpreter>".getBytes("UTF-8")));
+		parser.end();
+		handler.flush();
+		assertEquals(Arrays.asList("start interpreter {}",
+				"text first \u20AC&xsecond", "end interpreter"), handler.events);
+	}
+
+	public void testUnknownEntities() throws UnsupportedEncodingException {
+		assertEquals(Arrays.asList("start a {}",
+				"text &foo; &#xZZ; & b &verylongentity;", "end a"),
+				parse("<a>&foo; &#xZZ; & b &verylongentity;</a>"));
+	}
+
+	public void testIncompleteEntityAtEnd()
+			throws UnsupportedEncodingException {
+		assertEquals(Arrays.asList("start a {}", "text x &amp"),
+				parse("<a>x &amp"));
+	}
+
+	public void testTruncatedCharacter() throws UnsupportedEncodingException {
+		final byte[] euro = "\u20AC".getBytes("UTF-8");
+		final RecordingHandler handler = new RecordingHandler();
+		final ScriptConsoleResponseParser parser = new ScriptConsoleResponseParser(
+				handler);
+		parser.feed(ByteBuffer.wrap("<a>".getBytes("UTF-8")));
+		parser.feed(ByteBuffer.wrap(euro, 0, 2));
+		parser.end();
+		handler.flush();
+		assertEquals(Arrays.asList("start a {}", "text \uFFFD"),
+				handler.events);
+	}
+
+}
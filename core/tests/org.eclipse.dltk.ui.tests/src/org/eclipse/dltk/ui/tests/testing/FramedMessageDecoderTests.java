@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.tests.testing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.internal.testing.model.FramedMessageDecoder;
+import org.eclipse.dltk.internal.testing.model.FramedMessageEncoder;
+import org.eclipse.dltk.internal.testing.model.ITestRunFramedProtocol;
+import org.eclipse.dltk.internal.testing.model.ITestRunListener2;
+
+public class FramedMessageDecoderTests extends TestCase {
+
+	/**
+	 * Returns at most the specified number of bytes from every read.
+	 */
+	private static class ChunkedInputStream extends ByteArrayInputStream {
+		private final int chunk;
+
+		public ChunkedInputStream(byte[] data, int chunk) {
+			super(data);
+			this.chunk = chunk;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, chunk));
+		}
+	}
+
+	private static class RecordingListener implements ITestRunListener2 {
+		final List<String> events = new ArrayList<String>();
+
+		public void testRunStarted(int testCount) {
+			events.add("runStarted " + testCount);
+		}
+
+		public void testRunEnded(long elapsedTime) {
+			events.add("runEnded " + elapsedTime);
+		}
+
+		public void testRunStopped(long elapsedTime) {
+			events.add("runStopped " + elapsedTime);
+		}
+
+		public void testStarted(String testId, String testName) {
+			events.add("started " + testId + " " + testName);
+		}
+
+		public void testEnded(String testId, String testName) {
+			events.add("ended " + testId + " " + testName);
+		}
+
+		public void testRunTerminated() {
+			events.add("terminated");
+		}
+
+		public void testTreeEntry(String description) {
+			events.add("tree " + description);
+		}
+
+		public void testTreeEntry(String testId, String testName,
+				boolean isSuite, int testCount) {
+			events.add("tree " + testId + " " + testName + " " + isSuite + " "
+					+ testCount);
+		}
+
+		public void testFailed(int status, String testId, String testName,
+				String trace, String expected, String actual, int failedCode) {
+			events.add("failed " + status + " " + testId + " " + testName + " "
+					+ trace + " " + expected + " " + actual + " " + failedCode);
+		}
+
+		public void testReran(String testId, String testClass,
+				String testName, int status, String trace, String expected,
+				String actual) {
+			events.add("reran " + testId + " " + testClass + " " + testName
+					+ " " + status + " " + trace + " " + expected + " "
+					+ actual);
+		}
+	}
+
+	private static final List<String> EXPECTED_EVENTS = Arrays.asList(
+			"runStarted 2", "tree 1 Suite true 2", "tree 2 test\u00E4 false 1",
+			"tree 3 test2 false 1", "started 2 test\u00E4",
+			"failed 2 2 test\u00E4 trace expected null -1",
+			"ended 2 test\u00E4", "started 3 test2", "ended 3 test2",
+			"reran 3 Suite test2 0 ok null null", "runStopped 7",
+			"runEnded 1234567890123");
+
+	private static byte[] encodeRun() throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final FramedMessageEncoder encoder = new FramedMessageEncoder(output);
+		encoder.testRunStarted(2);
+		encoder.testTreeEntry("1", "Suite", true, 2);
+		encoder.testTreeEntry("2", "test\u00E4", false, 1);
+		encoder.testTreeEntry("3", "test2", false, 1);
+		encoder.testStarted("2", "test\u00E4");
+		encoder.testFailed(ITestRunListener2.STATUS_FAILURE, "2", "test\u00E4",
+				"trace", "expected", null, -1);
+		encoder.testEnded("2", "test\u00E4");
+		encoder.testStarted("3", "test2");
+		encoder.testEnded("3", "test2");
+		encoder.testReran("3", "Suite", "test2", ITestRunListener2.STATUS_OK,
+				"ok", null, null);
+		encoder.testRunStopped(7);
+		encoder.testRunEnded(1234567890123L);
+		encoder.flush();
+		return output.toByteArray();
+	}
+
+	private static List<String> decode(InputStream input) throws IOException {
+		assertTrue(FramedMessageDecoder.detect(input));
+		final RecordingListener listener = new RecordingListener();
+		new FramedMessageDecoder(input, listener).run();
+		return listener.events;
+	}
+
+	private static byte[] header() throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(ITestRunFramedProtocol.MAGIC);
+		data.writeInt(ITestRunFramedProtocol.VERSION);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Returns the stream header followed by the frame with the specified
+	 * length and content.
+	 */
+	private static byte[] frame(int length, byte... content)
+			throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final DataOutputStream data = new DataOutputStream(output);
+		data.write(header());
+		data.writeInt(length);
+		data.write(content);
+		return output.toByteArray();
+	}
+
+	private static void assertInvalid(byte[] data) {
+		try {
+			decode(new ByteArrayInputStream(data));
+			fail("IOException expected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testMergedFrames() throws IOException {
+		assertEquals(EXPECTED_EVENTS, decode(new ByteArrayInputStream(
+				encodeRun())));
+	}
+
+	public void testSplitFrames() throws IOException {
+		final byte[] data = encodeRun();
+		for (int chunk = 1; chunk <= 16; ++chunk) {
+			assertEquals("chunk " + chunk, EXPECTED_EVENTS,
+					decode(new ChunkedInputStream(data, chunk)));
+		}
+	}
+
+	public void testLargeFrame() throws IOException {
+		final char[] chars = new char[10000];
+		Arrays.fill(chars, 'x');
+		final String trace = new String(chars);
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final FramedMessageEncoder encoder = new FramedMessageEncoder(output);
+		encoder.testFailed(ITestRunListener2.STATUS_ERROR, "1", "test", trace,
+				null, null, 0);
+		encoder.testEnded("1", "test");
+		encoder.flush();
+		assertEquals(Arrays.asList("failed 1 1 test " + trace
+				+ " null null 0", "ended 1 test"), decode(new ChunkedInputStream(
+				output.toByteArray(), 1000)));
+	}
+
+	public void testUnknownOpcode() throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		output.write(frame(3, (byte) 100, (byte) 1, (byte) 2));
+		final DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(5);
+		data.writeByte(ITestRunFramedProtocol.RUN_START);
+		data.writeInt(3);
+		assertEquals(Arrays.asList("runStarted 3"), decode(
+				new ByteArrayInputStream(output.toByteArray())));
+	}
+
+	public void testLineProtocol() throws IOException {
+		final byte[] data = "%TESTC  1 v2\n".getBytes("UTF-8");
+		final InputStream input = new ByteArrayInputStream(data);
+		assertFalse(FramedMessageDecoder.detect(input));
+		final byte[] read = new byte[data.length];
+		assertEquals(data.length, input.read(read));
+		assertTrue(Arrays.equals(data, read));
+	}
+
+	public void testShortStream() throws IOException {
+		final InputStream input = new ByteArrayInputStream(new byte[] { 1, 2 });
+		assertFalse(FramedMessageDecoder.detect(input));
+		assertEquals(1, input.read());
+	}
+
+	public void testUnsupportedVersion() throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(ITestRunFramedProtocol.MAGIC);
+		data.writeInt(ITestRunFramedProtocol.VERSION + 1);
+		try {
+			FramedMessageDecoder.detect(new ByteArrayInputStream(output
+					.toByteArray()));
+			fail("IOException expected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testEmptyFrame() throws IOException {
+		assertInvalid(frame(0));
+	}
+
+	public void testNegativeFrameLength() throws IOException {
+		assertInvalid(frame(-1, ITestRunFramedProtocol.RUN_START));
+	}
+
+	public void testOversizedFrame() throws IOException {
+		assertInvalid(frame(ITestRunFramedProtocol.MAX_FRAME_LENGTH + 1,
+				ITestRunFramedProtocol.RUN_START));
+	}
+
+	public void testTruncatedLength() throws IOException {
+		final byte[] data = frame(5, ITestRunFramedProtocol.RUN_START,
+				(byte) 0, (byte) 0, (byte) 0, (byte) 1);
+		try {
+			decode(new ByteArrayInputStream(data, 0, header().length + 2));
+			fail("EOFException expected");
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+
+	public void testTruncatedFrame() throws IOException {
+		try {
+			decode(new ByteArrayInputStream(frame(5,
+					ITestRunFramedProtocol.RUN_START, (byte) 0, (byte) 0)));
+			fail("EOFException expected");
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+
+	public void testTruncatedPayload() throws IOException {
+		try {
+			decode(new ByteArrayInputStream(frame(3,
+					ITestRunFramedProtocol.RUN_START, (byte) 0, (byte) 0)));
+			fail("EOFException expected");
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+
+	public void testInvalidStringLength() throws IOException {
+		assertInvalid(frame(5, ITestRunFramedProtocol.TEST_START, (byte) 0xFF,
+				(byte) 0xFF, (byte) 0xFF, (byte) 0xFB));
+	}
+
+	public void testStringOutOfFrame() throws IOException {
+		assertInvalid(frame(7, ITestRunFramedProtocol.TEST_START, (byte) 0,
+				(byte) 0, (byte) 0, (byte) 10, (byte) 'a', (byte) 'b'));
+	}
+
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.tests.testing;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+import org.eclipse.dltk.internal.testing.model.FramedMessageDecoder;
+import org.eclipse.dltk.internal.testing.model.FramedMessageEncoder;
+import org.eclipse.dltk.internal.testing.model.ITestRunListener2;
+import org.eclipse.dltk.testing.MessageIds;
+
+/**
+ * Replays the large synthetic test run using the framed or line based
+ * protocol. Used to measure the event ingestion performance:
+ *
+ * <ul>
+ * <li>without the <code>-port</code> argument the run is decoded in memory and
+ * the decoding throughput is reported</li>
+ * <li>with the <code>-port</code> argument the run is sent to the
+ * socket test runner client listening on the specified local port, so the
+ * whole path up to the test runner view could be measured</li>
+ * </ul>
+ *
+ * Arguments: <code>[-tests count] [-suite size] [-port port] [-lines]</code>
+ */
+public class TestRunLoadGenerator {
+
+	private int testCount = 100000;
+	private int suiteSize = 100;
+	private int port = -1;
+	private boolean lines = false;
+
+	public static void main(String[] args) throws IOException {
+		final TestRunLoadGenerator generator = new TestRunLoadGenerator();
+		for (int i = 0; i < args.length; ++i) {
+			if ("-tests".equals(args[i]) && i + 1 < args.length) {
+				generator.testCount = Integer.parseInt(args[++i]);
+			} else if ("-suite".equals(args[i]) && i + 1 < args.length) {
+				generator.suiteSize = Math.max(1, Integer.parseInt(args[++i]));
+			} else if ("-port".equals(args[i]) && i + 1 < args.length) {
+				generator.port = Integer.parseInt(args[++i]);
+			} else if ("-lines".equals(args[i])) {
+				generator.lines = true;
+			}
+		}
+		if (generator.port > 0) {
+			generator.replay();
+		} else {
+			generator.benchmark();
+		}
+	}
+
+	private void replay() throws IOException {
+		final Socket socket = new Socket("127.0.0.1", port);
+		try {
+			final long start = System.nanoTime();
+			final OutputStream output = new BufferedOutputStream(socket
+					.getOutputStream(), 64 * 1024);
+			generate(output);
+			output.flush();
+			report("sent", System.nanoTime() - start);
+		} finally {
+			socket.close();
+		}
+	}
+
+	private void benchmark() throws IOException {
+		if (lines) {
+			System.out.println("In memory mode supports framed protocol only");
+			return;
+		}
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		generate(output);
+		final byte[] data = output.toByteArray();
+		System.out.println("Generated " + data.length + " bytes");
+		for (int pass = 0; pass < 5; ++pass) {
+			final CountingListener listener = new CountingListener();
+			final ByteArrayInputStream input = new ByteArrayInputStream(data);
+			final long start = System.nanoTime();
+			if (!FramedMessageDecoder.detect(input)) {
+				throw new IOException("Invalid header");
+			}
+			new FramedMessageDecoder(input, listener).run();
+			report("decoded " + listener.events + " events,",
+					System.nanoTime() - start);
+		}
+	}
+
+	private void report(String action, long nanos) {
+		final double seconds = nanos / 1e9;
+		System.out.println(action + " " + testCount + " tests in "
+				+ Math.round(seconds * 1000) + " ms, "
+				+ Math.round(testCount / seconds) + " tests/s");
+	}
+
+	private void generate(OutputStream output) throws IOException {
+		if (lines) {
+			generateLines(output);
+		} else {
+			generateFrames(output);
+		}
+	}
+
+	private void generateFrames(OutputStream output) throws IOException {
+		final FramedMessageEncoder encoder = new FramedMessageEncoder(output);
+		encoder.testRunStarted(testCount);
+		int id = 0;
+		for (int suite = 0; suite * suiteSize < testCount; ++suite) {
+			final int size = Math.min(suiteSize, testCount - suite * suiteSize);
+			encoder.testTreeEntry(Integer.toString(++id), "Suite" + suite,
+					true, size);
+			final int first = id + 1;
+			for (int i = 0; i < size; ++i) {
+				encoder.testTreeEntry(Integer.toString(++id), testName(suite,
+						i), false, 1);
+			}
+			for (int i = 0; i < size; ++i) {
+				final String testId = Integer.toString(first + i);
+				final String testName = testName(suite, i);
+				encoder.testStarted(testId, testName);
+				if (isFailed(i)) {
+					encoder.testFailed(ITestRunListener2.STATUS_FAILURE,
+							testId, testName, trace(testName), "expected",
+							"actual", -1);
+				}
+				encoder.testEnded(testId, testName);
+			}
+		}
+		encoder.testRunEnded(1000);
+		encoder.flush();
+	}
+
+	private void generateLines(OutputStream output) throws IOException {
+		final PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+				output, "UTF-8"));
+		writer.println(MessageIds.TEST_RUN_START + testCount + " v2");
+		int id = 0;
+		for (int suite = 0; suite * suiteSize < testCount; ++suite) {
+			final int size = Math.min(suiteSize, testCount - suite * suiteSize);
+			writer.println(MessageIds.TEST_TREE + (++id) + ",Suite" + suite
+					+ ",true," + size);
+			final int first = id + 1;
+			for (int i = 0; i < size; ++i) {
+				writer.println(MessageIds.TEST_TREE + (++id) + ","
+						+ testName(suite, i) + ",false,1");
+			}
+			for (int i = 0; i < size; ++i) {
+				final String test = (first + i) + "," + testName(suite, i);
+				writer.println(MessageIds.TEST_START + test);
+				if (isFailed(i)) {
+					writer.println(MessageIds.TEST_FAILED + test);
+					writer.println(MessageIds.TRACE_START);
+					writer.println(trace(testName(suite, i)));
+					writer.println(MessageIds.TRACE_END);
+				}
+				writer.println(MessageIds.TEST_END + test);
+			}
+		}
+		writer.println(MessageIds.TEST_RUN_END + 1000);
+		writer.flush();
+	}
+
+	private static String testName(int suite, int index) {
+		return "test" + index + "(Suite" + suite + ")";
+	}
+
+	private static boolean isFailed(int index) {
+		return index % 50 == 49;
+	}
+
+	private static String trace(String testName) {
+		return "AssertionFailed in " + testName + "\n\tat line 1";
+	}
+
+	private static class CountingListener implements ITestRunListener2 {
+		int events;
+
+		public void testRunStarted(int testCount) {
+			++events;
+		}
+
+		public void testRunEnded(long elapsedTime) {
+			++events;
+		}
+
+		public void testRunStopped(long elapsedTime) {
+			++events;
+		}
+
+		public void testStarted(String testId, String testName) {
+			++events;
+		}
+
+		public void testEnded(String testId, String testName) {
+			++events;
+		}
+
+		public void testRunTerminated() {
+			++events;
+		}
+
+		public void testTreeEntry(String description) {
+			++events;
+		}
+
+		public void testTreeEntry(String testId, String testName,
+				boolean isSuite, int testCount) {
+			++events;
+		}
+
+		public void testFailed(int status, String testId, String testName,
+				String trace, String expected, String actual, int failedCode) {
+			++events;
+		}
+
+		public void testReran(String testId, String testClass,
+				String testName, int status, String trace, String expected,
+				String actual) {
+			++events;
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2010 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.ui.tests.text;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.ILog;
+import org.eclipse.dltk.ui.text.folding.AbstractASTFoldingStructureProvider;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+
+/**
+ * Checks that the folding helpers working on the source string return the
+ * same results as the previous implementation, which created the document
+ * and copied the substrings.
+ */
+public class FoldingRegionTests extends TestCase {
+
+	private static final String[] CONTENTS = { "", "a", "\n", "\r", "\r\n",
+			"a\nb\nc", "a\rb\rc", "a\r\nb\r\nc", "\r\n\r\n",
+			"a\nb\rc\r\nd\n\re\r\n\r\nf\r", "\n\r\r\n\n" };
+
+	private static class TestProvider extends
+			AbstractASTFoldingStructureProvider {
+		int minLines;
+
+		@Override
+		protected int getMinimalFoldableLinesCount() {
+			return minLines;
+		}
+
+		boolean isMultiline(String contents, IRegion region) {
+			return isMultilineRegion(contents, region);
+		}
+
+		@SuppressWarnings("deprecation")
+		boolean isMultilineDocument(String contents, IRegion region)
+				throws BadLocationException {
+			return isMultilineRegion(new Document(contents), region);
+		}
+
+		static int hash(String contents, int start, int end) {
+			return hashCode(contents, start, end);
+		}
+
+		@Override
+		protected String getPartition() {
+			return null;
+		}
+
+		@Override
+		protected String getCommentPartition() {
+			return null;
+		}
+
+		@Override
+		protected IPartitionTokenScanner getPartitionScanner() {
+			return null;
+		}
+
+		@Override
+		protected String getNatureId() {
+			return null;
+		}
+
+		@Override
+		protected String[] getPartitionTypes() {
+			return null;
+		}
+
+		@Override
+		protected ILog getLog() {
+			return null;
+		}
+	}
+
+	private final TestProvider provider = new TestProvider();
+
+	public void testMultilineMatchesDocument() throws BadLocationException {
+		for (int minLines = 0; minLines <= 4; ++minLines) {
+			provider.minLines = minLines;
+			for (String contents : CONTENTS) {
+				for (int offset = 0; offset <= contents.length(); ++offset) {
+					for (int length = 0; offset + length <= contents.length(); ++length) {
+						final IRegion region = new Region(offset, length);
+						assertEquals(
+								"min=" + minLines + " "
+										+ contents.replace("\r", "\\r")
+												.replace("\n", "\\n") + " "
+										+ offset + "/" + length, provider
+										.isMultilineDocument(contents, region),
+								provider.isMultiline(contents, region));
+					}
+				}
+			}
+		}
+	}
+
+	public void testCrLfSplitAtRegionEnd() {
+		provider.minLines = 0;
+		final String contents = "a\r\nb";
+		// ends between \r and \n, so still on the first line
+		assertFalse(provider.isMultiline(contents, new Region(0, 2)));
+		assertTrue(provider.isMultiline(contents, new Region(0, 3)));
+		// starts between \r and \n, the line ends after the region start
+		assertFalse(provider.isMultiline(contents, new Region(2, 0)));
+		assertTrue(provider.isMultiline(contents, new Region(2, 1)));
+	}
+
+	public void testDelimiters() {
+		provider.minLines = 3;
+		assertFalse(provider.isMultiline("a\nb", new Region(0, 3)));
+		assertTrue(provider.isMultiline("a\nb\nc", new Region(0, 5)));
+		assertTrue(provider.isMultiline("a\rb\rc", new Region(0, 5)));
+		assertTrue(provider.isMultiline("a\r\nb\r\nc", new Region(0, 7)));
+		assertFalse(provider.isMultiline("a\r\nb\r\nc", new Region(0, 5)));
+	}
+
+	public void testHashCode() {
+		final String contents = "class A {\r\n\tdef äß() {}\n}\r";
+		for (int start = 0; start <= contents.length(); ++start) {
+			for (int end = start; end <= contents.length(); ++end) {
+				assertEquals(start + "-" + end, contents.substring(start, end)
+						.hashCode(), TestProvider.hash(contents, start, end));
+			}
+		}
+	}
+
+	public void testHashCodeBounds() {
+		final String contents = "abc";
+		final int[][] bounds = { { -1, 2 }, { 0, 4 }, { 2, 1 } };
+		for (int[] bound : bounds) {
+			try {
+				TestProvider.hash(contents, bound[0], bound[1]);
+				fail("StringIndexOutOfBoundsException expected");
+			} catch (StringIndexOutOfBoundsException e) {
+				// expected, as substring() throws
+			}
+		}
+	}
+
+}